@@ -0,0 +1,227 @@
+package io.roach.pipeline.cloud;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.util.Locale;
+
+import org.apache.commons.compress.compressors.CompressorException;
+import org.apache.commons.compress.compressors.CompressorStreamFactory;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+
+import io.roach.pipeline.util.ReadAheadInputStream;
+
+/**
+ * A {@link Resource} decorator that transparently decompresses gzip, zstd, lz4 (framed)
+ * and bzip2 streams, detected by file extension or else by the leading magic bytes.
+ * Decompression runs on a separate thread ahead of the reader with a bounded buffer, so it
+ * overlaps with parsing. Uncompressed streams are passed through as-is.
+ * <p>
+ * A compressed resource is never reported as a file, since byte offsets in the file do not
+ * match the decompressed stream.
+ */
+public class DecompressingResource extends AbstractResource {
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private static final int READ_AHEAD_DEPTH = 16;
+
+    private static final int MAGIC_LENGTH = 6;
+
+    private static final CompressorStreamFactory compressorStreamFactory = new CompressorStreamFactory(true);
+
+    /**
+     * @param filename the file name (optional)
+     * @return the compressor name for the file extension, or null if none
+     */
+    public static String compressorForExtension(String filename) {
+        if (filename == null) {
+            return null;
+        }
+        String name = filename.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz") || name.endsWith(".gzip")) {
+            return CompressorStreamFactory.GZIP;
+        }
+        if (name.endsWith(".zst") || name.endsWith(".zstd")) {
+            return CompressorStreamFactory.ZSTANDARD;
+        }
+        if (name.endsWith(".lz4")) {
+            return CompressorStreamFactory.LZ4_FRAMED;
+        }
+        if (name.endsWith(".bz2")) {
+            return CompressorStreamFactory.BZIP2;
+        }
+        return null;
+    }
+
+    /**
+     * @param magic the leading bytes
+     * @param length the number of leading bytes
+     * @return the compressor name for the magic bytes, or null if none
+     */
+    public static String compressorForMagic(byte[] magic, int length) {
+        if (startsWith(magic, length, 0x1f, 0x8b)) {
+            return CompressorStreamFactory.GZIP;
+        }
+        if (startsWith(magic, length, 0x28, 0xb5, 0x2f, 0xfd)) {
+            return CompressorStreamFactory.ZSTANDARD;
+        }
+        if (startsWith(magic, length, 0x04, 0x22, 0x4d, 0x18)) {
+            return CompressorStreamFactory.LZ4_FRAMED;
+        }
+        if (startsWith(magic, length, 'B', 'Z', 'h')) {
+            return CompressorStreamFactory.BZIP2;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] bytes, int length, int... prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((bytes[i] & 0xff) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String detect(BufferedInputStream in) throws IOException {
+        in.mark(MAGIC_LENGTH);
+        byte[] magic = new byte[MAGIC_LENGTH];
+        int length = in.readNBytes(magic, 0, MAGIC_LENGTH);
+        in.reset();
+        return compressorForMagic(magic, length);
+    }
+
+    private final Resource delegate;
+
+    private volatile String compressor;
+
+    private volatile boolean detected;
+
+    public DecompressingResource(Resource delegate) {
+        Assert.notNull(delegate, "delegate is null");
+        this.delegate = delegate;
+    }
+
+    public Resource getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Resolve the compressor by extension, or else by magic bytes for local files only, to
+     * avoid an extra request for remote resources (detected when opened instead).
+     *
+     * @return the compressor name, or null if not compressed or not known yet
+     */
+    public String getCompressor() throws IOException {
+        if (!detected) {
+            String name = compressorForExtension(delegate.getFilename());
+            if (name == null && delegate.isFile()) {
+                try (BufferedInputStream in = new BufferedInputStream(delegate.getInputStream(), MAGIC_LENGTH)) {
+                    name = detect(in);
+                }
+            }
+            this.compressor = name;
+            this.detected = name != null || delegate.isFile();
+        }
+        return compressor;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        BufferedInputStream in = new BufferedInputStream(delegate.getInputStream(), BUFFER_SIZE);
+
+        String name = compressorForExtension(delegate.getFilename());
+        if (name == null) {
+            name = detect(in);
+        }
+        if (name == null) {
+            return in;
+        }
+
+        try {
+            InputStream decompressed = compressorStreamFactory.createCompressorInputStream(name, in);
+            return new ReadAheadInputStream(decompressed, BUFFER_SIZE, READ_AHEAD_DEPTH,
+                    "decompress-" + name + "-" + delegate.getFilename());
+        } catch (CompressorException e) {
+            in.close();
+            throw new IOException("Unable to decompress " + delegate.getDescription(), e);
+        }
+    }
+
+    @Override
+    public boolean exists() {
+        return delegate.exists();
+    }
+
+    @Override
+    public boolean isReadable() {
+        return delegate.isReadable();
+    }
+
+    @Override
+    public boolean isFile() {
+        try {
+            return delegate.isFile() && getCompressor() == null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public File getFile() throws IOException {
+        if (!isFile()) {
+            throw new FileNotFoundException(getDescription() + " is compressed or not a file");
+        }
+        return delegate.getFile();
+    }
+
+    @Override
+    public URL getURL() throws IOException {
+        return delegate.getURL();
+    }
+
+    @Override
+    public URI getURI() throws IOException {
+        return delegate.getURI();
+    }
+
+    @Override
+    public long lastModified() throws IOException {
+        return delegate.lastModified();
+    }
+
+    @Override
+    public Resource createRelative(String relativePath) throws IOException {
+        return new DecompressingResource(delegate.createRelative(relativePath));
+    }
+
+    @Override
+    public String getFilename() {
+        return delegate.getFilename();
+    }
+
+    @Override
+    public String getDescription() {
+        return delegate.getDescription();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof DecompressingResource
+                && delegate.equals(((DecompressingResource) other).delegate));
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate.hashCode();
+    }
+}
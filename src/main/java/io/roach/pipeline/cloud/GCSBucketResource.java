@@ -19,12 +19,13 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.util.UriUtils;
 
 import com.google.auth.oauth2.GoogleCredentials;
+import com.google.cloud.ReadChannel;
 import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
 
-public class GCSBucketResource extends AbstractFileResolvingResource {
+public class GCSBucketResource extends AbstractFileResolvingResource implements RangedResource {
     public static final String CREDENTIALS = "CREDENTIALS";
 
     public static final String AUTH = "AUTH";
@@ -43,6 +44,8 @@ public class GCSBucketResource extends AbstractFileResolvingResource {
 
     private final Map<String, String> allParams;
 
+    private volatile Blob blob;
+
     public GCSBucketResource(String resourceUri) {
         this(resourceUri, Collections.emptyMap());
     }
@@ -77,15 +80,35 @@ public class GCSBucketResource extends AbstractFileResolvingResource {
         return true;
     }
 
+    @Override
+    public long contentLength() throws IOException {
+        return getBlob().getSize();
+    }
+
     @Override
     public InputStream getInputStream() throws IOException {
-        String projectId = allParams.getOrDefault(GCE_PROJECT_ID, "");
-        InputStream credentialsInputStream = getCredentialsInpupStream();
-        StorageOptions options = StorageOptions.newBuilder()
-                .setProjectId(projectId)
-                .setCredentials(GoogleCredentials.fromStream(credentialsInputStream)).build();
-        Storage storage = options.getService();
-        return getBlobInputStream(storage, resourceUri.toString());
+        return Channels.newInputStream(getBlob().reader());
+    }
+
+    @Override
+    public InputStream getInputStream(long start, long end) throws IOException {
+        ReadChannel readChannel = getBlob().reader();
+        readChannel.seek(start);
+        readChannel.limit(end);
+        return Channels.newInputStream(readChannel);
+    }
+
+    private Blob getBlob() throws IOException {
+        if (blob == null) {
+            String projectId = allParams.getOrDefault(GCE_PROJECT_ID, "");
+            InputStream credentialsInputStream = getCredentialsInpupStream();
+            StorageOptions options = StorageOptions.newBuilder()
+                    .setProjectId(projectId)
+                    .setCredentials(GoogleCredentials.fromStream(credentialsInputStream)).build();
+            Storage storage = options.getService();
+            this.blob = getBlob(storage, resourceUri.toString());
+        }
+        return blob;
     }
 
     private InputStream getCredentialsInpupStream() throws IOException {
@@ -116,7 +139,7 @@ public class GCSBucketResource extends AbstractFileResolvingResource {
         return credentialsInputStream;
     }
 
-    private InputStream getBlobInputStream(Storage storage, String resourceUri) {
+    private Blob getBlob(Storage storage, String resourceUri) {
         if (resourceUri.startsWith("gs://")) {
             resourceUri = resourceUri.substring(4);
         }
@@ -131,7 +154,7 @@ public class GCSBucketResource extends AbstractFileResolvingResource {
         if (blob == null || !blob.exists()) {
             throw new IllegalArgumentException("Blob object does not exist: " + resourceUri);
         }
-        return Channels.newInputStream(blob.reader());
+        return blob;
     }
 }
 
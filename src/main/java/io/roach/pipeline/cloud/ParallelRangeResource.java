@@ -0,0 +1,138 @@
+package io.roach.pipeline.cloud;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import io.roach.pipeline.util.ParallelRangeInputStream;
+
+/**
+ * A {@link Resource} decorator that reads a {@link RangedResource} as concurrent ranged
+ * requests, returned to the reader as one ordered stream. This lifts the bandwidth limit
+ * of a single stream for large objects. Objects no larger than one part are read with a
+ * single request.
+ */
+public class ParallelRangeResource extends AbstractResource {
+    public static final String RANGE_PART_SIZE = "RANGE_PART_SIZE";
+
+    public static final String RANGE_PARALLELISM = "RANGE_PARALLELISM";
+
+    public static final int DEFAULT_PART_SIZE = 8 * 1024 * 1024;
+
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private final RangedResource delegate;
+
+    private final int partSize;
+
+    private final int parallelism;
+
+    public ParallelRangeResource(RangedResource delegate) {
+        this(delegate, Collections.emptyMap());
+    }
+
+    public ParallelRangeResource(RangedResource delegate, Map<String, String> allParams) {
+        Assert.notNull(delegate, "delegate is null");
+        this.delegate = delegate;
+        this.partSize = intParam(allParams, RANGE_PART_SIZE, DEFAULT_PART_SIZE);
+        this.parallelism = intParam(allParams, RANGE_PARALLELISM, DEFAULT_PARALLELISM);
+    }
+
+    private static int intParam(Map<String, String> allParams, String name, int defaultValue) {
+        String value = allParams.get(name);
+        if (!StringUtils.hasLength(value)) {
+            return defaultValue;
+        }
+        try {
+            int n = Integer.parseInt(value);
+            Assert.isTrue(n > 0, "[" + name + "] must be > 0");
+            return n;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad [" + name + "] value: " + value);
+        }
+    }
+
+    public RangedResource getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        long length = delegate.contentLength();
+        if (parallelism == 1 || length <= partSize) {
+            return delegate.getInputStream();
+        }
+        return new ParallelRangeInputStream(delegate::getInputStream, length, partSize, parallelism,
+                "range-" + delegate.getFilename());
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        return delegate.contentLength();
+    }
+
+    @Override
+    public boolean exists() {
+        return delegate.exists();
+    }
+
+    @Override
+    public boolean isReadable() {
+        return delegate.isReadable();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return delegate.isOpen();
+    }
+
+    @Override
+    public File getFile() throws IOException {
+        return delegate.getFile();
+    }
+
+    @Override
+    public URL getURL() throws IOException {
+        return delegate.getURL();
+    }
+
+    @Override
+    public URI getURI() throws IOException {
+        return delegate.getURI();
+    }
+
+    @Override
+    public long lastModified() throws IOException {
+        return delegate.lastModified();
+    }
+
+    @Override
+    public String getFilename() {
+        return delegate.getFilename();
+    }
+
+    @Override
+    public String getDescription() {
+        return delegate.getDescription();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof ParallelRangeResource
+                && delegate.equals(((ParallelRangeResource) other).delegate));
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate.hashCode();
+    }
+}
@@ -0,0 +1,19 @@
+package io.roach.pipeline.cloud;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.core.io.Resource;
+
+/**
+ * A {@link Resource} of known length that supports reading byte ranges, like an object
+ * in a cloud storage bucket.
+ */
+public interface RangedResource extends Resource {
+    /**
+     * @param start the first byte offset (inclusive)
+     * @param end the last byte offset (exclusive)
+     * @return a stream of the bytes in range
+     */
+    InputStream getInputStream(long start, long end) throws IOException;
+}
@@ -47,20 +47,22 @@ public abstract class ResourceResolver {
                         + "] must be relative to node local path ["
                         + nodeLocalPath + "]");
             }
-            return new FileSystemResource(resourcePathAbs);
+            return new DecompressingResource(new FileSystemResource(resourcePathAbs));
         }
         if (url.startsWith("http:") || url.startsWith("https:")) {
             try {
-                return new UrlResource(url);
+                return new DecompressingResource(new UrlResource(url));
             } catch (MalformedURLException e) {
                 throw new IllegalArgumentException(e);
             }
         }
         if (url.startsWith("s3:")) {
-            return new S3BucketResource(url, allParams);
+            return new DecompressingResource(
+                    new ParallelRangeResource(new S3BucketResource(url, allParams), allParams));
         }
         if (url.startsWith("gs:")) {
-            return new GCSBucketResource(url, allParams);
+            return new DecompressingResource(
+                    new ParallelRangeResource(new GCSBucketResource(url, allParams), allParams));
         }
 
         throw new IllegalArgumentException("No resource type matching scheme: " + url);
@@ -1,10 +1,19 @@
 package io.roach.pipeline.cloud;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import org.springframework.core.io.AbstractFileResolvingResource;
 import org.springframework.util.StringUtils;
@@ -16,21 +25,127 @@ import software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
 
-public class S3BucketResource extends AbstractFileResolvingResource {
+public class S3BucketResource extends AbstractFileResolvingResource implements RangedResource {
     public static final String AWS_ACCESS_KEY_ID = "AWS_ACCESS_KEY_ID";
 
     public static final String AWS_SECRET_ACCESS_KEY = "AWS_SECRET_ACCESS_KEY";
 
     public static final String AWS_DEFAULT_REGION = "AWS_DEFAULT_REGION";
 
+    public static final String AWS_ENDPOINT_URL = "AWS_ENDPOINT_URL";
+
+    static final int MAX_CLIENTS = 16;
+
+    /**
+     * Credentials are only kept as a digest, as the key outlives the jobs using it.
+     */
+    private record ClientKey(String credentialsDigest, String region, String endpointUrl) {
+    }
+
+    /**
+     * A shared client with the number of requests and open object streams using it.
+     */
+    static final class SharedClient {
+        private final S3Client client;
+
+        private int references;
+
+        private boolean evicted;
+
+        private SharedClient(S3Client client) {
+            this.client = client;
+        }
+
+        S3Client client() {
+            return client;
+        }
+    }
+
+    /**
+     * Clients are thread safe and hold a connection pool, so they are shared by all
+     * resources with the same credentials, region and endpoint. Beyond the max number of
+     * clients, the least recently used client is evicted and closed once no longer used by
+     * any request or open object stream. Remaining clients are closed on shutdown.
+     */
+    private static final LinkedHashMap<ClientKey, SharedClient> clients = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static boolean shutdownHookAdded;
+
+    static String digest(String accessKey, String secretAccessKey) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            messageDigest.update(accessKey.getBytes(StandardCharsets.UTF_8));
+            messageDigest.update((byte) 0);
+            messageDigest.update(secretAccessKey.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(messageDigest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Close and remove all shared clients.
+     */
+    public static synchronized void closeClients() {
+        clients.values().forEach(shared -> shared.client.close());
+        clients.clear();
+    }
+
+    static synchronized int clientCount() {
+        return clients.size();
+    }
+
+    private static synchronized SharedClient acquireClient(ClientKey key, Supplier<S3Client> clientFactory) {
+        SharedClient shared = clients.get(key);
+        if (shared == null) {
+            shared = new SharedClient(clientFactory.get());
+            clients.put(key, shared);
+
+            if (!shutdownHookAdded) {
+                Runtime.getRuntime().addShutdownHook(new Thread(S3BucketResource::closeClients, "s3-clients-close"));
+                shutdownHookAdded = true;
+            }
+
+            // Access ordered, so the eldest is the least recently used
+            Iterator<SharedClient> it = clients.values().iterator();
+            while (clients.size() > MAX_CLIENTS) {
+                SharedClient eldest = it.next();
+                it.remove();
+                eldest.evicted = true;
+                if (eldest.references == 0) {
+                    eldest.client.close();
+                }
+            }
+        }
+        shared.references++;
+        return shared;
+    }
+
+    /**
+     * Release a client acquired by {@link #acquireClient()}, closing it if evicted and
+     * no longer used.
+     */
+    static synchronized void releaseClient(SharedClient shared) {
+        if (--shared.references == 0 && shared.evicted) {
+            shared.client.close();
+        }
+    }
+
     private final URI resourceUri;
 
     private final S3UriHelper resourceUriHelper;
 
     private final Map<String, String> allParams;
 
+    private volatile long contentLength = -1;
+
+    private volatile String eTag;
+
     public S3BucketResource(String resourceUri) {
         this(resourceUri, Collections.emptyMap());
     }
@@ -67,33 +182,107 @@ public class S3BucketResource extends AbstractFileResolvingResource {
     }
 
     @Override
-    public InputStream getInputStream() {
-        final S3Client s3Client;
-
-        String accessKey = allParams.getOrDefault("AWS_ACCESS_KEY_ID", "");
-        String secretAccessKey = allParams.getOrDefault("AWS_SECRET_ACCESS_KEY", "");
-        String region = allParams.getOrDefault("AWS_DEFAULT_REGION", resourceUriHelper.getRegion());
-
-        if (!StringUtils.hasLength(accessKey)) {
-            s3Client = S3Client.builder()
-                    .credentialsProvider(ProfileCredentialsProvider.create())
-                    .build();
-        } else {
-            AwsCredentialsProvider credentialsProvider = StaticCredentialsProvider
-                    .create(AwsBasicCredentials.create(accessKey, secretAccessKey));
-
-            s3Client = S3Client.builder()
-                    .region(Region.of(region))
-                    .credentialsProvider(credentialsProvider)
+    public long contentLength() {
+        if (contentLength < 0) {
+            HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+                    .bucket(resourceUriHelper.getBucket())
+                    .versionId(resourceUriHelper.getVersionId())
+                    .key(resourceUriHelper.getKey())
                     .build();
+            SharedClient shared = acquireClient();
+            try {
+                HeadObjectResponse headObjectResponse = shared.client.headObject(headObjectRequest);
+                this.eTag = headObjectResponse.eTag();
+                this.contentLength = headObjectResponse.contentLength();
+            } finally {
+                releaseClient(shared);
+            }
         }
+        return contentLength;
+    }
 
+    @Override
+    public InputStream getInputStream() {
         GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                 .bucket(resourceUriHelper.getBucket())
                 .versionId(resourceUriHelper.getVersionId())
                 .key(resourceUriHelper.getKey())
                 .build();
 
-        return s3Client.getObject(getObjectRequest);
+        return getObject(getObjectRequest);
+    }
+
+    /**
+     * Ranges are conditional on the entity tag seen by {@link #contentLength()}, so an
+     * object replaced while reading fails the read rather than mixing versions.
+     */
+    @Override
+    public InputStream getInputStream(long start, long end) {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(resourceUriHelper.getBucket())
+                .versionId(resourceUriHelper.getVersionId())
+                .key(resourceUriHelper.getKey())
+                .range("bytes=" + start + "-" + (end - 1))
+                .ifMatch(eTag)
+                .build();
+
+        return getObject(getObjectRequest);
+    }
+
+    /**
+     * @return the object stream, holding on to the client until closed
+     */
+    private InputStream getObject(GetObjectRequest getObjectRequest) {
+        final SharedClient shared = acquireClient();
+        try {
+            return new FilterInputStream(shared.client.getObject(getObjectRequest)) {
+                private boolean released;
+
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        if (!released) {
+                            released = true;
+                            releaseClient(shared);
+                        }
+                    }
+                }
+            };
+        } catch (RuntimeException e) {
+            releaseClient(shared);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the shared client for this resource, to be released by {@link #releaseClient(SharedClient)}
+     */
+    SharedClient acquireClient() {
+        String accessKey = allParams.getOrDefault(AWS_ACCESS_KEY_ID, "");
+        String secretAccessKey = allParams.getOrDefault(AWS_SECRET_ACCESS_KEY, "");
+        String region = allParams.getOrDefault(AWS_DEFAULT_REGION, resourceUriHelper.getRegion());
+        String endpointUrl = allParams.getOrDefault(AWS_ENDPOINT_URL, "");
+
+        return acquireClient(new ClientKey(digest(accessKey, secretAccessKey), region, endpointUrl), () -> {
+            S3ClientBuilder builder = S3Client.builder();
+
+            if (!StringUtils.hasLength(accessKey)) {
+                builder.credentialsProvider(ProfileCredentialsProvider.create());
+            } else {
+                AwsCredentialsProvider credentialsProvider = StaticCredentialsProvider
+                        .create(AwsBasicCredentials.create(accessKey, secretAccessKey));
+                builder.region(Region.of(region))
+                        .credentialsProvider(credentialsProvider);
+            }
+
+            if (StringUtils.hasLength(endpointUrl)) {
+                builder.endpointOverride(URI.create(endpointUrl))
+                        .forcePathStyle(true);
+            }
+
+            return builder.build();
+        });
     }
 }
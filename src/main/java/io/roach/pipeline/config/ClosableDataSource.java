@@ -2,6 +2,7 @@ package io.roach.pipeline.config;
 
 import java.io.Closeable;
 import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.sql.DataSource;
 
@@ -16,7 +17,20 @@ import com.zaxxer.hikari.HikariDataSource;
 public class ClosableDataSource extends DelegatingDataSource implements Closeable, DisposableBean {
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
+    private final Runnable releaseAction;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
     public ClosableDataSource(DataSource dataSource) {
+        this(dataSource, null);
+    }
+
+    /**
+     * @param dataSource the pooled data source
+     * @param releaseAction action invoked once on close instead of closing the pool,
+     * for shared pools
+     */
+    public ClosableDataSource(DataSource dataSource, Runnable releaseAction) {
         super(dataSource);
 
         Assert.notNull(dataSource, "dataSource is null");
@@ -25,24 +39,30 @@ public class ClosableDataSource extends DelegatingDataSource implements Closeabl
         } catch (SQLException ex) {
             throw new IllegalStateException(ex);
         }
+        this.releaseAction = releaseAction;
     }
 
     @Override
     public void destroy() {
-        try {
-            HikariDataSource dataSource = unwrap(HikariDataSource.class);
-            logger.info("Closing (on destroy) datasource: {}", dataSource);
-            dataSource.close();
-        } catch (SQLException ex) {
-            throw new IllegalStateException(ex);
-        }
+        release("on destroy");
     }
 
     @Override
     public void close() {
+        release("on close");
+    }
+
+    private void release(String reason) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        if (releaseAction != null) {
+            releaseAction.run();
+            return;
+        }
         try {
             HikariDataSource dataSource = unwrap(HikariDataSource.class);
-            logger.info("Closing (on close) datasource: {}", dataSource);
+            logger.info("Closing ({}) datasource: {}", reason, dataSource);
             dataSource.close();
         } catch (SQLException ex) {
             throw new IllegalStateException(ex);
@@ -0,0 +1,214 @@
+package io.roach.pipeline.config;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.roach.pipeline.util.DataSourceProps;
+
+/**
+ * A reference counted cache of connection pools keyed by URL and credentials, so that
+ * jobs and template requests against the same database share a pool rather than opening
+ * a new pool each.
+ * <p>
+ * Each {@link #acquire(DataSourceProps)} returns a lease that releases the reference when
+ * closed, and the pool is closed when evicted after having no references for the idle
+ * timeout. The sum of max pool sizes is limited by a global connection budget: a shared
+ * pool grows to the largest requested concurrency and new pools are capped by the remaining
+ * budget, but always get at least one connection.
+ */
+public class DataSourceCache implements DisposableBean {
+    private static final class Key {
+        final String url;
+
+        final String userName;
+
+        final String password;
+
+        Key(DataSourceProps props) {
+            this.url = props.getUrl();
+            this.userName = props.getUserName();
+            this.password = props.getPassword();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(url, key.url)
+                    && Objects.equals(userName, key.userName)
+                    && Objects.equals(password, key.password);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(url, userName, password);
+        }
+    }
+
+    private static final class Entry {
+        final DataSource dataSource;
+
+        final HikariDataSource pool;
+
+        int references;
+
+        long releaseTime;
+
+        Entry(DataSource dataSource, HikariDataSource pool) {
+            this.dataSource = dataSource;
+            this.pool = pool;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>();
+
+    private final Function<DataSourceProps, DataSource> poolFactory;
+
+    private final int maxTotalConnections;
+
+    private final long idleTimeoutMillis;
+
+    private int sequence;
+
+    /**
+     * @param poolFactory factory for pooled data sources wrapping a {@link HikariDataSource}
+     * @param maxTotalConnections the global connection budget for all pools
+     * @param idleTimeout time without references before a pool is evicted
+     */
+    public DataSourceCache(Function<DataSourceProps, DataSource> poolFactory,
+                           int maxTotalConnections,
+                           Duration idleTimeout) {
+        Assert.isTrue(maxTotalConnections > 0, "maxTotalConnections must be > 0");
+        this.poolFactory = poolFactory;
+        this.maxTotalConnections = maxTotalConnections;
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+    }
+
+    /**
+     * Acquire a lease on a shared pool for the given properties, creating the pool or
+     * growing it to the requested concurrency within the connection budget.
+     *
+     * @param props the data source properties
+     * @return a data source lease to close when no longer used
+     */
+    public synchronized ClosableDataSource acquire(DataSourceProps props) {
+        final Key key = new Key(props);
+        final int requested = Math.max(1, props.getConcurrency());
+
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            int poolSize = Math.max(1, Math.min(requested, maxTotalConnections - totalConnections()));
+            if (poolSize < requested) {
+                logger.warn("Connection budget of {} exceeded - limiting pool for {} to {} connections",
+                        maxTotalConnections, props.getUrl(), poolSize);
+            }
+            DataSource dataSource = poolFactory.apply(props);
+            try {
+                entry = new Entry(dataSource, dataSource.unwrap(HikariDataSource.class));
+            } catch (SQLException ex) {
+                throw new IllegalStateException(ex);
+            }
+            // Pools are shared across jobs, so make the name unique (not started yet)
+            entry.pool.setPoolName(props.getName() + "-" + (++sequence));
+            resize(entry.pool, poolSize);
+            entries.put(key, entry);
+            logger.info("Created pool [{}] with {} connections for {}",
+                    entry.pool.getPoolName(), poolSize, props.getUrl());
+        } else {
+            int poolSize = entry.pool.getMaximumPoolSize();
+            if (requested > poolSize) {
+                int newPoolSize = Math.min(requested, poolSize + maxTotalConnections - totalConnections());
+                if (newPoolSize > poolSize) {
+                    resize(entry.pool, newPoolSize);
+                    logger.info("Increased pool [{}] to {} connections", entry.pool.getPoolName(), newPoolSize);
+                }
+            }
+        }
+
+        entry.references++;
+
+        final Entry leased = entry;
+        return new ClosableDataSource(entry.dataSource, () -> release(leased));
+    }
+
+    private void resize(HikariDataSource pool, int poolSize) {
+        // Both are changeable at runtime
+        pool.setMaximumPoolSize(poolSize);
+        pool.setMinimumIdle(poolSize);
+    }
+
+    private int totalConnections() {
+        return entries.values().stream().mapToInt(e -> e.pool.getMaximumPoolSize()).sum();
+    }
+
+    private synchronized void release(Entry entry) {
+        if (--entry.references <= 0) {
+            entry.references = 0;
+            entry.releaseTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Close and remove pools without references for longer than the idle timeout.
+     *
+     * @return the number of evicted pools
+     */
+    public synchronized int evictIdle() {
+        final long now = System.currentTimeMillis();
+        int evicted = 0;
+        for (var it = entries.values().iterator(); it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.references == 0 && now - entry.releaseTime >= idleTimeoutMillis) {
+                it.remove();
+                logger.info("Evicting idle pool [{}]", entry.pool.getPoolName());
+                entry.pool.close();
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * @return snapshot of the cached pools by pool name
+     */
+    public synchronized Map<String, HikariDataSource> getPools() {
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        entries.values().forEach(entry -> pools.put(entry.pool.getPoolName(), entry.pool));
+        return pools;
+    }
+
+    /**
+     * @return the number of leases per pool name
+     */
+    public synchronized Map<String, Integer> getReferences() {
+        Map<String, Integer> references = new LinkedHashMap<>();
+        entries.values().forEach(entry -> references.put(entry.pool.getPoolName(), entry.references));
+        return references;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        entries.values().forEach(entry -> entry.pool.close());
+        entries.clear();
+    }
+}
@@ -1,14 +1,19 @@
 package io.roach.pipeline.config;
 
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Scope;
+import org.springframework.scheduling.annotation.Scheduled;
 
 import com.zaxxer.hikari.HikariDataSource;
 
@@ -20,38 +25,57 @@ import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
 public class DataSourceConfiguration {
     public static final String SQL_TRACE_LOGGER = "io.roach.pipeline.SQL_TRACE";
 
+    @Value("${pipeline.datasource.pool.max-total-connections}")
+    private int maxTotalConnections;
+
+    @Value("${pipeline.datasource.pool.idle-timeout}")
+    private Duration idleTimeout;
+
+    @Bean
+    public DataSourceCache dataSourceCache() {
+        return new DataSourceCache(this::createDataSource, maxTotalConnections, idleTimeout);
+    }
+
+    @Scheduled(fixedDelay = 30, timeUnit = TimeUnit.SECONDS)
+    public void evictIdleDataSources() {
+        dataSourceCache().evictIdle();
+    }
+
     @Bean
     @Lazy
     @Scope(value = ConfigurableBeanFactory.SCOPE_PROTOTYPE)
     public Function<DataSourceProps, ClosableDataSource> dataSourceFactory() {
-        return props -> {
-            DataSourceProperties properties = new DataSourceProperties();
-            properties.setUrl(props.getUrl());
-            properties.setUsername(props.getUserName());
-            properties.setPassword(props.getPassword());
-            properties.setName(props.getName());
-
-            HikariDataSource ds = properties
-                    .initializeDataSourceBuilder()
-                    .type(HikariDataSource.class)
-                    .build();
-            ds.setMaximumPoolSize(Math.max(1, props.getConcurrency()));
-            ds.setMinimumIdle(Math.max(1, props.getConcurrency()));
-            ds.setKeepaliveTime(Duration.ofSeconds(60).toMillis()); // 60,000
-            ds.setMaxLifetime(Duration.ofMinutes(15).toMillis()); // 900,000
-            ds.setConnectionTimeout(Duration.ofSeconds(18).toMillis()); // 18,000
-            ds.setPoolName(props.getName());
-            ds.setAutoCommit(true);
-            ds.addDataSourceProperty("reWriteBatchedInserts", "true");
-            ds.addDataSourceProperty("application_name", props.getName());
-
-            return new ClosableDataSource(ProxyDataSourceBuilder
-                    .create(ds)
-                    .name(props.getName())
-                    .asJson()
-                    .logQueryBySlf4j(SLF4JLogLevel.TRACE, SQL_TRACE_LOGGER)
-                    .multiline()
-                    .build());
-        };
+        return dataSourceCache()::acquire;
+    }
+
+    private DataSource createDataSource(DataSourceProps props) {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl(props.getUrl());
+        properties.setUsername(props.getUserName());
+        properties.setPassword(props.getPassword());
+        properties.setName(props.getName());
+
+        HikariDataSource ds = properties
+                .initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        ds.setMaximumPoolSize(Math.max(1, props.getConcurrency()));
+        ds.setMinimumIdle(Math.max(1, props.getConcurrency()));
+        ds.setKeepaliveTime(Duration.ofSeconds(60).toMillis()); // 60,000
+        ds.setMaxLifetime(Duration.ofMinutes(15).toMillis()); // 900,000
+        ds.setConnectionTimeout(Duration.ofSeconds(18).toMillis()); // 18,000
+        ds.setPoolName(props.getName());
+        ds.setAutoCommit(true);
+        ds.addDataSourceProperty("reWriteBatchedInserts", "true");
+        ds.addDataSourceProperty("application_name", props.getName());
+
+        // Statements only go through the proxy while SQL trace logging is enabled
+        return new TraceableDataSource(ds, ProxyDataSourceBuilder
+                .create(ds)
+                .name(props.getName())
+                .asJson()
+                .logQueryBySlf4j(SLF4JLogLevel.TRACE, SQL_TRACE_LOGGER)
+                .multiline()
+                .build(), SQL_TRACE_LOGGER);
     }
 }
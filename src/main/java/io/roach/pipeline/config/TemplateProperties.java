@@ -11,6 +11,8 @@ public class TemplateProperties {
 
     private int pollTimeoutSeconds;
 
+    private int lingerMillis;
+
     private int chunkSize;
 
     private int concurrency;
@@ -46,6 +48,14 @@ public class TemplateProperties {
         this.pollTimeoutSeconds = pollTimeoutSeconds;
     }
 
+    public int getLingerMillis() {
+        return lingerMillis;
+    }
+
+    public void setLingerMillis(int lingerMillis) {
+        this.lingerMillis = lingerMillis;
+    }
+
     public int getChunkSize() {
         return chunkSize;
     }
@@ -0,0 +1,50 @@
+package io.roach.pipeline.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * A data source that hands out connections from a tracing proxy only while the SQL
+ * trace logger is enabled, and raw pool connections otherwise. The logger level is
+ * checked on each connection checkout, so toggling the level at runtime (via the shell
+ * or the actuator loggers endpoint) attaches or detaches the proxy for connections
+ * obtained after the change, without any proxy overhead on statements when disabled.
+ */
+public class TraceableDataSource extends DelegatingDataSource {
+    private final DataSource proxyDataSource;
+
+    private final Logger traceLogger;
+
+    /**
+     * @param targetDataSource the raw pool
+     * @param proxyDataSource the tracing proxy wrapping the same pool
+     * @param traceLoggerName the logger enabling the proxy at trace level
+     */
+    public TraceableDataSource(DataSource targetDataSource, DataSource proxyDataSource, String traceLoggerName) {
+        super(targetDataSource);
+        this.proxyDataSource = proxyDataSource;
+        this.traceLogger = LoggerFactory.getLogger(traceLoggerName);
+    }
+
+    public boolean isTracing() {
+        return traceLogger.isTraceEnabled();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return isTracing() ? proxyDataSource.getConnection() : obtainTargetDataSource().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return isTracing()
+                ? proxyDataSource.getConnection(username, password)
+                : obtainTargetDataSource().getConnection(username, password);
+    }
+}
@@ -1,6 +1,10 @@
 package io.roach.pipeline.item;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,24 +13,31 @@ import org.springframework.batch.core.configuration.DuplicateJobException;
 import org.springframework.batch.core.configuration.JobRegistry;
 import org.springframework.batch.core.configuration.support.ReferenceJobFactory;
 import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.job.builder.FlowBuilder;
 import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.job.flow.support.SimpleFlow;
 import org.springframework.batch.core.launch.JobLauncher;
 import org.springframework.batch.core.launch.JobOperator;
 import org.springframework.batch.core.launch.NoSuchJobException;
 import org.springframework.batch.core.launch.NoSuchJobExecutionException;
 import org.springframework.batch.core.launch.support.DataFieldMaxValueJobParametersIncrementer;
+import org.springframework.batch.core.partition.support.Partitioner;
 import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
 import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.repository.JobRestartException;
 import org.springframework.batch.core.step.builder.SimpleStepBuilder;
 import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.dao.TransientDataAccessException;
 import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
 import org.springframework.retry.backoff.ExponentialRandomBackOffPolicy;
@@ -34,14 +45,19 @@ import org.springframework.retry.policy.MaxAttemptsRetryPolicy;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionSystemException;
+import org.springframework.util.Assert;
+
+import io.roach.pipeline.item.jdbc.ContentionAwareItemWriter;
 
 @Component
 public class BatchJobLauncher {
     private static final Logger logger = LoggerFactory.getLogger(BatchJobLauncher.class);
 
+    private static final ItemProcessor<Object, Object> PASS_THROUGH_PROCESSOR = item -> item;
+
     @SuppressWarnings("unchecked")
     public static <I, O> ItemProcessor<I, O> passThroughItemProcessor() {
-        return item -> (O) item;
+        return (ItemProcessor<I, O>) PASS_THROUGH_PROCESSOR;
     }
 
     public static <T> ItemReadListener<List<T>> loggingReadListener(Resource inputResource) {
@@ -81,6 +97,21 @@ public class BatchJobLauncher {
     @Autowired
     private PlatformTransactionManager transactionManager;
 
+    @Value("${pipeline.retry.contention.enabled}")
+    private boolean contentionRetryEnabled;
+
+    @Value("${pipeline.retry.contention.max-attempts}")
+    private int contentionMaxAttempts;
+
+    @Value("${pipeline.retry.contention.initial-backoff}")
+    private Duration contentionInitialBackoff;
+
+    @Value("${pipeline.retry.contention.max-backoff}")
+    private Duration contentionMaxBackoff;
+
+    @Value("${pipeline.retry.contention.grow-after}")
+    private int contentionGrowAfter;
+
     public <I, O> JobExecution submitJob(BatchJobManifest batchJobManifest,
                                          ItemReader<I> itemReader,
                                          ItemWriter<O> itemWriter) throws JobExecutionException {
@@ -97,37 +128,182 @@ public class BatchJobLauncher {
                                          ItemProcessor<I, O> itemProcessor,
                                          ItemReadListener<? extends I> readListener,
                                          ItemWriteListener<? extends O> writeListener) throws JobExecutionException {
-        SimpleStepBuilder<I, O> stepBuilder = new StepBuilder("processingStep", jobRepository)
-                .<I, O>chunk(batchJobManifest.getChunkSize())
+        Step step = createStep("processingStep", batchJobManifest,
+                itemReader, itemWriter, itemProcessor, readListener, writeListener);
+
+        Job job = createJobBuilder(batchJobManifest)
+                .flow(step)
+                .end()
+                .build();
+
+        return launchJob(batchJobManifest, job);
+    }
+
+    /**
+     * Submit a job with a split flow of independent workers, where each worker is a separate
+     * step with its own reader and writer (and execution context) running concurrently.
+     *
+     * @param batchJobManifest the job manifest
+     * @param itemReaders the worker readers
+     * @param itemWriters the worker writers, one per reader
+     * @param itemProcessor the item processor shared by all workers
+     * @return the job execution
+     */
+    public <I, O> JobExecution submitJob(BatchJobManifest batchJobManifest,
+                                         List<? extends ItemReader<? extends I>> itemReaders,
+                                         List<? extends ItemWriter<? super O>> itemWriters,
+                                         ItemProcessor<I, O> itemProcessor) throws JobExecutionException {
+        Assert.notEmpty(itemReaders, "itemReaders must not be empty");
+        Assert.isTrue(itemReaders.size() == itemWriters.size(), "Expected one writer per reader");
+
+        List<Flow> flows = new ArrayList<>();
+        for (int i = 0; i < itemReaders.size(); i++) {
+            Step step = createStep("processingStep-" + i, batchJobManifest,
+                    itemReaders.get(i), itemWriters.get(i), itemProcessor,
+                    loggingReadListener(), loggingWriteListener());
+            flows.add(new FlowBuilder<SimpleFlow>("workerFlow-" + i)
+                    .start(step)
+                    .build());
+        }
+
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor(batchJobManifest.getName() + "-worker-");
+        taskExecutor.setConcurrencyLimit(flows.size());
+
+        Flow splitFlow = new FlowBuilder<SimpleFlow>("splitFlow")
+                .split(taskExecutor)
+                .add(flows.toArray(new Flow[] {}))
+                .build();
+
+        Job job = createJobBuilder(batchJobManifest)
+                .start(splitFlow)
+                .end()
+                .build();
+
+        return launchJob(batchJobManifest, job);
+    }
+
+    /**
+     * Submit a job with a partitioned step, where each partition is executed by a separate
+     * worker step with a reader created from the partition execution context. Partitions are
+     * executed concurrently up to the manifest concurrency, and failed partitions are
+     * restarted individually.
+     *
+     * @param batchJobManifest the job manifest
+     * @param partitioner the partitioner
+     * @param gridSize the number of partitions
+     * @param itemReaderFactory factory for partition readers
+     * @param itemWriter the writer shared by all partitions (must be thread safe)
+     * @param itemProcessor the item processor shared by all partitions
+     * @return the job execution
+     */
+    public <I, O> JobExecution submitJob(BatchJobManifest batchJobManifest,
+                                         Partitioner partitioner,
+                                         int gridSize,
+                                         Function<ExecutionContext, ItemReader<? extends I>> itemReaderFactory,
+                                         ItemWriter<? super O> itemWriter,
+                                         ItemProcessor<I, O> itemProcessor) throws JobExecutionException {
+        Step workerStep = new PartitionWorkerStep("workerStep", stepExecution ->
+                createStep(stepExecution.getStepName(), batchJobManifest,
+                        itemReaderFactory.apply(stepExecution.getExecutionContext()),
+                        itemWriter, itemProcessor,
+                        loggingReadListener(), loggingWriteListener()));
+
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor(batchJobManifest.getName() + "-partition-");
+        taskExecutor.setConcurrencyLimit(Math.max(1, batchJobManifest.getConcurrency()));
+
+        Step managerStep = new StepBuilder("processingStep", jobRepository)
+                .partitioner(workerStep.getName(), partitioner)
+                .step(workerStep)
+                .gridSize(gridSize)
+                .taskExecutor(taskExecutor)
+                .build();
+
+        Job job = createJobBuilder(batchJobManifest)
+                .flow(managerStep)
+                .end()
+                .build();
+
+        return launchJob(batchJobManifest, job);
+    }
+
+    private JobBuilder createJobBuilder(BatchJobManifest batchJobManifest) {
+        return new JobBuilder(batchJobManifest.getName(), jobRepository)
+                .incrementer(new DataFieldMaxValueJobParametersIncrementer(dataFieldMaxValueIncrementer))
+                .listener(new JobExecutionListener() {
+                    @Override
+                    public void afterJob(JobExecution jobExecution) {
+                        closeResources(batchJobManifest);
+                    }
+                });
+    }
+
+    private void closeResources(BatchJobManifest batchJobManifest) {
+        batchJobManifest.getCloseables().forEach(closeable -> {
+            try {
+                closeable.close();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Error closing job resource", e);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <I, O> Step createStep(String name,
+                                   BatchJobManifest batchJobManifest,
+                                   ItemReader<? extends I> itemReader,
+                                   ItemWriter<? super O> itemWriter,
+                                   ItemProcessor<I, O> itemProcessor,
+                                   ItemReadListener<? extends I> readListener,
+                                   ItemWriteListener<? extends O> writeListener) {
+        if (batchJobManifest.isFaultTolerant() && contentionRetryEnabled) {
+            // Retry contention errors on the failed part of a chunk before retrying the chunk
+            itemWriter = ContentionAwareItemWriter.builder()
+                    .setMaxAttempts(contentionMaxAttempts)
+                    .setInitialBackoff(contentionInitialBackoff)
+                    .setMaxBackoff(contentionMaxBackoff)
+                    .setGrowAfter(contentionGrowAfter)
+                    .build(itemWriter);
+        }
+
+        if (batchJobManifest.getPipelineDepth() > 0 && itemProcessor != PASS_THROUGH_PROCESSOR) {
+            // Processing ahead would bypass the retry and skip handling of the step
+            logger.warn("Pipelining disabled for step [{}] with a non pass-through item processor", name);
+        } else if (batchJobManifest.getPipelineDepth() > 0) {
+            // Read ahead on a separate thread, the step thread only writes
+            PipelinedItemReader<I, O> pipelinedItemReader = new PipelinedItemReader<>(itemReader, itemProcessor,
+                    batchJobManifest.getChunkSize(), batchJobManifest.getPipelineDepth(),
+                    batchJobManifest.getName() + "-" + name)
+                    .setReadListener((ItemReadListener<? super I>) readListener);
+            return buildStep(new StepBuilder(name, jobRepository)
+                    .<O, O>chunk(batchJobManifest.getChunkSize(), transactionManager)
+                    .reader(pipelinedItemReader)
+                    .processor(passThroughItemProcessor())
+                    .writer(itemWriter)
+                    .listener(writeListener), batchJobManifest);
+        }
+
+        return buildStep(new StepBuilder(name, jobRepository)
+                .<I, O>chunk(batchJobManifest.getChunkSize(), transactionManager)
                 .reader(itemReader)
                 .processor(itemProcessor)
-                .transactionManager(transactionManager)
                 .writer(itemWriter)
                 .listener(readListener)
-                .listener(writeListener);
+                .listener(writeListener), batchJobManifest);
+    }
 
+    private <I, O> Step buildStep(SimpleStepBuilder<I, O> stepBuilder, BatchJobManifest batchJobManifest) {
         if (batchJobManifest.isFaultTolerant()) {
             stepBuilder = stepBuilder.faultTolerant()
                     .retryPolicy(new MaxAttemptsRetryPolicy(10))
                     .retry(TransientDataAccessException.class)
                     .retry(TransactionSystemException.class)
                     .backOffPolicy(new ExponentialRandomBackOffPolicy());
-
         }
 
-//        if (jobManifest.getConcurrency() > 1) {
-//            stepBuilder.taskExecutor(taskExecutor)
-//                    .throttleLimit(jobManifest.getConcurrency());
-//        }
-
-        Step step = stepBuilder.build();
-
-        Job job = new JobBuilder(batchJobManifest.getName(), jobRepository)
-                .incrementer(new DataFieldMaxValueJobParametersIncrementer(dataFieldMaxValueIncrementer))
-                .flow(step)
-                .end()
-                .build();
+        return stepBuilder.build();
+    }
 
+    private JobExecution launchJob(BatchJobManifest batchJobManifest, Job job) throws JobExecutionException {
         try {
             jobRegistry.register(new ReferenceJobFactory(job));
         } catch (DuplicateJobException e) {
@@ -152,7 +328,34 @@ public class BatchJobLauncher {
         } catch (JobExecutionAlreadyRunningException | JobInstanceAlreadyCompleteException
                  | NoSuchJobExecutionException | NoSuchJobException
                  | JobRestartException | JobParametersInvalidException e) {
+            closeResources(batchJobManifest);
             throw new JobExecutionException("Error starting job", e);
         }
     }
+
+    /**
+     * A worker step that creates a new chunk step for each partition execution, so that
+     * stateful readers can be configured from the partition context without sharing a
+     * single reader instance across concurrent partitions.
+     */
+    private static class PartitionWorkerStep implements Step {
+        private final String name;
+
+        private final Function<StepExecution, Step> stepFactory;
+
+        PartitionWorkerStep(String name, Function<StepExecution, Step> stepFactory) {
+            this.name = name;
+            this.stepFactory = stepFactory;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void execute(StepExecution stepExecution) throws JobInterruptedException {
+            stepFactory.apply(stepExecution).execute(stepExecution);
+        }
+    }
 }
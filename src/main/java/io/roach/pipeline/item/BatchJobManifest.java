@@ -1,5 +1,10 @@
 package io.roach.pipeline.item;
 
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 import java.util.function.Consumer;
 
@@ -51,11 +56,24 @@ public class BatchJobManifest {
             return this;
         }
 
+        public Builder withPipelineDepth(int pipelineDepth) {
+            instance.pipelineDepth = pipelineDepth;
+            return this;
+        }
+
         public Builder withJobParameters(Consumer<JobParametersBuilder> builder) {
             builder.accept(jobParametersBuilder);
             return this;
         }
 
+        /**
+         * @param closeables resources to close when the job completes, like data source leases
+         */
+        public Builder withCloseable(Closeable... closeables) {
+            instance.closeables.addAll(Arrays.asList(closeables));
+            return this;
+        }
+
         public Builder withFaultTolerance() {
             instance.faultTolerant = true;
             return this;
@@ -65,6 +83,7 @@ public class BatchJobManifest {
             Assert.notNull(instance.id, "id is required");
             Assert.hasLength(instance.name, "name is required");
             Assert.state(instance.chunkSize > 0, "chunkSize must be > 0");
+            Assert.state(instance.pipelineDepth >= 0, "pipelineDepth must be >= 0");
 
             instance.jobParameters = jobParametersBuilder
                     .addString("jobId", instance.id.toString(), true)
@@ -84,10 +103,14 @@ public class BatchJobManifest {
 
     private boolean faultTolerant;
 
+    private int pipelineDepth;
+
     private long restartExecutionId;
 
     private JobParameters jobParameters;
 
+    private final List<Closeable> closeables = new ArrayList<>();
+
     public UUID getId() {
         return id;
     }
@@ -108,6 +131,15 @@ public class BatchJobManifest {
         return jobParameters;
     }
 
+    /**
+     * @return the number of chunks buffered between the reader, processor and writer
+     * stages when pipelined, or 0 for a plain chunk step (only steps with a pass-through
+     * item processor are pipelined)
+     */
+    public int getPipelineDepth() {
+        return pipelineDepth;
+    }
+
     public long getRestartExecutionId() {
         return restartExecutionId;
     }
@@ -115,4 +147,8 @@ public class BatchJobManifest {
     public int getConcurrency() {
         return concurrency;
     }
+
+    public List<Closeable> getCloseables() {
+        return Collections.unmodifiableList(closeables);
+    }
 }
@@ -0,0 +1,285 @@
+package io.roach.pipeline.item;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link ItemStreamReader} that runs a delegate reader and an item processor on separate
+ * threads ahead of the step, connected by bounded queues of item batches. The step thread
+ * only writes, so reading and processing the next chunks overlaps with writing and
+ * committing the current chunk.
+ * <p>
+ * The reader thread reads batches of chunk size and captures the delegate stream state
+ * after each batch. On {@link #update(ExecutionContext)}, the state captured after the last
+ * batch fully handed to the step is saved rather than the state of the read-ahead position,
+ * so a restart resumes at or before the last committed item. With chunk aligned batches
+ * and no filtered items, that is exactly the last committed item.
+ * <p>
+ * Since the step doesn't read from the delegate, an optional {@link ItemReadListener} is
+ * invoked by the reader thread instead.
+ *
+ * @param <I> the delegate item type
+ * @param <O> the processed item type
+ */
+public class PipelinedItemReader<I, O> implements ItemStreamReader<O> {
+    private static final class Batch<T> {
+        final List<T> items;
+
+        final ExecutionContext state;
+
+        final boolean last;
+
+        final Throwable error;
+
+        Batch(List<T> items, ExecutionContext state, boolean last, Throwable error) {
+            this.items = items;
+            this.state = state;
+            this.last = last;
+            this.error = error;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ItemReader<? extends I> delegate;
+
+    private final ItemProcessor<I, O> itemProcessor;
+
+    private final int batchSize;
+
+    private final BlockingQueue<Batch<I>> readQueue;
+
+    private final BlockingQueue<Batch<O>> processQueue;
+
+    private final String name;
+
+    private final List<Thread> threads = new ArrayList<>();
+
+    private ItemReadListener<? super I> readListener;
+
+    private volatile boolean running;
+
+    private Batch<O> current;
+
+    private Iterator<O> iterator = Collections.emptyIterator();
+
+    private ExecutionContext consumedState;
+
+    /**
+     * @param delegate the delegate reader, read only by the reader thread after open
+     * @param itemProcessor the item processor, invoked only by the processor thread
+     * @param batchSize the number of items per batch (the chunk size)
+     * @param depth the max number of batches buffered between each stage
+     * @param name prefix of the stage thread names
+     */
+    public PipelinedItemReader(ItemReader<? extends I> delegate,
+                               ItemProcessor<I, O> itemProcessor,
+                               int batchSize,
+                               int depth,
+                               String name) {
+        Assert.isTrue(batchSize > 0, "batchSize must be > 0");
+        Assert.isTrue(depth > 0, "depth must be > 0");
+        this.delegate = delegate;
+        this.itemProcessor = itemProcessor;
+        this.batchSize = batchSize;
+        this.readQueue = new ArrayBlockingQueue<>(depth);
+        this.processQueue = new ArrayBlockingQueue<>(depth);
+        this.name = name;
+    }
+
+    /**
+     * @param readListener listener invoked around each delegate read, by the reader thread
+     */
+    public PipelinedItemReader<I, O> setReadListener(ItemReadListener<? super I> readListener) {
+        this.readListener = readListener;
+        return this;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).open(executionContext);
+        }
+
+        this.running = true;
+        this.current = null;
+        this.iterator = Collections.emptyIterator();
+        this.consumedState = null;
+
+        startThread(name + "-reader", this::readLoop);
+        startThread(name + "-processor", this::processLoop);
+    }
+
+    private void startThread(String threadName, Runnable runnable) {
+        Thread thread = new Thread(runnable, threadName);
+        thread.setDaemon(true);
+        thread.start();
+        threads.add(thread);
+    }
+
+    private void readLoop() {
+        try {
+            boolean last = false;
+            while (running && !last) {
+                List<I> items = new ArrayList<>(batchSize);
+                while (items.size() < batchSize) {
+                    I item = readItem();
+                    if (item == null) {
+                        last = true;
+                        break;
+                    }
+                    items.add(item);
+                }
+
+                ExecutionContext state = new ExecutionContext();
+                if (delegate instanceof ItemStream) {
+                    ((ItemStream) delegate).update(state);
+                }
+
+                readQueue.put(new Batch<>(items, state, last, null));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            offerError(readQueue, e);
+        }
+    }
+
+    private I readItem() throws Exception {
+        if (readListener == null) {
+            return delegate.read();
+        }
+        readListener.beforeRead();
+        try {
+            I item = delegate.read();
+            if (item != null) {
+                readListener.afterRead(item);
+            }
+            return item;
+        } catch (Exception e) {
+            readListener.onReadError(e);
+            throw e;
+        }
+    }
+
+    private void processLoop() {
+        try {
+            boolean last = false;
+            while (running && !last) {
+                Batch<I> batch = readQueue.take();
+                if (batch.error != null) {
+                    processQueue.put(new Batch<>(Collections.emptyList(), null, true, batch.error));
+                    return;
+                }
+
+                List<O> items = new ArrayList<>(batch.items.size());
+                for (I item : batch.items) {
+                    O result = itemProcessor.process(item);
+                    if (result != null) {
+                        items.add(result);
+                    }
+                }
+
+                processQueue.put(new Batch<>(items, batch.state, batch.last, null));
+                last = batch.last;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            offerError(processQueue, e);
+        }
+    }
+
+    private <T> void offerError(BlockingQueue<Batch<T>> queue, Throwable error) {
+        try {
+            queue.put(new Batch<>(Collections.emptyList(), null, true, error));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public O read() throws Exception {
+        while (!iterator.hasNext()) {
+            if (current != null && current.last) {
+                return null;
+            }
+
+            Batch<O> next = null;
+            while (next == null) {
+                if (!running) {
+                    throw new IllegalStateException("Reader is closed");
+                }
+                next = processQueue.poll(100, TimeUnit.MILLISECONDS);
+            }
+
+            if (next.error != null) {
+                if (next.error instanceof Exception) {
+                    throw (Exception) next.error;
+                }
+                throw new IllegalStateException(next.error);
+            }
+
+            this.current = next;
+            this.iterator = next.items.iterator();
+
+            if (next.items.isEmpty()) {
+                this.consumedState = next.state;
+            }
+        }
+
+        O item = iterator.next();
+        if (!iterator.hasNext()) {
+            this.consumedState = current.state;
+        }
+        return item;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        ExecutionContext state = this.consumedState;
+        if (state != null) {
+            state.entrySet().forEach(e -> executionContext.put(e.getKey(), e.getValue()));
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        this.running = false;
+
+        threads.forEach(Thread::interrupt);
+        threads.forEach(thread -> {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        threads.clear();
+
+        readQueue.clear();
+        processQueue.clear();
+
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).close();
+        }
+
+        logger.debug("Closed pipelined reader [{}]", name);
+    }
+}
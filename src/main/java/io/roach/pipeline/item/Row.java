@@ -0,0 +1,106 @@
+package io.roach.pipeline.item;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A compact row of column values backed by an array and a shared {@link RowSchema}.
+ * Values are accessed by ordinal, or by name through the schema. Implements the map
+ * interface so rows can be passed to components expecting a map of column values,
+ * without the hash map and entry allocations per row.
+ * <p>
+ * The set of columns is fixed by the schema, so only existing columns can be updated. Repeated
+ * column names map to the last column with that name.
+ * All map access goes through {@link #get(int)} and {@link #set(int, Object)}, so subclasses
+ * may resolve values lazily.
+ */
+public class Row extends AbstractMap<String, Object> {
+    private final RowSchema schema;
+
+    private final Object[] values;
+
+    public Row(RowSchema schema) {
+        this(schema, new Object[schema.size()]);
+    }
+
+    public Row(RowSchema schema, Object[] values) {
+        if (values.length != schema.size()) {
+            throw new IllegalArgumentException("Expected " + schema.size() + " values, got " + values.length);
+        }
+        this.schema = schema;
+        this.values = values;
+    }
+
+    public RowSchema getSchema() {
+        return schema;
+    }
+
+    public Object get(int ordinal) {
+        return values[ordinal];
+    }
+
+    public void set(int ordinal, Object value) {
+        values[ordinal] = value;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int ordinal = schema.indexOf(String.valueOf(key));
+        return ordinal >= 0 ? get(ordinal) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return schema.indexOf(String.valueOf(key)) >= 0;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int ordinal = schema.indexOf(key);
+        if (ordinal < 0) {
+            throw new IllegalArgumentException("No such column: " + key);
+        }
+        Object previous = get(ordinal);
+        set(ordinal, value);
+        return previous;
+    }
+
+    @Override
+    public int size() {
+        return schema.distinctSize();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < schema.distinctSize();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        int ordinal = schema.distinctOrdinal(next++);
+                        return new SimpleImmutableEntry<>(schema.getName(ordinal), get(ordinal));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return schema.distinctSize();
+            }
+        };
+    }
+}
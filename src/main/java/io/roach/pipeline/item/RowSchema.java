@@ -0,0 +1,97 @@
+package io.roach.pipeline.item;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, ordered list of column names shared by all {@link Row}s of a reader,
+ * resolving names to ordinals once rather than per row.
+ * <p>
+ * Column names may repeat, like for {@code SELECT a.id, b.id} in a join. Like for a map of
+ * column values, the last column with a given name wins, at the position of the first.
+ */
+public final class RowSchema {
+    public static RowSchema of(String... names) {
+        return new RowSchema(names.clone());
+    }
+
+    public static RowSchema of(List<String> names) {
+        return new RowSchema(names.toArray(new String[0]));
+    }
+
+    public static RowSchema of(ResultSetMetaData metaData) throws SQLException {
+        String[] names = new String[metaData.getColumnCount()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = metaData.getColumnName(i + 1);
+        }
+        return new RowSchema(names);
+    }
+
+    private final String[] names;
+
+    private final Map<String, Integer> ordinals;
+
+    private final int[] distinctOrdinals;
+
+    private RowSchema(String[] names) {
+        this.names = names;
+        this.ordinals = new HashMap<>(names.length * 2);
+
+        List<String> distinctNames = new ArrayList<>(names.length);
+        for (int i = 0; i < names.length; i++) {
+            if (ordinals.put(names[i], i) == null) {
+                distinctNames.add(names[i]);
+            }
+        }
+        this.distinctOrdinals = distinctNames.stream()
+                .mapToInt(ordinals::get)
+                .toArray();
+    }
+
+    /**
+     * @param name the column name
+     * @return the column ordinal (zero based) or -1 if not found
+     */
+    public int indexOf(String name) {
+        Integer ordinal = ordinals.get(name);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * @return the number of distinct column names
+     */
+    public int distinctSize() {
+        return distinctOrdinals.length;
+    }
+
+    /**
+     * @param index the index of a distinct column name, in order of first occurrence
+     * @return the ordinal of the last column with that name
+     */
+    public int distinctOrdinal(int index) {
+        return distinctOrdinals[index];
+    }
+
+    public String getName(int ordinal) {
+        return names[ordinal];
+    }
+
+    public List<String> getNames() {
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(names);
+    }
+}
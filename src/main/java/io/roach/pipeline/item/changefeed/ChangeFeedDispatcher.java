@@ -1,36 +1,68 @@
 package io.roach.pipeline.item.changefeed;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.BlockingDeque;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
 
 import jakarta.annotation.PostConstruct;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.roach.pipeline.util.LogicalTimestamp;
 
+/**
+ * Dispatches change feed payloads from webhook endpoints to batch readers through
+ * a bounded queue per subscriber. Subscribers are indexed by id.
+ * <p>
+ * Queues are either in-memory ring buffers or, with spill enabled, durable memory-mapped
+ * logs stored per subscriber id that survive restarts.
+ */
 @Component
 public class ChangeFeedDispatcher implements PayloadConsumer, ChangeFeedProducer {
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
-    private final Map<Subscriber, BlockingDeque<Payload>> queueMap = new HashMap<>();
+    private final Map<String, Registration> registry = new ConcurrentHashMap<>();
 
-    private final Set<String> latch = Collections.synchronizedSet(new HashSet<>());
+    private final Set<String> latch = ConcurrentHashMap.newKeySet();
 
     @Value("${pipeline.cdc.webhook.queue-capacity}")
     private int queueCapacity;
 
+    @Value("${pipeline.cdc.webhook.spill.enabled}")
+    private boolean spillEnabled;
+
+    @Value("${pipeline.cdc.webhook.spill.directory}")
+    private String spillDirectory;
+
+    @Value("${pipeline.cdc.webhook.spill.segment-size}")
+    private DataSize spillSegmentSize;
+
+    @Value("${pipeline.cdc.webhook.spill.max-segments}")
+    private int spillMaxSegments;
+
+    @Value("${pipeline.cdc.webhook.spill.fsync}")
+    private boolean spillFsync;
+
+    @Autowired
+    @Qualifier("objectMapper")
+    private ObjectMapper objectMapper;
+
     public ChangeFeedDispatcher() {
     }
 
@@ -39,11 +71,33 @@ public class ChangeFeedDispatcher implements PayloadConsumer, ChangeFeedProducer
         if (queueCapacity <= 0) {
             throw new IllegalArgumentException("queueCapacity <= 0");
         }
+        if (spillEnabled) {
+            logger.info("Change feed spill enabled with directory [{}] segment size [{}] max segments [{}] fsync [{}]",
+                    Paths.get(spillDirectory).toAbsolutePath(), spillSegmentSize, spillMaxSegments, spillFsync);
+        }
+    }
+
+    private PayloadQueue createQueue(Subscriber subscriber) {
+        if (!spillEnabled) {
+            return new MemoryPayloadQueue(queueCapacity);
+        }
+        Assert.isTrue(subscriber.getId().matches("[\\w-]+"),
+                "Subscriber id must be alphanumeric for spill: " + subscriber.getId());
+        Path path = Paths.get(spillDirectory, subscriber.getId());
+        try {
+            return new SpillPayloadQueue(path, (int) spillSegmentSize.toBytes(), spillMaxSegments, spillFsync,
+                    objectMapper);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     public boolean registerSubscriber(Subscriber subscriber) {
-        if (queueMap.putIfAbsent(subscriber, new LinkedBlockingDeque<>(queueCapacity)) == null) {
-            logger.info("Registering subscriber [{}] with queueCapacity [{}]", subscriber, queueCapacity);
+        Registration registration = registry.computeIfAbsent(subscriber.getId(),
+                id -> new Registration(subscriber, createQueue(subscriber)));
+        if (registration.subscriber == subscriber) {
+            logger.info("Registering subscriber [{}] with queueCapacity [{}] spill [{}]",
+                    subscriber, queueCapacity, spillEnabled);
             latch.add(subscriber.getId());
             return true;
         } else {
@@ -53,8 +107,10 @@ public class ChangeFeedDispatcher implements PayloadConsumer, ChangeFeedProducer
     }
 
     public void unregisterSubscriber(Subscriber subscriber) {
-        if (queueMap.remove(subscriber) != null) {
+        Registration registration = registry.remove(subscriber.getId());
+        if (registration != null) {
             logger.info("Unregistering subscriber [{}]", subscriber);
+            registration.queue.close();
             latch.remove(subscriber.getId());
         } else {
             logger.warn("Subscriber not registered [{}]", subscriber);
@@ -62,31 +118,73 @@ public class ChangeFeedDispatcher implements PayloadConsumer, ChangeFeedProducer
     }
 
     public Optional<Subscriber> getSubscriber(String id) {
-        for (Subscriber s : queueMap.keySet()) {
-            if (id.equals(s.getId())) {
-                return Optional.of(s);
-            }
+        Registration registration = registry.get(id);
+        return registration != null ? Optional.of(registration.subscriber) : Optional.empty();
+    }
+
+    private PayloadQueue getQueue(Subscriber subscriber) {
+        Registration registration = registry.get(subscriber.getId());
+        if (registration == null) {
+            throw new SubscriberNotFound(subscriber);
         }
-        return Optional.empty();
+        return registration.queue;
     }
 
     @Override
     public Payload receive(Subscriber subscriber) {
-        BlockingDeque<Payload> blockingDeque = queueMap.get(subscriber);
-        if (blockingDeque == null) {
-            throw new SubscriberNotFound(subscriber);
-        }
+        PayloadQueue queue = getQueue(subscriber);
         try {
             String id = subscriber.getId();
             // Wait indefinitely for first event
             if (latch.remove(id)) {
                 logger.info("Subscriber [{}] waiting for initial event", subscriber);
-                Payload payload = blockingDeque.takeFirst();
+                Payload payload = queue.take();
                 logger.info("Subscriber [{}] received initial event", subscriber);
                 return payload;
             }
             Duration pollTimeout = subscriber.getPollTimeout();
-            return blockingDeque.pollFirst(pollTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            return queue.poll(pollTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public int receive(Subscriber subscriber, Collection<Payload> buffer, int maxItems, Duration linger) {
+        PayloadQueue queue = getQueue(subscriber);
+        try {
+            Payload first;
+            // Wait indefinitely for first event
+            if (latch.remove(subscriber.getId())) {
+                logger.info("Subscriber [{}] waiting for initial event", subscriber);
+                first = queue.take();
+                logger.info("Subscriber [{}] received initial event", subscriber);
+            } else {
+                first = queue.poll(subscriber.getPollTimeout());
+            }
+            if (first == null) {
+                return 0;
+            }
+
+            buffer.add(first);
+
+            int n = 1 + queue.drainTo(buffer, maxItems - 1);
+
+            final long deadline = System.nanoTime() + linger.toNanos();
+            while (n < maxItems) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                Payload payload = queue.poll(Duration.ofNanos(remaining));
+                if (payload == null) {
+                    break;
+                }
+                buffer.add(payload);
+                n += 1 + queue.drainTo(buffer, maxItems - n - 1);
+            }
+            return n;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new RuntimeException(e);
@@ -94,21 +192,26 @@ public class ChangeFeedDispatcher implements PayloadConsumer, ChangeFeedProducer
     }
 
     public int getQueueSize(Subscriber subscriber) {
-        BlockingDeque<Payload> blockingDeque = queueMap.get(subscriber);
-        if (blockingDeque != null) {
-            return blockingDeque.size();
+        Registration registration = registry.get(subscriber.getId());
+        if (registration != null) {
+            return registration.queue.size();
         }
         return 0;
     }
 
     public double getQueueCapacity(Subscriber subscriber) {
-        int qSize = getQueueSize(subscriber);
-        return qSize > 0 ? qSize / (queueCapacity * 1.0d) : 0;
+        Registration registration = registry.get(subscriber.getId());
+        return registration != null ? registration.queue.utilization() : 0;
+    }
+
+    @Override
+    public void commit(Subscriber subscriber, int count) {
+        getQueue(subscriber).commit(count);
     }
 
     @Override
     public void resolved(Subscriber subscriber, LogicalTimestamp resolvedTimestamp) {
-        subscriber.setLastResolvedTimestamp(resolvedTimestamp);
+        subscriber.markResolved(resolvedTimestamp);
         logger.debug("Last resolved timestamp for subscriber [{}]: {}",
                 subscriber.getId(), resolvedTimestamp);
     }
@@ -123,20 +226,71 @@ public class ChangeFeedDispatcher implements PayloadConsumer, ChangeFeedProducer
             );
         }
 
-        BlockingDeque<Payload> blockingDeque = queueMap.get(subscriber);
-        if (blockingDeque == null) {
-            throw new SubscriberNotFound(subscriber);
-        }
+        PayloadQueue queue = getQueue(subscriber);
 
         subscriber.incrementPayloadReceived(event.getPayload());
 
         for (Payload payload : event.getPayload()) {
             try {
-                blockingDeque.putLast(payload);
+                payload.setSequence(subscriber.nextSequence());
+                queue.put(payload);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 throw new IllegalStateException(e);
             }
         }
     }
+
+    @Override
+    public void publish(Subscriber subscriber, Payload payload) {
+        PayloadQueue queue = getQueue(subscriber);
+
+        subscriber.incrementPayloadReceived(payload);
+
+        try {
+            payload.setSequence(subscriber.nextSequence());
+            queue.put(payload);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Publish a payload, waiting for up to the given timeout for queue capacity. On timeout,
+     * the sequence assigned to the payload is marked applied so that it doesn't hold back
+     * the applied watermark of the subscriber.
+     *
+     * @return true if published, false if the timeout elapsed
+     */
+    public boolean offer(Subscriber subscriber, Payload payload, Duration timeout) {
+        PayloadQueue queue = getQueue(subscriber);
+
+        long sequence = subscriber.nextSequence();
+        payload.setSequence(sequence);
+        try {
+            if (!queue.offer(payload, timeout)) {
+                subscriber.markApplied(sequence);
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            subscriber.markApplied(sequence);
+            throw new IllegalStateException(e);
+        }
+
+        subscriber.incrementPayloadReceived(payload);
+        return true;
+    }
+
+    private static final class Registration {
+        final Subscriber subscriber;
+
+        final PayloadQueue queue;
+
+        Registration(Subscriber subscriber, PayloadQueue queue) {
+            this.subscriber = subscriber;
+            this.queue = queue;
+        }
+    }
 }
@@ -0,0 +1,80 @@
+package io.roach.pipeline.item.changefeed;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+import io.roach.pipeline.util.LogicalTimestamp;
+
+/**
+ * Streaming parser for webhook sink change feed events. Rather than binding the entire
+ * request body to a {@link ChangeFeedEvent}, each element in the {@code payload} array
+ * is bound and handed to a consumer as soon as it's parsed, so that only one payload
+ * at a time is held in memory.
+ * <p>
+ * Accepted formats:
+ * <pre>
+ * {"payload": [{"after": {..}, "key": [..], "topic": "..", "updated": ".."}, ...], "length": 2}
+ * {"resolved": "1546856630992375686.0000000000"}
+ * </pre>
+ */
+public class ChangeFeedEventParser {
+    private final ObjectMapper objectMapper;
+
+    private final ObjectReader payloadReader;
+
+    public ChangeFeedEventParser(ObjectMapper objectMapper) {
+        Assert.notNull(objectMapper, "objectMapper is null");
+        this.objectMapper = objectMapper;
+        this.payloadReader = objectMapper.readerFor(Payload.class);
+    }
+
+    /**
+     * Parse a change feed event from the given input stream.
+     *
+     * @param in the input stream, not closed by this method
+     * @param payloadConsumer consumer receiving each payload as it's parsed
+     * @return the resolved timestamp if the event is a resolved timestamp message
+     * @throws IOException on I/O or JSON parse errors
+     */
+    public Optional<LogicalTimestamp> parse(InputStream in, Consumer<Payload> payloadConsumer)
+            throws IOException {
+        String resolved = null;
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw MismatchedInputException.from(parser, ChangeFeedEvent.class,
+                        "Expected change feed event object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+
+                if ("payload".equals(field) && token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        Payload payload = payloadReader.readValue(parser);
+                        payloadConsumer.accept(payload);
+                    }
+                } else if ("resolved".equals(field) && token == JsonToken.VALUE_STRING) {
+                    resolved = parser.getText();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return resolved != null ? Optional.of(LogicalTimestamp.parse(resolved)) : Optional.empty();
+    }
+}
@@ -1,7 +1,9 @@
 package io.roach.pipeline.item.changefeed;
 
 import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -18,10 +20,16 @@ import io.roach.pipeline.config.Todo;
  * An {@link org.springframework.batch.item.ItemReader} implementation for CockroachDB webhook CDC sink.
  * Uses a {@link PayloadConsumer} to read data from a given stream of change events, scoped by table.
  * One table change feed is mapped to one reader instance.
+ * <p>
+ * With a drain size above one, payloads are drained from the queue in bulk (up to the
+ * drain size, typically the chunk size) into a local buffer, blocking only for the first
+ * payload and then lingering a short while for more before handing them out one by one.
  */
 public class ChangeFeedItemReader extends AbstractItemStreamItemReader<Payload> {
     private static final String LAST_KEYS = "last.keys";
 
+    private static final String RESOLVED_TIMESTAMP = "resolved.timestamp";
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final Subscriber subscriber;
@@ -34,6 +42,14 @@ public class ChangeFeedItemReader extends AbstractItemStreamItemReader<Payload>
 
     private List<Object> lastKeys = new ArrayList<>();
 
+    private final Deque<Payload> buffer = new ArrayDeque<>();
+
+    private int drainSize = 1;
+
+    private Duration linger = Duration.ZERO;
+
+    private int consumed;
+
     public ChangeFeedItemReader(Subscriber subscriber, ChangeFeedDispatcher changeFeedDispatcher) {
         Assert.notNull(subscriber, "subscriber must not be null");
         Assert.notNull(changeFeedDispatcher, "changeFeedDispatcher must not be null");
@@ -50,6 +66,24 @@ public class ChangeFeedItemReader extends AbstractItemStreamItemReader<Payload>
         this.saveState = saveState;
     }
 
+    public int getDrainSize() {
+        return drainSize;
+    }
+
+    public void setDrainSize(int drainSize) {
+        Assert.isTrue(drainSize > 0, "drainSize must be > 0");
+        this.drainSize = drainSize;
+    }
+
+    public Duration getLinger() {
+        return linger;
+    }
+
+    public void setLinger(Duration linger) {
+        Assert.notNull(linger, "linger must not be null");
+        this.linger = linger;
+    }
+
     @Override
     public void open(ExecutionContext executionContext) throws ItemStreamException {
         Duration pollTimeout = subscriber.getPollTimeout();
@@ -57,6 +91,10 @@ public class ChangeFeedItemReader extends AbstractItemStreamItemReader<Payload>
 
         logger.info("Change feed poll timeout: [{}]", pollTimeout);
 
+        if (this.saveState && executionContext.containsKey(RESOLVED_TIMESTAMP)) {
+            logger.info("Last applied resolved timestamp: [{}]", executionContext.getString(RESOLVED_TIMESTAMP));
+        }
+
         if (this.saveState && executionContext.containsKey(LAST_KEYS)) {
             this.lastKeys = new ArrayList<>((List<Object>) executionContext.get(LAST_KEYS));
             // Only used for logging
@@ -75,6 +113,14 @@ public class ChangeFeedItemReader extends AbstractItemStreamItemReader<Payload>
         if (this.saveState && !lastKeys.isEmpty()) {
             executionContext.put(LAST_KEYS, new ArrayList<>(this.lastKeys));
         }
+        if (this.saveState && subscriber.getAppliedResolvedTimestamp() != null) {
+            executionContext.putString(RESOLVED_TIMESTAMP, subscriber.getAppliedResolvedTimestamp().toHLC());
+        }
+        // Invoked after each successful chunk write, release consumed payloads
+        if (consumed > 0) {
+            changeFeedDispatcher.commit(subscriber, consumed);
+            consumed = 0;
+        }
     }
 
     @Override
@@ -83,15 +129,23 @@ public class ChangeFeedItemReader extends AbstractItemStreamItemReader<Payload>
         if (registrationFailed) {
             throw new JobExecutionException("Subcriber registration failed - possible duplicate ID");
         }
-        Payload payload = changeFeedDispatcher.receive(subscriber);
+        Payload payload = drainSize > 1 ? nextBuffered() : changeFeedDispatcher.receive(subscriber);
         if (payload != null) {
             lastKeys = payload.getKeys();
+            consumed++;
             return payload;
         }
         logger.info("Change feed reader completion for subscriber: {}", subscriber);
         return null;
     }
 
+    private Payload nextBuffered() {
+        if (buffer.isEmpty()) {
+            changeFeedDispatcher.receive(subscriber, buffer, drainSize, linger);
+        }
+        return buffer.pollFirst();
+    }
+
     @Override
     public void close() {
 // Dont unregister to allow job restarts
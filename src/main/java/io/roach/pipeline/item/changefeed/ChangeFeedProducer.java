@@ -6,4 +6,6 @@ public interface ChangeFeedProducer {
     void resolved(Subscriber subscriber, LogicalTimestamp resolvedTimestamp);
 
     void publish(Subscriber subscriber, ChangeFeedEvent event);
+
+    void publish(Subscriber subscriber, Payload payload);
 }
@@ -0,0 +1,161 @@
+package io.roach.pipeline.item.changefeed;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.util.Assert;
+
+/**
+ * Utilities for the options of {@code CREATE CHANGEFEED} statements, like
+ * {@code CREATE CHANGEFEED FOR TABLE t INTO 'sink' WITH updated, resolved='15s'}
+ * or the changefeed query form {@code CREATE CHANGEFEED INTO 'sink' WITH updated AS SELECT ..}.
+ * Keywords are matched outside of quoted literals and identifiers, in any letter case and
+ * separated by any whitespace.
+ */
+public abstract class ChangeFeedStatementUtils {
+    private ChangeFeedStatementUtils() {
+    }
+
+    private static final class Token {
+        final String word;
+
+        final int start;
+
+        final int end;
+
+        Token(String word, int start, int end) {
+            this.word = word;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Tokenize a statement into unquoted words and single character symbols, skipping
+     * whitespace and quoted literals or identifiers.
+     */
+    private static List<Token> tokenize(String statement) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        final int n = statement.length();
+        while (i < n) {
+            char c = statement.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '\'' || c == '"') {
+                int start = i++;
+                while (i < n) {
+                    if (statement.charAt(i) == c) {
+                        // Doubled quote is an escaped quote
+                        if (i + 1 < n && statement.charAt(i + 1) == c) {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i = Math.min(n, i + 1);
+                tokens.add(new Token(statement.substring(start, i), start, i));
+            } else if (Character.isLetterOrDigit(c) || c == '_') {
+                int start = i;
+                while (i < n && (Character.isLetterOrDigit(statement.charAt(i)) || statement.charAt(i) == '_')) {
+                    i++;
+                }
+                tokens.add(new Token(statement.substring(start, i), start, i));
+            } else {
+                tokens.add(new Token(String.valueOf(c), i, ++i));
+            }
+        }
+        return tokens;
+    }
+
+    private static String stripTerminator(String statement) {
+        String s = statement.trim();
+        while (s.endsWith(";")) {
+            s = s.substring(0, s.length() - 1).trim();
+        }
+        return s;
+    }
+
+    private static int indexOfKeyword(List<Token> tokens, String keyword, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (tokens.get(i).word.equalsIgnoreCase(keyword)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param statement the changefeed statement
+     * @return the changefeed options by lower case name, with raw values (null if none)
+     */
+    public static Map<String, String> options(String statement) {
+        Assert.hasLength(statement, "statement is empty");
+
+        String s = stripTerminator(statement);
+        List<Token> tokens = tokenize(s);
+
+        int end = indexOfKeyword(tokens, "AS", 0, tokens.size());
+        if (end < 0) {
+            end = tokens.size();
+        }
+        int with = indexOfKeyword(tokens, "WITH", 0, end);
+
+        Map<String, String> options = new LinkedHashMap<>();
+        if (with < 0) {
+            return options;
+        }
+
+        int depth = 0;
+        int optionStart = with + 1;
+        for (int i = with + 1; i <= end; i++) {
+            String word = i < end ? tokens.get(i).word : ",";
+            if (word.equals("(")) {
+                depth++;
+            } else if (word.equals(")")) {
+                depth--;
+            } else if (word.equals(",") && depth == 0) {
+                if (optionStart < i) {
+                    String name = tokens.get(optionStart).word.toLowerCase(Locale.ROOT);
+                    String value = null;
+                    if (optionStart + 1 < i && tokens.get(optionStart + 1).word.equals("=")
+                            && optionStart + 2 < i) {
+                        value = s.substring(tokens.get(optionStart + 2).start, tokens.get(i - 1).end);
+                    }
+                    options.put(name, value);
+                }
+                optionStart = i + 1;
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Add an option to a changefeed statement, to its existing options if any.
+     *
+     * @param statement the changefeed statement
+     * @param option the option, like {@code cursor='1700000000000000000.0000000000'}
+     * @return the statement with the option added, terminated by a semicolon
+     */
+    public static String withOption(String statement, String option) {
+        Assert.hasLength(statement, "statement is empty");
+        Assert.hasLength(option, "option is empty");
+
+        String s = stripTerminator(statement);
+        List<Token> tokens = tokenize(s);
+
+        int as = indexOfKeyword(tokens, "AS", 0, tokens.size());
+        int end = as < 0 ? tokens.size() : as;
+        int with = indexOfKeyword(tokens, "WITH", 0, end);
+
+        int insertAt = as < 0 ? s.length() : tokens.get(end - 1).end;
+        String clause = with < 0 ? " WITH " + option : ", " + option;
+
+        return s.substring(0, insertAt) + clause + s.substring(insertAt) + ";";
+    }
+}
@@ -0,0 +1,156 @@
+package io.roach.pipeline.item.changefeed;
+
+import java.util.List;
+import java.util.Optional;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+
+import io.roach.pipeline.util.LogicalTimestamp;
+
+/**
+ * An {@link ItemWriter} decorator that persists the highest fully applied resolved timestamp
+ * of a subscriber in a checkpoint table in the target database, in the same local transaction
+ * as the chunk of data written by the delegate.
+ * <p>
+ * Note that a delegate applying items on other threads (like a {@link PartitionedItemWriter}
+ * with more than one lane) can't participate in the same transaction. The checkpoint is then
+ * written after all lanes have committed, which is still safe since it's only advanced once
+ * all preceding payloads are applied.
+ * <p>
+ * The payloads of a chunk are marked as applied with the subscriber only after the transaction
+ * commits, so the in-memory watermark never runs ahead of the target. A {@link PartitionedItemWriter}
+ * delegate must therefore have marking turned off.
+ * <p>
+ * The checkpoint can be used as a changefeed {@code cursor} to resume a feed on restart.
+ * The checkpoint table is created with {@link #createTable(DataSource, String)} when the
+ * job is built, and never as a side effect of reading or writing.
+ */
+public class CheckpointItemWriter implements ItemStreamWriter<Payload> {
+    /**
+     * Find the last checkpoint for a given subscriber.
+     *
+     * @param dataSource the target datasource
+     * @param table the checkpoint table name
+     * @param subscriberId the subscriber ID
+     * @return the last applied resolved timestamp if any
+     */
+    public static Optional<LogicalTimestamp> findCheckpoint(DataSource dataSource, String table,
+                                                            String subscriberId) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        List<String> result = jdbcTemplate.queryForList(
+                "SELECT resolved_timestamp FROM " + table + " WHERE subscriber_id = ?",
+                String.class, subscriberId);
+        return result.isEmpty() ? Optional.empty() : Optional.of(LogicalTimestamp.parse(result.get(0)));
+    }
+
+    /**
+     * Create the checkpoint table unless it exists.
+     *
+     * @param dataSource the target datasource
+     * @param table the checkpoint table name
+     */
+    public static void createTable(DataSource dataSource, String table) {
+        new JdbcTemplate(dataSource).execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+                + "subscriber_id VARCHAR(128) NOT NULL PRIMARY KEY, "
+                + "table_name VARCHAR(128), "
+                + "resolved_timestamp VARCHAR(64) NOT NULL, "
+                + "updated_at TIMESTAMPTZ NOT NULL DEFAULT now())");
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ItemWriter<Payload> delegate;
+
+    private final Subscriber subscriber;
+
+    private final String table;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private LogicalTimestamp lastCheckpoint;
+
+    public CheckpointItemWriter(ItemWriter<Payload> delegate, Subscriber subscriber,
+                                DataSource dataSource, String table) {
+        Assert.notNull(delegate, "delegate must not be null");
+        Assert.notNull(subscriber, "subscriber must not be null");
+        Assert.notNull(dataSource, "dataSource must not be null");
+        Assert.hasLength(table, "table must not be empty");
+
+        this.delegate = delegate;
+        this.subscriber = subscriber;
+        this.table = table;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).open(executionContext);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).update(executionContext);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).close();
+        }
+    }
+
+    @Override
+    public void write(Chunk<? extends Payload> chunk) throws Exception {
+        final long[] sequences = PartitionedItemWriter.sequencesOf(chunk);
+
+        LogicalTimestamp checkpoint = transactionTemplate.execute(status -> {
+            try {
+                delegate.write(chunk);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Chunk write failed", e);
+            }
+
+            LogicalTimestamp applied = subscriber.peekAppliedResolvedTimestamp(sequences);
+            if (applied != null && !applied.equals(lastCheckpoint)) {
+                jdbcTemplate.update("INSERT INTO " + table
+                                + " (subscriber_id, table_name, resolved_timestamp, updated_at)"
+                                + " VALUES (?, ?, ?, now())"
+                                + " ON CONFLICT (subscriber_id) DO UPDATE SET"
+                                + " resolved_timestamp = excluded.resolved_timestamp,"
+                                + " updated_at = excluded.updated_at",
+                        subscriber.getId(), subscriber.getTableName(), applied.toHLC());
+                return applied;
+            }
+            return null;
+        });
+
+        subscriber.markApplied(sequences);
+
+        if (checkpoint != null) {
+            this.lastCheckpoint = checkpoint;
+            logger.debug("Checkpoint for subscriber [{}]: {}", subscriber.getId(), checkpoint.toHLC());
+        }
+    }
+}
@@ -2,29 +2,52 @@ package io.roach.pipeline.item.changefeed;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.batch.item.Chunk;
 import org.springframework.batch.item.ItemWriter;
+import org.springframework.util.CollectionUtils;
 
+/**
+ * Writes change feed payloads by splitting a chunk into upserts and deletes.
+ * <p>
+ * With coalescing enabled, only the last image per key within a chunk is kept,
+ * so that a key updated many times results in a single upsert and a key inserted and then
+ * deleted results in a single delete. Since each key then occurs at most once, writing all
+ * upserts before the deletes doesn't alter the outcome. The coalescing window is the chunk,
+ * which in turn is bounded by the chunk size and the reader linger time. Payloads without
+ * keys can't be told apart and are passed through as-is.
+ */
 public class CompositeItemWriter implements ItemWriter<Payload> {
     private final ItemWriter<Map<String, Object>> insertWriter;
 
     private final ItemWriter<Map<String, Object>> deleteWriter;
 
+    private boolean coalesce;
+
     public CompositeItemWriter(ItemWriter<Map<String, Object>> insertWriter,
                                ItemWriter<Map<String, Object>> deleteWriter) {
         this.insertWriter = insertWriter;
         this.deleteWriter = deleteWriter;
     }
 
+    public boolean isCoalesce() {
+        return coalesce;
+    }
+
+    public CompositeItemWriter setCoalesce(boolean coalesce) {
+        this.coalesce = coalesce;
+        return this;
+    }
+
     @Override
     public void write(Chunk<? extends Payload> chunk) throws Exception {
         List<Map<String, Object>> inserts = new ArrayList<>();
         List<Map<String, Object>> deletes = new ArrayList<>();
 
-        for (Payload payload : chunk) {
+        for (Payload payload : coalesce ? coalesce(chunk) : chunk.getItems()) {
             if (payload.getOperation().equals(Payload.Operation.delete)) {
                 payload.getKeys().forEach(k -> {
                     Map<String, Object> m = new HashMap<>();
@@ -43,4 +66,20 @@ public class CompositeItemWriter implements ItemWriter<Payload> {
             deleteWriter.write(new Chunk(deletes));
         }
     }
+
+    private List<Payload> coalesce(Chunk<? extends Payload> chunk) {
+        Map<Object, Payload> lastImage = new LinkedHashMap<>();
+        for (Payload payload : chunk) {
+            List<Object> keys = payload.getKeys();
+            if (CollectionUtils.isEmpty(keys)) {
+                // Unique by identity so it's never folded into another payload
+                lastImage.put(new Object(), payload);
+            } else {
+                // Remove first to order by last occurrence
+                lastImage.remove(keys);
+                lastImage.put(keys, payload);
+            }
+        }
+        return new ArrayList<>(lastImage.values());
+    }
 }
@@ -1,7 +1,9 @@
 package io.roach.pipeline.item.changefeed;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -12,6 +14,14 @@ import io.roach.pipeline.util.LogicalTimestamp;
 
 @JsonDeserialize(as = KafkaChangeEvent.class)
 public class KafkaChangeEvent {
+    public static KafkaChangeEvent of(Map<String, Object> after, String updated, String resolved) {
+        KafkaChangeEvent event = new KafkaChangeEvent();
+        event.after = after;
+        event.updated = updated;
+        event.resolved = resolved;
+        return event;
+    }
+
     private String resolved;
 
     private String updated;
@@ -19,6 +29,10 @@ public class KafkaChangeEvent {
     @JsonProperty("after")
     private Map<String, Object> after = new HashMap<>();
 
+    // Only present with the 'key_in_value' changefeed option, or else set from the record key
+    @JsonProperty("key")
+    private List<Object> keys = new ArrayList<>();
+
     public String getResolved() {
         return resolved;
     }
@@ -36,6 +50,21 @@ public class KafkaChangeEvent {
     }
 
     public Map<String, Object> getAfter() {
-        return Collections.unmodifiableMap(after);
+        return after != null ? Collections.unmodifiableMap(after) : Collections.emptyMap();
+    }
+
+    public List<Object> getKeys() {
+        return keys != null ? Collections.unmodifiableList(keys) : Collections.emptyList();
+    }
+
+    public void setKeys(List<?> keys) {
+        this.keys = new ArrayList<>(keys);
+    }
+
+    /**
+     * @return this event as a webhook compatible payload
+     */
+    public Payload toPayload() {
+        return Payload.of(getKeys(), getAfter(), updated);
     }
 }
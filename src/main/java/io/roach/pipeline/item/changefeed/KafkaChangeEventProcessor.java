@@ -0,0 +1,17 @@
+package io.roach.pipeline.item.changefeed;
+
+import org.springframework.batch.item.ItemProcessor;
+
+/**
+ * Adapts Kafka sink change events to payloads for the change feed writers.
+ * Resolved timestamp messages carry no row data and are filtered out.
+ */
+public class KafkaChangeEventProcessor implements ItemProcessor<KafkaChangeEvent, Payload> {
+    @Override
+    public Payload process(KafkaChangeEvent item) {
+        if (item.getResolvedTimestamp().isPresent()) {
+            return null;
+        }
+        return item.toPayload();
+    }
+}
@@ -0,0 +1,52 @@
+package io.roach.pipeline.item.changefeed;
+
+import java.time.Duration;
+import java.util.Collection;
+
+import io.roach.pipeline.util.RingBufferQueue;
+
+/**
+ * A non-durable payload queue backed by an in-memory ring buffer.
+ */
+public class MemoryPayloadQueue implements PayloadQueue {
+    private final RingBufferQueue<Payload> queue;
+
+    public MemoryPayloadQueue(int capacity) {
+        this.queue = new RingBufferQueue<>(capacity);
+    }
+
+    @Override
+    public void put(Payload payload) throws InterruptedException {
+        queue.put(payload);
+    }
+
+    @Override
+    public boolean offer(Payload payload, Duration timeout) throws InterruptedException {
+        return queue.offer(payload, timeout);
+    }
+
+    @Override
+    public Payload take() throws InterruptedException {
+        return queue.take();
+    }
+
+    @Override
+    public Payload poll(Duration timeout) throws InterruptedException {
+        return queue.poll(timeout);
+    }
+
+    @Override
+    public int drainTo(Collection<? super Payload> collection, int maxElements) {
+        return queue.drainTo(collection, maxElements);
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public double utilization() {
+        return queue.size() / (queue.capacity() * 1.0d);
+    }
+}
@@ -0,0 +1,140 @@
+package io.roach.pipeline.item.changefeed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamWriter;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link ItemWriter} that applies change feed payloads in parallel lanes. Payloads are
+ * hashed by key into a fixed lane so that all changes for the same key are applied in
+ * order by the same lane (and its own writer and target connection), while different
+ * keys are applied concurrently.
+ * <p>
+ * A chunk is complete when all lanes have applied their share, at which point its payload
+ * sequences are marked as applied with the subscriber. The applied low-watermark advances
+ * over the contiguous prefix of applied sequences, which in turn advances the applied
+ * resolved timestamp of the subscriber. Marking can be turned off when an enclosing writer
+ * (like the {@link CheckpointItemWriter}) commits the chunk and marks it afterwards.
+ */
+public class PartitionedItemWriter implements ItemStreamWriter<Payload> {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Subscriber subscriber;
+
+    private final List<ItemWriter<Payload>> laneWriters;
+
+    private ExecutorService executorService;
+
+    private boolean markApplied = true;
+
+    public PartitionedItemWriter(Subscriber subscriber, List<ItemWriter<Payload>> laneWriters) {
+        Assert.notNull(subscriber, "subscriber must not be null");
+        Assert.notEmpty(laneWriters, "laneWriters must not be empty");
+        this.subscriber = subscriber;
+        this.laneWriters = new ArrayList<>(laneWriters);
+    }
+
+    public PartitionedItemWriter setMarkApplied(boolean markApplied) {
+        this.markApplied = markApplied;
+        return this;
+    }
+
+    /**
+     * @return the payload sequences of a chunk
+     */
+    public static long[] sequencesOf(Chunk<? extends Payload> chunk) {
+        long[] sequences = new long[chunk.size()];
+        int n = 0;
+        for (Payload payload : chunk) {
+            sequences[n++] = payload.getSequence();
+        }
+        return sequences;
+    }
+
+    public int getLanes() {
+        return laneWriters.size();
+    }
+
+    protected int laneOf(Payload payload) {
+        return Math.floorMod(payload.getKeys().hashCode(), laneWriters.size());
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (laneWriters.size() > 1 && executorService == null) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            ThreadFactory threadFactory = r -> {
+                Thread t = new Thread(r, "lane-" + subscriber.getId() + "-" + threadNumber.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            };
+            this.executorService = Executors.newFixedThreadPool(laneWriters.size(), threadFactory);
+            logger.info("Opened [{}] apply lanes for subscriber [{}]", laneWriters.size(), subscriber.getId());
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (executorService != null) {
+            executorService.shutdown();
+            executorService = null;
+        }
+    }
+
+    @Override
+    public void write(Chunk<? extends Payload> chunk) throws Exception {
+        if (laneWriters.size() == 1 || executorService == null) {
+            laneWriters.get(0).write(chunk);
+        } else {
+            List<List<Payload>> lanes = new ArrayList<>();
+            laneWriters.forEach(w -> lanes.add(new ArrayList<>()));
+
+            for (Payload payload : chunk) {
+                lanes.get(laneOf(payload)).add(payload);
+            }
+
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < lanes.size(); i++) {
+                final List<Payload> items = lanes.get(i);
+                if (items.isEmpty()) {
+                    continue;
+                }
+                final ItemWriter<Payload> writer = laneWriters.get(i);
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        writer.write(new Chunk<>(items));
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, executorService));
+            }
+
+            try {
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[] {})).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        if (markApplied) {
+            subscriber.markApplied(sequencesOf(chunk));
+        }
+    }
+}
@@ -6,6 +6,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
@@ -17,6 +18,14 @@ public class Payload {
         delete
     }
 
+    public static Payload of(List<Object> keys, Map<String, Object> after, String updated) {
+        Payload payload = new Payload();
+        payload.keys = keys;
+        payload.after = after;
+        payload.updated = updated;
+        return payload;
+    }
+
     @JsonProperty("key")
     private List<Object> keys = new ArrayList<>();
 
@@ -30,6 +39,9 @@ public class Payload {
 
     private String updated;
 
+    @JsonIgnore
+    private long sequence;
+
     public List<Object> getKeys() {
         return keys;
     }
@@ -42,6 +54,17 @@ public class Payload {
         return updated;
     }
 
+    /**
+     * @return subscriber local sequence number assigned when published, or zero if unassigned
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
     public Map<String, Object> getAfter() {
         return after;
     }
@@ -50,6 +73,7 @@ public class Payload {
         return before;
     }
 
+    @JsonIgnore
     public Operation getOperation() {
         if (before == null) {
             after = Collections.emptyMap();
@@ -1,5 +1,29 @@
 package io.roach.pipeline.item.changefeed;
 
+import java.time.Duration;
+import java.util.Collection;
+
 public interface PayloadConsumer {
     Payload receive(Subscriber subscriber);
+
+    /**
+     * Receive up to a given number of payloads in one operation. Blocks until the first
+     * payload is available (or the subscriber poll timeout expires) and then keeps draining
+     * until either the max number of items is reached or the linger time has passed.
+     *
+     * @param subscriber the subscriber
+     * @param buffer the buffer to add payloads to
+     * @param maxItems max number of payloads to add
+     * @param linger max time to wait for more payloads after the first one
+     * @return number of payloads added or 0 if the poll timeout expired
+     */
+    int receive(Subscriber subscriber, Collection<Payload> buffer, int maxItems, Duration linger);
+
+    /**
+     * Mark the given number of received payloads as processed.
+     *
+     * @param subscriber the subscriber
+     * @param count number of payloads processed since last commit
+     */
+    void commit(Subscriber subscriber, int count);
 }
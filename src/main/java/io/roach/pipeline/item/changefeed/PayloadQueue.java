@@ -0,0 +1,60 @@
+package io.roach.pipeline.item.changefeed;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * A bounded queue of change feed payloads for a single subscriber, with many producers
+ * (webhook threads) and a single consumer (batch reader).
+ */
+public interface PayloadQueue extends Closeable {
+    /**
+     * Append a payload, waiting for free capacity if necessary.
+     */
+    void put(Payload payload) throws InterruptedException;
+
+    /**
+     * Append a payload, waiting for up to the given timeout for free capacity.
+     *
+     * @return true if appended, false if the timeout elapsed
+     */
+    boolean offer(Payload payload, Duration timeout) throws InterruptedException;
+
+    /**
+     * @return the next payload, waiting indefinitely if necessary
+     */
+    Payload take() throws InterruptedException;
+
+    /**
+     * @return the next payload or null if the timeout elapsed
+     */
+    Payload poll(Duration timeout) throws InterruptedException;
+
+    /**
+     * Removes at most the given number of available payloads without waiting.
+     *
+     * @return the number of payloads transferred
+     */
+    int drainTo(Collection<? super Payload> collection, int maxElements);
+
+    /**
+     * Mark the given number of payloads, in the order they were removed from this queue,
+     * as processed. Durable queues will not redeliver committed payloads.
+     *
+     * @param count number of processed payloads
+     */
+    default void commit(int count) {
+    }
+
+    int size();
+
+    /**
+     * @return fraction of capacity in use (0.0 to 1.0)
+     */
+    double utilization();
+
+    @Override
+    default void close() {
+    }
+}
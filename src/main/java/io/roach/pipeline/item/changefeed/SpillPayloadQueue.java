@@ -0,0 +1,526 @@
+package io.roach.pipeline.item.changefeed;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.roach.pipeline.util.ConcurrencyUtils;
+
+/**
+ * A durable payload queue backed by a segmented, memory-mapped append-only log with a
+ * committed read cursor. Absorbs bursts way beyond the in-memory queue capacity and
+ * retains uncommitted payloads across restarts.
+ * <p>
+ * Layout in the subscriber directory:
+ * <pre>
+ * 00000000000000000000.seg  - segment files of fixed size, named by segment index
+ * cursor                    - committed log position (8 bytes)
+ * </pre>
+ * Each segment starts with a header of a magic number and the segment size, which is
+ * validated when reopening since log positions depend on it. Each record is a 4-byte length
+ * followed by the JSON encoded payload. A length of -1 marks the end of a segment and zero
+ * marks the end of the log (segments are zero-filled when mapped). The length is written
+ * after the record body, so a partially written record is never visible. Producers append
+ * under a lock while the single consumer reads up to the last published position without
+ * locking.
+ * <p>
+ * Segments that are fully committed are unmapped and deleted. Producers wait (outside the
+ * lock) when the number of segments on disk reaches the max, which applies backpressure to
+ * the webhook sink.
+ * <p>
+ * Durability: segments are flushed to disk when full and on close, so spilled payloads
+ * survive a process crash or restart but not necessarily an operating system crash or
+ * power loss. With {@code fsync} enabled, each record is also flushed before it's published
+ * (and thereby acknowledged to the webhook sink), and so is the cursor, at the cost of
+ * one disk sync per payload.
+ */
+public class SpillPayloadQueue implements PayloadQueue {
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final String CURSOR_FILE = "cursor";
+
+    private static final int HEADER_SIZE = 4;
+
+    private static final int SEGMENT_MAGIC = 0x52505351;
+
+    private static final int SEGMENT_HEADER_SIZE = 8;
+
+    private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+
+    private static final int END_OF_SEGMENT = -1;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final int maxSegments;
+
+    private final boolean fsync;
+
+    private final ObjectWriter payloadWriter;
+
+    private final ObjectReader payloadReader;
+
+    private final Map<Long, MappedByteBuffer> segments = new ConcurrentHashMap<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final Object consumerLock = new Object();
+
+    // Guarded by this
+    private long writePosition;
+
+    private volatile long publishedPosition;
+
+    private volatile long committedPosition;
+
+    // Guarded by this and consumerLock, segments are unmapped when closed
+    private volatile boolean closed;
+
+    // Guarded by consumerLock
+    private long readPosition;
+
+    // Guarded by consumerLock, end positions of records read but not yet committed
+    private final Deque<Long> uncommitted = new ArrayDeque<>();
+
+    public SpillPayloadQueue(Path directory, int segmentSize, int maxSegments, ObjectMapper objectMapper)
+            throws IOException {
+        this(directory, segmentSize, maxSegments, false, objectMapper);
+    }
+
+    public SpillPayloadQueue(Path directory, int segmentSize, int maxSegments, boolean fsync,
+                             ObjectMapper objectMapper) throws IOException {
+        Assert.isTrue(segmentSize >= 1024, "segmentSize must be >= 1024");
+        Assert.isTrue(maxSegments >= 2, "maxSegments must be >= 2");
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.fsync = fsync;
+
+        ObjectMapper mapper = objectMapper.copy()
+                .disable(SerializationFeature.INDENT_OUTPUT)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.payloadWriter = mapper.writerFor(Payload.class);
+        this.payloadReader = mapper.readerFor(Payload.class);
+
+        Files.createDirectories(directory);
+
+        recover();
+    }
+
+    private void recover() throws IOException {
+        long first = firstSegment();
+        Optional<Long> cursor = readCursor();
+        long committed = cursor.orElse(startOf(first));
+
+        // Drop segments fully behind the cursor
+        for (long s = first; s < segmentOf(committed); s++) {
+            Files.deleteIfExists(segmentPath(s));
+        }
+
+        if (cursor.isPresent() && !Files.exists(segmentPath(segmentOf(committed)))) {
+            // Nothing left to recover, start over in a new segment
+            committed = startOf(segmentOf(committed) + 1);
+        }
+
+        long position = committed;
+        int count = 0;
+        for (; ; ) {
+            long segment = segmentOf(position);
+            if (!Files.exists(segmentPath(segment))) {
+                break;
+            }
+            int length = segment(segment).getInt(offsetOf(position));
+            if (length == END_OF_SEGMENT) {
+                position = startOf(segment + 1);
+            } else if (length > 0) {
+                position += HEADER_SIZE + length;
+                count++;
+            } else {
+                break;
+            }
+        }
+
+        this.committedPosition = committed;
+        this.readPosition = committed;
+        this.writePosition = position;
+        this.publishedPosition = position;
+        this.size.set(count);
+
+        if (count > 0) {
+            logger.info("Recovered [{}] uncommitted payloads from [{}]", count, directory);
+        }
+    }
+
+    private long firstSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .mapToLong(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .min()
+                    .orElse(0);
+        }
+    }
+
+    private Optional<Long> readCursor() throws IOException {
+        Path path = directory.resolve(CURSOR_FILE);
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        if (bytes.length != 8) {
+            // Torn write, redeliver from the first segment
+            logger.warn("Ignoring cursor of [{}] bytes in [{}]", bytes.length, directory);
+            return Optional.empty();
+        }
+        return Optional.of(ByteBuffer.wrap(bytes).getLong());
+    }
+
+    private void writeCursor(long position) throws IOException {
+        Path tmp = directory.resolve(CURSOR_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.allocate(8).putLong(position).flip());
+            if (fsync) {
+                channel.force(false);
+            }
+        }
+        Files.move(tmp, directory.resolve(CURSOR_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private long segmentOf(long position) {
+        return position / segmentSize;
+    }
+
+    private int offsetOf(long position) {
+        return (int) (position % segmentSize);
+    }
+
+    private long startOf(long segment) {
+        return segment * segmentSize + SEGMENT_HEADER_SIZE;
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    private MappedByteBuffer segment(long segment) {
+        return segments.computeIfAbsent(segment, s -> {
+            Path path = segmentPath(s);
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // Validate before mapping, which would otherwise resize the file
+                ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+                channel.read(header, 0);
+                header.flip();
+                if (header.remaining() == SEGMENT_HEADER_SIZE && header.getInt(0) != 0) {
+                    if (header.getInt(0) != SEGMENT_MAGIC) {
+                        throw new IllegalStateException("Not a spill segment: " + path);
+                    }
+                    if (header.getInt(4) != segmentSize) {
+                        throw new IllegalStateException("Spill segment " + path + " has segment size "
+                                + header.getInt(4) + " but the configured size is " + segmentSize
+                                + " - drain the spill directory before changing the segment size");
+                    }
+                    return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+                }
+
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+                buffer.putInt(0, SEGMENT_MAGIC);
+                buffer.putInt(4, segmentSize);
+                if (fsync) {
+                    buffer.force(0, SEGMENT_HEADER_SIZE);
+                }
+                return buffer;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Release the mapping right away rather than when the buffer is garbage collected,
+     * so that the disk space of deleted segments is reclaimed. The buffer must not be
+     * accessed afterwards.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invokeExact(buffer);
+            } catch (Throwable e) {
+                LoggerFactory.getLogger(SpillPayloadQueue.class)
+                        .warn("Unable to unmap segment, leaving it to GC: {}", e.toString());
+            }
+        }
+    }
+
+    private static MethodHandle findInvokeCleaner() {
+        // sun.misc.Unsafe::invokeCleaner bound to the singleton, looked up reflectively
+        // since jdk.unsupported is not a compile time API
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null))
+                    .asType(MethodType.methodType(void.class, MappedByteBuffer.class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LoggerFactory.getLogger(SpillPayloadQueue.class)
+                    .warn("Unable to unmap segments, leaving it to GC: {}", e.toString());
+            return null;
+        }
+    }
+
+    private byte[] encode(Payload payload) {
+        final byte[] data;
+        try {
+            data = payloadWriter.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unable to encode payload", e);
+        }
+
+        final int recordSize = HEADER_SIZE + data.length;
+        if (SEGMENT_HEADER_SIZE + recordSize + HEADER_SIZE > segmentSize) {
+            throw new IllegalArgumentException("Payload size " + data.length
+                    + " exceeds segment size " + segmentSize);
+        }
+        return data;
+    }
+
+    @Override
+    public void put(Payload payload) throws InterruptedException {
+        final byte[] data = encode(payload);
+
+        int attempt = 0;
+        while (!tryAppend(data)) {
+            // Wait for the consumer to commit without blocking other producers
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            ConcurrencyUtils.backoff(attempt++);
+        }
+    }
+
+    @Override
+    public boolean offer(Payload payload, Duration timeout) throws InterruptedException {
+        final byte[] data = encode(payload);
+
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        int attempt = 0;
+        while (!tryAppend(data)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            ConcurrencyUtils.backoff(attempt++);
+        }
+        return true;
+    }
+
+    private synchronized boolean tryAppend(byte[] data) {
+        Assert.state(!closed, "Spill queue is closed");
+
+        final int recordSize = HEADER_SIZE + data.length;
+
+        long position = writePosition;
+        int offset = offsetOf(position);
+
+        // Always leave room for the end of segment marker
+        final boolean roll = offset + recordSize + HEADER_SIZE > segmentSize;
+        if (roll) {
+            position = startOf(segmentOf(position) + 1);
+            offset = SEGMENT_HEADER_SIZE;
+        }
+
+        final long segment = segmentOf(position);
+        if (segment - segmentOf(committedPosition) >= maxSegments) {
+            return false;
+        }
+
+        if (roll) {
+            MappedByteBuffer previous = segment(segment - 1);
+            previous.putInt(offsetOf(writePosition), END_OF_SEGMENT);
+            previous.force();
+        }
+
+        MappedByteBuffer buffer = segment(segment);
+        buffer.put(offset + HEADER_SIZE, data);
+        buffer.putInt(offset, data.length);
+        if (fsync) {
+            buffer.force(offset, recordSize);
+        }
+
+        writePosition = position + recordSize;
+        size.incrementAndGet();
+        publishedPosition = writePosition;
+        return true;
+    }
+
+    private Payload poll() {
+        synchronized (consumerLock) {
+            while (!closed && readPosition < publishedPosition) {
+                long segment = segmentOf(readPosition);
+                int offset = offsetOf(readPosition);
+
+                MappedByteBuffer buffer = segment(segment);
+                int length = buffer.getInt(offset);
+                if (length == END_OF_SEGMENT) {
+                    readPosition = startOf(segment + 1);
+                    continue;
+                }
+
+                byte[] data = new byte[length];
+                buffer.get(offset + HEADER_SIZE, data);
+
+                readPosition += HEADER_SIZE + length;
+                uncommitted.addLast(readPosition);
+                size.decrementAndGet();
+
+                try {
+                    return payloadReader.readValue(data);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Unable to decode payload at position "
+                            + (readPosition - HEADER_SIZE - length) + " in " + directory, e);
+                }
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public Payload take() throws InterruptedException {
+        int attempt = 0;
+        Payload payload;
+        while ((payload = poll()) == null) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            ConcurrencyUtils.backoff(attempt++);
+        }
+        return payload;
+    }
+
+    @Override
+    public Payload poll(Duration timeout) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        int attempt = 0;
+        Payload payload;
+        while ((payload = poll()) == null) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return null;
+            }
+            ConcurrencyUtils.backoff(attempt++);
+        }
+        return payload;
+    }
+
+    @Override
+    public int drainTo(Collection<? super Payload> collection, int maxElements) {
+        int n = 0;
+        Payload payload;
+        while (n < maxElements && (payload = poll()) != null) {
+            collection.add(payload);
+            n++;
+        }
+        return n;
+    }
+
+    @Override
+    public void commit(int count) {
+        synchronized (consumerLock) {
+            long position = committedPosition;
+            for (int i = 0; i < count && !uncommitted.isEmpty(); i++) {
+                position = uncommitted.pollFirst();
+            }
+            if (closed || position == committedPosition) {
+                return;
+            }
+
+            try {
+                writeCursor(position);
+
+                long fromSegment = segmentOf(committedPosition);
+                committedPosition = position;
+
+                // Neither producers nor the consumer access segments behind the cursor
+                for (long s = fromSegment; s < segmentOf(position); s++) {
+                    MappedByteBuffer buffer = segments.remove(s);
+                    if (buffer != null) {
+                        unmap(buffer);
+                    }
+                    Files.deleteIfExists(segmentPath(s));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public double utilization() {
+        return (publishedPosition - committedPosition) / ((double) maxSegments * segmentSize);
+    }
+
+    @Override
+    public void close() {
+        // Neither producers nor the consumer access segments once closed
+        synchronized (this) {
+            synchronized (consumerLock) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                segments.values().forEach(buffer -> {
+                    buffer.force();
+                    unmap(buffer);
+                });
+                segments.clear();
+            }
+        }
+    }
+}
@@ -3,8 +3,13 @@ package io.roach.pipeline.item.changefeed;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.util.Assert;
 
@@ -29,19 +34,135 @@ public class Subscriber implements Comparable<Subscriber> {
 
     private List<Payload> lastPayload = new ArrayList<>();
 
+    private final AtomicLong publishedSequence = new AtomicLong();
+
+    private long appliedSequence;
+
+    // Applied sequences above the contiguous applied sequence, where bit i is appliedSequence + 1 + i
+    private BitSet appliedAhead = new BitSet();
+
+    private LogicalTimestamp appliedResolvedTimestamp;
+
+    // Resolved timestamps keyed by the payload sequence published at the time they were received
+    private final NavigableMap<Long, LogicalTimestamp> pendingResolved = new TreeMap<>();
+
     public Subscriber(String id) {
         Assert.notNull(id, "id is null");
         this.id = id;
     }
 
     public Subscriber incrementPayloadReceived(List<Payload> payloads) {
-        this.lastEventReceivedTimestamp = LocalDateTime.now();
-        this.eventsReceived.incrementAndGet();
+        incrementEventsReceived();
         this.payloadsReceived.addAndGet(payloads.size());
         this.lastPayload = new ArrayList<>(payloads);
         return this;
     }
 
+    public Subscriber incrementEventsReceived() {
+        this.lastEventReceivedTimestamp = LocalDateTime.now();
+        this.eventsReceived.incrementAndGet();
+        return this;
+    }
+
+    public Subscriber incrementPayloadReceived(Payload payload) {
+        this.payloadsReceived.incrementAndGet();
+        this.lastPayload = List.of(payload);
+        return this;
+    }
+
+    /**
+     * @return next payload sequence number, assigned in publish order
+     */
+    public long nextSequence() {
+        return publishedSequence.incrementAndGet();
+    }
+
+    /**
+     * Record a resolved timestamp, meaning all payloads published so far have an MVCC
+     * timestamp at or below it. It becomes the applied resolved timestamp once all these
+     * payloads are applied.
+     */
+    public synchronized Subscriber markResolved(LogicalTimestamp resolvedTimestamp) {
+        this.lastResolvedTimestamp = resolvedTimestamp;
+        this.pendingResolved.put(publishedSequence.get(), resolvedTimestamp);
+        advanceAppliedSequence(appliedSequence);
+        return this;
+    }
+
+    /**
+     * Mark individual payloads as applied to the target. Payloads are not necessarily
+     * applied in sequence order (sequences are assigned before payloads are queued by
+     * concurrent publishers), so the applied low-watermark only advances over the
+     * contiguous prefix of applied sequences. Unassigned (zero) sequences are ignored.
+     */
+    public synchronized Subscriber markApplied(long... sequences) {
+        setApplied(appliedAhead, sequences);
+        int contiguous = appliedAhead.nextClearBit(0);
+        if (contiguous > 0) {
+            advanceAppliedSequence(appliedSequence + contiguous);
+        }
+        return this;
+    }
+
+    /**
+     * @return the applied resolved timestamp if the given payloads were marked as applied,
+     * without marking them
+     */
+    public synchronized LogicalTimestamp peekAppliedResolvedTimestamp(long... sequences) {
+        BitSet ahead = (BitSet) appliedAhead.clone();
+        setApplied(ahead, sequences);
+
+        Map.Entry<Long, LogicalTimestamp> entry = pendingResolved.floorEntry(appliedSequence + ahead.nextClearBit(0));
+        if (entry != null && (appliedResolvedTimestamp == null
+                || entry.getValue().compareTo(appliedResolvedTimestamp) > 0)) {
+            return entry.getValue();
+        }
+        return appliedResolvedTimestamp;
+    }
+
+    private void setApplied(BitSet ahead, long... sequences) {
+        for (long sequence : sequences) {
+            long offset = sequence - appliedSequence - 1;
+            if (sequence > 0 && offset >= 0) {
+                Assert.isTrue(offset < Integer.MAX_VALUE, "sequence too far ahead of applied: " + sequence);
+                ahead.set((int) offset);
+            }
+        }
+    }
+
+    /**
+     * Advance the applied low-watermark, meaning that all payloads up to and including
+     * the given sequence number are applied to the target. Advancing is idempotent and
+     * never moves backwards.
+     */
+    public synchronized Subscriber advanceAppliedSequence(long sequence) {
+        if (sequence > appliedSequence) {
+            int shift = (int) Math.min(sequence - appliedSequence, Integer.MAX_VALUE);
+            this.appliedAhead = appliedAhead.get(shift, Math.max(shift, appliedAhead.length()));
+            this.appliedSequence = sequence;
+        }
+
+        Map.Entry<Long, LogicalTimestamp> entry = pendingResolved.floorEntry(appliedSequence);
+        if (entry != null) {
+            if (appliedResolvedTimestamp == null || entry.getValue().compareTo(appliedResolvedTimestamp) > 0) {
+                this.appliedResolvedTimestamp = entry.getValue();
+            }
+            pendingResolved.headMap(entry.getKey(), true).clear();
+        }
+        return this;
+    }
+
+    public synchronized long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    /**
+     * @return the highest resolved timestamp for which all preceding payloads are applied
+     */
+    public synchronized LogicalTimestamp getAppliedResolvedTimestamp() {
+        return appliedResolvedTimestamp;
+    }
+
     public String getId() {
         return id;
     }
@@ -132,6 +253,7 @@ public class Subscriber implements Comparable<Subscriber> {
                 ", tableName='" + tableName + '\'' +
                 ", creationTimestamp=" + creationTimestamp +
                 ", lastResolvedTimestamp=" + lastResolvedTimestamp +
+                ", appliedResolvedTimestamp=" + appliedResolvedTimestamp +
                 ", lastEventReceivedTimestamp=" + lastEventReceivedTimestamp +
                 ", eventsReceived=" + eventsReceived +
                 ", payloadsReceived=" + payloadsReceived +
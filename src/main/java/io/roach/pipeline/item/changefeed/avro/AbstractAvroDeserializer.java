@@ -0,0 +1,120 @@
+package io.roach.pipeline.item.changefeed.avro;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.avro.Conversions;
+import org.apache.avro.Schema;
+import org.apache.avro.data.TimeConversions;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.util.StringUtils;
+
+/**
+ * Base class for Kafka deserializers of Avro records in the Confluent wire format (magic byte,
+ * 4-byte schema ID and Avro binary data), as emitted by CockroachDB changefeeds using
+ * {@code format = avro} for both record keys and values.
+ * <p>
+ * Writer schemas are resolved through a {@link SchemaStore}, by default a {@link RegistrySchemaStore}
+ * configured with the {@value #SCHEMA_REGISTRY_URL_CONFIG} consumer property, falling back to a
+ * {@link FileSchemaStore} configured with the {@value #SCHEMA_DIRECTORY_CONFIG} consumer property.
+ *
+ * @param <T> the deserialized type
+ */
+public abstract class AbstractAvroDeserializer<T> implements Deserializer<T> {
+    public static final String SCHEMA_DIRECTORY_CONFIG = "pipeline.avro.schema.directory";
+
+    public static final String SCHEMA_REGISTRY_URL_CONFIG = "pipeline.avro.schema.registry.url";
+
+    private static final byte MAGIC_BYTE = 0x0;
+
+    private static final int HEADER_SIZE = 5;
+
+    private static final GenericData GENERIC_DATA = new GenericData();
+
+    static {
+        GENERIC_DATA.addLogicalTypeConversion(new Conversions.DecimalConversion());
+        GENERIC_DATA.addLogicalTypeConversion(new Conversions.UUIDConversion());
+        GENERIC_DATA.addLogicalTypeConversion(new TimeConversions.DateConversion());
+        GENERIC_DATA.addLogicalTypeConversion(new TimeConversions.TimestampMicrosConversion());
+        GENERIC_DATA.addLogicalTypeConversion(new TimeConversions.TimestampMillisConversion());
+    }
+
+    private final Map<Integer, DatumReader<GenericRecord>> readers = new ConcurrentHashMap<>();
+
+    private SchemaStore schemaStore;
+
+    private BinaryDecoder decoder;
+
+    protected AbstractAvroDeserializer() {
+    }
+
+    protected AbstractAvroDeserializer(SchemaStore schemaStore) {
+        this.schemaStore = schemaStore;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        if (schemaStore != null) {
+            return;
+        }
+        Object directory = configs.get(SCHEMA_DIRECTORY_CONFIG);
+        Object registryUrl = configs.get(SCHEMA_REGISTRY_URL_CONFIG);
+
+        SchemaStore fileSchemaStore = directory != null && StringUtils.hasLength(directory.toString())
+                ? new FileSchemaStore(Paths.get(directory.toString())) : null;
+        if (registryUrl != null && StringUtils.hasLength(registryUrl.toString())) {
+            this.schemaStore = new RegistrySchemaStore(registryUrl.toString(), fileSchemaStore);
+        } else {
+            this.schemaStore = fileSchemaStore;
+        }
+    }
+
+    @Override
+    public T deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (schemaStore == null) {
+            throw new SerializationException("No schema store configured, set " + SCHEMA_REGISTRY_URL_CONFIG
+                    + " or " + SCHEMA_DIRECTORY_CONFIG);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (data.length < HEADER_SIZE || buffer.get() != MAGIC_BYTE) {
+            throw new SerializationException("Unknown magic byte for Avro record in topic " + topic);
+        }
+
+        int schemaId = buffer.getInt();
+
+        DatumReader<GenericRecord> reader = readers.computeIfAbsent(schemaId, id -> {
+            Schema schema = schemaStore.getSchema(id);
+            return new GenericDatumReader<>(schema, schema, GENERIC_DATA);
+        });
+
+        try {
+            // Consumer instances are single threaded
+            this.decoder = DecoderFactory.get().binaryDecoder(data, HEADER_SIZE,
+                    data.length - HEADER_SIZE, decoder);
+            return convert(reader.read(null, decoder));
+        } catch (IOException | RuntimeException e) {
+            throw new SerializationException("Error decoding Avro record with schema ID "
+                    + schemaId + " in topic " + topic, e);
+        }
+    }
+
+    /**
+     * @param record the decoded record
+     * @return the deserialized value
+     */
+    protected abstract T convert(GenericRecord record);
+}
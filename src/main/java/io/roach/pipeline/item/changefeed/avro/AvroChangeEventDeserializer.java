@@ -0,0 +1,37 @@
+package io.roach.pipeline.item.changefeed.avro;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+
+import io.roach.pipeline.item.changefeed.KafkaChangeEvent;
+
+/**
+ * Kafka value deserializer for CockroachDB changefeeds using {@code format = avro}. Records
+ * are decoded straight into a {@link KafkaChangeEvent} where the row image is a
+ * {@link GenericRecordMap} view, without an intermediate JSON representation.
+ * <p>
+ * Avro values carry no primary key, which is instead the record key decoded by
+ * {@link AvroKeyDeserializer} and added by {@link ChangeEventKeyInterceptor}.
+ */
+public class AvroChangeEventDeserializer extends AbstractAvroDeserializer<KafkaChangeEvent> {
+    public AvroChangeEventDeserializer() {
+    }
+
+    public AvroChangeEventDeserializer(SchemaStore schemaStore) {
+        super(schemaStore);
+    }
+
+    @Override
+    protected KafkaChangeEvent convert(GenericRecord record) {
+        Schema schema = record.getSchema();
+
+        Object after = schema.getField("after") != null ? record.get("after") : null;
+        Object updated = schema.getField("updated") != null ? record.get("updated") : null;
+        Object resolved = schema.getField("resolved") != null ? record.get("resolved") : null;
+
+        return KafkaChangeEvent.of(
+                after instanceof GenericRecord ? new GenericRecordMap((GenericRecord) after) : null,
+                updated != null ? updated.toString() : null,
+                resolved != null ? resolved.toString() : null);
+    }
+}
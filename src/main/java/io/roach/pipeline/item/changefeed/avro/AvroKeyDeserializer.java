@@ -0,0 +1,31 @@
+package io.roach.pipeline.item.changefeed.avro;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+
+/**
+ * Kafka key deserializer for CockroachDB changefeeds using {@code format = avro}, where the
+ * record key is a record of the primary key columns. Decodes into the primary key values in
+ * column order, like the {@code key} array of JSON payloads.
+ */
+public class AvroKeyDeserializer extends AbstractAvroDeserializer<List<Object>> {
+    public AvroKeyDeserializer() {
+    }
+
+    public AvroKeyDeserializer(SchemaStore schemaStore) {
+        super(schemaStore);
+    }
+
+    @Override
+    protected List<Object> convert(GenericRecord record) {
+        List<Schema.Field> fields = record.getSchema().getFields();
+        List<Object> keys = new ArrayList<>(fields.size());
+        for (Schema.Field field : fields) {
+            keys.add(GenericRecordMap.toJdbcValue(record.get(field.pos())));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,41 @@
+package io.roach.pipeline.item.changefeed.avro;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.ConsumerInterceptor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import io.roach.pipeline.item.changefeed.KafkaChangeEvent;
+
+/**
+ * Consumer interceptor that adds the decoded record key to change events without a key
+ * in the value, since item readers only pass on record values.
+ */
+public class ChangeEventKeyInterceptor implements ConsumerInterceptor<Object, KafkaChangeEvent> {
+    @Override
+    public ConsumerRecords<Object, KafkaChangeEvent> onConsume(ConsumerRecords<Object, KafkaChangeEvent> records) {
+        for (ConsumerRecord<Object, KafkaChangeEvent> record : records) {
+            KafkaChangeEvent event = record.value();
+            if (event != null && event.getKeys().isEmpty() && record.key() instanceof List<?> keys) {
+                event.setKeys(keys);
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public void onCommit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+    }
+}
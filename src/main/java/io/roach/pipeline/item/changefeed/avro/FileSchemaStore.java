@@ -0,0 +1,38 @@
+package io.roach.pipeline.item.changefeed.avro;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.avro.Schema;
+import org.apache.kafka.common.errors.SerializationException;
+import org.springframework.util.Assert;
+
+/**
+ * A local schema store reading Avro schemas from {@code <id>.avsc} files in a directory,
+ * as an alternative to a schema registry. Schemas are cached once parsed.
+ */
+public class FileSchemaStore implements SchemaStore {
+    private final Path directory;
+
+    private final Map<Integer, Schema> schemas = new ConcurrentHashMap<>();
+
+    public FileSchemaStore(Path directory) {
+        Assert.notNull(directory, "directory is null");
+        this.directory = directory;
+    }
+
+    @Override
+    public Schema getSchema(int id) {
+        return schemas.computeIfAbsent(id, key -> {
+            Path path = directory.resolve(key + ".avsc");
+            try {
+                return new Schema.Parser().parse(Files.readString(path));
+            } catch (IOException e) {
+                throw new SerializationException("Unable to read schema with ID " + key + " from " + path, e);
+            }
+        });
+    }
+}
@@ -0,0 +1,93 @@
+package io.roach.pipeline.item.changefeed.avro;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+
+/**
+ * A read-only map view of an Avro {@link GenericRecord}, where values are looked up by
+ * field position rather than copied into a hash map. Avro runtime types are converted
+ * to JDBC friendly types on access.
+ */
+public class GenericRecordMap extends AbstractMap<String, Object> {
+    public static Object toJdbcValue(Object value) {
+        if (value instanceof Utf8 || value instanceof CharSequence) {
+            return value.toString();
+        }
+        if (value instanceof ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            return bytes;
+        }
+        if (value instanceof Instant instant) {
+            return Timestamp.from(instant);
+        }
+        if (value instanceof GenericRecord record) {
+            return new GenericRecordMap(record);
+        }
+        return value;
+    }
+
+    private final GenericRecord record;
+
+    public GenericRecordMap(GenericRecord record) {
+        this.record = record;
+    }
+
+    public GenericRecord getRecord() {
+        return record;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Schema.Field field = record.getSchema().getField(String.valueOf(key));
+        return field != null ? toJdbcValue(record.get(field.pos())) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return record.getSchema().getField(String.valueOf(key)) != null;
+    }
+
+    @Override
+    public int size() {
+        return record.getSchema().getFields().size();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        final List<Schema.Field> fields = record.getSchema().getFields();
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                final Iterator<Schema.Field> it = fields.iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        Schema.Field field = it.next();
+                        return new SimpleImmutableEntry<>(field.name(), toJdbcValue(record.get(field.pos())));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return fields.size();
+            }
+        };
+    }
+}
@@ -0,0 +1,101 @@
+package io.roach.pipeline.item.changefeed.avro;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.avro.Schema;
+import org.apache.kafka.common.errors.SerializationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A schema store fetching Avro schemas from a Confluent schema registry through
+ * {@code GET /schemas/ids/<id>}. Schemas are immutable by ID and cached once fetched.
+ * <p>
+ * If the registry is unreachable or doesn't know a schema ID, the optional fallback store
+ * is consulted, like a {@link FileSchemaStore} with exported schemas for offline use.
+ */
+public class RegistrySchemaStore implements SchemaStore {
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<Integer, Schema> schemas = new ConcurrentHashMap<>();
+
+    private final String registryUrl;
+
+    private final SchemaStore fallback;
+
+    private final HttpClient httpClient;
+
+    public RegistrySchemaStore(String registryUrl) {
+        this(registryUrl, null);
+    }
+
+    public RegistrySchemaStore(String registryUrl, SchemaStore fallback) {
+        Assert.hasLength(registryUrl, "registryUrl is empty");
+        this.registryUrl = StringUtils.trimTrailingCharacter(registryUrl, '/');
+        this.fallback = fallback;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Override
+    public Schema getSchema(int id) {
+        return schemas.computeIfAbsent(id, key -> {
+            try {
+                return fetchSchema(key);
+            } catch (SerializationException e) {
+                if (fallback == null) {
+                    throw e;
+                }
+                logger.warn("{}, trying fallback schema store", e.getMessage());
+                return fallback.getSchema(key);
+            }
+        });
+    }
+
+    private Schema fetchSchema(int id) {
+        URI uri = URI.create(registryUrl + "/schemas/ids/" + id);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(TIMEOUT)
+                .header("Accept", "application/vnd.schemaregistry.v1+json, application/json")
+                .GET()
+                .build();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new SerializationException("Unable to fetch schema with ID " + id + " from " + uri
+                        + ": status " + response.statusCode());
+            }
+            JsonNode schema = objectMapper.readTree(response.body()).get("schema");
+            if (schema == null || !schema.isTextual()) {
+                throw new SerializationException("No schema with ID " + id + " in response from " + uri);
+            }
+            return new Schema.Parser().parse(schema.asText());
+        } catch (IOException | RuntimeException e) {
+            if (e instanceof SerializationException) {
+                throw (SerializationException) e;
+            }
+            throw new SerializationException("Unable to fetch schema with ID " + id + " from " + uri, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SerializationException("Interrupted fetching schema with ID " + id + " from " + uri, e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package io.roach.pipeline.item.changefeed.avro;
+
+import org.apache.avro.Schema;
+
+/**
+ * Lookup of Avro writer schemas by the schema ID embedded in each record.
+ */
+public interface SchemaStore {
+    /**
+     * @param id the schema ID
+     * @return the schema, never null
+     * @throws org.apache.kafka.common.errors.SerializationException if not found
+     */
+    Schema getSchema(int id);
+}
@@ -0,0 +1,174 @@
+package io.roach.pipeline.item.flatfile;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Scans a byte buffer for the next record and its delimited fields in a single pass,
+ * recording fields as start and end indexes into the buffer rather than copying or
+ * decoding them.
+ * <p>
+ * A newline ends the record and a delimiter ends a field, unless within quotes. A trailing
+ * carriage return is excluded from the record. Quotes are kept in the field bounds and
+ * stripped when decoded with {@link #decodeField(ByteBuffer, int, int, Charset, int)}.
+ * The delimiter, quote and newline must be single bytes in the buffer encoding.
+ */
+public class ByteTokenizer {
+    /**
+     * Decode a field, stripping enclosing quotes and unescaping doubled quotes.
+     *
+     * @param buffer the buffer
+     * @param start the field start index (inclusive)
+     * @param end the field end index (exclusive)
+     * @param charset the encoding
+     * @param quoteCharacter the quote byte, or -1 if not quoted
+     * @return the field value
+     */
+    public static String decodeField(ByteBuffer buffer, int start, int end, Charset charset, int quoteCharacter) {
+        if (quoteCharacter >= 0 && end - start >= 2
+                && (buffer.get(start) & 0xff) == quoteCharacter
+                && (buffer.get(end - 1) & 0xff) == quoteCharacter) {
+            String value = decode(buffer, start + 1, end - 1, charset);
+            String quote = String.valueOf((char) quoteCharacter);
+            return value.contains(quote) ? value.replace(quote + quote, quote) : value;
+        }
+        return decode(buffer, start, end, charset);
+    }
+
+    /**
+     * @param buffer the buffer
+     * @param start the start index (inclusive)
+     * @param end the end index (exclusive)
+     * @param charset the encoding
+     * @return the decoded bytes
+     */
+    public static String decode(ByteBuffer buffer, int start, int end, Charset charset) {
+        if (end <= start) {
+            return "";
+        }
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, charset);
+    }
+
+    private final int delimiter;
+
+    private final int quoteCharacter;
+
+    private int[] starts = new int[16];
+
+    private int[] ends = new int[16];
+
+    private int fieldCount;
+
+    private int recordStart;
+
+    private int recordEnd;
+
+    private int next;
+
+    /**
+     * @param delimiter the field delimiter byte, or -1 to scan records only
+     * @param quoteCharacter the quote byte, or -1 if not quoted
+     */
+    public ByteTokenizer(int delimiter, int quoteCharacter) {
+        this.delimiter = delimiter;
+        this.quoteCharacter = quoteCharacter;
+    }
+
+    /**
+     * Scan the next record.
+     *
+     * @param buffer the buffer
+     * @param from the record start index
+     * @param limit the scan limit index (exclusive)
+     * @param endOfInput true if there is no input past the limit, in which case an
+     * unterminated record at the end is accepted
+     * @return true if a record was scanned, false if the record is not terminated before
+     * the limit (or the limit is reached at end of input)
+     */
+    public boolean scan(ByteBuffer buffer, int from, int limit, boolean endOfInput) {
+        this.fieldCount = 0;
+        this.recordStart = from;
+
+        int fieldStart = from;
+        boolean quoted = false;
+
+        for (int i = from; i < limit; i++) {
+            int b = buffer.get(i) & 0xff;
+            if (b == quoteCharacter) {
+                quoted = !quoted;
+            } else if (!quoted) {
+                if (b == delimiter) {
+                    addField(fieldStart, i);
+                    fieldStart = i + 1;
+                } else if (b == '\n') {
+                    endRecord(buffer, fieldStart, i);
+                    this.next = i + 1;
+                    return true;
+                }
+            }
+        }
+
+        if (endOfInput && limit > from) {
+            endRecord(buffer, fieldStart, limit);
+            this.next = limit;
+            return true;
+        }
+
+        return false;
+    }
+
+    private void endRecord(ByteBuffer buffer, int fieldStart, int end) {
+        if (end > recordStart && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        addField(fieldStart, Math.max(fieldStart, end));
+        this.recordEnd = end;
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public int getFieldStart(int index) {
+        return starts[index];
+    }
+
+    public int getFieldEnd(int index) {
+        return ends[index];
+    }
+
+    public int getRecordStart() {
+        return recordStart;
+    }
+
+    /**
+     * @return the record end index, excluding the line terminator
+     */
+    public int getRecordEnd() {
+        return recordEnd;
+    }
+
+    /**
+     * @return the index past the line terminator, where the next record starts
+     */
+    public int getNext() {
+        return next;
+    }
+
+    public int getQuoteCharacter() {
+        return quoteCharacter;
+    }
+}
@@ -0,0 +1,119 @@
+package io.roach.pipeline.item.flatfile;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.batch.item.file.transform.IncorrectTokenCountException;
+
+import io.roach.pipeline.item.Row;
+import io.roach.pipeline.item.RowSchema;
+
+/**
+ * Maps records scanned by a {@link ByteTokenizer} to {@link Row}s that keep the field
+ * bounds and decode a value to a string only when first accessed, typically when a writer
+ * binds it. Rows reference the (read-only) buffer they were scanned from.
+ * <p>
+ * Mirrors the delimited line tokenizer: missing fields are empty strings and extra fields
+ * are ignored unless strict, in which case a record with any other number of fields than
+ * the schema fails, and empty records map to empty maps.
+ */
+public class DelimitedRowMapper implements FileRangeItemReader.RecordMapper<Map<String, Object>> {
+    private static final class LazyRow extends Row {
+        private final ByteBuffer buffer;
+
+        private final int[] bounds;
+
+        private final boolean[] resolved;
+
+        private final Charset charset;
+
+        private final int quoteCharacter;
+
+        LazyRow(RowSchema schema, ByteBuffer buffer, int[] bounds, Charset charset, int quoteCharacter) {
+            super(schema);
+            this.buffer = buffer;
+            this.bounds = bounds;
+            this.resolved = new boolean[schema.size()];
+            this.charset = charset;
+            this.quoteCharacter = quoteCharacter;
+        }
+
+        @Override
+        public Object get(int ordinal) {
+            if (!resolved[ordinal]) {
+                int start = bounds[ordinal * 2];
+                super.set(ordinal, start < 0 ? ""
+                        : ByteTokenizer.decodeField(buffer, start, bounds[ordinal * 2 + 1], charset, quoteCharacter));
+                resolved[ordinal] = true;
+            }
+            return super.get(ordinal);
+        }
+
+        @Override
+        public void set(int ordinal, Object value) {
+            super.set(ordinal, value);
+            resolved[ordinal] = true;
+        }
+    }
+
+    private final RowSchema rowSchema;
+
+    private final int[] tokenIndexes;
+
+    private final int tokenCount;
+
+    private final Charset charset;
+
+    private final boolean strict;
+
+    /**
+     * @param rowSchema the row schema
+     * @param tokenIndexes the token index of each row column
+     * @param tokenCount the number of fields of a record, including ignored fields
+     * @param charset the file encoding
+     * @param strict true to require exactly {@code tokenCount} fields
+     */
+    public DelimitedRowMapper(RowSchema rowSchema, int[] tokenIndexes, int tokenCount, Charset charset,
+                              boolean strict) {
+        if (rowSchema.size() != tokenIndexes.length) {
+            throw new IllegalArgumentException("Expected one token index per column");
+        }
+        if (Arrays.stream(tokenIndexes).anyMatch(token -> token >= tokenCount)) {
+            throw new IllegalArgumentException("Token index out of bounds");
+        }
+        this.rowSchema = rowSchema;
+        this.tokenIndexes = tokenIndexes;
+        this.tokenCount = tokenCount;
+        this.charset = charset;
+        this.strict = strict;
+    }
+
+    @Override
+    public Map<String, Object> mapRecord(ByteBuffer buffer, ByteTokenizer tokenizer, int lineNumber) {
+        if (tokenizer.getRecordEnd() == tokenizer.getRecordStart()) {
+            return Collections.emptyMap();
+        }
+
+        final int fieldCount = tokenizer.getFieldCount();
+        if (strict && fieldCount != tokenCount) {
+            throw new IncorrectTokenCountException(tokenCount, fieldCount,
+                    ByteTokenizer.decode(buffer, tokenizer.getRecordStart(), tokenizer.getRecordEnd(), charset));
+        }
+
+        final int[] bounds = new int[tokenIndexes.length * 2];
+        for (int i = 0; i < tokenIndexes.length; i++) {
+            int token = tokenIndexes[i];
+            if (token < fieldCount) {
+                bounds[i * 2] = tokenizer.getFieldStart(token);
+                bounds[i * 2 + 1] = tokenizer.getFieldEnd(token);
+            } else {
+                bounds[i * 2] = -1;
+            }
+        }
+
+        return new LazyRow(rowSchema, buffer, bounds, charset, tokenizer.getQuoteCharacter());
+    }
+}
@@ -0,0 +1,249 @@
+package io.roach.pipeline.item.flatfile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link ItemStreamReader} for the records starting within a byte range of a local
+ * flat file, typically a partition created by {@link FileRangePartitioner}.
+ * <p>
+ * The file is memory-mapped in windows and scanned in place by a {@link ByteTokenizer},
+ * without copying records to the heap. Records end at a newline outside quotes (if a
+ * quote character is given) so that quoted values may span lines. Each record is mapped
+ * to an item by a {@link RecordMapper}, either from the field bounds directly or by
+ * decoding the record to a line for a {@link LineMapper}.
+ * <p>
+ * The byte offset of the next record is saved on update, so a restart resumes at the first
+ * uncommitted record of the range rather than re-reading it. The encoding must be ASCII
+ * compatible (like UTF-8 or ISO-8859-1) so that newline, delimiter and quote bytes never
+ * occur within multibyte characters.
+ *
+ * @param <T> the item type
+ */
+public class FileRangeItemReader<T> implements ItemStreamReader<T> {
+    /**
+     * Maps a scanned record to an item.
+     *
+     * @param <T> the item type
+     */
+    @FunctionalInterface
+    public interface RecordMapper<T> {
+        /**
+         * @param buffer the buffer scanned, valid for as long as referenced
+         * @param tokenizer the tokenizer positioned at the record
+         * @param lineNumber the record number within the range (one based)
+         * @return the item
+         */
+        T mapRecord(ByteBuffer buffer, ByteTokenizer tokenizer, int lineNumber) throws Exception;
+    }
+
+    /**
+     * @return a record mapper decoding each record to a line for the line mapper
+     */
+    public static <T> RecordMapper<T> lineRecordMapper(LineMapper<T> lineMapper, Charset charset) {
+        return (buffer, tokenizer, lineNumber) -> lineMapper.mapLine(
+                ByteTokenizer.decode(buffer, tokenizer.getRecordStart(), tokenizer.getRecordEnd(), charset),
+                lineNumber);
+    }
+
+    /**
+     * @param charset the file encoding
+     * @return true if newlines and ASCII characters are single bytes in the encoding
+     */
+    public static boolean isAsciiCompatible(Charset charset) {
+        return Arrays.equals("\n\"".getBytes(charset), new byte[] {'\n', '"'});
+    }
+
+    private static final String OFFSET = "offset";
+
+    private static final String LINE_NUMBER = "line.number";
+
+    private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE - 8;
+
+    private final Path path;
+
+    private final long startOffset;
+
+    private final long endOffset;
+
+    private final Charset charset;
+
+    private final ByteTokenizer tokenizer;
+
+    private final byte[][] comments;
+
+    private final RecordMapper<T> recordMapper;
+
+    private FileChannel channel;
+
+    private long fileSize;
+
+    private MappedByteBuffer window;
+
+    private long windowOffset;
+
+    private long position;
+
+    private int lineNumber;
+
+    private String name = "file_range_reader";
+
+    /**
+     * @param path the file path
+     * @param startOffset the offset of the first record (inclusive)
+     * @param endOffset the offset past the last record start (exclusive)
+     * @param charset the file encoding
+     * @param tokenizer the tokenizer for records and fields
+     * @param comments comment line prefixes
+     * @param recordMapper the record mapper
+     */
+    public FileRangeItemReader(Path path, long startOffset, long endOffset, Charset charset,
+                               ByteTokenizer tokenizer, List<String> comments, RecordMapper<T> recordMapper) {
+        Assert.notNull(path, "path must not be null");
+        Assert.isTrue(startOffset >= 0 && startOffset <= endOffset, "Invalid range");
+        Assert.isTrue(isAsciiCompatible(charset), "Encoding must be ASCII compatible: " + charset);
+        Assert.notNull(tokenizer, "tokenizer must not be null");
+        Assert.notNull(recordMapper, "recordMapper must not be null");
+        this.path = path;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        this.charset = charset;
+        this.tokenizer = tokenizer;
+        this.comments = comments.stream().map(prefix -> prefix.getBytes(charset)).toArray(byte[][]::new);
+        this.recordMapper = recordMapper;
+    }
+
+    /**
+     * @param name the prefix of the keys saved in the execution context
+     */
+    public void setName(String name) {
+        Assert.hasLength(name, "name must not be empty");
+        this.name = name;
+    }
+
+    private String getExecutionContextKey(String key) {
+        return name + "." + key;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        try {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.fileSize = channel.size();
+        } catch (IOException e) {
+            throw new ItemStreamException("Unable to open file: " + path, e);
+        }
+        this.position = executionContext.getLong(getExecutionContextKey(OFFSET), startOffset);
+        this.lineNumber = executionContext.getInt(getExecutionContextKey(LINE_NUMBER), 0);
+        this.window = null;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        executionContext.putLong(getExecutionContextKey(OFFSET), position);
+        executionContext.putInt(getExecutionContextKey(LINE_NUMBER), lineNumber);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        // Mapped windows stay valid after close and are unmapped when unreferenced
+        this.window = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new ItemStreamException("Unable to close file: " + path, e);
+            } finally {
+                channel = null;
+            }
+        }
+    }
+
+    @Override
+    public T read() throws Exception {
+        while (nextRecord()) {
+            lineNumber++;
+            if (isComment()) {
+                continue;
+            }
+            try {
+                return recordMapper.mapRecord(window, tokenizer, lineNumber);
+            } catch (Exception ex) {
+                throw new FlatFileParseException("Parsing error at record " + lineNumber
+                        + " from offset " + startOffset + " in file: " + path, ex,
+                        ByteTokenizer.decode(window, tokenizer.getRecordStart(), tokenizer.getRecordEnd(), charset),
+                        lineNumber);
+            }
+        }
+        return null;
+    }
+
+    private boolean nextRecord() throws IOException {
+        if (position >= endOffset) {
+            return false;
+        }
+
+        if (window == null || position >= windowOffset + window.limit()) {
+            map(position, WINDOW_SIZE);
+        }
+
+        while (true) {
+            final int from = (int) (position - windowOffset);
+            final boolean endOfInput = windowOffset + window.limit() >= fileSize;
+
+            if (tokenizer.scan(window, from, window.limit(), endOfInput)) {
+                position = windowOffset + tokenizer.getNext();
+                return true;
+            }
+            if (endOfInput) {
+                return false;
+            }
+
+            if (from == 0 && window.limit() >= MAX_WINDOW_SIZE) {
+                throw new IOException("Record at offset " + position + " exceeds " + MAX_WINDOW_SIZE + " bytes");
+            }
+
+            // Record crosses the window end, remap from the record start (larger if needed)
+            map(position, from == 0 ? (long) window.limit() * 2 : WINDOW_SIZE);
+        }
+    }
+
+    private void map(long offset, long size) throws IOException {
+        long length = Math.min(Math.min(size, MAX_WINDOW_SIZE), fileSize - offset);
+        this.window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.max(0, length));
+        this.windowOffset = offset;
+    }
+
+    private boolean isComment() {
+        final int start = tokenizer.getRecordStart();
+        final int length = tokenizer.getRecordEnd() - start;
+        for (byte[] prefix : comments) {
+            if (prefix.length > 0 && prefix.length <= length) {
+                boolean match = true;
+                for (int i = 0; i < prefix.length && match; i++) {
+                    match = window.get(start + i) == prefix[i];
+                }
+                if (match) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,176 @@
+package io.roach.pipeline.item.flatfile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link Partitioner} that splits a local flat file into contiguous byte ranges of
+ * roughly equal size, aligned to record boundaries. Leading lines to skip (headers) are
+ * excluded from all ranges.
+ * <p>
+ * With a quote character, a newline only ends a record when outside quotes. The quote
+ * state at each split point is resolved by counting quotes per range in parallel, and
+ * the split is then moved to the first record boundary after that point. Without a quote
+ * character (fixed-width and regex files), splits are moved to the next newline directly.
+ * <p>
+ * Each partition context holds an inclusive {@link #START_OFFSET} and an exclusive
+ * {@link #END_OFFSET} in bytes, read by a {@link FileRangeItemReader}.
+ */
+public class FileRangePartitioner implements Partitioner {
+    public static final String START_OFFSET = "startOffset";
+
+    public static final String END_OFFSET = "endOffset";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Find the start of the next record.
+     *
+     * @param channel the file channel
+     * @param offset the offset to scan from
+     * @param quoted true if the offset is inside quotes
+     * @param quoteCharacter the quote byte, or -1 if not quoted
+     * @return the offset after the first record ending newline, or the file size if none
+     */
+    static long nextRecordOffset(FileChannel channel, long offset, boolean quoted, int quoteCharacter)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = offset;
+        int n;
+        while ((n = channel.read(buffer.clear(), position)) > 0) {
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < n; i++) {
+                int b = bytes[i] & 0xff;
+                if (b == quoteCharacter) {
+                    quoted = !quoted;
+                } else if (b == '\n' && !quoted) {
+                    return position + i + 1;
+                }
+            }
+            position += n;
+        }
+        return channel.size();
+    }
+
+    private static long countQuotes(FileChannel channel, long from, long to, int quoteCharacter)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long count = 0;
+        long position = from;
+        while (position < to) {
+            buffer.clear().limit((int) Math.min(BUFFER_SIZE, to - position));
+            int n = channel.read(buffer, position);
+            if (n <= 0) {
+                break;
+            }
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < n; i++) {
+                if ((bytes[i] & 0xff) == quoteCharacter) {
+                    count++;
+                }
+            }
+            position += n;
+        }
+        return count;
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Path path;
+
+    private final int linesToSkip;
+
+    private final int quoteCharacter;
+
+    /**
+     * @param path the file path
+     * @param linesToSkip number of leading records to exclude
+     * @param quoteCharacter the quote byte, or -1 if not quoted
+     */
+    public FileRangePartitioner(Path path, int linesToSkip, int quoteCharacter) {
+        Assert.notNull(path, "path must not be null");
+        Assert.isTrue(quoteCharacter < 0x80, "quoteCharacter must be ASCII");
+        this.path = path;
+        this.linesToSkip = linesToSkip;
+        this.quoteCharacter = quoteCharacter;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+
+            long dataOffset = 0;
+            for (int i = 0; i < linesToSkip && dataOffset < size; i++) {
+                dataOffset = nextRecordOffset(channel, dataOffset, false, quoteCharacter);
+            }
+
+            List<Long> bounds = new ArrayList<>();
+            bounds.add(dataOffset);
+            for (long split : splitPoints(channel, dataOffset, size, Math.max(1, gridSize))) {
+                if (split > bounds.get(bounds.size() - 1) && split < size) {
+                    bounds.add(split);
+                }
+            }
+            bounds.add(size);
+
+            Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+            for (int i = 0; i < bounds.size() - 1; i++) {
+                ExecutionContext context = new ExecutionContext();
+                context.putLong(START_OFFSET, bounds.get(i));
+                context.putLong(END_OFFSET, bounds.get(i + 1));
+                partitions.put("partition" + i, context);
+            }
+
+            logger.info("Partitioned [{}] of {} bytes in [{}] byte ranges with split points {}",
+                    path, size, partitions.size(), bounds.subList(1, bounds.size() - 1));
+
+            return partitions;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error partitioning file: " + path, e);
+        }
+    }
+
+    private long[] splitPoints(FileChannel channel, long dataOffset, long size, int gridSize) throws IOException {
+        final long[] targets = new long[gridSize - 1];
+        for (int i = 0; i < targets.length; i++) {
+            targets[i] = dataOffset + (size - dataOffset) * (i + 1) / gridSize;
+        }
+
+        // Quote count between each target and the previous, counted in parallel
+        final long[] quotes = new long[targets.length];
+        if (quoteCharacter >= 0) {
+            IntStream.range(0, targets.length).parallel().forEach(i -> {
+                try {
+                    quotes[i] = countQuotes(channel, i > 0 ? targets[i - 1] : dataOffset, targets[i],
+                            quoteCharacter);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+
+        final long[] splits = new long[targets.length];
+        long total = 0;
+        for (int i = 0; i < targets.length; i++) {
+            total += quotes[i];
+            splits[i] = nextRecordOffset(channel, targets[i], (total & 1) == 1, quoteCharacter);
+        }
+        return splits;
+    }
+}
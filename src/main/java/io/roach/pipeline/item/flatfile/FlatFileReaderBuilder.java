@@ -1,26 +1,36 @@
 package io.roach.pipeline.item.flatfile;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.springframework.batch.core.partition.support.Partitioner;
 import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.file.LineMapper;
 import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
 import org.springframework.batch.item.file.mapping.DefaultLineMapper;
 import org.springframework.batch.item.file.transform.LineTokenizer;
 import org.springframework.core.io.Resource;
-import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.util.StringUtils;
 
+import io.roach.pipeline.item.Row;
+import io.roach.pipeline.item.RowSchema;
 import io.roach.pipeline.item.flatfile.schema.Field;
 import io.roach.pipeline.item.flatfile.schema.FlatFileSchema;
+import io.roach.pipeline.item.flatfile.schema.Tokenizer;
 
 public abstract class FlatFileReaderBuilder {
     public static Builder instance() {
@@ -34,6 +44,10 @@ public abstract class FlatFileReaderBuilder {
 
         private Resource inputResource;
 
+        private long startOffset = -1;
+
+        private long endOffset = -1;
+
         public Builder setFlatFileSchema(FlatFileSchema flatFileSchema) {
             this.flatFileSchema = flatFileSchema;
             return this;
@@ -49,6 +63,59 @@ public abstract class FlatFileReaderBuilder {
             return this;
         }
 
+        /**
+         * Read only the records starting within a byte range of a local file, as created
+         * by {@link #buildPartitioner()}. Lines to skip are then already excluded.
+         */
+        public Builder setByteRange(long startOffset, long endOffset) {
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            return this;
+        }
+
+        /**
+         * @return a partitioner splitting the local input file into record aligned byte ranges
+         */
+        public Partitioner buildPartitioner() {
+            if (flatFileSchema == null) {
+                throw new IllegalStateException("No source schema");
+            }
+            return new FileRangePartitioner(inputPath(), linesToSkip, quoteCharacter());
+        }
+
+        private Path inputPath() {
+            if (inputResource == null) {
+                throw new IllegalStateException("No source input");
+            }
+            if (!inputResource.isFile()) {
+                throw new IllegalStateException("Byte ranges require a local file: " + inputResource);
+            }
+            if (!FileRangeItemReader.isAsciiCompatible(Charset.forName(flatFileSchema.getEncoding()))) {
+                throw new IllegalStateException("Byte ranges require an ASCII compatible encoding: "
+                        + flatFileSchema.getEncoding());
+            }
+            try {
+                return inputResource.getFile().toPath();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private int quoteCharacter() {
+            // Only delimited files have quoted values that may span lines
+            return flatFileSchema.getTokenizer().getType() == Tokenizer.Type.delimited
+                    ? flatFileSchema.getTokenizer().getQuoteCharacter() : -1;
+        }
+
+        private boolean isDelimitedBytes() {
+            // Single byte delimiter and no field expressions, which need a field set
+            String delimiter = flatFileSchema.getTokenizer().getDelimiter();
+            return flatFileSchema.getTokenizer().getType() == Tokenizer.Type.delimited
+                    && delimiter != null && delimiter.length() == 1 && delimiter.charAt(0) < 0x80
+                    && flatFileSchema.getIncludedFields().stream()
+                    .noneMatch(field -> StringUtils.hasLength(field.getExpression()));
+        }
+
         public ItemReader<Map<String, Object>> build() {
             if (inputResource == null) {
                 throw new IllegalStateException("No target output ");
@@ -57,6 +124,28 @@ public abstract class FlatFileReaderBuilder {
                 throw new IllegalStateException("No source schema");
             }
 
+            if (startOffset >= 0) {
+                final Charset charset = Charset.forName(flatFileSchema.getEncoding());
+                final FileRangeItemReader<Map<String, Object>> itemReader;
+                if (isDelimitedBytes()) {
+                    // Tokenize fields in place and decode values only when accessed
+                    List<Field> fields = flatFileSchema.getIncludedFields();
+                    itemReader = new FileRangeItemReader<>(inputPath(), startOffset, endOffset, charset,
+                            new ByteTokenizer(flatFileSchema.getTokenizer().getDelimiter().charAt(0), quoteCharacter()),
+                            flatFileSchema.getComments(),
+                            new DelimitedRowMapper(RowSchema.of(fields.stream().map(Field::getName).toList()),
+                                    flatFileSchema.includedFields(), flatFileSchema.getFields().size(),
+                                    charset, flatFileSchema.isStrict()));
+                } else {
+                    itemReader = new FileRangeItemReader<>(inputPath(), startOffset, endOffset, charset,
+                            new ByteTokenizer(-1, quoteCharacter()),
+                            flatFileSchema.getComments(),
+                            FileRangeItemReader.lineRecordMapper(createLineMapper(), charset));
+                }
+                itemReader.setName("flat_file_range_reader");
+                return itemReader;
+            }
+
             return new FlatFileItemReaderBuilder<Map<String, Object>>()
                     .comments(flatFileSchema.getComments().toArray(new String[] {}))
                     .linesToSkip(linesToSkip)
@@ -69,20 +158,38 @@ public abstract class FlatFileReaderBuilder {
         }
 
         private LineMapper<Map<String, Object>> createLineMapper() {
-            final ExpressionParser expressionParser = new SpelExpressionParser();
+            // Expressions are compiled to bytecode once evaluated with stable operand types,
+            // and fall back to interpretation if a later row does not match these types
+            final ExpressionParser expressionParser = new SpelExpressionParser(
+                    new SpelParserConfiguration(SpelCompilerMode.MIXED, getClass().getClassLoader()));
 
             final LineTokenizer lineTokenizer = flatFileSchema.lineTokenizer();
 
             final List<Field> fields = Collections.unmodifiableList(flatFileSchema.getIncludedFields());
 
-            final Map<Field, Expression> expressionMap = new HashMap<>();
+            final RowSchema rowSchema = RowSchema.of(fields.stream().map(Field::getName).toList());
 
-            fields.forEach(field -> {
+            // Expression per included field by ordinal, null if read as-is
+            final Expression[] expressions = new Expression[fields.size()];
+
+            for (int i = 0; i < expressions.length; i++) {
+                Field field = fields.get(i);
                 if (StringUtils.hasLength(field.getExpression())) {
-                    Expression expression = expressionParser.parseExpression(field.getExpression());
-                    expressionMap.put(field, expression);
+                    expressions[i] = expressionParser.parseExpression(field.getExpression());
                 }
-            });
+            }
+
+            final boolean hasExpressions = Arrays.stream(expressions).anyMatch(Objects::nonNull);
+
+            // Names and values are copied per field set, so only set if referenced
+            final boolean usesNames = fields.stream().anyMatch(field -> references(field, "#names"));
+            final boolean usesValues = fields.stream().anyMatch(field -> references(field, "#values"));
+
+            // Reused for all rows, since the mapper is confined to the reader thread
+            final StandardEvaluationContext context = new StandardEvaluationContext();
+
+            // Field set ordinal per included field, resolved from the first field set
+            final AtomicReference<int[]> fieldSetOrdinals = new AtomicReference<>();
 
             DefaultLineMapper<Map<String, Object>> lineMapper = new DefaultLineMapper<Map<String, Object>>() {
                 @Override
@@ -96,29 +203,44 @@ public abstract class FlatFileReaderBuilder {
             };
             lineMapper.setLineTokenizer(lineTokenizer);
             lineMapper.setFieldSetMapper(fieldSet -> {
-                final Map<String, Object> finalValues = new LinkedHashMap<>();
+                int[] ordinals = fieldSetOrdinals.get();
+                if (ordinals == null) {
+                    List<String> names = Arrays.asList(fieldSet.getNames());
+                    ordinals = fields.stream().mapToInt(field -> names.indexOf(field.getName())).toArray();
+                    fieldSetOrdinals.set(ordinals);
+                }
 
-                if (!expressionMap.isEmpty()) {
-                    final EvaluationContext context = new StandardEvaluationContext();
+                final Object[] values = new Object[ordinals.length];
+
+                if (hasExpressions) {
                     context.setVariable("fieldSet", fieldSet);
-                    context.setVariable("names", fieldSet.getNames());
-                    context.setVariable("values", fieldSet.getValues());
-
-                    fields.forEach(field -> {
-                        if (expressionMap.containsKey(field)) {
-                            finalValues.put(field.getName(), expressionMap.get(field).getValue(context, String.class));
-                        } else {
-                            finalValues.put(field.getName(), fieldSet.readString(field.getName()));
-                        }
-                    });
-                } else {
-                    fields.forEach(field -> finalValues.put(field.getName(), fieldSet.readString(field.getName())));
+                    if (usesNames) {
+                        context.setVariable("names", fieldSet.getNames());
+                    }
+                    if (usesValues) {
+                        context.setVariable("values", fieldSet.getValues());
+                    }
+                }
+
+                for (int i = 0; i < values.length; i++) {
+                    if (expressions[i] != null) {
+                        values[i] = expressions[i].getValue(context, String.class);
+                    } else if (ordinals[i] >= 0) {
+                        values[i] = fieldSet.readString(ordinals[i]);
+                    } else {
+                        values[i] = fieldSet.readString(fields.get(i).getName());
+                    }
                 }
 
-                return finalValues;
+                return new Row(rowSchema, values);
             });
 
             return lineMapper;
         }
+
+        private static boolean references(Field field, String variable) {
+            String expression = field.getExpression();
+            return StringUtils.hasLength(expression) && expression.contains(variable);
+        }
     }
 }
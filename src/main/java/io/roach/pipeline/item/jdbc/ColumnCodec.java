@@ -0,0 +1,306 @@
+package io.roach.pipeline.item.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+
+/**
+ * A getter and setter pair for one JDBC column type, resolved once per column from
+ * metadata so that values are read and bound without per-row type inference.
+ * <p>
+ * Values are read with the specialized getter of the source column type and bound with
+ * the specialized setter of the target column type if the value has the expected Java
+ * type, otherwise passed to the driver together with the target SQL type. Driver-specific
+ * types (JSONB, UUID, INTERVAL, INET etc. reported as {@link Types#OTHER}) are passed
+ * through as-is and bound as {@link Types#OTHER}, letting the server resolve the type.
+ * <p>
+ * Some drivers (like PgJDBC) report {@code timestamptz} and {@code timetz} columns as
+ * {@link Types#TIMESTAMP} and {@link Types#TIME}, so the codec is resolved from the type
+ * name where available, see {@link #of(int, String)}.
+ */
+public enum ColumnCodec {
+    BOOLEAN(Types.BOOLEAN) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            boolean v = rs.getBoolean(index);
+            return rs.wasNull() ? null : v;
+        }
+
+        @Override
+        protected void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value instanceof Boolean) {
+                ps.setBoolean(index, (Boolean) value);
+            } else {
+                ps.setObject(index, value, sqlType);
+            }
+        }
+    },
+    INTEGER(Types.INTEGER) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            int v = rs.getInt(index);
+            return rs.wasNull() ? null : v;
+        }
+
+        @Override
+        protected void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value instanceof Integer) {
+                ps.setInt(index, (Integer) value);
+            } else {
+                ps.setObject(index, value, sqlType);
+            }
+        }
+    },
+    BIGINT(Types.BIGINT) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            long v = rs.getLong(index);
+            return rs.wasNull() ? null : v;
+        }
+
+        @Override
+        protected void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value instanceof Long || value instanceof Integer) {
+                ps.setLong(index, ((Number) value).longValue());
+            } else {
+                ps.setObject(index, value, sqlType);
+            }
+        }
+    },
+    DOUBLE(Types.DOUBLE) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            double v = rs.getDouble(index);
+            return rs.wasNull() ? null : v;
+        }
+
+        @Override
+        protected void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value instanceof Double || value instanceof Float) {
+                ps.setDouble(index, ((Number) value).doubleValue());
+            } else {
+                ps.setObject(index, value, sqlType);
+            }
+        }
+    },
+    DECIMAL(Types.NUMERIC) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            return rs.getBigDecimal(index);
+        }
+
+        @Override
+        protected void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value instanceof BigDecimal) {
+                ps.setBigDecimal(index, (BigDecimal) value);
+            } else {
+                ps.setObject(index, value, sqlType);
+            }
+        }
+    },
+    VARCHAR(Types.VARCHAR) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            return rs.getString(index);
+        }
+
+        @Override
+        protected void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value instanceof String) {
+                ps.setString(index, (String) value);
+            } else {
+                ps.setObject(index, value, sqlType);
+            }
+        }
+    },
+    BINARY(Types.BINARY) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            return rs.getBytes(index);
+        }
+
+        @Override
+        protected void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value instanceof byte[]) {
+                ps.setBytes(index, (byte[]) value);
+            } else {
+                ps.setObject(index, value, sqlType);
+            }
+        }
+    },
+    DATE(Types.DATE) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            return rs.getObject(index, LocalDate.class);
+        }
+    },
+    TIME(Types.TIME) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            return rs.getObject(index, LocalTime.class);
+        }
+    },
+    TIME_WITH_TIMEZONE(Types.TIME_WITH_TIMEZONE) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            return rs.getObject(index, OffsetTime.class);
+        }
+    },
+    TIMESTAMP(Types.TIMESTAMP) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            return rs.getObject(index, LocalDateTime.class);
+        }
+    },
+    TIMESTAMP_WITH_TIMEZONE(Types.TIMESTAMP_WITH_TIMEZONE) {
+        @Override
+        public Object read(ResultSet rs, int index) throws SQLException {
+            return rs.getObject(index, OffsetDateTime.class);
+        }
+    },
+    ARRAY(Types.ARRAY) {
+        @Override
+        protected void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            if (value instanceof Array) {
+                ps.setArray(index, (Array) value);
+            } else {
+                ps.setObject(index, value, sqlType);
+            }
+        }
+    },
+    OTHER(Types.OTHER),
+    /**
+     * Unknown column type, read with getObject and bound with type inference.
+     */
+    OBJECT(SqlTypeValue.TYPE_UNKNOWN) {
+        @Override
+        protected void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+            StatementCreatorUtils.setParameterValue(ps, index, SqlTypeValue.TYPE_UNKNOWN, value);
+        }
+
+        @Override
+        public void write(PreparedStatement ps, int index, Object value) throws SQLException {
+            bind(ps, index, value);
+        }
+    };
+
+    /**
+     * @param sqlType the JDBC type from {@link java.sql.Types}
+     * @return the codec for the type, or {@link #OBJECT} if not specialized
+     */
+    public static ColumnCodec of(int sqlType) {
+        return switch (sqlType) {
+            case Types.BOOLEAN, Types.BIT -> BOOLEAN;
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER -> INTEGER;
+            case Types.BIGINT -> BIGINT;
+            case Types.REAL, Types.FLOAT, Types.DOUBLE -> DOUBLE;
+            case Types.NUMERIC, Types.DECIMAL -> DECIMAL;
+            case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR,
+                    Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR -> VARCHAR;
+            case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY -> BINARY;
+            case Types.DATE -> DATE;
+            case Types.TIME -> TIME;
+            case Types.TIME_WITH_TIMEZONE -> TIME_WITH_TIMEZONE;
+            case Types.TIMESTAMP -> TIMESTAMP;
+            case Types.TIMESTAMP_WITH_TIMEZONE -> TIMESTAMP_WITH_TIMEZONE;
+            case Types.ARRAY -> ARRAY;
+            case Types.OTHER -> OTHER;
+            default -> OBJECT;
+        };
+    }
+
+    /**
+     * @param sqlType the JDBC type from {@link java.sql.Types}
+     * @param typeName the database specific type name (optional)
+     * @return the codec for the type name if it denotes a time zone aware type, otherwise
+     * the codec for the JDBC type
+     */
+    public static ColumnCodec of(int sqlType, String typeName) {
+        if (typeName != null) {
+            switch (typeName.toLowerCase(Locale.ROOT)) {
+                case "timestamptz", "timestamp with time zone" -> {
+                    return TIMESTAMP_WITH_TIMEZONE;
+                }
+                case "timetz", "time with time zone" -> {
+                    return TIME_WITH_TIMEZONE;
+                }
+                default -> {
+                }
+            }
+        }
+        return of(sqlType);
+    }
+
+    /**
+     * @param columnCodecs codecs by column name
+     * @param name the column or parameter name
+     * @return the codec for the column, matching the name case-insensitively, or {@link #OBJECT}
+     */
+    public static ColumnCodec lookup(Map<String, ColumnCodec> columnCodecs, String name) {
+        ColumnCodec codec = columnCodecs.get(name);
+        if (codec == null) {
+            codec = columnCodecs.entrySet().stream()
+                    .filter(e -> e.getKey().equalsIgnoreCase(name))
+                    .map(Map.Entry::getValue)
+                    .findFirst()
+                    .orElse(OBJECT);
+        }
+        return codec;
+    }
+
+    protected final int sqlType;
+
+    ColumnCodec(int sqlType) {
+        this.sqlType = sqlType;
+    }
+
+    /**
+     * @return the JDBC type bound for values and nulls
+     */
+    public int getSqlType() {
+        return sqlType;
+    }
+
+    /**
+     * Read a column value using the getter of this type.
+     *
+     * @param rs the result set positioned at a row
+     * @param index the column index (one based)
+     * @return the value or null
+     */
+    public Object read(ResultSet rs, int index) throws SQLException {
+        return rs.getObject(index);
+    }
+
+    /**
+     * Bind a value using the setter of this type.
+     *
+     * @param ps the statement
+     * @param index the parameter index (one based)
+     * @param value the value or null
+     */
+    public void write(PreparedStatement ps, int index, Object value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, sqlType);
+        } else {
+            bind(ps, index, value);
+        }
+    }
+
+    protected void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+        ps.setObject(index, value, sqlType);
+    }
+}
@@ -0,0 +1,188 @@
+package io.roach.pipeline.item.jdbc;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link ItemWriter} decorator that retries transaction contention errors (SQLSTATE
+ * {@code 40001} serialization failure and {@code 40003} statement completion unknown in
+ * CockroachDB) on the failed part of a chunk only, rather than on the entire chunk.
+ * <p>
+ * Chunks are written in slices of an adaptive size. On contention, the slice size is
+ * halved and the failed slice is split in two halves that are retried in order with
+ * exponential backoff and jitter, down to single items to isolate hot or poison rows.
+ * After a number of successful slices in a row, the slice size is doubled again up to the
+ * full chunk. Only single items that exceed the max attempts fail the write, in which case
+ * the step level retry (if any) takes over. Other errors are rethrown immediately.
+ * <p>
+ * Previously written slices are not rewritten, so the delegate writer is expected to
+ * commit each write call on its own (as the JDBC writers in this package do).
+ */
+public class ContentionAwareItemWriter<T> implements ItemWriter<T> {
+    public static final String SERIALIZATION_FAILURE = "40001";
+
+    public static final String STATEMENT_COMPLETION_UNKNOWN = "40003";
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private int maxAttempts = 10;
+
+        private Duration initialBackoff = Duration.ofMillis(50);
+
+        private Duration maxBackoff = Duration.ofSeconds(5);
+
+        private int growAfter = 8;
+
+        public Builder setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+            return this;
+        }
+
+        public Builder setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        public Builder setGrowAfter(int growAfter) {
+            this.growAfter = growAfter;
+            return this;
+        }
+
+        public <T> ContentionAwareItemWriter<T> build(ItemWriter<T> delegate) {
+            Assert.notNull(delegate, "delegate is null");
+            Assert.isTrue(maxAttempts > 0, "maxAttempts must be > 0");
+            Assert.isTrue(growAfter > 0, "growAfter must be > 0");
+            return new ContentionAwareItemWriter<>(delegate, maxAttempts,
+                    initialBackoff.toMillis(), maxBackoff.toMillis(), growAfter);
+        }
+    }
+
+    /**
+     * @param ex the exception
+     * @return true if the exception or any of its causes is a transaction contention error
+     */
+    public static boolean isContentionError(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof SQLException) {
+                for (SQLException e = (SQLException) t; e != null; e = e.getNextException()) {
+                    String sqlState = e.getSQLState();
+                    if (SERIALIZATION_FAILURE.equals(sqlState) || STATEMENT_COMPLETION_UNKNOWN.equals(sqlState)) {
+                        return true;
+                    }
+                }
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ItemWriter<T> delegate;
+
+    private final int maxAttempts;
+
+    private final long initialBackoffMillis;
+
+    private final long maxBackoffMillis;
+
+    private final int growAfter;
+
+    private final AtomicInteger limit = new AtomicInteger(Integer.MAX_VALUE);
+
+    private final AtomicInteger successes = new AtomicInteger();
+
+    protected ContentionAwareItemWriter(ItemWriter<T> delegate, int maxAttempts,
+                                        long initialBackoffMillis, long maxBackoffMillis, int growAfter) {
+        this.delegate = delegate;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.growAfter = growAfter;
+    }
+
+    /**
+     * @return the current max items per write, or {@link Integer#MAX_VALUE} if not limited
+     */
+    public int getLimit() {
+        return limit.get();
+    }
+
+    @Override
+    public void write(Chunk<? extends T> chunk) throws Exception {
+        final List<? extends T> items = chunk.getItems();
+
+        int offset = 0;
+        while (offset < items.size()) {
+            int size = Math.min(limit.get(), items.size() - offset);
+            writeSlice(items.subList(offset, offset + size), 1);
+            offset += size;
+        }
+    }
+
+    private void writeSlice(List<? extends T> items, int attempt) throws Exception {
+        try {
+            delegate.write(new Chunk<>(items));
+        } catch (Exception e) {
+            if (!isContentionError(e) || (items.size() == 1 && attempt >= maxAttempts)) {
+                throw e;
+            }
+
+            shrink(items.size());
+            backoff(attempt);
+
+            if (items.size() > 1) {
+                int half = items.size() / 2;
+                logger.debug("Contention writing [{}] items, retrying as [{}] and [{}] items (attempt {})",
+                        items.size(), half, items.size() - half, attempt);
+                // Splitting is progress, so each half starts over
+                writeSlice(items.subList(0, half), 1);
+                writeSlice(items.subList(half, items.size()), 1);
+            } else {
+                logger.debug("Contention writing item, retrying (attempt {}): {}", attempt, items.get(0));
+                writeSlice(items, attempt + 1);
+            }
+            return;
+        }
+
+        grow();
+    }
+
+    private void shrink(int size) {
+        successes.set(0);
+        limit.getAndUpdate(current -> Math.max(1, Math.min(current, size) / 2));
+    }
+
+    private void grow() {
+        if (limit.get() != Integer.MAX_VALUE && successes.incrementAndGet() >= growAfter) {
+            successes.set(0);
+            int newLimit = limit.updateAndGet(current ->
+                    current > Integer.MAX_VALUE / 2 ? Integer.MAX_VALUE : current * 2);
+            logger.debug("Increased items per write to [{}]", newLimit);
+        }
+    }
+
+    private void backoff(int attempt) throws InterruptedException {
+        long cap = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        Thread.sleep(ThreadLocalRandom.current().nextLong(cap / 2, cap + 1));
+    }
+}
@@ -0,0 +1,262 @@
+package io.roach.pipeline.item.jdbc;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import io.roach.pipeline.cloud.ResourceResolver;
+import io.roach.pipeline.item.Row;
+import io.roach.pipeline.item.RowSchema;
+
+/**
+ * An {@link ItemWriter} that streams each chunk into a table through the PostgreSQL wire
+ * protocol {@code COPY .. FROM STDIN} (text format) rather than batched prepared statements.
+ * Intended for insert-only loads, typically into a staging table, with an optional merge
+ * statement (like {@code UPSERT INTO t SELECT * FROM staging}) executed in the same transaction.
+ * With a merge statement, the staged rows are deleted again before commit so that each merge
+ * only covers the rows of its own chunk.
+ * <p>
+ * The column list is either given or taken from the keys of the first item in each chunk.
+ */
+public class CopyItemWriter implements ItemWriter<Map<String, Object>> {
+    private static final int FLUSH_SIZE = 64 * 1024;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private DataSource dataSource;
+
+        private String createQuery;
+
+        private String table;
+
+        private List<String> columns;
+
+        private String mergeQuery;
+
+        public Builder setDataSource(DataSource dataSource) {
+            this.dataSource = dataSource;
+            return this;
+        }
+
+        public Builder setCreateQuery(String createQuery) {
+            this.createQuery = createQuery;
+            return this;
+        }
+
+        public Builder setTable(String table) {
+            this.table = table;
+            return this;
+        }
+
+        public Builder setColumns(List<String> columns) {
+            this.columns = columns;
+            return this;
+        }
+
+        public Builder setMergeQuery(String mergeQuery) {
+            this.mergeQuery = mergeQuery;
+            return this;
+        }
+
+        public CopyItemWriter build() {
+            Assert.notNull(dataSource, "dataSource is null");
+            Assert.hasLength(table, "table is required for COPY");
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+            Boolean supported = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.isWrapperFor(PGConnection.class));
+            Assert.state(Boolean.TRUE.equals(supported), "COPY requires a PostgreSQL wire protocol target");
+
+            if (ResourceResolver.supportedPrefix(createQuery)) {
+                ResourceDatabasePopulator databasePopulator = new ResourceDatabasePopulator();
+                databasePopulator.setCommentPrefix("--");
+                databasePopulator.setIgnoreFailedDrops(true);
+
+                Arrays.stream(createQuery.split(","))
+                        .forEach(s -> databasePopulator.addScript(ResourceResolver.getResource(s)));
+
+                DatabasePopulatorUtils.execute(databasePopulator, dataSource);
+            } else if (StringUtils.hasLength(createQuery)) {
+                jdbcTemplate.execute(createQuery);
+            }
+
+            return new CopyItemWriter(jdbcTemplate, table, columns, mergeQuery);
+        }
+    }
+
+    /**
+     * @return the ordinal of each column in the schema, or null if any column is missing
+     */
+    static int[] ordinalsOf(RowSchema schema, List<String> columns) {
+        int[] ordinals = new int[columns.size()];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = schema.indexOf(columns.get(i));
+            if (ordinals[i] < 0) {
+                return null;
+            }
+        }
+        return ordinals;
+    }
+
+    /**
+     * Append a row in COPY text format to the buffer.
+     */
+    static void appendRow(StringBuilder buffer, int[] ordinals, Row row) {
+        for (int i = 0; i < ordinals.length; i++) {
+            if (i > 0) {
+                buffer.append('\t');
+            }
+            appendValue(buffer, row.get(ordinals[i]));
+        }
+        buffer.append('\n');
+    }
+
+    static void appendRow(StringBuilder buffer, List<String> columns, Map<String, Object> item) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                buffer.append('\t');
+            }
+            appendValue(buffer, item.get(columns.get(i)));
+        }
+        buffer.append('\n');
+    }
+
+    private static void appendValue(StringBuilder buffer, Object value) {
+        if (value == null) {
+            buffer.append("\\N");
+        } else if (value instanceof byte[]) {
+            // bytea hex format with the backslash escaped
+            buffer.append("\\\\x");
+            for (byte b : (byte[]) value) {
+                buffer.append(Character.forDigit((b >> 4) & 0xf, 16))
+                        .append(Character.forDigit(b & 0xf, 16));
+            }
+        } else {
+            String s = value.toString();
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '\\' -> buffer.append("\\\\");
+                    case '\t' -> buffer.append("\\t");
+                    case '\n' -> buffer.append("\\n");
+                    case '\r' -> buffer.append("\\r");
+                    default -> buffer.append(c);
+                }
+            }
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String table;
+
+    private final List<String> columns;
+
+    private final String mergeQuery;
+
+    protected CopyItemWriter(JdbcTemplate jdbcTemplate, String table, List<String> columns, String mergeQuery) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.table = table;
+        this.columns = columns;
+        this.mergeQuery = mergeQuery;
+    }
+
+    @Override
+    public void write(Chunk<? extends Map<String, Object>> chunk) throws Exception {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        final List<String> columnList = columns != null && !columns.isEmpty()
+                ? columns : new ArrayList<>(chunk.getItems().get(0).keySet());
+
+        final String copyQuery = "COPY " + table + " (" + String.join(",", columnList) + ") FROM STDIN";
+
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            if (!StringUtils.hasLength(mergeQuery)) {
+                return copy(connection, copyQuery, columnList, chunk);
+            }
+
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                long n = copy(connection, copyQuery, columnList, chunk);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(mergeQuery);
+                    statement.execute("DELETE FROM " + table);
+                }
+                connection.commit();
+                return n;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+
+        if (logger.isTraceEnabled()) {
+            logger.trace("Copied [{}] rows into [{}]", rows, table);
+        }
+    }
+
+    private long copy(Connection connection, String copyQuery, List<String> columnList,
+                      Chunk<? extends Map<String, Object>> chunk) throws SQLException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copyQuery);
+        try {
+            // Encode by ordinal when all rows share the schema of the first row
+            final RowSchema schema = chunk.getItems().get(0) instanceof Row
+                    ? ((Row) chunk.getItems().get(0)).getSchema() : null;
+            final int[] ordinals = schema != null ? ordinalsOf(schema, columnList) : null;
+
+            StringBuilder buffer = new StringBuilder(FLUSH_SIZE + 1024);
+            for (Map<String, Object> item : chunk) {
+                if (ordinals != null && item instanceof Row && ((Row) item).getSchema() == schema) {
+                    appendRow(buffer, ordinals, (Row) item);
+                } else {
+                    appendRow(buffer, columnList, item);
+                }
+                if (buffer.length() >= FLUSH_SIZE) {
+                    byte[] data = buffer.toString().getBytes(StandardCharsets.UTF_8);
+                    copyIn.writeToCopy(data, 0, data.length);
+                    buffer.setLength(0);
+                }
+            }
+            if (buffer.length() > 0) {
+                byte[] data = buffer.toString().getBytes(StandardCharsets.UTF_8);
+                copyIn.writeToCopy(data, 0, data.length);
+            }
+            return copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+}
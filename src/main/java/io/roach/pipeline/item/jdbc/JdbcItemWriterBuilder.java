@@ -0,0 +1,135 @@
+package io.roach.pipeline.item.jdbc;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Builder for the SQL target item writer of a given write mode:
+ * <ul>
+ *     <li>{@code batch} (default) - {@link NamedParameterItemWriter} with JDBC batches</li>
+ *     <li>{@code copy} - {@link CopyItemWriter} with {@code COPY .. FROM STDIN} into the copy table</li>
+ *     <li>{@code values} - {@link MultiRowItemWriter} with multi-row {@code VALUES} statements</li>
+ * </ul>
+ */
+public class JdbcItemWriterBuilder {
+    private DataSource dataSource;
+
+    private String writeMode = "batch";
+
+    private String createQuery;
+
+    private String insertQuery;
+
+    private String table;
+
+    private String copyTable;
+
+    private String mergeQuery;
+
+    private int partitions = 1;
+
+    private Supplier<Map<String, ColumnCodec>> columnCodecs = Collections::emptyMap;
+
+    public JdbcItemWriterBuilder setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+        return this;
+    }
+
+    public JdbcItemWriterBuilder setWriteMode(String writeMode) {
+        this.writeMode = writeMode;
+        return this;
+    }
+
+    public JdbcItemWriterBuilder setCreateQuery(String createQuery) {
+        this.createQuery = createQuery;
+        return this;
+    }
+
+    public JdbcItemWriterBuilder setInsertQuery(String insertQuery) {
+        this.insertQuery = insertQuery;
+        return this;
+    }
+
+    /**
+     * @param table the target table, also the default copy table
+     */
+    public JdbcItemWriterBuilder setTable(String table) {
+        this.table = table;
+        return this;
+    }
+
+    public JdbcItemWriterBuilder setCopyTable(String copyTable) {
+        this.copyTable = copyTable;
+        return this;
+    }
+
+    public JdbcItemWriterBuilder setMergeQuery(String mergeQuery) {
+        this.mergeQuery = mergeQuery;
+        return this;
+    }
+
+    /**
+     * @param partitions the number of partitions sharing the writer
+     */
+    public JdbcItemWriterBuilder setPartitions(int partitions) {
+        this.partitions = partitions;
+        return this;
+    }
+
+    /**
+     * @param columnCodecs supplier of target column codecs by column name, invoked
+     * after the create query has been executed
+     */
+    public JdbcItemWriterBuilder setColumnCodecs(Supplier<Map<String, ColumnCodec>> columnCodecs) {
+        this.columnCodecs = columnCodecs;
+        return this;
+    }
+
+    /**
+     * @return the item writer for the write mode
+     * @throws IllegalStateException or IllegalArgumentException on invalid configuration
+     */
+    public ItemWriter<Map<String, Object>> build() {
+        Assert.notNull(dataSource, "dataSource is null");
+
+        if ("copy".equals(writeMode)) {
+            String copyTableOrTable = StringUtils.hasLength(copyTable) ? copyTable : table;
+            Assert.state(StringUtils.hasLength(copyTableOrTable),
+                    "copyTable or table is required for copy write mode");
+            if (StringUtils.hasLength(mergeQuery)) {
+                // The copy table is emptied after each merge
+                Assert.state(StringUtils.hasLength(copyTable) && !copyTable.equalsIgnoreCase(table),
+                        "copyTable is required and must differ from table with a mergeQuery");
+                // Concurrent partitions would merge and delete each other's staged rows
+                Assert.state(partitions <= 1, "mergeQuery is not supported with more than one partition");
+            }
+            return CopyItemWriter.builder()
+                    .setDataSource(dataSource)
+                    .setCreateQuery(createQuery)
+                    .setTable(copyTableOrTable)
+                    .setMergeQuery(mergeQuery)
+                    .build();
+        }
+        if ("values".equals(writeMode)) {
+            return MultiRowItemWriter.builder()
+                    .setDataSource(dataSource)
+                    .setCreateQuery(createQuery)
+                    .setInsertQuery(insertQuery)
+                    .setColumnCodecs(columnCodecs)
+                    .build();
+        }
+        return NamedParameterItemWriter.builder()
+                .setDataSource(dataSource)
+                .setCreateQuery(createQuery)
+                .setUpdateQuery(insertQuery)
+                .setColumnCodecs(columnCodecs)
+                .build();
+    }
+}
@@ -0,0 +1,382 @@
+package io.roach.pipeline.item.jdbc;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * A {@link Partitioner} that splits a source table into contiguous key ranges on the
+ * leading sort key column, aiming for roughly the same number of rows per partition.
+ * <p>
+ * For small tables (at most {@link #DEFAULT_SMALL_TABLE_ROWS} rows by a bounded count),
+ * split points are evenly spaced quantiles of a random sample of the keys. Since the
+ * sample query visits every row, larger tables instead take split points from the range
+ * boundaries of {@code SHOW RANGES FROM TABLE} (CockroachDB, when the key column leads the
+ * primary key) or otherwise interpolate between the min and max of an integer key. Only
+ * if neither applies is a large table sampled as well.
+ * <p>
+ * Each partition context holds an inclusive {@link #MIN_VALUE} and an exclusive
+ * {@link #MAX_VALUE} bound, where the first and last partitions are unbounded below
+ * and above respectively.
+ */
+public class KeyRangePartitioner implements Partitioner {
+    public static final String MIN_VALUE = "minValue";
+
+    public static final String MAX_VALUE = "maxValue";
+
+    public static final int DEFAULT_SAMPLE_SIZE = 10_000;
+
+    public static final int DEFAULT_SMALL_TABLE_ROWS = 100_000;
+
+    private static final Pattern TABLE_NAME = Pattern.compile("(?i)^\\s*FROM\\s+([\\w.\"]+)\\s*$");
+
+    private static final Pattern TABLE_KEY = Pattern.compile("^/Table/\\d+(/.*)?$");
+
+    /**
+     * Create a where clause restricting the given clause to the key range of a partition.
+     *
+     * @param whereClause the original where clause, with or without the WHERE keyword (optional)
+     * @param column the key column
+     * @param executionContext the partition context
+     * @return where clause with named parameters for the bounds
+     */
+    public static String rangeWhereClause(String whereClause, String column, ExecutionContext executionContext) {
+        List<String> predicates = new ArrayList<>();
+
+        String condition = whereClause != null
+                ? whereClause.trim().replaceFirst("(?i)^where\\s+", "") : "";
+        if (StringUtils.hasLength(condition)) {
+            predicates.add("(" + condition + ")");
+        }
+        if (executionContext.get(MIN_VALUE) != null) {
+            predicates.add(column + " >= :" + MIN_VALUE);
+        }
+        if (executionContext.get(MAX_VALUE) != null) {
+            predicates.add(column + " < :" + MAX_VALUE);
+        }
+
+        return predicates.isEmpty() ? "" : "WHERE " + String.join(" AND ", predicates);
+    }
+
+    /**
+     * @return the named parameter values for the bounds of a partition
+     */
+    public static Map<String, Object> rangeParameterValues(ExecutionContext executionContext) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (executionContext.get(MIN_VALUE) != null) {
+            values.put(MIN_VALUE, executionContext.get(MIN_VALUE));
+        }
+        if (executionContext.get(MAX_VALUE) != null) {
+            values.put(MAX_VALUE, executionContext.get(MAX_VALUE));
+        }
+        return values;
+    }
+
+    /**
+     * Create partition contexts from ordered split points. Duplicate split points
+     * (from heavily skewed keys) are collapsed, so there may be fewer partitions than
+     * split points + 1.
+     */
+    public static Map<String, ExecutionContext> toPartitions(List<?> splitPoints) {
+        List<Object> bounds = new ArrayList<>();
+        bounds.add(null);
+        splitPoints.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(bounds::add);
+        bounds.add(null);
+
+        Map<String, ExecutionContext> partitions = new LinkedHashMap<>();
+        for (int i = 0; i < bounds.size() - 1; i++) {
+            ExecutionContext context = new ExecutionContext();
+            if (bounds.get(i) != null) {
+                context.put(MIN_VALUE, bounds.get(i));
+            }
+            if (bounds.get(i + 1) != null) {
+                context.put(MAX_VALUE, bounds.get(i + 1));
+            }
+            partitions.put("partition" + i, context);
+        }
+        return partitions;
+    }
+
+    /**
+     * Extract the leading key column value from a pretty printed range start key, like
+     * {@code /Table/106/1/1000/'abc'}, {@code …/1/1000} or {@code /1000} for older versions
+     * where keys are relative to the primary index.
+     *
+     * @param prettyKey the range start key
+     * @return the value as text or null if the key is not within the primary index
+     */
+    static String leadingKeyValue(String prettyKey) {
+        if (prettyKey == null) {
+            return null;
+        }
+
+        String key = prettyKey;
+        boolean indexPrefixed = false;
+        if (key.startsWith("\u2026")) {
+            key = key.substring(1);
+            indexPrefixed = true;
+        } else {
+            Matcher matcher = TABLE_KEY.matcher(key);
+            if (matcher.matches()) {
+                key = matcher.group(1) != null ? matcher.group(1) : "";
+                indexPrefixed = true;
+            }
+        }
+
+        List<String> segments = splitSegments(key);
+        if (indexPrefixed) {
+            // Primary index only
+            if (segments.isEmpty() || !"1".equals(segments.get(0))) {
+                return null;
+            }
+            segments = segments.subList(1, segments.size());
+        }
+        if (segments.isEmpty() || segments.get(0).startsWith("<")) {
+            return null;
+        }
+
+        String value = segments.get(0);
+        if (value.length() > 1 && (value.startsWith("\"") && value.endsWith("\"")
+                || value.startsWith("'") && value.endsWith("'"))) {
+            value = value.substring(1, value.length() - 1).replace("\\\"", "\"");
+        }
+        return value;
+    }
+
+    private static List<String> splitSegments(String key) {
+        List<String> segments = new ArrayList<>();
+        if (!key.startsWith("/")) {
+            return segments;
+        }
+
+        StringBuilder segment = new StringBuilder();
+        char quote = 0;
+        for (int i = 1; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (quote != 0) {
+                if (c == '\\' && i + 1 < key.length()) {
+                    segment.append(c).append(key.charAt(++i));
+                    continue;
+                }
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '/') {
+                segments.add(segment.toString());
+                segment.setLength(0);
+                continue;
+            }
+            segment.append(c);
+        }
+        segments.add(segment.toString());
+        return segments;
+    }
+
+    /**
+     * @return split points as evenly spaced quantiles of ordered keys
+     */
+    private static List<Object> quantiles(List<?> keys, int gridSize) {
+        List<Object> splitPoints = new ArrayList<>();
+        if (!keys.isEmpty()) {
+            for (int i = 1; i < gridSize; i++) {
+                splitPoints.add(keys.get((int) ((long) i * keys.size() / gridSize)));
+            }
+        }
+        return splitPoints;
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String column;
+
+    private final String fromClause;
+
+    private final String whereClause;
+
+    private int sampleSize = DEFAULT_SAMPLE_SIZE;
+
+    private int smallTableRows = DEFAULT_SMALL_TABLE_ROWS;
+
+    /**
+     * @param dataSource the source datasource
+     * @param column the leading key column
+     * @param fromClause the from clause including the FROM keyword
+     * @param whereClause the where clause including the WHERE keyword (optional)
+     */
+    public KeyRangePartitioner(DataSource dataSource, String column, String fromClause, String whereClause) {
+        Assert.notNull(dataSource, "dataSource must not be null");
+        Assert.hasLength(column, "column must not be empty");
+        Assert.hasLength(fromClause, "fromClause must not be empty");
+
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.column = column;
+        this.fromClause = fromClause;
+        this.whereClause = whereClause != null ? whereClause : "";
+    }
+
+    /**
+     * @param sampleSize max number of keys to sample for split points
+     */
+    public KeyRangePartitioner setSampleSize(int sampleSize) {
+        Assert.isTrue(sampleSize > 0, "sampleSize must be > 0");
+        this.sampleSize = sampleSize;
+        return this;
+    }
+
+    /**
+     * @param smallTableRows max number of rows for split points from a random sample
+     */
+    public KeyRangePartitioner setSmallTableRows(int smallTableRows) {
+        Assert.isTrue(smallTableRows >= 0, "smallTableRows must be >= 0");
+        this.smallTableRows = smallTableRows;
+        return this;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        if (gridSize <= 1) {
+            return toPartitions(List.of());
+        }
+
+        String method;
+        List<Object> splitPoints;
+
+        if (isSmallTable()) {
+            method = "random sample";
+            splitPoints = quantiles(sampleKeys(), gridSize);
+        } else {
+            method = "range boundaries";
+            splitPoints = rangeSplitPoints(gridSize);
+            if (splitPoints.isEmpty()) {
+                method = "min/max interpolation";
+                splitPoints = interpolatedSplitPoints(gridSize);
+            }
+            if (splitPoints.isEmpty()) {
+                logger.warn("Sampling all rows of [{}] for split points on [{}] - "
+                        + "no range boundaries or integer key", fromClause, column);
+                method = "random sample";
+                splitPoints = quantiles(sampleKeys(), gridSize);
+            }
+        }
+
+        Map<String, ExecutionContext> partitions = toPartitions(splitPoints);
+
+        logger.info("Partitioned [{}] on [{}] in [{}] key ranges with split points {} from {}",
+                fromClause, column, partitions.size(), splitPoints, method);
+
+        return partitions;
+    }
+
+    private String conjunction(String predicate) {
+        String condition = whereClause.trim().replaceFirst("(?i)^where\\s+", "");
+        return StringUtils.hasLength(condition)
+                ? "WHERE (" + condition + ") AND " + predicate : "WHERE " + predicate;
+    }
+
+    private boolean isSmallTable() {
+        // Stops counting past the limit
+        Integer rows = jdbcTemplate.queryForObject("SELECT count(*) FROM (SELECT 1 AS x " + fromClause + " "
+                + whereClause + " LIMIT " + ((long) smallTableRows + 1) + ") AS t", Integer.class);
+        return rows == null || rows <= smallTableRows;
+    }
+
+    private List<Object> sampleKeys() {
+        // Top-k by random order keeps at most sampleSize keys in memory
+        return jdbcTemplate.queryForList("SELECT k FROM (SELECT " + column + " AS k " + fromClause + " "
+                + whereClause + " ORDER BY random() LIMIT " + sampleSize + ") AS sample"
+                + " WHERE k IS NOT NULL ORDER BY k", Object.class);
+    }
+
+    private List<Object> rangeSplitPoints(int gridSize) {
+        Matcher matcher = TABLE_NAME.matcher(fromClause);
+        if (!matcher.matches()) {
+            return List.of();
+        }
+
+        List<Object> starts = new ArrayList<>();
+        starts.add(null); // first range
+        try {
+            jdbcTemplate.queryForList("SELECT start_key FROM [SHOW RANGES FROM TABLE " + matcher.group(1) + "]",
+                            String.class)
+                    .stream()
+                    .map(KeyRangePartitioner::leadingKeyValue)
+                    .filter(Objects::nonNull)
+                    .forEach(starts::add);
+        } catch (DataAccessException e) {
+            logger.debug("No range boundaries for [{}]: {}", fromClause, e.getMessage());
+            return List.of();
+        }
+
+        List<Object> candidates = quantiles(starts, gridSize).stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        try {
+            String typeName = jdbcTemplate.query("SELECT " + column + " " + fromClause + " LIMIT 0",
+                    (ResultSetExtractor<String>) rs -> rs.getMetaData().getColumnTypeName(1));
+
+            // Seek the first key at or above each boundary to get typed values
+            List<Object> splitPoints = new ArrayList<>();
+            for (Object candidate : candidates) {
+                splitPoints.addAll(jdbcTemplate.queryForList("SELECT " + column + " " + fromClause + " "
+                        + conjunction(column + " >= CAST(? AS " + typeName + ")")
+                        + " ORDER BY " + column + " LIMIT 1", Object.class, candidate));
+            }
+            return splitPoints;
+        } catch (DataAccessException e) {
+            logger.debug("Unable to resolve range boundaries for [{}]: {}", fromClause, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private List<Object> interpolatedSplitPoints(int gridSize) {
+        List<Object> splitPoints = new ArrayList<>();
+
+        jdbcTemplate.query("SELECT min(k), max(k) FROM (SELECT " + column + " AS k " + fromClause + " "
+                + whereClause + ") AS t", rs -> {
+            Object min = rs.getObject(1);
+            Object max = rs.getObject(2);
+            if (isIntegral(min) && isIntegral(max)) {
+                long low = ((Number) min).longValue();
+                double span = (double) ((Number) max).longValue() - low;
+                for (int i = 1; i < gridSize; i++) {
+                    long value = low + (long) (span * i / gridSize);
+                    splitPoints.add(min instanceof Integer ? (Object) (int) value : (Object) value);
+                }
+            }
+        });
+
+        return splitPoints;
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short;
+    }
+}
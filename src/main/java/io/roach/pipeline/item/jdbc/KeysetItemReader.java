@@ -0,0 +1,433 @@
+package io.roach.pipeline.item.jdbc;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.database.Order;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * An item reader using keyset (seek) pagination on the sort keys, typically the primary key.
+ * Each page query seeks past the last key of the previous page using a tuple comparison
+ * like {@code (a,b) > (?,?)} (when all keys have the same sort order), which maps to a
+ * single index span in CockroachDB rather than an OR-expanded predicate.
+ * <p>
+ * Pages are streamed with a server-side cursor (fetch size) within a read-only transaction
+ * (unless joining an existing transaction), the connection being restored afterwards,
+ * and the next page is prefetched asynchronously while the current page is processed.
+ * <p>
+ * The last read key is saved in the execution context, so a restart seeks directly to
+ * where it left off.
+ */
+public class KeysetItemReader<T> extends AbstractItemCountingItemStreamItemReader<T> {
+    private static final String START_AFTER_VALUE = "start.after";
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    public static class Builder<T> {
+        private DataSource dataSource;
+
+        private String name;
+
+        private String selectClause;
+
+        private String fromClause;
+
+        private String whereClause;
+
+        private Map<String, Order> sortKeys;
+
+        private Map<String, Object> parameterValues;
+
+        private int pageSize = 1024;
+
+        private int fetchSize = 256;
+
+        private boolean prefetch = true;
+
+        private int currentItemCount;
+
+        private RowMapper<T> rowMapper;
+
+        public Builder<T> setDataSource(DataSource dataSource) {
+            this.dataSource = dataSource;
+            return this;
+        }
+
+        public Builder<T> setName(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder<T> setSelectClause(String selectClause) {
+            this.selectClause = selectClause;
+            return this;
+        }
+
+        public Builder<T> setFromClause(String fromClause) {
+            this.fromClause = fromClause;
+            return this;
+        }
+
+        public Builder<T> setWhereClause(String whereClause) {
+            this.whereClause = whereClause;
+            return this;
+        }
+
+        public Builder<T> setSortKeys(Map<String, Order> sortKeys) {
+            this.sortKeys = sortKeys;
+            return this;
+        }
+
+        public Builder<T> setParameterValues(Map<String, Object> parameterValues) {
+            this.parameterValues = parameterValues;
+            return this;
+        }
+
+        public Builder<T> setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public Builder<T> setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+            return this;
+        }
+
+        public Builder<T> setPrefetch(boolean prefetch) {
+            this.prefetch = prefetch;
+            return this;
+        }
+
+        public Builder<T> setCurrentItemCount(int currentItemCount) {
+            this.currentItemCount = currentItemCount;
+            return this;
+        }
+
+        public Builder<T> setRowMapper(RowMapper<T> rowMapper) {
+            this.rowMapper = rowMapper;
+            return this;
+        }
+
+        public KeysetItemReader<T> build() {
+            Assert.notNull(dataSource, "dataSource is null");
+            Assert.hasLength(name, "name is required");
+            Assert.hasLength(selectClause, "selectClause is required");
+            Assert.hasLength(fromClause, "fromClause is required");
+            Assert.notEmpty(sortKeys, "sortKeys are required");
+            Assert.isTrue(sortKeys.keySet().stream().allMatch(StringUtils::hasLength), "sortKeys are required");
+            Assert.isTrue(pageSize > 0, "pageSize must be > 0");
+            Assert.notNull(rowMapper, "rowMapper is required");
+
+            KeysetItemReader<T> itemReader = new KeysetItemReader<>(this);
+            itemReader.setName(name);
+            itemReader.setCurrentItemCount(currentItemCount);
+            return itemReader;
+        }
+    }
+
+    /**
+     * Create the seek predicate for the given sort keys.
+     *
+     * @param sortKeys the sort keys
+     * @return a tuple comparison if all keys have the same order, otherwise an expanded predicate
+     */
+    static String seekPredicate(Map<String, Order> sortKeys) {
+        List<String> columns = new ArrayList<>(sortKeys.keySet());
+        List<Order> orders = new ArrayList<>(sortKeys.values());
+
+        if (orders.stream().distinct().count() == 1) {
+            String op = orders.get(0) == Order.DESCENDING ? " < " : " > ";
+            if (columns.size() == 1) {
+                return columns.get(0) + op + ":_key0";
+            }
+            List<String> params = new ArrayList<>();
+            for (int i = 0; i < columns.size(); i++) {
+                params.add(":_key" + i);
+            }
+            return "(" + String.join(",", columns) + ")" + op + "(" + String.join(",", params) + ")";
+        }
+
+        List<String> disjuncts = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            StringBuilder sb = new StringBuilder("(");
+            for (int j = 0; j < i; j++) {
+                sb.append(columns.get(j)).append(" = :_key").append(j).append(" AND ");
+            }
+            sb.append(columns.get(i))
+                    .append(orders.get(i) == Order.DESCENDING ? " < " : " > ")
+                    .append(":_key").append(i)
+                    .append(")");
+            disjuncts.add(sb.toString());
+        }
+        return "(" + String.join(" OR ", disjuncts) + ")";
+    }
+
+    private static final class Entry<T> {
+        final T item;
+
+        final Object[] keys;
+
+        Entry(T item, Object[] keys) {
+            this.item = item;
+            this.keys = keys;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final String name;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String firstPageQuery;
+
+    private final String remainingPagesQuery;
+
+    private final String[] keyLabels;
+
+    private final Map<String, Object> parameterValues;
+
+    private final int pageSize;
+
+    private final int fetchSize;
+
+    private final boolean prefetch;
+
+    private final RowMapper<T> rowMapper;
+
+    private ExecutorService executorService;
+
+    private CompletableFuture<List<Entry<T>>> nextPage;
+
+    private Iterator<Entry<T>> currentPage;
+
+    private boolean lastPage;
+
+    private Object[] startAfterKeys;
+
+    private Object[] lastReadKeys;
+
+    protected KeysetItemReader(Builder<T> builder) {
+        setExecutionContextName(ClassUtils.getShortName(KeysetItemReader.class));
+
+        this.name = builder.name;
+        this.jdbcTemplate = new JdbcTemplate(builder.dataSource);
+        this.parameterValues = builder.parameterValues != null ? builder.parameterValues : Map.of();
+        this.pageSize = builder.pageSize;
+        this.fetchSize = builder.fetchSize;
+        this.prefetch = builder.prefetch;
+        this.rowMapper = builder.rowMapper;
+
+        // Result set labels of possibly qualified key columns
+        this.keyLabels = builder.sortKeys.keySet().stream()
+                .map(key -> key.substring(key.lastIndexOf('.') + 1))
+                .toArray(String[]::new);
+
+        String condition = builder.whereClause != null
+                ? builder.whereClause.trim().replaceFirst("(?i)^where\\s+", "") : "";
+
+        String orderBy = " ORDER BY " + builder.sortKeys.entrySet().stream()
+                .map(e -> e.getKey() + (e.getValue() == Order.DESCENDING ? " DESC" : " ASC"))
+                .reduce((a, b) -> a + ", " + b)
+                .orElseThrow()
+                + " LIMIT " + pageSize;
+
+        String select = builder.selectClause + " " + builder.fromClause;
+
+        this.firstPageQuery = select
+                + (StringUtils.hasLength(condition) ? " WHERE (" + condition + ")" : "")
+                + orderBy;
+        this.remainingPagesQuery = select
+                + " WHERE " + (StringUtils.hasLength(condition) ? "(" + condition + ") AND " : "")
+                + seekPredicate(builder.sortKeys)
+                + orderBy;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (isSaveState() && executionContext.containsKey(getExecutionContextKey(START_AFTER_VALUE))) {
+            Map<?, ?> keys = (Map<?, ?>) executionContext.get(getExecutionContextKey(START_AFTER_VALUE));
+            this.startAfterKeys = keys.values().toArray();
+        }
+        super.open(executionContext);
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        super.update(executionContext);
+        if (isSaveState() && lastReadKeys != null) {
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (int i = 0; i < keyLabels.length; i++) {
+                keys.put(keyLabels[i], lastReadKeys[i]);
+            }
+            executionContext.put(getExecutionContextKey(START_AFTER_VALUE), keys);
+        }
+    }
+
+    @Override
+    protected void jumpToItem(int itemIndex) throws Exception {
+        // Seek to the saved key rather than reading past all preceding items
+        if (startAfterKeys == null) {
+            super.jumpToItem(itemIndex);
+        }
+    }
+
+    @Override
+    protected void doOpen() {
+        if (prefetch) {
+            this.executorService = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "keyset-prefetch-" + name);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        this.lastPage = false;
+        this.currentPage = null;
+        this.nextPage = null;
+    }
+
+    @Override
+    protected void doClose() {
+        if (nextPage != null) {
+            nextPage.cancel(true);
+            nextPage = null;
+        }
+        if (executorService != null) {
+            executorService.shutdownNow();
+            executorService = null;
+        }
+        this.currentPage = null;
+        this.startAfterKeys = null;
+        this.lastReadKeys = null;
+    }
+
+    @Override
+    protected T doRead() throws Exception {
+        if (currentPage == null || !currentPage.hasNext()) {
+            if (lastPage) {
+                return null;
+            }
+
+            List<Entry<T>> entries = awaitPage();
+            if (entries.size() < pageSize) {
+                lastPage = true;
+            } else if (executorService != null) {
+                final Object[] keys = entries.get(entries.size() - 1).keys;
+                nextPage = CompletableFuture.supplyAsync(() -> readPage(keys), executorService);
+            }
+
+            if (entries.isEmpty()) {
+                return null;
+            }
+
+            // Seek position for synchronous page reads
+            startAfterKeys = entries.get(entries.size() - 1).keys;
+            currentPage = entries.iterator();
+        }
+
+        Entry<T> entry = currentPage.next();
+        lastReadKeys = entry.keys;
+        return entry.item;
+    }
+
+    private List<Entry<T>> awaitPage() throws Exception {
+        if (nextPage == null) {
+            return readPage(startAfterKeys);
+        }
+        try {
+            return nextPage.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        } finally {
+            nextPage = null;
+        }
+    }
+
+    private List<Entry<T>> readPage(Object[] startAfter) {
+        MapSqlParameterSource parameterSource = new MapSqlParameterSource(parameterValues);
+        String query = firstPageQuery;
+        if (startAfter != null) {
+            query = remainingPagesQuery;
+            for (int i = 0; i < startAfter.length; i++) {
+                parameterSource.addValue("_key" + i, startAfter[i]);
+            }
+        }
+
+        final String sql = NamedParameterUtils.substituteNamedParameters(query, parameterSource);
+        final Object[] args = NamedParameterUtils.buildValueArray(query, parameterSource.getValues());
+
+        if (logger.isTraceEnabled()) {
+            logger.trace("Reading page: {}", sql);
+        }
+
+        return jdbcTemplate.execute((ConnectionCallback<List<Entry<T>>>) connection -> {
+            // Cursor based fetching requires an explicit transaction, read-only unless joined
+            boolean autoCommit = connection.getAutoCommit();
+            boolean readOnly = connection.isReadOnly();
+            if (autoCommit) {
+                if (!readOnly) {
+                    connection.setReadOnly(true);
+                }
+                connection.setAutoCommit(false);
+            }
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setFetchSize(fetchSize);
+                for (int i = 0; i < args.length; i++) {
+                    StatementCreatorUtils.setParameterValue(ps, i + 1, SqlTypeValue.TYPE_UNKNOWN, args[i]);
+                }
+
+                List<Entry<T>> entries = new ArrayList<>(pageSize);
+                try (ResultSet rs = ps.executeQuery()) {
+                    int rowNum = 0;
+                    while (rs.next()) {
+                        Object[] keys = new Object[keyLabels.length];
+                        for (int i = 0; i < keyLabels.length; i++) {
+                            keys[i] = rs.getObject(keyLabels[i]);
+                        }
+                        entries.add(new Entry<>(rowMapper.mapRow(rs, rowNum++), keys));
+                    }
+                }
+                return entries;
+            } finally {
+                if (autoCommit) {
+                    connection.commit();
+                    connection.setAutoCommit(true);
+                    if (!readOnly) {
+                        connection.setReadOnly(false);
+                    }
+                }
+            }
+        });
+    }
+}
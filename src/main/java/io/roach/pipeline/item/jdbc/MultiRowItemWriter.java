@@ -0,0 +1,350 @@
+package io.roach.pipeline.item.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import io.roach.pipeline.cloud.ResourceResolver;
+import io.roach.pipeline.item.Row;
+import io.roach.pipeline.item.RowSchema;
+
+/**
+ * An {@link ItemWriter} that rewrites a single-row {@code INSERT/UPSERT .. VALUES (:a,:b)}
+ * statement with named parameters into multi-row statements with one {@code VALUES} tuple
+ * per item, rather than executing the single-row statement once per item in a JDBC batch.
+ * <p>
+ * To keep the number of distinct statements (and thereby server-side prepared statements)
+ * small, the row count of each statement is a power of two. A chunk of 100 items is for
+ * example written with statements of 64, 32 and 4 rows. The max rows per statement adapts
+ * to the observed statement latency (halved when above target latency and doubled when
+ * well below) and is capped by the 65535 bind parameter limit of the PostgreSQL wire
+ * protocol and an estimated max message size.
+ * <p>
+ * Parameters are bound with the {@link ColumnCodec} of the target column with the same
+ * name if given, otherwise with type inference.
+ * <p>
+ * A multi-row {@code UPSERT} or {@code INSERT .. ON CONFLICT} can't affect the same row
+ * twice (SQLSTATE 21000). Statements failing on that are executed again one row at a time
+ * in item order, so that the last item with a given key wins like in a JDBC batch.
+ */
+public class MultiRowItemWriter implements ItemWriter<Map<String, Object>> {
+    public static final int MAX_PARAMETERS = 65535;
+
+    public static final int MAX_STATEMENT_BYTES = 8 * 1024 * 1024;
+
+    public static final String CARDINALITY_VIOLATION = "21000";
+
+    private static final Pattern VALUES_PATTERN = Pattern.compile("\\bVALUES\\s*\\(", Pattern.CASE_INSENSITIVE);
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private DataSource dataSource;
+
+        private String createQuery;
+
+        private String insertQuery;
+
+        private int maxRows = 256;
+
+        private Duration targetLatency = Duration.ofMillis(250);
+
+        private Supplier<Map<String, ColumnCodec>> columnCodecs = Collections::emptyMap;
+
+        public Builder setDataSource(DataSource dataSource) {
+            this.dataSource = dataSource;
+            return this;
+        }
+
+        public Builder setCreateQuery(String createQuery) {
+            this.createQuery = createQuery;
+            return this;
+        }
+
+        public Builder setInsertQuery(String insertQuery) {
+            this.insertQuery = insertQuery;
+            return this;
+        }
+
+        public Builder setMaxRows(int maxRows) {
+            this.maxRows = maxRows;
+            return this;
+        }
+
+        public Builder setTargetLatency(Duration targetLatency) {
+            this.targetLatency = targetLatency;
+            return this;
+        }
+
+        /**
+         * @param columnCodecs supplier of target column codecs by column name, invoked
+         * after the create query has been executed
+         */
+        public Builder setColumnCodecs(Supplier<Map<String, ColumnCodec>> columnCodecs) {
+            this.columnCodecs = columnCodecs;
+            return this;
+        }
+
+        public MultiRowItemWriter build() {
+            Assert.notNull(dataSource, "dataSource is null");
+            Assert.hasLength(insertQuery, "insertQuery is null");
+            Assert.isTrue(maxRows > 0, "maxRows must be > 0");
+
+            if (ResourceResolver.supportedPrefix(createQuery)) {
+                ResourceDatabasePopulator databasePopulator = new ResourceDatabasePopulator();
+                databasePopulator.setCommentPrefix("--");
+                databasePopulator.setIgnoreFailedDrops(true);
+
+                Arrays.stream(createQuery.split(","))
+                        .forEach(s -> databasePopulator.addScript(ResourceResolver.getResource(s)));
+
+                DatabasePopulatorUtils.execute(databasePopulator, dataSource);
+            } else if (StringUtils.hasLength(createQuery)) {
+                JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+                jdbcTemplate.execute(createQuery);
+            }
+
+            return new MultiRowItemWriter(new JdbcTemplate(dataSource),
+                    insertQuery, maxRows, targetLatency, columnCodecs.get());
+        }
+    }
+
+    /**
+     * Split a number of rows into power of two statement sizes, largest first.
+     *
+     * @param rows the number of rows
+     * @param limit the max rows per statement (power of two)
+     * @return the statement sizes
+     */
+    static List<Integer> buckets(int rows, int limit) {
+        List<Integer> buckets = new ArrayList<>();
+        int remaining = rows;
+        while (remaining > 0) {
+            int size = Integer.highestOneBit(Math.min(remaining, limit));
+            buckets.add(size);
+            remaining -= size;
+        }
+        return buckets;
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String prefix;
+
+    private final String suffix;
+
+    private final String tupleSql;
+
+    private final String[] parameterNames;
+
+    private final ColumnCodec[] parameterCodecs;
+
+    private final int maxRows;
+
+    private final long targetLatencyNanos;
+
+    private final Map<Integer, String> statementCache = new ConcurrentHashMap<>();
+
+    private volatile int limit;
+
+    protected MultiRowItemWriter(JdbcTemplate jdbcTemplate, String insertQuery, int maxRows,
+                                 Duration targetLatency) {
+        this(jdbcTemplate, insertQuery, maxRows, targetLatency, Collections.emptyMap());
+    }
+
+    protected MultiRowItemWriter(JdbcTemplate jdbcTemplate, String insertQuery, int maxRows,
+                                 Duration targetLatency, Map<String, ColumnCodec> columnCodecs) {
+        Matcher m = VALUES_PATTERN.matcher(insertQuery);
+        Assert.isTrue(m.find(), "Expected a VALUES (..) clause in: " + insertQuery);
+
+        int start = m.end() - 1;
+        int end = start;
+        for (int depth = 0; end < insertQuery.length(); end++) {
+            char c = insertQuery.charAt(end);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                break;
+            }
+        }
+        Assert.isTrue(end < insertQuery.length(), "Unbalanced VALUES (..) clause in: " + insertQuery);
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.prefix = insertQuery.substring(0, start);
+        this.suffix = insertQuery.substring(end + 1);
+        ParsedSql parsedTuple = NamedParameterUtils.parseSqlStatement(insertQuery.substring(start, end + 1));
+        this.tupleSql = NamedParameterUtils.substituteNamedParameters(parsedTuple, new MapSqlParameterSource());
+
+        this.parameterNames = NamedParameterUtils.buildSqlParameterList(parsedTuple, new MapSqlParameterSource())
+                .stream()
+                .map(SqlParameter::getName)
+                .toArray(String[]::new);
+        this.parameterCodecs = Arrays.stream(parameterNames)
+                .map(name -> ColumnCodec.lookup(columnCodecs, name))
+                .toArray(ColumnCodec[]::new);
+        this.maxRows = Integer.highestOneBit(Math.min(maxRows, MAX_PARAMETERS / Math.max(1, parameterNames.length)));
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.limit = this.maxRows;
+    }
+
+    /**
+     * @return the current max rows per statement
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    String toSql(int rows) {
+        return statementCache.computeIfAbsent(rows, n -> {
+            StringBuilder sb = new StringBuilder(prefix.length() + suffix.length() + n * (tupleSql.length() + 1));
+            sb.append(prefix);
+            for (int i = 0; i < n; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(tupleSql);
+            }
+            sb.append(suffix);
+            return sb.toString();
+        });
+    }
+
+    synchronized void adapt(int rows, long latencyNanos) {
+        // Only full size statements tell if the limit is right
+        if (rows < limit) {
+            return;
+        }
+        if (latencyNanos > targetLatencyNanos && limit > 1) {
+            limit = limit / 2;
+            logger.debug("Decreased rows per statement to [{}]", limit);
+        } else if (latencyNanos < targetLatencyNanos / 2 && limit < maxRows) {
+            limit = limit * 2;
+            logger.debug("Increased rows per statement to [{}]", limit);
+        }
+    }
+
+    private int[] ordinalsOf(RowSchema schema) {
+        int[] ordinals = new int[parameterNames.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            ordinals[i] = schema.indexOf(parameterNames[i]);
+            if (ordinals[i] < 0) {
+                throw new IllegalArgumentException("No value registered for key '" + parameterNames[i] + "'");
+            }
+        }
+        return ordinals;
+    }
+
+    private int estimateRowBytes(Map<String, Object> item) {
+        int bytes = 0;
+        for (Object value : item.values()) {
+            bytes += value instanceof byte[] ? ((byte[]) value).length : String.valueOf(value).length() + 4;
+        }
+        return Math.max(1, bytes);
+    }
+
+    @Override
+    public void write(Chunk<? extends Map<String, Object>> chunk) throws Exception {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        final List<? extends Map<String, Object>> items = chunk.getItems();
+
+        final int sizeLimit = Math.max(1, MAX_STATEMENT_BYTES / estimateRowBytes(items.get(0)));
+
+        // Bind by ordinal when all rows share the schema of the first row
+        final RowSchema schema = items.get(0) instanceof Row ? ((Row) items.get(0)).getSchema() : null;
+        final int[] ordinals = schema != null ? ordinalsOf(schema) : null;
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            int offset = 0;
+            for (Integer rows : buckets(items.size(), Integer.highestOneBit(Math.min(limit, sizeLimit)))) {
+                final List<? extends Map<String, Object>> bucket = items.subList(offset, offset + rows);
+                final long startTime = System.nanoTime();
+
+                if (rows == 1) {
+                    execute(connection, bucket, schema, ordinals);
+                    adapt(rows, System.nanoTime() - startTime);
+                } else {
+                    // Roll back only the failed statement within an explicit transaction
+                    final Savepoint savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+                    try {
+                        execute(connection, bucket, schema, ordinals);
+                        if (savepoint != null) {
+                            connection.releaseSavepoint(savepoint);
+                        }
+                        adapt(rows, System.nanoTime() - startTime);
+                    } catch (SQLException e) {
+                        if (!CARDINALITY_VIOLATION.equals(e.getSQLState())) {
+                            throw e;
+                        }
+                        if (savepoint != null) {
+                            connection.rollback(savepoint);
+                        }
+                        logger.debug("Duplicate keys in statement of [{}] rows, writing one row at a time", rows);
+                        for (int i = 0; i < rows; i++) {
+                            execute(connection, bucket.subList(i, i + 1), schema, ordinals);
+                        }
+                    }
+                }
+
+                offset += rows;
+            }
+            return null;
+        });
+    }
+
+    private void execute(Connection connection, List<? extends Map<String, Object>> items,
+                         RowSchema schema, int[] ordinals) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(toSql(items.size()))) {
+            int index = 1;
+            for (Map<String, Object> item : items) {
+                if (ordinals != null && item instanceof Row && ((Row) item).getSchema() == schema) {
+                    Row row = (Row) item;
+                    for (int k = 0; k < ordinals.length; k++) {
+                        parameterCodecs[k].write(ps, index++, row.get(ordinals[k]));
+                    }
+                } else {
+                    SqlParameterSource parameterSource = RowSqlParameterSource.of(item);
+                    for (int k = 0; k < parameterNames.length; k++) {
+                        parameterCodecs[k].write(ps, index++, parameterSource.getValue(parameterNames[k]));
+                    }
+                }
+            }
+            ps.executeUpdate();
+        }
+    }
+}
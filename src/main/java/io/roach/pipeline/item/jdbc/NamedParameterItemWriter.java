@@ -1,14 +1,15 @@
 package io.roach.pipeline.item.jdbc;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import javax.sql.DataSource;
 
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.database.JdbcBatchItemWriter;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
 import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
 import org.springframework.util.Assert;
@@ -30,6 +31,8 @@ public class NamedParameterItemWriter {
 
         private boolean assertUpdates = true;
 
+        private Supplier<Map<String, ColumnCodec>> columnCodecs = Collections::emptyMap;
+
         public NamedParameterItemWriter.Builder setDataSource(DataSource dataSource) {
             this.dataSource = dataSource;
             return this;
@@ -50,6 +53,15 @@ public class NamedParameterItemWriter {
             return this;
         }
 
+        /**
+         * @param columnCodecs supplier of target column codecs by column name, invoked
+         * after the create query has been executed
+         */
+        public NamedParameterItemWriter.Builder setColumnCodecs(Supplier<Map<String, ColumnCodec>> columnCodecs) {
+            this.columnCodecs = columnCodecs;
+            return this;
+        }
+
         public ItemWriter<Map<String, Object>> build() {
             Assert.notNull(dataSource, "dataSource is null");
 
@@ -71,7 +83,7 @@ public class NamedParameterItemWriter {
             itemWriter.setDataSource(dataSource);
             itemWriter.setSql(updateQuery);
             itemWriter.setAssertUpdates(assertUpdates);
-            itemWriter.setItemSqlParameterSourceProvider(MapSqlParameterSource::new);
+            itemWriter.setItemSqlParameterSourceProvider(RowSqlParameterSource.provider(columnCodecs.get()));
             itemWriter.afterPropertiesSet();
 
             return itemWriter;
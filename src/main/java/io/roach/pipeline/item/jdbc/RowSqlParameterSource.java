@@ -0,0 +1,89 @@
+package io.roach.pipeline.item.jdbc;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.batch.item.database.ItemSqlParameterSourceProvider;
+import org.springframework.jdbc.core.namedparam.AbstractSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import io.roach.pipeline.item.Row;
+
+/**
+ * A {@link SqlParameterSource} resolving named parameters against a {@link Row} through
+ * its schema, rather than copying the row into a new map like {@link MapSqlParameterSource}.
+ */
+public class RowSqlParameterSource extends AbstractSqlParameterSource {
+    /**
+     * @return a parameter source for the given item without copying rows
+     */
+    public static SqlParameterSource of(Map<String, Object> item) {
+        return item instanceof Row ? new RowSqlParameterSource((Row) item) : new MapSqlParameterSource(item);
+    }
+
+    /**
+     * @param columnCodecs target column codecs by column name
+     * @return a provider of parameter sources typed by the SQL type of the target column
+     * with the same name (case-insensitive), resolved once rather than inferred per value
+     */
+    public static ItemSqlParameterSourceProvider<Map<String, Object>> provider(
+            Map<String, ColumnCodec> columnCodecs) {
+        if (columnCodecs.isEmpty()) {
+            return RowSqlParameterSource::of;
+        }
+
+        final Map<String, Integer> sqlTypes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        columnCodecs.forEach((name, codec) -> sqlTypes.put(name, codec.getSqlType()));
+
+        return item -> {
+            if (item instanceof Row) {
+                return new RowSqlParameterSource((Row) item, sqlTypes);
+            }
+            return new MapSqlParameterSource(item) {
+                @Override
+                public int getSqlType(String paramName) {
+                    return sqlTypes.getOrDefault(paramName, TYPE_UNKNOWN);
+                }
+            };
+        };
+    }
+
+    private final Row row;
+
+    private final Map<String, Integer> sqlTypes;
+
+    public RowSqlParameterSource(Row row) {
+        this(row, Collections.emptyMap());
+    }
+
+    public RowSqlParameterSource(Row row, Map<String, Integer> sqlTypes) {
+        this.row = row;
+        this.sqlTypes = sqlTypes;
+    }
+
+    @Override
+    public int getSqlType(String paramName) {
+        return sqlTypes.getOrDefault(paramName, TYPE_UNKNOWN);
+    }
+
+    @Override
+    public boolean hasValue(String paramName) {
+        return row.getSchema().indexOf(paramName) >= 0;
+    }
+
+    @Override
+    public Object getValue(String paramName) throws IllegalArgumentException {
+        int ordinal = row.getSchema().indexOf(paramName);
+        if (ordinal < 0) {
+            throw new IllegalArgumentException("No value registered for key '" + paramName + "'");
+        }
+        return row.get(ordinal);
+    }
+
+    @Override
+    public String[] getParameterNames() {
+        return row.keySet().toArray(new String[0]);
+    }
+}
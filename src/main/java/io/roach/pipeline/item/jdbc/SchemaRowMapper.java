@@ -0,0 +1,53 @@
+package io.roach.pipeline.item.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import io.roach.pipeline.item.Row;
+import io.roach.pipeline.item.RowSchema;
+
+/**
+ * A {@link RowMapper} mapping result set rows to {@link Row}s by ordinal. The schema and
+ * the {@link ColumnCodec} of each column are resolved from the result set metadata of the
+ * first row only and then shared by all rows, so the query must have a fixed set of columns.
+ */
+public class SchemaRowMapper implements RowMapper<Row> {
+    private static class Mapping {
+        final RowSchema schema;
+
+        final ColumnCodec[] codecs;
+
+        Mapping(ResultSetMetaData metaData) throws SQLException {
+            this.schema = RowSchema.of(metaData);
+            this.codecs = new ColumnCodec[schema.size()];
+            for (int i = 0; i < codecs.length; i++) {
+                codecs[i] = ColumnCodec.of(metaData.getColumnType(i + 1), metaData.getColumnTypeName(i + 1));
+            }
+        }
+    }
+
+    private volatile Mapping mapping;
+
+    public RowSchema getSchema() {
+        Mapping m = this.mapping;
+        return m != null ? m.schema : null;
+    }
+
+    @Override
+    public Row mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Mapping m = this.mapping;
+        if (m == null) {
+            m = new Mapping(rs.getMetaData());
+            this.mapping = m;
+        }
+        final ColumnCodec[] codecs = m.codecs;
+        Object[] values = new Object[codecs.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = codecs[i].read(rs, i + 1);
+        }
+        return new Row(m.schema, values);
+    }
+}
@@ -2,8 +2,6 @@ package io.roach.pipeline.shell;
 
 import java.util.function.Function;
 
-import javax.sql.DataSource;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ansi.AnsiColor;
 import org.springframework.shell.standard.ShellCommandGroup;
@@ -47,38 +45,38 @@ public class Metadata {
                 .withName("template-source")
                 .build();
 
-        final DataSource dataSource = dataSourceFactory.apply(dataSourceProperties);
-
-        Graph<String, DatabaseInfo.ForeignKey> graph = new Graph<>();
+        try (ClosableDataSource dataSource = dataSourceFactory.apply(dataSourceProperties)) {
+            Graph<String, DatabaseInfo.ForeignKey> graph = new Graph<>();
 
-        DatabaseInfo.listTables(dataSource, "public").forEach(name -> {
-            console.printf(AnsiColor.BRIGHT_WHITE, "Table: %s\n", name);
-            console.printf(AnsiColor.BRIGHT_YELLOW, "-- Columns --\n");
+            DatabaseInfo.listTables(dataSource, "public").forEach(name -> {
+                console.printf(AnsiColor.BRIGHT_WHITE, "Table: %s\n", name);
+                console.printf(AnsiColor.BRIGHT_YELLOW, "-- Columns --\n");
 
-            DatabaseInfo.listColumns(dataSource, name).forEach((s, column) -> {
-                console.printf(AnsiColor.BRIGHT_GREEN, "%s\n", s);
-            });
+                DatabaseInfo.listColumns(dataSource, name).forEach((s, column) -> {
+                    console.printf(AnsiColor.BRIGHT_GREEN, "%s\n", s);
+                });
 
-            console.printf(AnsiColor.BRIGHT_YELLOW, "-- Foreign Keys --\n");
+                console.printf(AnsiColor.BRIGHT_YELLOW, "-- Foreign Keys --\n");
 
-            graph.addNode(name);
+                graph.addNode(name);
 
-            DatabaseInfo.listForeignKeys(dataSource, name).forEach(foreignKey -> {
-                graph.addNode(foreignKey.getPkTableName());
-                graph.addEdge(name, foreignKey.getPkTableName(), foreignKey);
+                DatabaseInfo.listForeignKeys(dataSource, name).forEach(foreignKey -> {
+                    graph.addNode(foreignKey.getPkTableName());
+                    graph.addEdge(name, foreignKey.getPkTableName(), foreignKey);
 
-                console.printf(AnsiColor.BRIGHT_GREEN, "%s\n", foreignKey);
+                    console.printf(AnsiColor.BRIGHT_GREEN, "%s\n", foreignKey);
+                });
             });
-        });
 
-        console.printf(AnsiColor.BRIGHT_YELLOW, "-- Dependency graph--\n");
-        console.printf(AnsiColor.BRIGHT_WHITE, "%s\n", graph.toString());
-        console.printf(AnsiColor.BRIGHT_YELLOW, "FK topological order:\n");
+            console.printf(AnsiColor.BRIGHT_YELLOW, "-- Dependency graph--\n");
+            console.printf(AnsiColor.BRIGHT_WHITE, "%s\n", graph.toString());
+            console.printf(AnsiColor.BRIGHT_YELLOW, "FK topological order:\n");
 
-        try {
-            console.printf(AnsiColor.BRIGHT_GREEN, "%s\n", graph.topologicalSort(true));
-        } catch (IllegalStateException e) { // Not a DAG
-            console.printf(AnsiColor.BRIGHT_RED, e.toString());
+            try {
+                console.printf(AnsiColor.BRIGHT_GREEN, "%s\n", graph.topologicalSort(true));
+            } catch (IllegalStateException e) { // Not a DAG
+                console.printf(AnsiColor.BRIGHT_RED, e.toString());
+            }
         }
     }
 }
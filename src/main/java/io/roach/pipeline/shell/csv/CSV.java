@@ -16,8 +16,6 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.IntStream;
 
-import javax.sql.DataSource;
-
 import org.springframework.batch.item.Chunk;
 import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.file.FlatFileItemWriter;
@@ -102,104 +100,105 @@ public class CSV {
                 .withName("pipeline")
                 .build();
 
-        final DataSource dataSource = dataSourceFactory.apply(dataSourceProps);
-
-        final Map<String, DatabaseInfo.Column> metaData = DatabaseInfo.listColumns(dataSource, table);
+        try (ClosableDataSource dataSource = dataSourceFactory.apply(dataSourceProps)) {
+            final Map<String, DatabaseInfo.Column> metaData = DatabaseInfo.listColumns(dataSource, table);
 
-        final FlatFileSchema flatFileSchema = FlatFileSchemaUtils.generateSchema(
-                dataSource, table, delimiter, field -> {
-                    if (columnsIncluded.isEmpty()) {
-                        boolean skipEmptyComments = columnPolicies.contains(ColumnPolicy.SKIP_EMPTY_COMMENT);
-                        if (!StringUtils.hasLength(field.getComment()) && skipEmptyComments) {
-                            field.setIgnored(true);
-                        }
+            final FlatFileSchema flatFileSchema = FlatFileSchemaUtils.generateSchema(
+                    dataSource, table, delimiter, field -> {
+                        if (columnsIncluded.isEmpty()) {
+                            boolean skipEmptyComments = columnPolicies.contains(ColumnPolicy.SKIP_EMPTY_COMMENT);
+                            if (!StringUtils.hasLength(field.getComment()) && skipEmptyComments) {
+                                field.setIgnored(true);
+                            }
 
-                        boolean skipDefault = columnPolicies.contains(ColumnPolicy.SKIP_DEFAULT);
-                        String columnDef = metaData.get(field.getName()).getAttributes().getOrDefault("COLUMN_DEF", "");
-                        if (StringUtils.hasLength(columnDef) && skipDefault) {
-                            field.setIgnored(true);
+                            boolean skipDefault = columnPolicies.contains(ColumnPolicy.SKIP_DEFAULT);
+                            String columnDef = metaData.get(field.getName()).getAttributes()
+                                    .getOrDefault("COLUMN_DEF", "");
+                            if (StringUtils.hasLength(columnDef) && skipDefault) {
+                                field.setIgnored(true);
+                            }
+                        } else {
+                            field.setIgnored(!columnsIncluded.contains(field.getName()));
                         }
-                    } else {
-                        field.setIgnored(!columnsIncluded.contains(field.getName()));
-                    }
-                    return !field.isIgnored();
-                });
-
-        if (flatFileSchema.fieldNames().isEmpty()) {
-            console.information("No fields found for schema - cancelling");
-            return;
-        }
-
-        try {
-            Path p = Paths.get(table + "-schema.json");
-            FlatFileSchemaUtils.writeToFile(flatFileSchema, p);
-            console.printf(AnsiColor.BRIGHT_CYAN, "Created schema file '%s'\n", p);
-        } catch (IOException e) {
-            console.error(e.toString());
-        }
-
-        final List<Runnable> tasks = new ArrayList<>();
-        final int rowsPerWorker = rowCount / numFiles;
-
-        IntStream.rangeClosed(1, numFiles).forEach(idx -> {
-            tasks.add(() -> {
-                final MapRegistry registry = FunctionInventory.buildFunctions(dataSource);
-                final AtomicInteger rowNumber = new AtomicInteger();
-                registry.addFunction("rowNumber", args -> rowNumber.get());
-
-                final Path outputPath = Paths.get(table + "-" + idx + ".csv");
-                console.printf(AnsiColor.BRIGHT_CYAN, "Creating file %s with %d rows\n", outputPath, rowsPerWorker);
-
-                final FlatFileItemWriter<Map<String, Object>> itemWriter = FlatFileResourceWriterBuilder.instance()
-                        .setFieldNames(flatFileSchema.allFieldNames())
-                        .setOutputResource(new FileSystemResource(outputPath))
-                        .setDelimiter(delimiter)
-                        .build();
-
-                try {
-                    itemWriter.open(new ExecutionContext());
+                        return !field.isIgnored();
+                    });
 
-                    IntStream.rangeClosed(1, rowsPerWorker).forEach(value -> {
-                        rowNumber.set(value);
+            if (flatFileSchema.fieldNames().isEmpty()) {
+                console.information("No fields found for schema - cancelling");
+                return;
+            }
+
+            try {
+                Path p = Paths.get(table + "-schema.json");
+                FlatFileSchemaUtils.writeToFile(flatFileSchema, p);
+                console.printf(AnsiColor.BRIGHT_CYAN, "Created schema file '%s'\n", p);
+            } catch (IOException e) {
+                console.error(e.toString());
+            }
+
+            final List<Runnable> tasks = new ArrayList<>();
+            final int rowsPerWorker = rowCount / numFiles;
+
+            IntStream.rangeClosed(1, numFiles).forEach(idx -> {
+                tasks.add(() -> {
+                    final MapRegistry registry = FunctionInventory.buildFunctions(dataSource);
+                    final AtomicInteger rowNumber = new AtomicInteger();
+                    registry.addFunction("rowNumber", args -> rowNumber.get());
+
+                    final Path outputPath = Paths.get(table + "-" + idx + ".csv");
+                    console.printf(AnsiColor.BRIGHT_CYAN, "Creating file %s with %d rows\n", outputPath, rowsPerWorker);
+
+                    final FlatFileItemWriter<Map<String, Object>> itemWriter = FlatFileResourceWriterBuilder.instance()
+                            .setFieldNames(flatFileSchema.allFieldNames())
+                            .setOutputResource(new FileSystemResource(outputPath))
+                            .setDelimiter(delimiter)
+                            .build();
 
-                        Map<String, Object> values = new LinkedHashMap<>();
+                    try {
+                        itemWriter.open(new ExecutionContext());
+
+                        IntStream.rangeClosed(1, rowsPerWorker).forEach(value -> {
+                            rowNumber.set(value);
+
+                            Map<String, Object> values = new LinkedHashMap<>();
+
+                            flatFileSchema.getIncludedFields().forEach(field -> {
+                                String comment = field.getComment();
+                                if (StringUtils.hasLength(comment)) {
+                                    values.put(field.getName(),
+                                            RuleExpression.evaluate(comment, String.class, registry));
+                                } else {
+                                    values.put(field.getName(),
+                                            String.valueOf(RandomData.randomValue(metaData.get(field.getName()))));
+                                }
+                            });
+
+                            if (value % 1000 == 0) {
+                                tick(outputPath + " " + Math.round((0f + value) / rowsPerWorker * 100.0) + "%");
+                            }
 
-                        flatFileSchema.getIncludedFields().forEach(field -> {
-                            String comment = field.getComment();
-                            if (StringUtils.hasLength(comment)) {
-                                values.put(field.getName(),
-                                        RuleExpression.evaluate(comment, String.class, registry));
-                            } else {
-                                values.put(field.getName(),
-                                        String.valueOf(RandomData.randomValue(metaData.get(field.getName()))));
+                            try {
+                                itemWriter.write(Chunk.of(values));
+                            } catch (Exception e) {
+                                console.error(e.toString());
                             }
                         });
-
-                        if (value % 1000 == 0) {
-                            tick(outputPath + " " + Math.round((0f + value) / rowsPerWorker * 100.0) + "%");
-                        }
-
+                    } finally {
+                        itemWriter.close();
                         try {
-                            itemWriter.write(Chunk.of(values));
-                        } catch (Exception e) {
-                            console.error(e.toString());
+                            console.printf(AnsiColor.BRIGHT_CYAN, "Done with %s (%d rows %,d bytes)\n",
+                                    outputPath, rowCount, Files.size(outputPath));
+                        } catch (IOException e) {
+                            e.printStackTrace();
                         }
-                    });
-                } finally {
-                    itemWriter.close();
-                    try {
-                        console.printf(AnsiColor.BRIGHT_CYAN, "Done with %s (%d rows %,d bytes)\n", outputPath, rowCount,
-                                Files.size(outputPath));
-                    } catch (IOException e) {
-                        e.printStackTrace();
                     }
-                }
+                });
             });
-        });
 
-        console.printf(AnsiColor.BRIGHT_CYAN, "Queued %d tasks\n", tasks.size());
-        ConcurrencyUtils.runConcurrentlyAndWait(tasks);
-        console.information("All tasks completed");
+            console.printf(AnsiColor.BRIGHT_CYAN, "Queued %d tasks\n", tasks.size());
+            ConcurrencyUtils.runConcurrentlyAndWait(tasks);
+            console.information("All tasks completed");
+        }
     }
 
     @ShellMethod(value = "List CSV column functions", key = {"functions"})
@@ -223,17 +222,17 @@ public class CSV {
         username = "(source-template)".equals(username) ? templateProperties.getSource().getUsername() : username;
         password = "(source-template)".equals(password) ? templateProperties.getSource().getPassword() : password;
 
-        final DataSource dataSource = dataSourceFactory.apply(DataSourceProps.builder()
+        try (ClosableDataSource dataSource = dataSourceFactory.apply(DataSourceProps.builder()
                 .withUrl(url)
                 .withUsername(username)
                 .withPassword(password)
                 .withName("pipeline")
-                .build());
-
-        final MapRegistry registry = FunctionInventory.buildFunctions(dataSource);
-        Object result = RuleExpression.evaluate(expression, Object.class, registry);
-        console.information("Expression: " + expression);
-        console.information("Result: " + result);
-        console.information("Result type: " + result.getClass().getName());
+                .build())) {
+            final MapRegistry registry = FunctionInventory.buildFunctions(dataSource);
+            Object result = RuleExpression.evaluate(expression, Object.class, registry);
+            console.information("Expression: " + expression);
+            console.information("Result: " + result);
+            console.information("Result type: " + result.getClass().getName());
+        }
     }
 }
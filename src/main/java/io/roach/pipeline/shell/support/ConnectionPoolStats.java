@@ -6,6 +6,8 @@ import com.zaxxer.hikari.HikariPoolMXBean;
 public class ConnectionPoolStats {
     public static ConnectionPoolStats from(HikariDataSource ds) {
         ConnectionPoolStats ps = new ConnectionPoolStats();
+        ps.poolName = ds.getPoolName();
+        ps.maximumPoolSize = ds.getMaximumPoolSize();
         HikariPoolMXBean mxBean = ds.getHikariPoolMXBean();
         if (mxBean != null) {
             ps.activeConnections = mxBean.getActiveConnections();
@@ -17,6 +19,13 @@ public class ConnectionPoolStats {
         return ps;
     }
 
+    public String poolName;
+
+    public int maximumPoolSize;
+
+    // Number of jobs or requests sharing the pool
+    public int references;
+
     public int activeConnections;
 
     public int idleConnections;
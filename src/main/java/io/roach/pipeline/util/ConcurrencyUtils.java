@@ -3,8 +3,16 @@ package io.roach.pipeline.util;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 public abstract class ConcurrencyUtils {
+    private static final int SPIN_LIMIT = 64;
+
+    private static final int YIELD_LIMIT = 128;
+
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
     private ConcurrencyUtils() {
     }
 
@@ -13,4 +21,21 @@ public abstract class ConcurrencyUtils {
         tasks.forEach(runnable -> allFutures.add(CompletableFuture.runAsync(runnable)));
         CompletableFuture.allOf(allFutures.toArray(new CompletableFuture[] {})).join();
     }
+
+    /**
+     * Progressive idle strategy for lock-free wait loops: spin, then yield and finally
+     * park with an exponential backoff capped at one millisecond.
+     *
+     * @param attempt the number of unsuccessful attempts so far (starting at zero)
+     */
+    public static void backoff(int attempt) {
+        if (attempt < SPIN_LIMIT) {
+            Thread.onSpinWait();
+        } else if (attempt < YIELD_LIMIT) {
+            Thread.yield();
+        } else {
+            int shift = Math.min(attempt - YIELD_LIMIT, 20);
+            LockSupport.parkNanos(Math.min(1_000L << shift, MAX_PARK_NANOS));
+        }
+    }
 }
@@ -86,6 +86,14 @@ public class LogicalTimestamp implements Comparable<LogicalTimestamp> {
         return LocalDateTime.ofInstant(toInstant(), zoneId);
     }
 
+    /**
+     * @return the HLC tuple representation (NNN.NNNNNNNNNN) as accepted by CockroachDB, for
+     * example as a changefeed cursor
+     */
+    public String toHLC() {
+        return String.format("%d.%010d", physicalWallClockTimeNanos, logicalCounter);
+    }
+
     @Override
     public int compareTo(LogicalTimestamp o) {
         return Long.compare(this.physicalWallClockTimeNanos + this.logicalCounter,
@@ -0,0 +1,176 @@
+package io.roach.pipeline.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.util.Assert;
+
+/**
+ * An {@link InputStream} over a source of known length that fetches fixed size parts
+ * of it concurrently (like ranged GETs from an object store) and returns the bytes in
+ * order. Parts are fetched by a bounded number of threads, and completed parts are held
+ * in a reorder buffer until the consumer reaches them, so at most {@code parallelism}
+ * parts are buffered or in flight ahead of the consumer at any time.
+ */
+public class ParallelRangeInputStream extends InputStream {
+    /**
+     * A source of byte ranges.
+     */
+    @FunctionalInterface
+    public interface RangeSource {
+        /**
+         * @param start the first byte offset (inclusive)
+         * @param end the last byte offset (exclusive)
+         * @return a stream of the bytes in range
+         */
+        InputStream open(long start, long end) throws IOException;
+    }
+
+    private final RangeSource source;
+
+    private final long length;
+
+    private final int partSize;
+
+    private final ExecutorService executorService;
+
+    private final Deque<Future<byte[]>> parts = new ArrayDeque<>();
+
+    private long nextOffset;
+
+    private byte[] current;
+
+    private int position;
+
+    private boolean closed;
+
+    /**
+     * @param source the source of byte ranges
+     * @param length the total number of bytes
+     * @param partSize the max size of each range
+     * @param parallelism the max number of ranges buffered or in flight
+     * @param name the fetch thread name prefix
+     */
+    public ParallelRangeInputStream(RangeSource source, long length, int partSize, int parallelism, String name) {
+        Assert.notNull(source, "source is null");
+        Assert.isTrue(length >= 0, "length must be >= 0");
+        Assert.isTrue(partSize > 0, "partSize must be > 0");
+        Assert.isTrue(parallelism > 0, "parallelism must be > 0");
+        this.source = source;
+        this.length = length;
+        this.partSize = partSize;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread thread = new Thread(r, name + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executorService = Executors.newFixedThreadPool(parallelism, threadFactory);
+
+        while (parts.size() < parallelism && submitNext()) {
+            // Fill the window
+        }
+    }
+
+    private boolean submitNext() {
+        if (nextOffset >= length) {
+            return false;
+        }
+        final long start = nextOffset;
+        final long end = Math.min(length, start + partSize);
+        parts.addLast(executorService.submit(() -> fetch(start, end)));
+        nextOffset = end;
+        return true;
+    }
+
+    private byte[] fetch(long start, long end) throws IOException {
+        int expected = (int) (end - start);
+        try (InputStream in = source.open(start, end)) {
+            byte[] bytes = in.readNBytes(expected);
+            if (bytes.length != expected) {
+                throw new IOException("Expected " + expected + " bytes in range ["
+                        + start + "," + end + ") but got " + bytes.length);
+            }
+            return bytes;
+        }
+    }
+
+    private boolean nextPart() throws IOException {
+        Future<byte[]> future = parts.pollFirst();
+        if (future == null) {
+            return false;
+        }
+        try {
+            current = future.get();
+            position = 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for range");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+        submitNext();
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (current == null || position == current.length) {
+            if (!nextPart()) {
+                return -1;
+            }
+        }
+        return current[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        while (current == null || position == current.length) {
+            if (!nextPart()) {
+                return -1;
+            }
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current != null ? current.length - position : 0;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            this.closed = true;
+            parts.forEach(future -> future.cancel(true));
+            parts.clear();
+            executorService.shutdownNow();
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package io.roach.pipeline.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.springframework.util.Assert;
+
+/**
+ * An {@link InputStream} that reads a delegate stream ahead on a separate thread into a
+ * bounded queue of buffers, so that producing the bytes (like decompressing or fetching
+ * them over the network) overlaps with consuming them. Buffers are recycled between the
+ * threads, and read errors are rethrown to the consumer after the bytes read before them.
+ */
+public class ReadAheadInputStream extends InputStream {
+    private static final class Chunk {
+        final byte[] data;
+
+        int length;
+
+        Chunk(int size) {
+            this.data = new byte[size];
+        }
+    }
+
+    private static final Chunk END = new Chunk(0);
+
+    private final InputStream delegate;
+
+    private final int bufferSize;
+
+    private final BlockingQueue<Chunk> filled;
+
+    private final BlockingQueue<Chunk> free;
+
+    private final Thread thread;
+
+    private volatile IOException error;
+
+    private volatile boolean closed;
+
+    private Chunk current;
+
+    private int position;
+
+    /**
+     * @param delegate the stream to read ahead
+     * @param bufferSize the size of each buffer
+     * @param depth the max number of filled buffers ahead of the consumer
+     * @param name the reader thread name
+     */
+    public ReadAheadInputStream(InputStream delegate, int bufferSize, int depth, String name) {
+        Assert.notNull(delegate, "delegate is null");
+        Assert.isTrue(bufferSize > 0, "bufferSize must be > 0");
+        Assert.isTrue(depth > 0, "depth must be > 0");
+        this.delegate = delegate;
+        this.bufferSize = bufferSize;
+        this.filled = new ArrayBlockingQueue<>(depth + 1);
+        this.free = new ArrayBlockingQueue<>(depth + 2);
+        this.thread = new Thread(this::readLoop, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private void readLoop() {
+        try {
+            while (!closed) {
+                Chunk chunk = free.poll();
+                if (chunk == null) {
+                    chunk = new Chunk(bufferSize);
+                }
+                chunk.length = delegate.readNBytes(chunk.data, 0, bufferSize);
+                if (chunk.length > 0) {
+                    filled.put(chunk);
+                }
+                if (chunk.length < bufferSize) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            this.error = e;
+        } catch (Throwable e) {
+            // Errors included, since the consumer would otherwise wait for the end forever
+            this.error = new IOException("Read ahead failed", e);
+        } finally {
+            signalEnd();
+        }
+    }
+
+    private void signalEnd() {
+        if (closed) {
+            return;
+        }
+        try {
+            filled.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean nextChunk() throws IOException {
+        if (current == END) {
+            return false;
+        }
+        if (current != null) {
+            free.offer(current);
+        }
+        try {
+            current = filled.take();
+            position = 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for read ahead");
+        }
+        if (current == END) {
+            if (error != null) {
+                throw error;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if ((current == null || position == current.length) && !nextChunk()) {
+            return -1;
+        }
+        return current.data[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if ((current == null || position == current.length) && !nextChunk()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current.data, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current != null && current != END ? current.length - position : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            this.closed = true;
+            thread.interrupt();
+            filled.clear();
+            delegate.close();
+        }
+    }
+}
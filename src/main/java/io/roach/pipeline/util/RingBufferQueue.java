@@ -0,0 +1,218 @@
+package io.roach.pipeline.util;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.util.Assert;
+
+/**
+ * A bounded, lock-free ring buffer queue for many producers and (typically) a single consumer.
+ * <p>
+ * Each slot carries a sequence number that tells producers and consumers whether the slot
+ * is free or holds a published element (Vyukov style), so neither side takes a lock and no
+ * node is allocated per element. The number of slots is rounded up to the next power of two
+ * (minimum two) for cheap indexing, but producers are held to the given capacity so that it
+ * remains the exact backpressure bound.
+ * <p>
+ * Blocking variants use a spin/yield/park backoff rather than conditions, trading a small
+ * amount of latency under idle conditions for a contention-free hot path.
+ *
+ * @param <E> the element type
+ */
+public class RingBufferQueue<E> {
+    private final int capacity;
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> elements;
+
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong producerPosition = new AtomicLong();
+
+    private final AtomicLong consumerPosition = new AtomicLong();
+
+    public RingBufferQueue(int capacity) {
+        Assert.isTrue(capacity > 0, "capacity must be > 0");
+        Assert.isTrue(capacity <= 1 << 30, "capacity too large");
+
+        // Slot sequences need at least two slots to tell a free slot from a published one
+        int size = 2;
+        while (size < capacity) {
+            size <<= 1;
+        }
+
+        this.capacity = capacity;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        long consumer = consumerPosition.get();
+        long producer = producerPosition.get();
+        return (int) Math.max(0, Math.min(producer - consumer, capacity()));
+    }
+
+    public int remainingCapacity() {
+        return capacity() - size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Inserts the element if there is free capacity.
+     *
+     * @param e the element
+     * @return true if inserted, false if the queue is full
+     */
+    public boolean offer(E e) {
+        Assert.notNull(e, "element is null");
+
+        long position = producerPosition.get();
+        int index;
+        for (; ; ) {
+            index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                // The consumer position only moves forward, so a passing check still holds after the CAS
+                if (position - consumerPosition.get() >= capacity) {
+                    return false;
+                }
+                if (producerPosition.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = producerPosition.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                position = producerPosition.get();
+            }
+        }
+
+        elements.lazySet(index, e);
+        sequences.set(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Inserts the element, waiting for up to the given timeout for free capacity.
+     *
+     * @return true if inserted, false if timed out
+     */
+    public boolean offer(E e, Duration timeout) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        int attempt = 0;
+        while (!offer(e)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            ConcurrencyUtils.backoff(attempt++);
+        }
+        return true;
+    }
+
+    /**
+     * Inserts the element, waiting indefinitely for free capacity.
+     */
+    public void put(E e) throws InterruptedException {
+        int attempt = 0;
+        while (!offer(e)) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            ConcurrencyUtils.backoff(attempt++);
+        }
+    }
+
+    /**
+     * @return the head of the queue or null if empty
+     */
+    public E poll() {
+        long position = consumerPosition.get();
+        int index;
+        for (; ; ) {
+            index = (int) (position & mask);
+            long diff = sequences.get(index) - (position + 1);
+            if (diff == 0) {
+                if (consumerPosition.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = consumerPosition.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                position = consumerPosition.get();
+            }
+        }
+
+        E e = elements.get(index);
+        elements.lazySet(index, null);
+        sequences.set(index, position + mask + 1);
+        return e;
+    }
+
+    /**
+     * @return the head of the queue or null if the timeout elapsed before an element became available
+     */
+    public E poll(Duration timeout) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        int attempt = 0;
+        E e;
+        while ((e = poll()) == null) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return null;
+            }
+            ConcurrencyUtils.backoff(attempt++);
+        }
+        return e;
+    }
+
+    /**
+     * @return the head of the queue, waiting indefinitely if necessary
+     */
+    public E take() throws InterruptedException {
+        int attempt = 0;
+        E e;
+        while ((e = poll()) == null) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            ConcurrencyUtils.backoff(attempt++);
+        }
+        return e;
+    }
+
+    /**
+     * Removes at most the given number of available elements without waiting.
+     *
+     * @return the number of elements transferred
+     */
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+        int n = 0;
+        E e;
+        while (n < maxElements && (e = poll()) != null) {
+            collection.add(e);
+            n++;
+        }
+        return n;
+    }
+}
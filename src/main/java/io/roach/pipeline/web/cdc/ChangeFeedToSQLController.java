@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.springframework.batch.core.JobExecutionException;
@@ -30,14 +31,20 @@ import io.roach.pipeline.config.ClosableDataSource;
 import io.roach.pipeline.item.BatchJobLauncher;
 import io.roach.pipeline.item.BatchJobManifest;
 import io.roach.pipeline.item.changefeed.ChangeFeedDispatcher;
+import io.roach.pipeline.item.changefeed.ChangeFeedStatementUtils;
+import io.roach.pipeline.item.changefeed.CheckpointItemWriter;
 import io.roach.pipeline.item.changefeed.ChangeFeedItemReader;
 import io.roach.pipeline.item.changefeed.CompositeItemWriter;
+import io.roach.pipeline.item.changefeed.PartitionedItemWriter;
+import io.roach.pipeline.item.changefeed.Payload;
 import io.roach.pipeline.item.changefeed.Subscriber;
 import io.roach.pipeline.item.jdbc.NamedParameterItemWriter;
 import io.roach.pipeline.shell.support.DatabaseInfo;
 import io.roach.pipeline.util.AddressUtils;
 import io.roach.pipeline.util.DataSourceProps;
+import io.roach.pipeline.util.LogicalTimestamp;
 import io.roach.pipeline.web.AbstractFormController;
+import io.roach.pipeline.web.JobConfigurationException;
 import io.roach.pipeline.web.LinkRels;
 import io.roach.pipeline.web.admin.JobController;
 import jakarta.validation.Valid;
@@ -67,8 +74,13 @@ public class ChangeFeedToSQLController extends AbstractFormController<ChangeFeed
         form.setSubscriberId(UUID.randomUUID().toString());
         form.setTable(table);
         form.setPollTimeoutSeconds(templateProperties.getPollTimeoutSeconds());
+        form.setLingerMillis(templateProperties.getLingerMillis());
         form.setChunkSize(templateProperties.getChunkSize());
         form.setConcurrency(templateProperties.getConcurrency());
+        form.setLanes(1);
+        form.setCoalesce(false);
+        form.setCheckpointTable(null);
+        form.setResume(false);
 
         // Source DB
         form.setChangeFeedQuery(createSimpleWebhookChangeFeedStatement(
@@ -138,24 +150,62 @@ public class ChangeFeedToSQLController extends AbstractFormController<ChangeFeed
 
         final ChangeFeedItemReader itemReader
                 = new ChangeFeedItemReader(subscriber, changeFeedDispatcher);
+        itemReader.setDrainSize(form.getChunkSize());
+        itemReader.setLinger(Duration.ofMillis(form.getLingerMillis()));
 
         final ClosableDataSource targetDS = dataSourceFactory.apply(form.toTargetDataSourceProperties());
 
-        final ItemWriter<Map<String, Object>> upsertItemWriter = NamedParameterItemWriter.builder()
-                .setDataSource(targetDS)
-                .setCreateQuery(form.getCreateQuery())
-                .setUpdateQuery(form.getInsertQuery())
-                .build();
-
-        final ItemWriter<Map<String, Object>> deleteItemWriter = NamedParameterItemWriter.builder()
-                .setDataSource(targetDS)
-                .setUpdateQuery(form.getDeleteQuery())
-                .setAssertUpdates(false)
-                .build();
+        final List<ItemWriter<Payload>> laneWriters = new ArrayList<>();
+        for (int lane = 0; lane < form.getLanes(); lane++) {
+            final ItemWriter<Map<String, Object>> upsertItemWriter = NamedParameterItemWriter.builder()
+                    .setDataSource(targetDS)
+                    .setCreateQuery(lane == 0 ? form.getCreateQuery() : null)
+                    .setUpdateQuery(form.getInsertQuery())
+                    .build();
+
+            final ItemWriter<Map<String, Object>> deleteItemWriter = NamedParameterItemWriter.builder()
+                    .setDataSource(targetDS)
+                    .setUpdateQuery(form.getDeleteQuery())
+                    .setAssertUpdates(false)
+                    .build();
+
+            laneWriters.add(new CompositeItemWriter(upsertItemWriter, deleteItemWriter)
+                    .setCoalesce(form.isCoalesce()));
+        }
 
-        final CompositeItemWriter itemWriter = new CompositeItemWriter(upsertItemWriter, deleteItemWriter);
+        final PartitionedItemWriter partitionedItemWriter = new PartitionedItemWriter(subscriber, laneWriters);
+
+        final ItemWriter<Payload> itemWriter;
+
+        String changeFeedStatement = form.getChangeFeedQuery();
+
+        if (StringUtils.hasLength(form.getCheckpointTable())) {
+            CheckpointItemWriter.createTable(targetDS, form.getCheckpointTable());
+
+            itemWriter = new CheckpointItemWriter(partitionedItemWriter.setMarkApplied(false),
+                    subscriber, targetDS, form.getCheckpointTable());
+
+            if (form.isResume() && StringUtils.hasLength(changeFeedStatement)) {
+                if (ChangeFeedStatementUtils.options(changeFeedStatement).containsKey("cursor")) {
+                    throw new JobConfigurationException(
+                            "changeFeedQuery must not have a cursor option when resuming from a checkpoint");
+                }
+                Optional<LogicalTimestamp> checkpoint = CheckpointItemWriter.findCheckpoint(targetDS,
+                        form.getCheckpointTable(), form.getSubscriberId());
+                if (checkpoint.isPresent()) {
+                    changeFeedStatement = ChangeFeedStatementUtils.withOption(changeFeedStatement,
+                            "cursor='" + checkpoint.get().toHLC() + "'");
+                    logger.info("Resuming changefeed from checkpoint: {}", checkpoint.get().toHLC());
+                } else {
+                    logger.warn("No checkpoint found for subscriber [{}] - starting from now",
+                            form.getSubscriberId());
+                }
+            }
+        } else {
+            itemWriter = partitionedItemWriter;
+        }
 
-        final String changeFeedStatement = form.getChangeFeedQuery();
+        final String createStatement = changeFeedStatement;
 
         final BatchJobManifest batchJobManifest = BatchJobManifest.builder()
                 .withRandomId()
@@ -163,9 +213,10 @@ public class ChangeFeedToSQLController extends AbstractFormController<ChangeFeed
                 .withChunkSize(form.getChunkSize())
                 .withRestartExecutionId(form.getRestartExecutionId())
                 .withFaultTolerance()
+                .withCloseable(targetDS)
                 .withConcurrency(form.getConcurrency())
                 .withJobParameters(builder -> builder
-                        .addString("createStatement", changeFeedStatement)
+                        .addString("createStatement", createStatement)
                         .addString("subscriberId", form.getSubscriberId())
                         .addString("table", form.getTable()))
                 .build();
@@ -175,7 +226,7 @@ public class ChangeFeedToSQLController extends AbstractFormController<ChangeFeed
 
         batchJobLauncher.submitJob(batchJobManifest, itemReader, itemWriter);
 
-        if (StringUtils.hasLength(form.getChangeFeedQuery())) {
+        if (StringUtils.hasLength(changeFeedStatement)) {
             logger.info("Create changefeed in source DB: {}", changeFeedStatement);
             try (ClosableDataSource sourceDS = dataSourceFactory.apply(form.toSourceDataSourceProperties())) {
                 JdbcTemplate jdbcTemplate = new JdbcTemplate(sourceDS);
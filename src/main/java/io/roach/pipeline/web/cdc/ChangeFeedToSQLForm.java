@@ -41,6 +41,12 @@ public class ChangeFeedToSQLForm extends FormModel<ChangeFeedToSQLForm> {
     @Max(256)
     private int concurrency;
 
+    @Min(1)
+    @Max(64)
+    private int lanes = 1;
+
+    private boolean coalesce;
+
     @NotNull
     private String subscriberId;
 
@@ -50,6 +56,9 @@ public class ChangeFeedToSQLForm extends FormModel<ChangeFeedToSQLForm> {
     @Min(10)
     private int pollTimeoutSeconds;
 
+    @Min(0)
+    private int lingerMillis;
+
     // Target schema
     private String createQuery;
 
@@ -59,6 +68,12 @@ public class ChangeFeedToSQLForm extends FormModel<ChangeFeedToSQLForm> {
     @NotNull
     private String deleteQuery;
 
+    // Target checkpoint
+    @Pattern(regexp = "[\\w.]*")
+    private String checkpointTable;
+
+    private boolean resume;
+
     public String getChangeFeedQuery() {
         return changeFeedQuery;
     }
@@ -99,6 +114,22 @@ public class ChangeFeedToSQLForm extends FormModel<ChangeFeedToSQLForm> {
         this.concurrency = concurrency;
     }
 
+    public int getLanes() {
+        return lanes;
+    }
+
+    public void setLanes(int lanes) {
+        this.lanes = lanes;
+    }
+
+    public boolean isCoalesce() {
+        return coalesce;
+    }
+
+    public void setCoalesce(boolean coalesce) {
+        this.coalesce = coalesce;
+    }
+
     public String getTargetUrl() {
         return targetUrl;
     }
@@ -147,6 +178,14 @@ public class ChangeFeedToSQLForm extends FormModel<ChangeFeedToSQLForm> {
         this.pollTimeoutSeconds = pollTimeoutSeconds;
     }
 
+    public int getLingerMillis() {
+        return lingerMillis;
+    }
+
+    public void setLingerMillis(int lingerMillis) {
+        this.lingerMillis = lingerMillis;
+    }
+
     public String getCreateQuery() {
         return createQuery;
     }
@@ -171,6 +210,22 @@ public class ChangeFeedToSQLForm extends FormModel<ChangeFeedToSQLForm> {
         this.deleteQuery = deleteQuery;
     }
 
+    public String getCheckpointTable() {
+        return checkpointTable;
+    }
+
+    public void setCheckpointTable(String checkpointTable) {
+        this.checkpointTable = checkpointTable;
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
     public DataSourceProps toSourceDataSourceProperties() {
         return DataSourceProps.builder()
                 .withName("cdc2sql-source")
@@ -187,7 +242,7 @@ public class ChangeFeedToSQLForm extends FormModel<ChangeFeedToSQLForm> {
                 .withUrl(targetUrl)
                 .withUsername(targetUsername)
                 .withPassword(targetPassword)
-                .withConcurrency(concurrency)
+                .withConcurrency(Math.max(concurrency, lanes))
                 .build();
     }
 }
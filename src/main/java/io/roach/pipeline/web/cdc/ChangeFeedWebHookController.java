@@ -1,12 +1,19 @@
 package io.roach.pipeline.web.cdc;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.json.JsonParseException;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Propagation;
@@ -14,19 +21,18 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.fasterxml.jackson.core.JacksonException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectReader;
 
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.roach.pipeline.web.NotFoundException;
 import io.roach.pipeline.item.changefeed.ChangeFeedDispatcher;
-import io.roach.pipeline.item.changefeed.ChangeFeedEvent;
+import io.roach.pipeline.item.changefeed.ChangeFeedEventParser;
+import io.roach.pipeline.item.changefeed.Payload;
 import io.roach.pipeline.item.changefeed.Subscriber;
 import io.roach.pipeline.item.changefeed.SubscriberNotFound;
 import io.roach.pipeline.util.LogicalTimestamp;
@@ -54,52 +60,113 @@ public class ChangeFeedWebHookController {
 
     private final Counter eventsPublished;
 
-    private final ObjectReader objectReader;
+    private final ChangeFeedEventParser eventParser;
+
+    private final WebHookAdmissionControl admissionControl;
+
+    private final AsyncTaskExecutor taskExecutor;
 
     public ChangeFeedWebHookController(
             MeterRegistry meterRegistry,
             @Qualifier("objectMapper") ObjectMapper objectMapper,
             @Qualifier("prettyObjectMapper") ObjectMapper prettyObjectMapper,
-            ChangeFeedDispatcher changeFeedDispatcher) {
+            ChangeFeedDispatcher changeFeedDispatcher,
+            WebHookAdmissionControl admissionControl,
+            AsyncTaskExecutor taskExecutor) {
         this.eventsReceived = meterRegistry.counter("cdc.events.received");
         this.eventsResolved = meterRegistry.counter("cdc.events.resolved");
         this.eventsRejected = meterRegistry.counter("cdc.events.rejected");
         this.eventsFailed = meterRegistry.counter("cdc.events.failed");
         this.eventsPublished = meterRegistry.counter("cdc.events.published");
 
-        this.objectReader = objectMapper.readerFor(ChangeFeedEvent.class);
+        this.eventParser = new ChangeFeedEventParser(objectMapper);
         this.prettyObjectMapper = prettyObjectMapper;
         this.changeFeedDispatcher = changeFeedDispatcher;
+        this.admissionControl = admissionControl;
+        this.taskExecutor = taskExecutor;
     }
 
+    /**
+     * Webhook sink endpoint. The request body is parsed in a streaming fashion and each
+     * payload is published to the subscriber queue as soon as it's parsed, rather than
+     * buffering the entire (potentially large) flush in memory.
+     * <p>
+     * With admission control enabled, requests for a subscriber with a saturated queue
+     * are held asynchronously (without pinning a servlet thread) for a bounded time and
+     * then rejected with a {@code Retry-After} header. Admitted requests are rejected the
+     * same way if the queue fills up before all payloads are published within that time,
+     * in which case the changefeed sink resends the payloads already published.
+     */
     @PostMapping(value = "/{id}", consumes = {MediaType.ALL_VALUE})
-    public ResponseEntity<String> onChangeEvent(@PathVariable("id") String subscriberId, @RequestBody String body) {
+    public CompletableFuture<ResponseEntity<String>> onChangeEvent(@PathVariable("id") String subscriberId,
+                                                                   InputStream body) {
+        // Short-circuit if there's no subscriber to link feeds to
+        Subscriber subscriber = changeFeedDispatcher.getSubscriber(subscriberId)
+                .orElseThrow(() -> {
+                    eventsRejected.increment();
+                    return new SubscriberNotFound(subscriberId);
+                });
+
+        final long startTime = System.nanoTime();
+
+        CompletableFuture<Boolean> admission = admissionControl.admit(subscriber);
+        if (admission.isDone()) {
+            // Admitted right away, continue on the servlet thread
+            return admission.thenApply(admitted -> onAdmission(subscriber, body, admitted, startTime));
+        }
+        return admission.thenApplyAsync(admitted -> onAdmission(subscriber, body, admitted, startTime),
+                taskExecutor);
+    }
+
+    private ResponseEntity<String> onAdmission(Subscriber subscriber, InputStream body, boolean admitted,
+                                               long startTime) {
+        if (!admitted) {
+            eventsRejected.increment();
+            return admissionControl.reject(subscriber);
+        }
+        try {
+            return handleChangeEvent(subscriber, body, publisher(subscriber, startTime));
+        } catch (PublishTimeoutException e) {
+            eventsRejected.increment();
+            return admissionControl.reject(subscriber);
+        }
+    }
+
+    private Consumer<Payload> publisher(Subscriber subscriber, long startTime) {
+        if (!admissionControl.isEnabled()) {
+            // Block at queue capacity which applies backpressure to CDC publisher
+            return payload -> changeFeedDispatcher.publish(subscriber, payload);
+        }
+        return payload -> {
+            if (!changeFeedDispatcher.offer(subscriber, payload, admissionControl.remainingWait(startTime))) {
+                throw new PublishTimeoutException();
+            }
+        };
+    }
+
+    private ResponseEntity<String> handleChangeEvent(Subscriber subscriber, InputStream body,
+                                                     Consumer<Payload> publisher) {
         try {
+            // Only buffer the body when tracing
             if (logger.isTraceEnabled()) {
+                byte[] bytes = body.readAllBytes();
                 String prettyJson = prettyObjectMapper
                         .writerWithDefaultPrettyPrinter()
-                        .writeValueAsString(prettyObjectMapper.readTree(body));
-                logger.trace("onChangeEvent for subscriberId [{}]:\n{}", subscriberId, prettyJson);
-            }
-
-            // Short-circuit if there's no subscriber to link feeds to
-            Optional<Subscriber> subscriber = changeFeedDispatcher.getSubscriber(subscriberId);
-            if (!subscriber.isPresent()) {
-                throw new SubscriberNotFound(subscriberId);
+                        .writeValueAsString(prettyObjectMapper.readTree(bytes));
+                logger.trace("onChangeEvent for subscriberId [{}]:\n{}", subscriber.getId(), prettyJson);
+                body = new ByteArrayInputStream(bytes);
             }
 
             eventsReceived.increment();
 
-            ChangeFeedEvent event = objectReader.readValue(body);
+            Optional<LogicalTimestamp> timestamp = eventParser.parse(body, publisher);
 
-            Optional<LogicalTimestamp> timestamp = event.getResolvedTimestamp();
             if (timestamp.isPresent()) {
                 eventsResolved.increment();
-                changeFeedDispatcher.resolved(subscriber.get(), timestamp.get());
+                changeFeedDispatcher.resolved(subscriber, timestamp.get());
             } else {
                 eventsPublished.increment();
-                // Block at queue capacity which applies backpressure to CDC publisher
-                changeFeedDispatcher.publish(subscriber.get(), event);
+                subscriber.incrementEventsReceived();
             }
 
             return ResponseEntity.ok().build();
@@ -109,6 +176,15 @@ public class ChangeFeedWebHookController {
         } catch (JacksonException e) {
             eventsFailed.increment();
             throw new JsonParseException(e);
+        } catch (IOException e) {
+            eventsFailed.increment();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class PublishTimeoutException extends RuntimeException {
+        PublishTimeoutException() {
+            super("Timed out publishing to subscriber queue", null, false, false);
         }
     }
 
@@ -4,6 +4,8 @@ import java.time.Duration;
 import java.util.*;
 
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.batch.core.JobExecutionException;
@@ -31,11 +33,18 @@ import io.roach.pipeline.item.BatchJobLauncher;
 import io.roach.pipeline.item.BatchJobManifest;
 import io.roach.pipeline.item.changefeed.CompositeItemWriter;
 import io.roach.pipeline.item.changefeed.KafkaChangeEvent;
+import io.roach.pipeline.item.changefeed.KafkaChangeEventProcessor;
+import io.roach.pipeline.item.changefeed.Payload;
+import io.roach.pipeline.item.changefeed.avro.AbstractAvroDeserializer;
+import io.roach.pipeline.item.changefeed.avro.AvroChangeEventDeserializer;
+import io.roach.pipeline.item.changefeed.avro.AvroKeyDeserializer;
+import io.roach.pipeline.item.changefeed.avro.ChangeEventKeyInterceptor;
 import io.roach.pipeline.item.jdbc.NamedParameterItemWriter;
 import io.roach.pipeline.shell.support.DatabaseInfo;
 import io.roach.pipeline.util.AddressUtils;
 import io.roach.pipeline.util.DataSourceProps;
 import io.roach.pipeline.web.AbstractFormController;
+import io.roach.pipeline.web.JobConfigurationException;
 import io.roach.pipeline.web.LinkRels;
 import io.roach.pipeline.web.admin.JobController;
 import jakarta.validation.Valid;
@@ -59,6 +68,7 @@ public class KafkaToSQLController extends AbstractFormController<KafkaToSQLForm>
 
         KafkaToSQLForm form = new KafkaToSQLForm();
         form.setConcurrency(1);
+        form.setFormat("json");
         form.setTable(table);
         form.setBootstrapServers(requestParams.getOrDefault("bootstrapServers",
                 templateProperties.getKafka().getBootstrapServers()));
@@ -140,45 +150,87 @@ public class KafkaToSQLController extends AbstractFormController<KafkaToSQLForm>
                 ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         consumerProperties.setProperty(
                 JsonDeserializer.VALUE_DEFAULT_TYPE, KafkaChangeEvent.class.getName());
-        consumerProperties.setProperty(
-                ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG,
-                StringDeserializer.class.getName());
-        consumerProperties.setProperty(
-                ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
-                JsonDeserializer.class.getName());
-
-        // Empty map denotes using stored (if any) consumer group offsets
-        final Map<TopicPartition, Long> partitionOffsets = new HashMap<>();
-
-        KafkaItemReader<String, KafkaChangeEvent> itemReader = new KafkaItemReaderBuilder<String, KafkaChangeEvent>()
-                .name(form.getName())
-                .topic(form.getTopic())
-                .partitions(0)
-                .pollTimeout(Duration.ofSeconds(form.getPollTimeoutSeconds()))
-                .saveState(form.isSaveOffsets())
-                .partitionOffsets(partitionOffsets)
-                .consumerProperties(consumerProperties)
-                .build();
-
-        final DataSourceProps targetDBProperties = form.toTargetDataSourceProperties();
-
-        final ClosableDataSource targetDS = dataSourceFactory.apply(targetDBProperties);
+        if ("avro".equals(form.getFormat())) {
+            if (!StringUtils.hasLength(form.getSchemaRegistryUrl())) {
+                throw new JobConfigurationException("schemaRegistryUrl is required for avro format");
+            }
+            // Primary keys are in the record key rather than the value
+            consumerProperties.setProperty(
+                    ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG,
+                    AvroKeyDeserializer.class.getName());
+            consumerProperties.setProperty(
+                    ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
+                    AvroChangeEventDeserializer.class.getName());
+            consumerProperties.setProperty(
+                    ConsumerConfig.INTERCEPTOR_CLASSES_CONFIG,
+                    ChangeEventKeyInterceptor.class.getName());
+            consumerProperties.setProperty(
+                    AbstractAvroDeserializer.SCHEMA_REGISTRY_URL_CONFIG, form.getSchemaRegistryUrl());
+            if (StringUtils.hasLength(form.getSchemaDirectory())) {
+                consumerProperties.setProperty(
+                        AbstractAvroDeserializer.SCHEMA_DIRECTORY_CONFIG, form.getSchemaDirectory());
+            }
+        } else {
+            consumerProperties.setProperty(
+                    ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG,
+                    StringDeserializer.class.getName());
+            consumerProperties.setProperty(
+                    ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
+                    JsonDeserializer.class.getName());
+        }
 
-        final ItemWriter<Map<String, Object>> upsertItemWriter = NamedParameterItemWriter.builder()
-                .setDataSource(targetDS)
-                .setCreateQuery(form.getCreateQuery())
-                .setUpdateQuery(form.getInsertQuery())
-                .build();
+        final List<Integer> partitions = discoverPartitions(consumerProperties, form.getTopic());
 
-        final ItemWriter<Map<String, Object>> deleteItemWriter = NamedParameterItemWriter.builder()
-                .setDataSource(targetDS)
-                .setUpdateQuery(form.getDeleteQuery())
-                .setAssertUpdates(false)
-                .build();
+        // Spread partitions round-robin across workers
+        final int workers = Math.min(form.getConcurrency(), partitions.size());
+        final List<List<Integer>> workerPartitions = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            workerPartitions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < partitions.size(); i++) {
+            workerPartitions.get(i % workers).add(partitions.get(i));
+        }
 
-        final CompositeItemWriter itemWriter = new CompositeItemWriter(upsertItemWriter, deleteItemWriter);
+        logger.info("Topic [{}] has {} partitions assigned to {} workers: {}",
+                form.getTopic(), partitions.size(), workers, workerPartitions);
+
+        final ClosableDataSource targetDS = dataSourceFactory.apply(form.toTargetDataSourceProperties());
+
+        final List<KafkaItemReader<Object, KafkaChangeEvent>> itemReaders = new ArrayList<>();
+        final List<ItemWriter<Payload>> itemWriters = new ArrayList<>();
+
+        for (int i = 0; i < workers; i++) {
+            // Empty map denotes using stored (if any) consumer group offsets
+            final Map<TopicPartition, Long> partitionOffsets = new HashMap<>();
+
+            // Offsets per partition are saved in the worker step execution context under the reader name
+            itemReaders.add(new KafkaItemReaderBuilder<Object, KafkaChangeEvent>()
+                    .name(workers > 1 ? form.getName() + "-" + i : form.getName())
+                    .topic(form.getTopic())
+                    .partitions(workerPartitions.get(i))
+                    .pollTimeout(Duration.ofSeconds(form.getPollTimeoutSeconds()))
+                    .saveState(form.isSaveOffsets())
+                    .partitionOffsets(partitionOffsets)
+                    .consumerProperties(consumerProperties)
+                    .build());
+
+            final ItemWriter<Map<String, Object>> upsertItemWriter = NamedParameterItemWriter.builder()
+                    .setDataSource(targetDS)
+                    .setCreateQuery(i == 0 ? form.getCreateQuery() : null)
+                    .setUpdateQuery(form.getInsertQuery())
+                    .build();
+
+            final ItemWriter<Map<String, Object>> deleteItemWriter = NamedParameterItemWriter.builder()
+                    .setDataSource(targetDS)
+                    .setUpdateQuery(form.getDeleteQuery())
+                    .setAssertUpdates(false)
+                    .build();
+
+            itemWriters.add(new CompositeItemWriter(upsertItemWriter, deleteItemWriter));
+        }
 
-        final String changeFeedStatement = kafkaChangeFeedStatement(form.getTable(), form.getBootstrapServers());
+        final String changeFeedStatement = kafkaChangeFeedStatement(form.getTable(), form.getBootstrapServers(),
+                form.getFormat(), form.getSchemaRegistryUrl());
 
         final BatchJobManifest batchJobManifest = BatchJobManifest.builder()
                 .withRandomId()
@@ -189,10 +241,11 @@ public class KafkaToSQLController extends AbstractFormController<KafkaToSQLForm>
                 .withChunkSize(form.getChunkSize())
                 .withRestartExecutionId(form.getRestartExecutionId())
                 .withFaultTolerance()
+                .withCloseable(targetDS)
                 .withConcurrency(form.getConcurrency())
                 .build();
 
-        batchJobLauncher.submitJob(batchJobManifest, itemReader, itemWriter);
+        batchJobLauncher.submitJob(batchJobManifest, itemReaders, itemWriters, new KafkaChangeEventProcessor());
 
         final ChangeFeedModel model = new ChangeFeedModel();
         model.setMessage("kafka2sql job accepted for async processing");
@@ -219,16 +272,38 @@ public class KafkaToSQLController extends AbstractFormController<KafkaToSQLForm>
         return ResponseEntity.accepted().body(CollectionModel.of(models));
     }
 
+    private List<Integer> discoverPartitions(Properties consumerProperties, String topic) {
+        try (KafkaConsumer<Object, KafkaChangeEvent> consumer = new KafkaConsumer<>(consumerProperties)) {
+            List<PartitionInfo> partitionInfos = consumer.partitionsFor(topic, Duration.ofSeconds(30));
+            if (partitionInfos == null || partitionInfos.isEmpty()) {
+                throw new JobConfigurationException("No partitions found for topic: " + topic);
+            }
+            return partitionInfos.stream()
+                    .map(PartitionInfo::partition)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private String kafkaChangeFeedStatement(String table, String bootstrapServers, String format,
+                                            String schemaRegistryUrl) {
+        if ("avro".equals(format)) {
+            // Writer schemas are registered by the changefeed and fetched from the same registry
+            return kafkaChangeFeedStatement(table, bootstrapServers,
+                    "updated,format = avro,confluent_schema_registry = '" + schemaRegistryUrl + "',resolved = '15s'");
+        }
+        return kafkaChangeFeedStatement(table, bootstrapServers, "updated,key_in_value,resolved = '15s'");
+    }
 
-    private String kafkaChangeFeedStatement(String table, String bootstrapServers) {
+    private String kafkaChangeFeedStatement(String table, String bootstrapServers, String options) {
         Set<String> servers = StringUtils.commaDelimitedListToSet(bootstrapServers);
         if (servers.size() > 0) {
             return "CREATE CHANGEFEED FOR TABLE " + table
-                    + " INTO 'kafka://" + servers.iterator().next() + "' WITH updated,resolved = '15s';";
+                    + " INTO 'kafka://" + servers.iterator().next() + "' WITH " + options + ";";
         } else {
             String host = AddressUtils.getLocalIP() + ":9093";
             return "CREATE CHANGEFEED FOR TABLE " + table
-                    + " INTO 'kafka://" + host + "' WITH updated,resolved = '15s';";
+                    + " INTO 'kafka://" + host + "' WITH " + options + ";";
         }
     }
 }
@@ -59,6 +59,39 @@ public class KafkaToSQLForm extends FormModel<KafkaToSQLForm> {
 
     private boolean saveOffsets = true;
 
+    @Pattern(regexp = "json|avro")
+    private String format = "json";
+
+    // Optional fallback to the schema registry, with <id>.avsc files
+    private String schemaDirectory;
+
+    // Confluent schema registry used by the changefeed
+    private String schemaRegistryUrl;
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public String getSchemaDirectory() {
+        return schemaDirectory;
+    }
+
+    public void setSchemaDirectory(String schemaDirectory) {
+        this.schemaDirectory = schemaDirectory;
+    }
+
+    public String getSchemaRegistryUrl() {
+        return schemaRegistryUrl;
+    }
+
+    public void setSchemaRegistryUrl(String schemaRegistryUrl) {
+        this.schemaRegistryUrl = schemaRegistryUrl;
+    }
+
     public String getTargetUrl() {
         return targetUrl;
     }
@@ -27,6 +27,8 @@ public class SubscriberModel extends RepresentationModel<SubscriberModel> {
 
     private final LogicalTimestamp lastResolvedTimestamp;
 
+    private final LogicalTimestamp appliedResolvedTimestamp;
+
     private final String tableName;
 
     private final int eventsReceived;
@@ -42,6 +44,7 @@ public class SubscriberModel extends RepresentationModel<SubscriberModel> {
         this.payloadsReceived = subscriber.getPayloadsReceived();
         this.lastEventReceived = subscriber.getLastEventReceivedTimestamp();
         this.lastResolvedTimestamp = subscriber.getLastResolvedTimestamp();
+        this.appliedResolvedTimestamp = subscriber.getAppliedResolvedTimestamp();
     }
 
     public String getId() {
@@ -72,6 +75,10 @@ public class SubscriberModel extends RepresentationModel<SubscriberModel> {
         return lastResolvedTimestamp;
     }
 
+    public LogicalTimestamp getAppliedResolvedTimestamp() {
+        return appliedResolvedTimestamp;
+    }
+
     public int getPayloadsReceived() {
         return payloadsReceived;
     }
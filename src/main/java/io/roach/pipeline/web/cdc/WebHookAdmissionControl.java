@@ -0,0 +1,159 @@
+package io.roach.pipeline.web.cdc;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.roach.pipeline.item.changefeed.ChangeFeedDispatcher;
+import io.roach.pipeline.item.changefeed.Subscriber;
+
+/**
+ * Admission control for webhook requests. A request is admitted when the subscriber queue
+ * utilization is below the high watermark. Otherwise, the queue is polled by a scheduler
+ * (not pinning a servlet thread) for a bounded time after which the request is rejected
+ * with a {@code Retry-After} header, leaving it to the changefeed sink to back off and retry.
+ * Admitted requests publish their payloads within what remains of the same max wait time.
+ * <p>
+ * Wait times and rejections are recorded per subscriber.
+ */
+@Component
+public class WebHookAdmissionControl {
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    @Value("${pipeline.cdc.webhook.admission.enabled}")
+    private boolean enabled;
+
+    @Value("${pipeline.cdc.webhook.admission.high-watermark}")
+    private double highWatermark;
+
+    @Value("${pipeline.cdc.webhook.admission.max-wait}")
+    private Duration maxWait;
+
+    @Value("${pipeline.cdc.webhook.admission.poll-interval}")
+    private Duration pollInterval;
+
+    @Value("${pipeline.cdc.webhook.admission.retry-after}")
+    private Duration retryAfter;
+
+    @Value("${pipeline.cdc.webhook.admission.rejection-status}")
+    private int rejectionStatus;
+
+    private final ChangeFeedDispatcher changeFeedDispatcher;
+
+    private final ScheduledExecutorService scheduledExecutor;
+
+    private final MeterRegistry meterRegistry;
+
+    public WebHookAdmissionControl(ChangeFeedDispatcher changeFeedDispatcher,
+                                   ScheduledExecutorService scheduledExecutor,
+                                   MeterRegistry meterRegistry) {
+        this.changeFeedDispatcher = changeFeedDispatcher;
+        this.scheduledExecutor = scheduledExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    protected void init() {
+        if (highWatermark <= 0 || highWatermark > 1) {
+            throw new IllegalArgumentException("highWatermark must be > 0 and <= 1");
+        }
+        HttpStatus status = HttpStatus.valueOf(rejectionStatus);
+        if (!status.isError()) {
+            throw new IllegalArgumentException("rejectionStatus must be an error status: " + status);
+        }
+        if (enabled) {
+            logger.info("Webhook admission control enabled with high watermark [{}] max wait [{}]",
+                    highWatermark, maxWait);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param startTime the {@link System#nanoTime()} when the request was received
+     * @return the time left of the max wait for a request, or zero if it elapsed
+     */
+    public Duration remainingWait(long startTime) {
+        long remaining = maxWait.toNanos() - (System.nanoTime() - startTime);
+        return remaining > 0 ? Duration.ofNanos(remaining) : Duration.ZERO;
+    }
+
+    private boolean hasCapacity(Subscriber subscriber) {
+        return changeFeedDispatcher.getQueueCapacity(subscriber) < highWatermark;
+    }
+
+    private Tags tags(Subscriber subscriber) {
+        return Tags.of(Tag.of("subscriber", subscriber.getId()));
+    }
+
+    /**
+     * Wait for the subscriber queue to drain below the high watermark.
+     *
+     * @param subscriber the subscriber
+     * @return future completing with true if admitted or false if the max wait time elapsed
+     */
+    public CompletableFuture<Boolean> admit(Subscriber subscriber) {
+        final Timer waitTimer = meterRegistry.timer("cdc.admission.wait", tags(subscriber));
+
+        if (!enabled || hasCapacity(subscriber)) {
+            waitTimer.record(Duration.ZERO);
+            return CompletableFuture.completedFuture(true);
+        }
+
+        final long startTime = System.nanoTime();
+        final long deadline = startTime + maxWait.toNanos();
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        final AtomicReference<ScheduledFuture<?>> poller = new AtomicReference<>();
+
+        poller.set(scheduledExecutor.scheduleWithFixedDelay(() -> {
+            long now = System.nanoTime();
+            boolean admitted = hasCapacity(subscriber);
+            if (admitted || now - deadline >= 0) {
+                waitTimer.record(now - startTime, TimeUnit.NANOSECONDS);
+                future.complete(admitted);
+                ScheduledFuture<?> f = poller.get();
+                if (f != null) {
+                    f.cancel(false);
+                }
+            }
+        }, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS));
+
+        // Cancel in case the task completed before the reference was set
+        if (future.isDone()) {
+            poller.get().cancel(false);
+        }
+
+        return future;
+    }
+
+    /**
+     * @return response telling the changefeed sink to back off and retry later
+     */
+    public ResponseEntity<String> reject(Subscriber subscriber) {
+        meterRegistry.counter("cdc.admission.rejected", tags(subscriber)).increment();
+        logger.debug("Rejecting request for subscriber [{}] with queue utilization [{}]",
+                subscriber.getId(), changeFeedDispatcher.getQueueCapacity(subscriber));
+        return ResponseEntity.status(rejectionStatus)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfter.toSeconds())))
+                .body("Subscriber queue at capacity");
+    }
+}
@@ -4,8 +4,10 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.sql.DataSource;
+
 import org.springframework.batch.core.JobExecutionException;
-import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.core.partition.support.Partitioner;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -31,14 +33,16 @@ import io.roach.pipeline.config.ApplicationProfiles;
 import io.roach.pipeline.config.ClosableDataSource;
 import io.roach.pipeline.item.BatchJobLauncher;
 import io.roach.pipeline.item.BatchJobManifest;
+import io.roach.pipeline.item.flatfile.FileRangePartitioner;
 import io.roach.pipeline.item.flatfile.FlatFileReaderBuilder;
 import io.roach.pipeline.item.flatfile.schema.FlatFileSchema;
 import io.roach.pipeline.item.flatfile.schema.FlatFileSchemaUtils;
-import io.roach.pipeline.item.jdbc.NamedParameterItemWriter;
+import io.roach.pipeline.item.jdbc.JdbcItemWriterBuilder;
 import io.roach.pipeline.shell.support.DatabaseInfo;
 import io.roach.pipeline.util.DataSourceProps;
 import io.roach.pipeline.web.AbstractFormController;
 import io.roach.pipeline.web.BadRequestException;
+import io.roach.pipeline.web.JobConfigurationException;
 import io.roach.pipeline.web.LinkRels;
 import io.roach.pipeline.web.MessageModel;
 import io.roach.pipeline.web.admin.JobController;
@@ -66,6 +70,7 @@ public class FlatToSQLController extends AbstractFormController<FlatToSQLForm> {
 
         FlatToSQLForm form = new FlatToSQLForm();
         form.setConcurrency(Runtime.getRuntime().availableProcessors());
+        form.setPartitions(1);
         form.setChunkSize(templateProperties.getChunkSize());
         form.setLinesToSkip(0);
 
@@ -171,39 +176,84 @@ public class FlatToSQLController extends AbstractFormController<FlatToSQLForm> {
 
         final Resource sourceResource = ResourceResolver.getResource(sourceFile, allParams);
 
-        final ItemReader<Map<String, Object>> itemReader = FlatFileReaderBuilder.instance()
-                .setFlatFileSchema(flatFileSchema)
+        final FlatFileSchema sourceSchema = flatFileSchema;
+
+        final FlatFileReaderBuilder.Builder readerBuilder = FlatFileReaderBuilder.instance()
+                .setFlatFileSchema(sourceSchema)
                 .setInputResource(sourceResource)
-                .setLinesToSkip(form.getLinesToSkip())
-                .build();
+                .setLinesToSkip(form.getLinesToSkip());
+
+        final Partitioner partitioner;
+        if (form.getPartitions() > 1) {
+            try {
+                partitioner = readerBuilder.buildPartitioner();
+            } catch (IllegalStateException e) {
+                throw new JobConfigurationException(e);
+            }
+        } else {
+            partitioner = null;
+        }
 
         ClosableDataSource targetDS = dataSourceFactory.apply(form.toTargetDataSourceProperties());
-        final ItemWriter<Map<String, Object>> itemWriter = NamedParameterItemWriter.builder()
-                .setDataSource(targetDS)
-                .setCreateQuery(form.getCreateQuery())
-                .setUpdateQuery(form.getInsertQuery())
-                .build();
-
-        BatchJobManifest batchJobManifest = BatchJobManifest.builder()
-                .withRandomId()
-                .withName("flat2sql")
-                .withJobParameters(builder -> builder
-                        .addString("table", form.getTable()))
-                .withChunkSize(form.getChunkSize())
-                .withRestartExecutionId(form.getRestartExecutionId())
-                .withFaultTolerance()
-                .withConcurrency(form.getConcurrency())
-                .build();
-
-        batchJobLauncher.submitJob(batchJobManifest, itemReader, itemWriter);
-
-        MessageModel messageModel = MessageModel.from("Flat2SQL Job Accepted");
-        messageModel.add(WebMvcLinkBuilder.linkTo(methodOn(JobController.class)
-                        .getFutureJobExecution(batchJobManifest.getId()))
-                .withRel(LinkRels.JOB_EXECUTION_REL));
-
-        return ResponseEntity.accepted()
-                .cacheControl(CacheControl.empty())
-                .body(messageModel);
+        try {
+            final ItemWriter<Map<String, Object>> itemWriter = createItemWriter(form, targetDS);
+
+            BatchJobManifest batchJobManifest = BatchJobManifest.builder()
+                    .withRandomId()
+                    .withName("flat2sql")
+                    .withJobParameters(builder -> builder
+                            .addString("table", form.getTable()))
+                    .withChunkSize(form.getChunkSize())
+                    .withRestartExecutionId(form.getRestartExecutionId())
+                    .withFaultTolerance()
+                    .withCloseable(targetDS)
+                    .withConcurrency(form.getConcurrency())
+                    .build();
+
+            if (partitioner != null) {
+                // Split into record aligned byte ranges of the source file
+                batchJobLauncher.submitJob(batchJobManifest, partitioner, form.getPartitions(),
+                        executionContext -> FlatFileReaderBuilder.instance()
+                                .setFlatFileSchema(sourceSchema)
+                                .setInputResource(sourceResource)
+                                .setByteRange(executionContext.getLong(FileRangePartitioner.START_OFFSET),
+                                        executionContext.getLong(FileRangePartitioner.END_OFFSET))
+                                .build(),
+                        itemWriter,
+                        BatchJobLauncher.passThroughItemProcessor());
+            } else {
+                batchJobLauncher.submitJob(batchJobManifest, readerBuilder.build(), itemWriter);
+            }
+
+            MessageModel messageModel = MessageModel.from("Flat2SQL Job Accepted");
+            messageModel.add(WebMvcLinkBuilder.linkTo(methodOn(JobController.class)
+                            .getFutureJobExecution(batchJobManifest.getId()))
+                    .withRel(LinkRels.JOB_EXECUTION_REL));
+
+            return ResponseEntity.accepted()
+                    .cacheControl(CacheControl.empty())
+                    .body(messageModel);
+        } catch (RuntimeException e) {
+            // Otherwise released by the job when completed
+            targetDS.close();
+            throw e;
+        }
+    }
+
+    private ItemWriter<Map<String, Object>> createItemWriter(FlatToSQLForm form, DataSource targetDS) {
+        try {
+            return new JdbcItemWriterBuilder()
+                    .setDataSource(targetDS)
+                    .setWriteMode(form.getWriteMode())
+                    .setCreateQuery(form.getCreateQuery())
+                    .setInsertQuery(form.getInsertQuery())
+                    .setTable(form.getTable())
+                    .setCopyTable(form.getCopyTable())
+                    .setMergeQuery(form.getMergeQuery())
+                    .setPartitions(form.getPartitions())
+                    .build();
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            throw new JobConfigurationException(e);
+        }
     }
 }
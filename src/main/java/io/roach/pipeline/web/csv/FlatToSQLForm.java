@@ -9,6 +9,8 @@ import io.roach.pipeline.item.flatfile.schema.FlatFileSchema;
 import io.roach.pipeline.util.DataSourceProps;
 import io.roach.pipeline.web.FormModel;
 import io.roach.pipeline.web.LinkRels;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
@@ -30,6 +32,11 @@ public class FlatToSQLForm extends FormModel<FlatToSQLForm> {
     @Positive
     private int concurrency;
 
+    // Byte range splits of a local source file, read by separate workers
+    @Min(1)
+    @Max(1024)
+    private int partitions = 1;
+
     @NotNull
     private String sourceFile;
 
@@ -58,6 +65,15 @@ public class FlatToSQLForm extends FormModel<FlatToSQLForm> {
 
     private String insertQuery;
 
+    @Pattern(regexp = "batch|copy|values")
+    private String writeMode = "batch";
+
+    // Target table for COPY, defaults to table
+    private String copyTable;
+
+    // Optional statement executed after COPY in the same transaction, requires a separate copyTable
+    private String mergeQuery;
+
     public String getGcsCredentials() {
         return gcsCredentials;
     }
@@ -106,6 +122,14 @@ public class FlatToSQLForm extends FormModel<FlatToSQLForm> {
         this.concurrency = concurrency;
     }
 
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
     public String getSourceFile() {
         return sourceFile;
     }
@@ -195,4 +219,28 @@ public class FlatToSQLForm extends FormModel<FlatToSQLForm> {
                 .withConcurrency(concurrency)
                 .build();
     }
+
+    public String getWriteMode() {
+        return writeMode;
+    }
+
+    public void setWriteMode(String writeMode) {
+        this.writeMode = writeMode;
+    }
+
+    public String getCopyTable() {
+        return copyTable;
+    }
+
+    public void setCopyTable(String copyTable) {
+        this.copyTable = copyTable;
+    }
+
+    public String getMergeQuery() {
+        return mergeQuery;
+    }
+
+    public void setMergeQuery(String mergeQuery) {
+        this.mergeQuery = mergeQuery;
+    }
 }
@@ -18,7 +18,9 @@ import org.springframework.web.bind.annotation.RestController;
 
 import io.roach.pipeline.config.ApplicationProfiles;
 import io.roach.pipeline.config.ClosableDataSource;
+import io.roach.pipeline.config.DataSourceCache;
 import io.roach.pipeline.config.TemplateProperties;
+import io.roach.pipeline.shell.support.ConnectionPoolStats;
 import io.roach.pipeline.shell.support.DatabaseInfo;
 import io.roach.pipeline.util.DataSourceProps;
 import io.roach.pipeline.util.graph.Graph;
@@ -42,6 +44,23 @@ public class DataSourceController {
     @Autowired
     protected Function<DataSourceProps, ClosableDataSource> dataSourceFactory;
 
+    @Autowired
+    private DataSourceCache dataSourceCache;
+
+    @GetMapping(value = {"/pools"})
+    public ResponseEntity<List<ConnectionPoolStats>> getConnectionPools() {
+        Map<String, Integer> references = dataSourceCache.getReferences();
+
+        List<ConnectionPoolStats> stats = new ArrayList<>();
+        dataSourceCache.getPools().forEach((name, pool) -> {
+            ConnectionPoolStats ps = ConnectionPoolStats.from(pool);
+            ps.references = references.getOrDefault(name, 0);
+            stats.add(ps);
+        });
+
+        return ResponseEntity.ok().body(stats);
+    }
+
     @GetMapping(value = {"/source-tables"})
     public ResponseEntity<DataSourceTableModel> getSourceTables(
             @RequestParam Map<String, String> requestParams) {
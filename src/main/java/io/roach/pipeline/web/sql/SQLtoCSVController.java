@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.sql.ResultSetMetaData;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -12,6 +13,7 @@ import java.util.Map;
 import java.util.Objects;
 
 import org.springframework.batch.core.JobExecutionException;
+import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.database.JdbcPagingItemReader;
 import org.springframework.batch.item.database.Order;
@@ -22,6 +24,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.NestedExceptionUtils;
 import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.hateoas.Link;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -45,6 +48,7 @@ import io.roach.pipeline.config.ClosableDataSource;
 import io.roach.pipeline.item.BatchJobLauncher;
 import io.roach.pipeline.item.BatchJobManifest;
 import io.roach.pipeline.item.flatfile.FlatFileStreamWriterBuilder;
+import io.roach.pipeline.item.jdbc.KeysetItemReader;
 import io.roach.pipeline.shell.support.DatabaseInfo;
 import io.roach.pipeline.util.DataSourceProps;
 import io.roach.pipeline.util.SortKeysExpression;
@@ -82,7 +86,8 @@ public class SQLtoCSVController extends AbstractFormController<SQLtoCSVForm> {
                 .getOrDefault("sourcePassword", templateProperties.getSource().getPassword()));
 
         form.setChunkSize(templateProperties.getChunkSize());
-        form.setPageSize(32);
+        form.setPageSize(1024);
+        form.setReadMode("keyset");
         form.setLinesToSkip(0);
         form.setTable(table);
 
@@ -158,52 +163,78 @@ public class SQLtoCSVController extends AbstractFormController<SQLtoCSVForm> {
         ClosableDataSource dataSource = dataSourceFactory.apply(sourceDBProperties);
         Map<String, Order> sortConfiguration = SortKeysExpression.parse(form.getSortKeys());
 
-        SqlPagingQueryProviderFactoryBean provider = new SqlPagingQueryProviderFactoryBean();
-        provider.setDataSource(dataSource);
-        provider.setSelectClause(form.getSelectClause());
-        provider.setFromClause(form.getFromClause());
-        provider.setWhereClause(form.getWhereClause());
-        provider.setSortKeys(sortConfiguration);
-
-        PagingQueryProvider queryProvider = null;
-        try {
-            queryProvider = provider.getObject();
-        } catch (Exception e) {
-            throw new JobConfigurationException(NestedExceptionUtils.getMostSpecificCause(e));
-        }
-
         final List<String> fieldNames = new ArrayList<>();
 
-        final JdbcPagingItemReader<List<String>> itemReader =
-                new JdbcPagingItemReaderBuilder<List<String>>()
-                        .dataSource(dataSource)
-                        .name("sourceReader")
-                        .currentItemCount(form.getLinesToSkip())
-                        .pageSize(form.getPageSize())
-                        .fetchSize(form.getChunkSize())
-                        .queryProvider(Objects.requireNonNull(queryProvider))
-                        .rowMapper((rs, rowNum) -> {
-                            List<String> values = new ArrayList<>();
-                            int cols = rs.getMetaData().getColumnCount();
-
-                            if (fieldNames.isEmpty()) {
-                                for (int i = 1; i <= cols; i++) {
-                                    fieldNames.add(rs.getMetaData().getColumnName(i));
-                                }
-                            }
-
-                            for (int i = 1; i <= cols; i++) {
-                                values.add(rs.getString(i));
-                            }
-
-                            return values;
-                        })
+        final RowMapper<List<String>> rowMapper = (rs, rowNum) -> {
+            // Resolve the column names from metadata once
+            if (fieldNames.isEmpty()) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    fieldNames.add(metaData.getColumnName(i));
+                }
+            }
+
+            int cols = fieldNames.size();
+            List<String> values = new ArrayList<>(cols);
+            for (int i = 1; i <= cols; i++) {
+                values.add(rs.getString(i));
+            }
+
+            return values;
+        };
+
+        final ItemReader<List<String>> itemReader;
+
+        if ("keyset".equals(form.getReadMode())) {
+            try {
+                itemReader = KeysetItemReader.<List<String>>builder()
+                        .setDataSource(dataSource)
+                        .setName("sourceReader")
+                        .setSelectClause(form.getSelectClause())
+                        .setFromClause(form.getFromClause())
+                        .setWhereClause(form.getWhereClause())
+                        .setSortKeys(sortConfiguration)
+                        .setCurrentItemCount(form.getLinesToSkip())
+                        .setPageSize(form.getPageSize())
+                        .setFetchSize(form.getChunkSize())
+                        .setRowMapper(rowMapper)
                         .build();
+            } catch (IllegalArgumentException e) {
+                throw new JobConfigurationException(e);
+            }
+        } else {
+            SqlPagingQueryProviderFactoryBean provider = new SqlPagingQueryProviderFactoryBean();
+            provider.setDataSource(dataSource);
+            provider.setSelectClause(form.getSelectClause());
+            provider.setFromClause(form.getFromClause());
+            provider.setWhereClause(form.getWhereClause());
+            provider.setSortKeys(sortConfiguration);
+
+            PagingQueryProvider queryProvider = null;
+            try {
+                queryProvider = provider.getObject();
+            } catch (Exception e) {
+                throw new JobConfigurationException(NestedExceptionUtils.getMostSpecificCause(e));
+            }
+
+            final JdbcPagingItemReader<List<String>> pagingItemReader =
+                    new JdbcPagingItemReaderBuilder<List<String>>()
+                            .dataSource(dataSource)
+                            .name("sourceReader")
+                            .currentItemCount(form.getLinesToSkip())
+                            .pageSize(form.getPageSize())
+                            .fetchSize(form.getChunkSize())
+                            .queryProvider(Objects.requireNonNull(queryProvider))
+                            .rowMapper(rowMapper)
+                            .build();
+
+            try {
+                pagingItemReader.afterPropertiesSet();
+            } catch (Exception e) {
+                throw new JobConfigurationException(NestedExceptionUtils.getMostSpecificCause(e));
+            }
 
-        try {
-            itemReader.afterPropertiesSet();
-        } catch (Exception e) {
-            throw new JobConfigurationException(NestedExceptionUtils.getMostSpecificCause(e));
+            itemReader = pagingItemReader;
         }
 
         final ItemWriter<Map<String, Object>> itemWriter =
@@ -220,6 +251,7 @@ public class SQLtoCSVController extends AbstractFormController<SQLtoCSVForm> {
                 .withChunkSize(form.getChunkSize())
                 .withRestartExecutionId(form.getRestartExecutionId())
                 .withFaultTolerance()
+                .withCloseable(dataSource)
                 .withConcurrency(1) // Blocking execution
                 .build();
 
@@ -263,7 +295,8 @@ public class SQLtoCSVController extends AbstractFormController<SQLtoCSVForm> {
             form.setSourceUsername(sourceUsername);
             form.setSourcePassword(sourcePassword);
             form.setChunkSize(Integer.parseInt(allParams.getOrDefault("chunkSize", "256")));
-            form.setPageSize(Integer.parseInt(allParams.getOrDefault("pageSize", "32")));
+            form.setPageSize(Integer.parseInt(allParams.getOrDefault("pageSize", "1024")));
+            form.setReadMode(allParams.getOrDefault("readMode", "keyset"));
             form.setLinesToSkip(Integer.parseInt(allParams.getOrDefault("linesToSkip", "0")));
             form.setFromClause(fromClause);
             form.setWhereClause(whereClause);
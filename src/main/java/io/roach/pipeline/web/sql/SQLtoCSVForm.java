@@ -35,6 +35,9 @@ public class SQLtoCSVForm extends FormModel<SQLtoCSVForm> {
     @Min(0)
     private int pageSize;
 
+    @Pattern(regexp = "paging|keyset")
+    private String readMode = "keyset";
+
     @NotNull
     private String sortKeys;
 
@@ -107,6 +110,14 @@ public class SQLtoCSVForm extends FormModel<SQLtoCSVForm> {
         this.linesToSkip = linesToSkip;
     }
 
+    public String getReadMode() {
+        return readMode;
+    }
+
+    public void setReadMode(String readMode) {
+        this.readMode = readMode;
+    }
+
     public int getPageSize() {
         return pageSize;
     }
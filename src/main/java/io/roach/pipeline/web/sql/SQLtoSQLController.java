@@ -1,12 +1,15 @@
 package io.roach.pipeline.web.sql;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
+import javax.sql.DataSource;
+
 import org.springframework.batch.core.JobExecutionException;
+import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.batch.item.database.JdbcPagingItemReader;
 import org.springframework.batch.item.database.Order;
@@ -15,6 +18,7 @@ import org.springframework.batch.item.database.builder.JdbcPagingItemReaderBuild
 import org.springframework.batch.item.database.support.SqlPagingQueryProviderFactoryBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.server.mvc.WebMvcLinkBuilder;
@@ -32,7 +36,11 @@ import io.roach.pipeline.config.ApplicationProfiles;
 import io.roach.pipeline.config.ClosableDataSource;
 import io.roach.pipeline.item.BatchJobLauncher;
 import io.roach.pipeline.item.BatchJobManifest;
-import io.roach.pipeline.item.jdbc.NamedParameterItemWriter;
+import io.roach.pipeline.item.jdbc.ColumnCodec;
+import io.roach.pipeline.item.jdbc.JdbcItemWriterBuilder;
+import io.roach.pipeline.item.jdbc.KeyRangePartitioner;
+import io.roach.pipeline.item.jdbc.KeysetItemReader;
+import io.roach.pipeline.item.jdbc.SchemaRowMapper;
 import io.roach.pipeline.shell.support.DatabaseInfo;
 import io.roach.pipeline.util.DataSourceProps;
 import io.roach.pipeline.util.SortKeysExpression;
@@ -62,9 +70,12 @@ public class SQLtoSQLController extends AbstractFormController<SQLtoSQLForm> {
 
         SQLtoSQLForm form = new SQLtoSQLForm();
         form.setConcurrency(Runtime.getRuntime().availableProcessors());
+        form.setPartitions(1);
+        form.setPipelineDepth(0);
         form.setTable(table);
         form.setChunkSize(templateProperties.getChunkSize());
-        form.setPageSize(32);
+        form.setPageSize(1024);
+        form.setReadMode("keyset");
         form.setLinesToSkip(0);
 
         form.setSourceUrl(requestParams
@@ -138,6 +149,89 @@ public class SQLtoSQLController extends AbstractFormController<SQLtoSQLForm> {
 
         ClosableDataSource sourceDS = dataSourceFactory.apply(sourceDBProperties);
         ClosableDataSource targetDS = dataSourceFactory.apply(targetDBProperties);
+        try {
+            return submitJob(form, sortConfiguration, sourceDS, targetDS);
+        } catch (RuntimeException e) {
+            // Otherwise released by the job when completed
+            sourceDS.close();
+            targetDS.close();
+            throw e;
+        }
+    }
+
+    private ResponseEntity<MessageModel> submitJob(SQLtoSQLForm form, Map<String, Order> sortConfiguration,
+                                                   ClosableDataSource sourceDS, ClosableDataSource targetDS)
+            throws JobExecutionException {
+        final ItemWriter<Map<String, Object>> itemWriter = createItemWriter(form, targetDS);
+
+        BatchJobManifest batchJobManifest = BatchJobManifest.builder()
+                .withRandomId()
+                .withName("sql2sql")
+                .withJobParameters(builder -> builder
+                        .addString("table", form.getTable()))
+                .withChunkSize(form.getChunkSize())
+                .withRestartExecutionId(form.getRestartExecutionId())
+                .withFaultTolerance()
+                .withCloseable(sourceDS, targetDS)
+                .withConcurrency(form.getConcurrency())
+                .withPipelineDepth(form.getPipelineDepth())
+                .build();
+
+        if (form.getPartitions() > 1) {
+            // Split into key ranges on the leading sort key
+            final String keyColumn = sortConfiguration.keySet().iterator().next();
+
+            KeyRangePartitioner partitioner = new KeyRangePartitioner(sourceDS, keyColumn,
+                    form.getFromClause(), form.getWhereClause());
+
+            batchJobLauncher.submitJob(batchJobManifest, partitioner, form.getPartitions(),
+                    executionContext -> createItemReader(form, sourceDS, sortConfiguration,
+                            KeyRangePartitioner.rangeWhereClause(form.getWhereClause(), keyColumn, executionContext),
+                            KeyRangePartitioner.rangeParameterValues(executionContext), 0),
+                    itemWriter,
+                    BatchJobLauncher.passThroughItemProcessor());
+        } else {
+            final ItemReader<Map<String, Object>> itemReader = createItemReader(form, sourceDS, sortConfiguration,
+                    form.getWhereClause(), null, form.getLinesToSkip());
+
+            batchJobLauncher.submitJob(batchJobManifest, itemReader, itemWriter);
+        }
+
+        MessageModel messageModel = MessageModel.from("SQL2SQL Job Accepted");
+        messageModel.add(WebMvcLinkBuilder.linkTo(methodOn(JobController.class)
+                        .getFutureJobExecution(batchJobManifest.getId()))
+                .withRel(LinkRels.JOB_EXECUTION_REL));
+
+        return ResponseEntity.accepted().body(messageModel);
+    }
+
+    private ItemReader<Map<String, Object>> createItemReader(SQLtoSQLForm form,
+                                                             DataSource sourceDS,
+                                                             Map<String, Order> sortConfiguration,
+                                                             String whereClause,
+                                                             Map<String, Object> parameterValues,
+                                                             int linesToSkip) {
+        final RowMapper<Map<String, Object>> rowMapper = new SchemaRowMapper()::mapRow;
+
+        if ("keyset".equals(form.getReadMode())) {
+            try {
+                return KeysetItemReader.<Map<String, Object>>builder()
+                        .setDataSource(sourceDS)
+                        .setName("sql2sql_keyset_reader")
+                        .setSelectClause(form.getSelectClause())
+                        .setFromClause(form.getFromClause())
+                        .setWhereClause(whereClause)
+                        .setParameterValues(parameterValues)
+                        .setSortKeys(sortConfiguration)
+                        .setPageSize(form.getPageSize())
+                        .setFetchSize(form.getChunkSize())
+                        .setCurrentItemCount(linesToSkip)
+                        .setRowMapper(rowMapper)
+                        .build();
+            } catch (IllegalArgumentException e) {
+                throw new JobConfigurationException(e);
+            }
+        }
 
         PagingQueryProvider queryProvider;
         try {
@@ -145,7 +239,7 @@ public class SQLtoSQLController extends AbstractFormController<SQLtoSQLForm> {
             provider.setDataSource(sourceDS);
             provider.setSelectClause(form.getSelectClause());
             provider.setFromClause(form.getFromClause());
-            provider.setWhereClause(form.getWhereClause());
+            provider.setWhereClause(whereClause);
             provider.setSortKeys(sortConfiguration);
             queryProvider = provider.getObject();
         } catch (Exception e) {
@@ -157,19 +251,12 @@ public class SQLtoSQLController extends AbstractFormController<SQLtoSQLForm> {
                         .dataSource(sourceDS)
                         .name("sql2sql_paging_reader")
                         .fetchSize(form.getChunkSize())
-                        .currentItemCount(form.getLinesToSkip())
+                        .currentItemCount(linesToSkip)
                         .pageSize(form.getPageSize())
                         .saveState(true)
                         .queryProvider(Objects.requireNonNull(queryProvider))
-                        .rowMapper((rs, rowNum) -> {
-                            Map<String, Object> values = new HashMap<>();
-                            int cols = rs.getMetaData().getColumnCount();
-                            for (int i = 1; i <= cols; i++) {
-                                String name = rs.getMetaData().getColumnName(i);
-                                values.put(name, rs.getObject(i));
-                            }
-                            return values;
-                        })
+                        .parameterValues(parameterValues)
+                        .rowMapper(rowMapper)
                         .build();
 
         try {
@@ -178,31 +265,7 @@ public class SQLtoSQLController extends AbstractFormController<SQLtoSQLForm> {
             throw new JobConfigurationException(e);
         }
 
-        final ItemWriter<Map<String, Object>> itemWriter = NamedParameterItemWriter.builder()
-                .setDataSource(targetDS)
-                .setCreateQuery(form.getCreateQuery())
-                .setUpdateQuery(form.getInsertQuery())
-                .build();
-
-        BatchJobManifest batchJobManifest = BatchJobManifest.builder()
-                .withRandomId()
-                .withName("sql2sql")
-                .withJobParameters(builder -> builder
-                        .addString("table", form.getTable()))
-                .withChunkSize(form.getChunkSize())
-                .withRestartExecutionId(form.getRestartExecutionId())
-                .withFaultTolerance()
-                .withConcurrency(form.getConcurrency())
-                .build();
-
-        batchJobLauncher.submitJob(batchJobManifest, itemReader, itemWriter);
-
-        MessageModel messageModel = MessageModel.from("SQL2SQL Job Accepted");
-        messageModel.add(WebMvcLinkBuilder.linkTo(methodOn(JobController.class)
-                        .getFutureJobExecution(batchJobManifest.getId()))
-                .withRel(LinkRels.JOB_EXECUTION_REL));
-
-        return ResponseEntity.accepted().body(messageModel);
+        return itemReader;
     }
 
     @PostMapping(value = {"/forms"})
@@ -220,4 +283,36 @@ public class SQLtoSQLController extends AbstractFormController<SQLtoSQLForm> {
         return ResponseEntity.accepted().body(CollectionModel.of(models));
     }
 
+    private ItemWriter<Map<String, Object>> createItemWriter(SQLtoSQLForm form, DataSource targetDS) {
+        try {
+            return new JdbcItemWriterBuilder()
+                    .setDataSource(targetDS)
+                    .setWriteMode(form.getWriteMode())
+                    .setCreateQuery(form.getCreateQuery())
+                    .setInsertQuery(form.getInsertQuery())
+                    .setTable(form.getTable())
+                    .setCopyTable(form.getCopyTable())
+                    .setMergeQuery(form.getMergeQuery())
+                    .setPartitions(form.getPartitions())
+                    .setColumnCodecs(() -> columnCodecs(targetDS, form.getTable()))
+                    .build();
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            throw new JobConfigurationException(e);
+        }
+    }
+
+    private Map<String, ColumnCodec> columnCodecs(DataSource dataSource, String table) {
+        final Map<String, ColumnCodec> columnCodecs = new LinkedHashMap<>();
+        if (StringUtils.hasLength(table)) {
+            DatabaseInfo.listColumns(dataSource, table).forEach((name, column) -> {
+                try {
+                    columnCodecs.put(name, ColumnCodec.of(Integer.parseInt(column.getAttribute("DATA_TYPE")),
+                            column.getAttribute("TYPE_NAME")));
+                } catch (NumberFormatException e) {
+                    columnCodecs.put(name, ColumnCodec.OBJECT);
+                }
+            });
+        }
+        return columnCodecs;
+    }
 }
@@ -42,6 +42,15 @@ public class SQLtoSQLForm extends FormModel<SQLtoSQLForm> {
     @Max(256)
     private int concurrency;
 
+    @Min(1)
+    @Max(1024)
+    private int partitions = 1;
+
+    // Chunks buffered between pipelined read, process and write stages, 0 to disable
+    @Min(0)
+    @Max(64)
+    private int pipelineDepth;
+
     @Min(1)
     private int chunkSize;
 
@@ -51,6 +60,9 @@ public class SQLtoSQLForm extends FormModel<SQLtoSQLForm> {
     @Min(1)
     private int pageSize;
 
+    @Pattern(regexp = "paging|keyset")
+    private String readMode = "keyset";
+
     @NotNull
     private String sortKeys;
 
@@ -67,6 +79,15 @@ public class SQLtoSQLForm extends FormModel<SQLtoSQLForm> {
 
     private String createQuery;
 
+    @Pattern(regexp = "batch|copy|values")
+    private String writeMode = "batch";
+
+    // Target table for COPY, defaults to table
+    private String copyTable;
+
+    // Optional statement executed after COPY in the same transaction, requires a separate copyTable
+    private String mergeQuery;
+
     public String getTargetUrl() {
         return targetUrl;
     }
@@ -99,6 +120,22 @@ public class SQLtoSQLForm extends FormModel<SQLtoSQLForm> {
         this.concurrency = concurrency;
     }
 
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    public int getPipelineDepth() {
+        return pipelineDepth;
+    }
+
+    public void setPipelineDepth(int pipelineDepth) {
+        this.pipelineDepth = pipelineDepth;
+    }
+
     public String getInsertQuery() {
         return insertQuery;
     }
@@ -147,6 +184,14 @@ public class SQLtoSQLForm extends FormModel<SQLtoSQLForm> {
         this.linesToSkip = linesToSkip;
     }
 
+    public String getReadMode() {
+        return readMode;
+    }
+
+    public void setReadMode(String readMode) {
+        this.readMode = readMode;
+    }
+
     public int getPageSize() {
         return pageSize;
     }
@@ -214,4 +259,28 @@ public class SQLtoSQLForm extends FormModel<SQLtoSQLForm> {
                 .withConcurrency(concurrency)
                 .build();
     }
+
+    public String getWriteMode() {
+        return writeMode;
+    }
+
+    public void setWriteMode(String writeMode) {
+        this.writeMode = writeMode;
+    }
+
+    public String getCopyTable() {
+        return copyTable;
+    }
+
+    public void setCopyTable(String copyTable) {
+        this.copyTable = copyTable;
+    }
+
+    public String getMergeQuery() {
+        return mergeQuery;
+    }
+
+    public void setMergeQuery(String mergeQuery) {
+        this.mergeQuery = mergeQuery;
+    }
 }
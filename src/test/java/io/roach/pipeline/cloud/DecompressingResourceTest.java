@@ -0,0 +1,115 @@
+package io.roach.pipeline.cloud;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import org.apache.commons.compress.compressors.CompressorStreamFactory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+
+import io.roach.pipeline.util.ReadAheadInputStream;
+
+public class DecompressingResourceTest {
+    @TempDir
+    Path tempDir;
+
+    private String content() {
+        StringBuilder sb = new StringBuilder("id,name\n");
+        for (int i = 0; i < 2_000; i++) {
+            sb.append(i).append(",name-").append(i).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private Resource write(String fileName, String compressor, String content) throws Exception {
+        Path path = tempDir.resolve(fileName);
+        try (OutputStream out = compressor != null
+                ? new CompressorStreamFactory().createCompressorOutputStream(compressor, Files.newOutputStream(path))
+                : Files.newOutputStream(path)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return ResourceResolver.getResource("nodelocal://" + fileName,
+                Map.of(ResourceResolver.NODE_LOCAL_PATH, tempDir.toString()));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "data.csv.gz,gz",
+            "data.csv.zst,zstd",
+            "data.csv.lz4,lz4-framed",
+            "data.csv.bz2,bzip2",
+            "data-gzip.csv,gz",
+            "data-zstd.csv,zstd",
+            "data-lz4.csv,lz4-framed"
+    })
+    public void whenReadingCompressedResource_thenDecompress(String fileName, String compressor) throws Exception {
+        String content = content();
+        Resource resource = write(fileName, compressor, content);
+
+        Assertions.assertFalse(resource.isFile());
+        try (InputStream in = resource.getInputStream()) {
+            Assertions.assertEquals(content, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void whenReadingPlainResource_thenPassThrough() throws Exception {
+        String content = content();
+        Resource resource = write("data.csv", null, content);
+
+        Assertions.assertTrue(resource.isFile());
+        Assertions.assertEquals(tempDir.resolve("data.csv").toFile(), resource.getFile());
+        try (InputStream in = resource.getInputStream()) {
+            Assertions.assertEquals(content, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void whenReadAheadFails_thenRethrowAfterPrecedingBytes() throws Exception {
+        InputStream failing = new InputStream() {
+            private int count;
+
+            @Override
+            public int read() throws IOException {
+                if (count == 10) {
+                    throw new IOException("Disk on fire");
+                }
+                return 'a' + count++;
+            }
+        };
+
+        try (InputStream in = new ReadAheadInputStream(failing, 4, 2, "test")) {
+            byte[] bytes = new byte[8];
+            Assertions.assertEquals(8, in.readNBytes(bytes, 0, 8));
+            Assertions.assertEquals("abcdefgh", new String(bytes, StandardCharsets.US_ASCII));
+            IOException ex = Assertions.assertThrows(IOException.class, in::readAllBytes);
+            Assertions.assertEquals("Disk on fire", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void whenReadAheadFailsWithError_thenRethrowInsteadOfBlocking() throws Exception {
+        InputStream failing = new InputStream() {
+            @Override
+            public int read() {
+                throw new StackOverflowError("Too deep");
+            }
+        };
+
+        try (InputStream in = new ReadAheadInputStream(failing, 4, 2, "test")) {
+            IOException ex = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10),
+                    () -> Assertions.assertThrows(IOException.class, in::read));
+            Assertions.assertInstanceOf(StackOverflowError.class, ex.getCause());
+        }
+    }
+}
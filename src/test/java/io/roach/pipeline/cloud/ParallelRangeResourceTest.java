@@ -0,0 +1,235 @@
+package io.roach.pipeline.cloud;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.roach.pipeline.util.ParallelRangeInputStream;
+
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+
+/**
+ * Reads objects through a minimal S3-compatible stand-in that serves HEAD and ranged
+ * GET requests for a single object, completing ranges in random order.
+ */
+public class ParallelRangeResourceTest {
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    private static final String ETAG = "\"0123456789abcdef\"";
+
+    private HttpServer server;
+
+    private byte[] content;
+
+    private final AtomicInteger rangeRequests = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/bucket/data.csv", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getResponseHeaders().set("ETag", ETAG);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(content.length));
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+
+            byte[] body = content;
+            int status = 200;
+
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            if (range != null) {
+                if (!ETAG.equals(exchange.getRequestHeaders().getFirst("If-Match"))) {
+                    exchange.sendResponseHeaders(412, -1);
+                    return;
+                }
+                Matcher matcher = RANGE_PATTERN.matcher(range);
+                Assertions.assertTrue(matcher.matches(), range);
+                int start = Integer.parseInt(matcher.group(1));
+                int end = Math.min(content.length - 1, Integer.parseInt(matcher.group(2)));
+                body = Arrays.copyOfRange(content, start, end + 1);
+                status = 206;
+                exchange.getResponseHeaders().set("Content-Range",
+                        "bytes " + start + "-" + end + "/" + content.length);
+                rangeRequests.incrementAndGet();
+                Thread.sleep(ThreadLocalRandom.current().nextInt(10));
+            }
+
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Map<String, String> params(int partSize) {
+        Map<String, String> params = new HashMap<>();
+        params.put(S3BucketResource.AWS_ACCESS_KEY_ID, "test");
+        params.put(S3BucketResource.AWS_SECRET_ACCESS_KEY, "test");
+        params.put(S3BucketResource.AWS_DEFAULT_REGION, "us-east-1");
+        params.put(S3BucketResource.AWS_ENDPOINT_URL, "http://localhost:" + server.getAddress().getPort());
+        params.put(ParallelRangeResource.RANGE_PART_SIZE, String.valueOf(partSize));
+        params.put(ParallelRangeResource.RANGE_PARALLELISM, "4");
+        return params;
+    }
+
+    private byte[] content(int rows) {
+        StringBuilder sb = new StringBuilder("id,name\n");
+        for (int i = 0; i < rows; i++) {
+            sb.append(i).append(",name-").append(i).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void whenReadingLargeObject_thenFetchRangesConcurrentlyInOrder() throws Exception {
+        content = content(10_000);
+        Resource resource = ResourceResolver.getResource("s3://bucket/data.csv", params(4096));
+
+        try (InputStream in = resource.getInputStream()) {
+            Assertions.assertArrayEquals(content, in.readAllBytes());
+        }
+        Assertions.assertEquals((content.length + 4095) / 4096, rangeRequests.get());
+    }
+
+    @Test
+    public void whenReadingSmallObject_thenSingleRequest() throws Exception {
+        content = content(100);
+        Resource resource = ResourceResolver.getResource("s3://bucket/data.csv", params(4096));
+
+        try (InputStream in = resource.getInputStream()) {
+            Assertions.assertArrayEquals(content, in.readAllBytes());
+        }
+        Assertions.assertEquals(0, rangeRequests.get());
+    }
+
+    private S3Client client(S3BucketResource resource) {
+        S3BucketResource.SharedClient shared = resource.acquireClient();
+        S3BucketResource.releaseClient(shared);
+        return shared.client();
+    }
+
+    private void evictClients(Map<String, String> params) {
+        for (int i = 0; i < S3BucketResource.MAX_CLIENTS; i++) {
+            Map<String, String> otherParams = new HashMap<>(params);
+            otherParams.put(S3BucketResource.AWS_ACCESS_KEY_ID, "key-" + i);
+            client(new S3BucketResource("s3://bucket/data.csv", otherParams));
+        }
+    }
+
+    @Test
+    public void whenSameCredentialsAndRegion_thenShareClient() {
+        Map<String, String> params = params(4096);
+        S3BucketResource first = new S3BucketResource("s3://bucket/data.csv", params);
+        S3BucketResource second = new S3BucketResource("s3://bucket/other.csv", params);
+        Assertions.assertSame(client(first), client(second));
+
+        Map<String, String> otherParams = new HashMap<>(params);
+        otherParams.put(S3BucketResource.AWS_DEFAULT_REGION, "eu-central-1");
+        S3BucketResource third = new S3BucketResource("s3://bucket/data.csv", otherParams);
+        Assertions.assertNotSame(client(first), client(third));
+    }
+
+    @Test
+    public void whenManyCredentials_thenCloseLeastRecentlyUsedClients() {
+        Map<String, String> params = params(4096);
+        S3BucketResource first = new S3BucketResource("s3://bucket/data.csv", params);
+        S3Client firstClient = client(first);
+
+        evictClients(params);
+
+        Assertions.assertEquals(S3BucketResource.MAX_CLIENTS, S3BucketResource.clientCount());
+        Assertions.assertNotSame(firstClient, client(first));
+        Assertions.assertThrows(IllegalStateException.class, () -> firstClient.headObject(HeadObjectRequest.builder()
+                .bucket("bucket").key("data.csv").build()));
+    }
+
+    @Test
+    public void whenEvictedClientInUse_thenCloseOnRelease() {
+        content = content(100);
+        Map<String, String> params = params(4096);
+        S3BucketResource first = new S3BucketResource("s3://bucket/data.csv", params);
+        S3BucketResource.SharedClient shared = first.acquireClient();
+
+        evictClients(params);
+
+        HeadObjectRequest request = HeadObjectRequest.builder().bucket("bucket").key("data.csv").build();
+        Assertions.assertEquals(content.length, shared.client().headObject(request).contentLength());
+
+        S3BucketResource.releaseClient(shared);
+        Assertions.assertThrows(IllegalStateException.class, () -> shared.client().headObject(request));
+    }
+
+    @Test
+    public void whenObjectStreamOpen_thenKeepEvictedClient() throws Exception {
+        content = content(10_000);
+        Map<String, String> params = params(4096);
+        S3BucketResource resource = new S3BucketResource("s3://bucket/data.csv", params);
+        Assertions.assertEquals(content.length, resource.contentLength());
+
+        try (InputStream in = resource.getInputStream(0, 4096)) {
+            S3Client client = client(resource);
+            evictClients(params);
+            Assertions.assertEquals(4096, in.readAllBytes().length);
+            Assertions.assertNotSame(client, client(resource));
+        }
+    }
+
+    @Test
+    public void whenKeyingClients_thenOnlyKeepCredentialsDigest() {
+        String digest = S3BucketResource.digest("AKIA", "secret");
+        Assertions.assertEquals(64, digest.length());
+        Assertions.assertFalse(digest.contains("secret"));
+        Assertions.assertEquals(digest, S3BucketResource.digest("AKIA", "secret"));
+        Assertions.assertNotEquals(digest, S3BucketResource.digest("AKIAs", "ecret"));
+    }
+
+    @Test
+    public void whenRangeFails_thenRethrowAfterPrecedingBytes() throws Exception {
+        byte[] bytes = content(1000);
+        ParallelRangeInputStream.RangeSource source = (start, end) -> {
+            if (start >= 4096) {
+                throw new IOException("Connection reset");
+            }
+            return new ByteArrayInputStream(bytes, (int) start, (int) (end - start));
+        };
+
+        try (InputStream in = new ParallelRangeInputStream(source, bytes.length, 1024, 2, "test")) {
+            Assertions.assertArrayEquals(Arrays.copyOf(bytes, 4096), in.readNBytes(4096));
+            IOException ex = Assertions.assertThrows(IOException.class, in::read);
+            Assertions.assertEquals("Connection reset", ex.getMessage());
+        }
+    }
+}
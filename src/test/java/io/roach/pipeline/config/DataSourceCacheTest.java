@@ -0,0 +1,60 @@
+package io.roach.pipeline.config;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.roach.pipeline.util.DataSourceProps;
+
+public class DataSourceCacheTest {
+    private static HikariDataSource createPool(DataSourceProps props) {
+        HikariDataSource ds = new HikariDataSource();
+        ds.setJdbcUrl(props.getUrl());
+        ds.setUsername(props.getUserName());
+        ds.setMaximumPoolSize(Math.max(1, props.getConcurrency()));
+        ds.setPoolName(props.getName());
+        return ds;
+    }
+
+    private static DataSourceProps props(String url, String name, int concurrency) {
+        return DataSourceProps.builder()
+                .withUrl(url)
+                .withUsername("sa")
+                .withName(name)
+                .withConcurrency(concurrency)
+                .build();
+    }
+
+    @Test
+    public void whenAcquiringSameDatabase_thenSharePoolWithinBudget() {
+        DataSourceCache cache = new DataSourceCache(DataSourceCacheTest::createPool, 10, Duration.ZERO);
+        try {
+            ClosableDataSource first = cache.acquire(props("jdbc:h2:mem:a", "customer", 4));
+            ClosableDataSource second = cache.acquire(props("jdbc:h2:mem:a", "orders", 6));
+
+            Assertions.assertEquals(1, cache.getPools().size());
+            HikariDataSource pool = cache.getPools().values().iterator().next();
+            Assertions.assertEquals(6, pool.getMaximumPoolSize());
+            Assertions.assertEquals(2, cache.getReferences().get(pool.getPoolName()));
+
+            // Only 4 connections left in the budget
+            cache.acquire(props("jdbc:h2:mem:b", "customer", 8));
+            Assertions.assertEquals(2, cache.getPools().size());
+            Assertions.assertEquals(10, cache.getPools().values().stream()
+                    .mapToInt(HikariDataSource::getMaximumPoolSize).sum());
+
+            first.close();
+            first.close();
+            Assertions.assertEquals(0, cache.evictIdle());
+            second.close();
+            Assertions.assertEquals(1, cache.evictIdle());
+            Assertions.assertTrue(pool.isClosed());
+            Assertions.assertEquals(1, cache.getPools().size());
+        } finally {
+            cache.destroy();
+        }
+    }
+}
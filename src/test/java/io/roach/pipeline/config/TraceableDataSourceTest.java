@@ -0,0 +1,40 @@
+package io.roach.pipeline.config;
+
+import java.sql.Connection;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+public class TraceableDataSourceTest {
+    @Test
+    public void whenTogglingTraceLevel_thenAttachProxy() throws Exception {
+        SimpleDriverDataSource pool = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:trace", "sa", "");
+
+        TraceableDataSource dataSource = new TraceableDataSource(pool,
+                ProxyDataSourceBuilder.create(pool).build(), DataSourceConfiguration.SQL_TRACE_LOGGER);
+
+        Logger logger = (Logger) LoggerFactory.getLogger(DataSourceConfiguration.SQL_TRACE_LOGGER);
+        Level level = logger.getLevel();
+        try {
+            logger.setLevel(Level.INFO);
+            try (Connection connection = dataSource.getConnection()) {
+                Assertions.assertFalse(connection instanceof ProxyJdbcObject);
+            }
+
+            logger.setLevel(Level.TRACE);
+            try (Connection connection = dataSource.getConnection()) {
+                Assertions.assertTrue(connection instanceof ProxyJdbcObject);
+            }
+        } finally {
+            logger.setLevel(level);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package io.roach.pipeline.item;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+
+public class PipelinedItemReaderTest {
+    private static class CountingItemReader extends AbstractItemCountingItemStreamItemReader<Integer> {
+        private final int size;
+
+        CountingItemReader(int size) {
+            this.size = size;
+            setName("counting");
+            setMaxItemCount(size);
+        }
+
+        @Override
+        protected Integer doRead() {
+            return getCurrentItemCount() - 1;
+        }
+
+        @Override
+        protected void doOpen() {
+        }
+
+        @Override
+        protected void doClose() {
+        }
+    }
+
+    @Test
+    public void whenReadingAhead_thenProcessAllInOrder() throws Exception {
+        PipelinedItemReader<Integer, String> reader = new PipelinedItemReader<>(new CountingItemReader(95),
+                item -> item % 2 == 0 ? "item-" + item : null, 10, 2, "test");
+        reader.open(new ExecutionContext());
+
+        List<String> items = new ArrayList<>();
+        String item;
+        while ((item = reader.read()) != null) {
+            items.add(item);
+        }
+        reader.close();
+
+        Assertions.assertEquals(48, items.size());
+        Assertions.assertEquals("item-0", items.get(0));
+        Assertions.assertEquals("item-94", items.get(items.size() - 1));
+    }
+
+    @Test
+    public void whenReadListenerIsSet_thenInvokeFromReaderStage() throws Exception {
+        List<Integer> itemsRead = new ArrayList<>();
+        AtomicInteger beforeReads = new AtomicInteger();
+
+        PipelinedItemReader<Integer, Integer> reader = new PipelinedItemReader<>(new CountingItemReader(25),
+                BatchJobLauncher.<Integer, Integer>passThroughItemProcessor(), 10, 2, "test")
+                .setReadListener(new ItemReadListener<Integer>() {
+                    @Override
+                    public void beforeRead() {
+                        beforeReads.incrementAndGet();
+                    }
+
+                    @Override
+                    public void afterRead(Integer item) {
+                        itemsRead.add(item);
+                    }
+                });
+        reader.open(new ExecutionContext());
+        while (reader.read() != null) {
+        }
+        reader.close();
+
+        // Including the read at the end of input
+        Assertions.assertEquals(26, beforeReads.get());
+        Assertions.assertEquals(25, itemsRead.size());
+        Assertions.assertEquals(24, itemsRead.get(24));
+    }
+
+    @Test
+    public void whenUpdating_thenSaveStateOfConsumedItems() throws Exception {
+        ExecutionContext executionContext = new ExecutionContext();
+
+        PipelinedItemReader<Integer, Integer> reader = new PipelinedItemReader<>(new CountingItemReader(100),
+                BatchJobLauncher.passThroughItemProcessor(), 10, 4, "test");
+        reader.open(executionContext);
+        for (int i = 0; i < 20; i++) {
+            reader.read();
+        }
+        // Let the stages run ahead of the consumed items
+        Thread.sleep(100);
+        reader.update(executionContext);
+        reader.close();
+
+        Assertions.assertEquals(20, executionContext.getInt("counting.read.count"));
+
+        reader = new PipelinedItemReader<>(new CountingItemReader(100),
+                BatchJobLauncher.passThroughItemProcessor(), 10, 4, "test");
+        reader.open(executionContext);
+        Assertions.assertEquals(20, reader.read());
+        reader.close();
+    }
+
+    @Test
+    public void whenReaderFails_thenRethrowOnRead() {
+        PipelinedItemReader<Integer, Integer> reader = new PipelinedItemReader<>(() -> {
+            throw new IllegalStateException("Disturbance!");
+        }, BatchJobLauncher.passThroughItemProcessor(), 10, 1, "test");
+        reader.open(new ExecutionContext());
+
+        Assertions.assertThrows(IllegalStateException.class, reader::read, "Disturbance!");
+        reader.close();
+    }
+}
@@ -0,0 +1,100 @@
+package io.roach.pipeline.item;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares creating and binding rows as a {@link HashMap} per row (keyed by column name)
+ * with {@link Row} (array backed with a shared {@link RowSchema}, bound by ordinal).
+ * Run the main method from the test classpath (not part of the surefire test run), which
+ * includes the GC profiler to report the allocation rate per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowBenchmark {
+    @Param({"8", "32"})
+    private int columns;
+
+    private String[] names;
+
+    private Object[] values;
+
+    private RowSchema schema;
+
+    private int[] ordinals;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RowBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    @Setup
+    public void setup() {
+        names = new String[columns];
+        values = new Object[columns];
+        for (int i = 0; i < columns; i++) {
+            names[i] = "column_" + i;
+            values[i] = "value-" + i;
+        }
+        schema = RowSchema.of(names);
+        ordinals = new int[columns];
+        for (int i = 0; i < columns; i++) {
+            ordinals[i] = schema.indexOf(names[columns - i - 1]);
+        }
+    }
+
+    @Benchmark
+    public void hashMapRow(Blackhole blackhole) {
+        Map<String, Object> row = new HashMap<>();
+        for (int i = 0; i < columns; i++) {
+            row.put(names[i], values[i]);
+        }
+        for (int i = columns - 1; i >= 0; i--) {
+            blackhole.consume(row.get(names[i]));
+        }
+    }
+
+    @Benchmark
+    public void schemaRowByName(Blackhole blackhole) {
+        Object[] array = new Object[columns];
+        System.arraycopy(values, 0, array, 0, columns);
+        Row row = new Row(schema, array);
+        for (int i = columns - 1; i >= 0; i--) {
+            blackhole.consume(row.get(names[i]));
+        }
+    }
+
+    @Benchmark
+    public void schemaRowByOrdinal(Blackhole blackhole) {
+        Object[] array = new Object[columns];
+        System.arraycopy(values, 0, array, 0, columns);
+        Row row = new Row(schema, array);
+        for (int ordinal : ordinals) {
+            blackhole.consume(row.get(ordinal));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package io.roach.pipeline.item;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RowTest {
+    @Test
+    public void whenAccessingByNameOrOrdinal_thenResolveSameValue() {
+        RowSchema schema = RowSchema.of("id", "name");
+        Row row = new Row(schema, new Object[] {1, "a"});
+
+        Assertions.assertEquals(1, schema.indexOf("name"));
+        Assertions.assertEquals(-1, schema.indexOf("other"));
+        Assertions.assertEquals("a", row.get("name"));
+        Assertions.assertEquals("a", row.get(1));
+        Assertions.assertNull(row.get("other"));
+        Assertions.assertTrue(row.containsKey("id"));
+
+        row.put("name", "b");
+        Assertions.assertEquals("b", row.get(1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> row.put("other", 2));
+    }
+
+    @Test
+    public void whenComparingToMap_thenEqualInColumnOrder() {
+        Row row = new Row(RowSchema.of(List.of("id", "name")), new Object[] {1, null});
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", 1);
+        map.put("name", null);
+
+        Assertions.assertEquals(map, row);
+        Assertions.assertEquals(map.hashCode(), row.hashCode());
+        Assertions.assertEquals(List.of("id", "name"), List.copyOf(row.keySet()));
+    }
+
+    @Test
+    public void whenDuplicateColumnNames_thenLastOneWins() {
+        RowSchema schema = RowSchema.of("id", "name", "id");
+        Assertions.assertEquals(3, schema.size());
+        Assertions.assertEquals(2, schema.indexOf("id"));
+
+        Row row = new Row(schema, new Object[] {1, "a", 2});
+        Assertions.assertEquals(2, row.get("id"));
+        Assertions.assertEquals(2, row.size());
+
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", 1);
+        map.put("name", "a");
+        map.put("id", 2);
+        Assertions.assertEquals(map, row);
+        Assertions.assertEquals(List.copyOf(map.keySet()), List.copyOf(row.keySet()));
+    }
+
+    @Test
+    public void whenValueCountDiffers_thenFail() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new Row(RowSchema.of("id"), new Object[] {1, 2}));
+    }
+}
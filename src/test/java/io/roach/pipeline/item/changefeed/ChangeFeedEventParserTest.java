@@ -0,0 +1,63 @@
+package io.roach.pipeline.item.changefeed;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.roach.pipeline.util.LogicalTimestamp;
+
+public class ChangeFeedEventParserTest {
+    private final ChangeFeedEventParser parser = new ChangeFeedEventParser(new ObjectMapper());
+
+    private static InputStream toStream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void whenParsingPayloadEvent_thenConsumeEachPayload() throws IOException {
+        String json = """
+                {"payload": [
+                  {"after": {"id": 1, "name": "a"}, "key": [1], "topic": "products", "updated": "1.0"},
+                  {"after": null, "before": {"id": 2}, "key": [2], "topic": "products", "updated": "2.0"}
+                ], "length": 2}
+                """;
+
+        List<Payload> payloads = new ArrayList<>();
+        Optional<LogicalTimestamp> resolved = parser.parse(toStream(json), payloads::add);
+
+        Assertions.assertFalse(resolved.isPresent());
+        Assertions.assertEquals(2, payloads.size());
+        Assertions.assertEquals(List.of(1), payloads.get(0).getKeys());
+        Assertions.assertEquals("a", payloads.get(0).getAfter().get("name"));
+        Assertions.assertEquals(Payload.Operation.insert, payloads.get(0).getOperation());
+        Assertions.assertEquals(Payload.Operation.delete, payloads.get(1).getOperation());
+    }
+
+    @Test
+    public void whenParsingResolvedEvent_thenReturnTimestamp() throws IOException {
+        List<Payload> payloads = new ArrayList<>();
+        Optional<LogicalTimestamp> resolved = parser.parse(
+                toStream("{\"resolved\": \"1546856630992375686.0000000001\"}"), payloads::add);
+
+        Assertions.assertTrue(resolved.isPresent());
+        Assertions.assertEquals(1546856630992375686L, resolved.get().getPhysicalWallClockTimeNanos());
+        Assertions.assertTrue(payloads.isEmpty());
+    }
+
+    @Test
+    public void whenParsingMalformedEvent_thenFail() {
+        Assertions.assertThrows(JacksonException.class,
+                () -> parser.parse(toStream("[1,2,3]"), payload -> {
+                }));
+    }
+}
@@ -0,0 +1,110 @@
+package io.roach.pipeline.item.changefeed;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ChangeFeedItemReaderTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ChangeFeedDispatcher dispatcher;
+
+    private Subscriber subscriber;
+
+    private ChangeFeedItemReader reader;
+
+    @BeforeEach
+    public void setUp() {
+        dispatcher = new ChangeFeedDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 1024);
+
+        subscriber = new Subscriber("test").setPollTimeout(Duration.ofMillis(50));
+
+        reader = new ChangeFeedItemReader(subscriber, dispatcher);
+        reader.setDrainSize(10);
+        reader.open(new ExecutionContext());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dispatcher.unregisterSubscriber(subscriber);
+    }
+
+    private void publish(int key) throws Exception {
+        dispatcher.publish(subscriber, objectMapper.readValue("{\"key\": [" + key + "], \"after\": {\"id\": "
+                + key + "}}", Payload.class));
+    }
+
+    private List<Object> readKeys(int count) throws Exception {
+        List<Object> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keys.add(reader.read().getKeys().get(0));
+        }
+        return keys;
+    }
+
+    @Test
+    public void whenManyPayloadsQueued_thenDrainUpToDrainSize() throws Exception {
+        for (int key = 0; key < 25; key++) {
+            publish(key);
+        }
+
+        Assertions.assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), readKeys(10));
+        Assertions.assertEquals(15, dispatcher.getQueueSize(subscriber));
+
+        Assertions.assertEquals(10, reader.read().getKeys().get(0));
+        Assertions.assertEquals(5, dispatcher.getQueueSize(subscriber));
+    }
+
+    @Test
+    public void whenFewerPayloadsThanDrainSize_thenReturnAfterLinger() throws Exception {
+        reader.setLinger(Duration.ofMillis(300));
+        publish(0);
+        publish(1);
+
+        // Published while the reader lingers for more
+        CompletableFuture<Void> late = CompletableFuture.runAsync(() -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(100);
+                publish(2);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        long start = System.nanoTime();
+        Assertions.assertEquals(0, reader.read().getKeys().get(0));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        late.get();
+
+        Assertions.assertTrue(elapsedMillis >= 250, "Returned before linger: " + elapsedMillis);
+        Assertions.assertEquals(List.of(1, 2), readKeys(2));
+        Assertions.assertEquals(0, dispatcher.getQueueSize(subscriber));
+    }
+
+    @Test
+    public void whenQueueIsEmpty_thenReturnNullAfterPollTimeout() throws Exception {
+        publish(0);
+        Assertions.assertEquals(List.of(0), readKeys(1));
+
+        reader.setLinger(Duration.ofSeconds(10));
+
+        long start = System.nanoTime();
+        Assertions.assertNull(reader.read());
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Lingering only applies once there is a first payload
+        Assertions.assertTrue(elapsedMillis < 5_000, "Waited for linger on empty queue: " + elapsedMillis);
+    }
+}
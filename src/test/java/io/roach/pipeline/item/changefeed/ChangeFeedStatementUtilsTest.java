@@ -0,0 +1,52 @@
+package io.roach.pipeline.item.changefeed;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ChangeFeedStatementUtilsTest {
+    private static final String CURSOR = "cursor='1700000000000000000.0000000000'";
+
+    @Test
+    public void whenStatementHasNoOptions_thenAddWithClause() {
+        Assertions.assertEquals("CREATE CHANGEFEED FOR TABLE t INTO 'webhook-https://host/x' WITH " + CURSOR + ";",
+                ChangeFeedStatementUtils.withOption("CREATE CHANGEFEED FOR TABLE t INTO 'webhook-https://host/x';",
+                        CURSOR));
+    }
+
+    @Test
+    public void whenWithIsOnNewLine_thenAppendToExistingOptions() {
+        String statement = "CREATE CHANGEFEED FOR TABLE t INTO 'kafka://host'\n\twith updated,\n resolved='15s'";
+        Assertions.assertEquals(statement + ", " + CURSOR + ";",
+                ChangeFeedStatementUtils.withOption(statement, CURSOR));
+    }
+
+    @Test
+    public void whenWithIsQuoted_thenIgnoreIt() {
+        String statement = "CREATE CHANGEFEED FOR TABLE t INTO 'webhook-https://host/x?a= with ,cursor=1'";
+        Assertions.assertTrue(ChangeFeedStatementUtils.options(statement).isEmpty());
+        Assertions.assertEquals(statement + " WITH " + CURSOR + ";",
+                ChangeFeedStatementUtils.withOption(statement, CURSOR));
+    }
+
+    @Test
+    public void whenChangeFeedQuery_thenAddOptionBeforeSelect() {
+        Assertions.assertEquals("CREATE CHANGEFEED INTO 'kafka://host' WITH updated, " + CURSOR
+                        + " AS SELECT * FROM t WHERE status = 'with';",
+                ChangeFeedStatementUtils.withOption("CREATE CHANGEFEED INTO 'kafka://host' WITH updated"
+                        + " AS SELECT * FROM t WHERE status = 'with'", CURSOR));
+    }
+
+    @Test
+    public void whenParsingOptions_thenReturnNamesAndValues() {
+        Map<String, String> options = ChangeFeedStatementUtils.options(
+                "CREATE CHANGEFEED FOR TABLE t INTO 'webhook-https://host/x' WITH updated, resolved='15s', "
+                        + " webhook_sink_config='{\"Flush\": {\"Messages\": 64}}', Cursor = '123.0';");
+        Assertions.assertEquals(4, options.size());
+        Assertions.assertNull(options.get("updated"));
+        Assertions.assertEquals("'15s'", options.get("resolved"));
+        Assertions.assertEquals("'{\"Flush\": {\"Messages\": 64}}'", options.get("webhook_sink_config"));
+        Assertions.assertEquals("'123.0'", options.get("cursor"));
+    }
+}
@@ -0,0 +1,56 @@
+package io.roach.pipeline.item.changefeed;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.roach.pipeline.util.LogicalTimestamp;
+
+public class CheckpointItemWriterTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+            "jdbc:h2:mem:checkpoint;DB_CLOSE_DELAY=-1", "sa", "");
+
+    private Payload createPayload(Subscriber subscriber, int key) throws Exception {
+        Payload payload = objectMapper.readValue("{\"key\": [" + key + "], \"after\": {\"id\": " + key + "}}",
+                Payload.class);
+        payload.setSequence(subscriber.nextSequence());
+        return payload;
+    }
+
+    @Test
+    public void whenWriteFails_thenDoNotAdvanceWatermark() throws Exception {
+        Subscriber subscriber = new Subscriber("failing").setTableName("t");
+        PartitionedItemWriter partitionedItemWriter = new PartitionedItemWriter(subscriber, List.of(chunk -> {
+            throw new IllegalStateException("Disk on fire");
+        })).setMarkApplied(false);
+
+        CheckpointItemWriter writer = new CheckpointItemWriter(partitionedItemWriter, subscriber, dataSource,
+                "pipeline_checkpoint_failing");
+        writer.open(new ExecutionContext());
+
+        Payload p1 = createPayload(subscriber, 1);
+        subscriber.markResolved(LogicalTimestamp.parse("100.0000000000"));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> writer.write(new Chunk<>(List.of(p1))));
+        Assertions.assertEquals(0, subscriber.getAppliedSequence());
+        Assertions.assertNull(subscriber.getAppliedResolvedTimestamp());
+    }
+
+    @Test
+    public void whenFindingCheckpoint_thenDoNotCreateTable() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Assertions.assertThrows(Exception.class, () -> CheckpointItemWriter.findCheckpoint(dataSource,
+                "pipeline_checkpoint_absent", "test"));
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM information_schema.tables "
+                + "WHERE lower(table_name) = 'pipeline_checkpoint_absent'", Integer.class));
+    }
+}
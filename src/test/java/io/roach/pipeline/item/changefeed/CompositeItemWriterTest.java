@@ -0,0 +1,76 @@
+package io.roach.pipeline.item.changefeed;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.Chunk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class CompositeItemWriterTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<Map<String, Object>> upserts = new ArrayList<>();
+
+    private final List<Map<String, Object>> deletes = new ArrayList<>();
+
+    private final CompositeItemWriter itemWriter = new CompositeItemWriter(
+            chunk -> upserts.addAll(chunk.getItems()),
+            chunk -> deletes.addAll(chunk.getItems()));
+
+    private Payload upsert(int id, int version) throws Exception {
+        return objectMapper.readValue("{\"key\": [" + id + "], \"after\": {\"id\": " + id
+                + ", \"version\": " + version + "}}", Payload.class);
+    }
+
+    private Payload delete(int id) throws Exception {
+        return objectMapper.readValue("{\"key\": [" + id + "], \"after\": null}", Payload.class);
+    }
+
+    private Payload upsertWithoutKey(int id) throws Exception {
+        return objectMapper.readValue("{\"after\": {\"id\": " + id + "}}", Payload.class);
+    }
+
+    @Test
+    public void whenCoalescing_thenKeepLastImagePerKey() throws Exception {
+        itemWriter.setCoalesce(true);
+
+        List<Payload> payloads = new ArrayList<>();
+        for (int version = 0; version < 50; version++) {
+            payloads.add(upsert(1, version));
+        }
+        payloads.add(upsert(2, 0));
+        payloads.add(delete(2));
+        payloads.add(delete(3));
+        payloads.add(upsert(3, 1));
+
+        itemWriter.write(new Chunk<>(payloads));
+
+        Assertions.assertEquals(2, upserts.size());
+        Assertions.assertEquals(Map.of("id", 1, "version", 49), upserts.get(0));
+        Assertions.assertEquals(Map.of("id", 3, "version", 1), upserts.get(1));
+        Assertions.assertEquals(List.of(Map.of("id", 2)), deletes);
+    }
+
+    @Test
+    public void whenCoalescingWithoutKeys_thenWriteAll() throws Exception {
+        itemWriter.setCoalesce(true);
+        itemWriter.write(new Chunk<>(List.of(upsertWithoutKey(1), upsertWithoutKey(2), upsert(3, 0),
+                upsertWithoutKey(4))));
+
+        Assertions.assertEquals(List.of(Map.of("id", 1), Map.of("id", 2), Map.of("id", 3, "version", 0),
+                Map.of("id", 4)), upserts);
+    }
+
+    @Test
+    public void whenNotCoalescing_thenWriteAll() throws Exception {
+        Assertions.assertFalse(itemWriter.isCoalesce());
+        itemWriter.write(new Chunk<>(List.of(upsert(1, 0), upsert(1, 1), delete(1))));
+
+        Assertions.assertEquals(2, upserts.size());
+        Assertions.assertEquals(1, deletes.size());
+    }
+}
@@ -0,0 +1,108 @@
+package io.roach.pipeline.item.changefeed;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemWriter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.roach.pipeline.util.LogicalTimestamp;
+
+public class PartitionedItemWriterTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Payload createPayload(Subscriber subscriber, int key, int version) throws Exception {
+        Payload payload = objectMapper.readValue("{\"key\": [" + key + "], \"after\": {\"id\": " + key
+                + ", \"version\": " + version + "}}", Payload.class);
+        payload.setSequence(subscriber.nextSequence());
+        return payload;
+    }
+
+    @Test
+    public void whenWritingInLanes_thenRetainPerKeyOrder() throws Exception {
+        Subscriber subscriber = new Subscriber("test");
+
+        Map<Object, List<Object>> applied = new ConcurrentHashMap<>();
+        List<ItemWriter<Payload>> laneWriters = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            laneWriters.add(chunk -> chunk.forEach(payload ->
+                    applied.computeIfAbsent(payload.getKeys().get(0), k -> Collections.synchronizedList(new ArrayList<>()))
+                            .add(payload.getAfter().get("version"))));
+        }
+
+        PartitionedItemWriter writer = new PartitionedItemWriter(subscriber, laneWriters);
+        writer.open(new ExecutionContext());
+
+        List<Payload> payloads = new ArrayList<>();
+        for (int version = 0; version < 10; version++) {
+            for (int key = 0; key < 20; key++) {
+                payloads.add(createPayload(subscriber, key, version));
+            }
+        }
+        writer.write(new Chunk<>(payloads));
+        writer.close();
+
+        Assertions.assertEquals(20, applied.size());
+        applied.values().forEach(versions ->
+                Assertions.assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), versions));
+        Assertions.assertEquals(200, subscriber.getAppliedSequence());
+    }
+
+    @Test
+    public void whenAdvancingWatermark_thenResolveAppliedTimestamp() throws Exception {
+        Subscriber subscriber = new Subscriber("test");
+        PartitionedItemWriter writer = new PartitionedItemWriter(subscriber, List.of(chunk -> {
+        }));
+
+        Payload p1 = createPayload(subscriber, 1, 1);
+        Payload p2 = createPayload(subscriber, 2, 1);
+        subscriber.markResolved(LogicalTimestamp.parse("100.0000000000"));
+        Payload p3 = createPayload(subscriber, 3, 1);
+        subscriber.markResolved(LogicalTimestamp.parse("200.0000000000"));
+
+        Assertions.assertNull(subscriber.getAppliedResolvedTimestamp());
+
+        writer.write(new Chunk<>(List.of(p1)));
+        Assertions.assertNull(subscriber.getAppliedResolvedTimestamp());
+
+        writer.write(new Chunk<>(List.of(p2)));
+        Assertions.assertEquals(LogicalTimestamp.parse("100.0000000000"), subscriber.getAppliedResolvedTimestamp());
+
+        writer.write(new Chunk<>(List.of(p3)));
+        Assertions.assertEquals(LogicalTimestamp.parse("200.0000000000"), subscriber.getAppliedResolvedTimestamp());
+
+        // Idempotent
+        subscriber.advanceAppliedSequence(1);
+        Assertions.assertEquals(LogicalTimestamp.parse("200.0000000000"), subscriber.getAppliedResolvedTimestamp());
+    }
+
+    @Test
+    public void whenAppliedOutOfSequenceOrder_thenHoldWatermarkAtContiguousPrefix() throws Exception {
+        Subscriber subscriber = new Subscriber("test");
+        PartitionedItemWriter writer = new PartitionedItemWriter(subscriber, List.of(chunk -> {
+        }));
+
+        Payload p1 = createPayload(subscriber, 1, 1);
+        Payload p2 = createPayload(subscriber, 2, 1);
+        Payload p3 = createPayload(subscriber, 3, 1);
+        subscriber.markResolved(LogicalTimestamp.parse("100.0000000000"));
+        Payload p4 = createPayload(subscriber, 4, 1);
+
+        // Sequence 2 was assigned but queued after 3 and 4 by a concurrent publisher
+        writer.write(new Chunk<>(List.of(p1, p3, p4)));
+        Assertions.assertEquals(1, subscriber.getAppliedSequence());
+        Assertions.assertNull(subscriber.getAppliedResolvedTimestamp());
+
+        writer.write(new Chunk<>(List.of(p2)));
+        Assertions.assertEquals(4, subscriber.getAppliedSequence());
+        Assertions.assertEquals(LogicalTimestamp.parse("100.0000000000"), subscriber.getAppliedResolvedTimestamp());
+    }
+}
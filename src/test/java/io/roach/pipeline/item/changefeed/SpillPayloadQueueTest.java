@@ -0,0 +1,166 @@
+package io.roach.pipeline.item.changefeed;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class SpillPayloadQueueTest {
+    private static final int SEGMENT_SIZE = 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    private Payload createPayload(int id) throws IOException {
+        return objectMapper.readValue("{\"key\": [" + id + "], \"after\": {\"id\": " + id
+                + ", \"name\": \"name-" + id + "\"}}", Payload.class);
+    }
+
+    private long countSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.toString().endsWith(".seg")).count();
+        }
+    }
+
+    @Test
+    public void whenAppendingAcrossSegments_thenReadInOrder() throws Exception {
+        SpillPayloadQueue queue = new SpillPayloadQueue(directory, SEGMENT_SIZE, 64, objectMapper);
+        for (int i = 0; i < 100; i++) {
+            queue.put(createPayload(i));
+        }
+        Assertions.assertEquals(100, queue.size());
+        Assertions.assertTrue(countSegments() > 1);
+
+        for (int i = 0; i < 100; i++) {
+            Payload payload = queue.poll(Duration.ZERO);
+            Assertions.assertEquals(List.of(i), payload.getKeys());
+            Assertions.assertEquals("name-" + i, payload.getAfter().get("name"));
+        }
+        Assertions.assertNull(queue.poll(Duration.ZERO));
+
+        queue.commit(100);
+        Assertions.assertEquals(1, countSegments());
+        Assertions.assertEquals(0, queue.size());
+        queue.close();
+    }
+
+    @Test
+    public void whenReopening_thenRedeliverUncommitted() throws Exception {
+        SpillPayloadQueue queue = new SpillPayloadQueue(directory, SEGMENT_SIZE, 64, objectMapper);
+        for (int i = 0; i < 50; i++) {
+            queue.put(createPayload(i));
+        }
+        List<Payload> payloads = new ArrayList<>();
+        Assertions.assertEquals(30, queue.drainTo(payloads, 30));
+        queue.commit(20);
+        queue.close();
+
+        queue = new SpillPayloadQueue(directory, SEGMENT_SIZE, 64, objectMapper);
+        Assertions.assertEquals(30, queue.size());
+        Assertions.assertEquals(List.of(20), queue.take().getKeys());
+
+        queue.put(createPayload(50));
+        payloads.clear();
+        queue.drainTo(payloads, 100);
+        Assertions.assertEquals(30, payloads.size());
+        Assertions.assertEquals(List.of(50), payloads.get(payloads.size() - 1).getKeys());
+        queue.close();
+    }
+
+    @Test
+    public void whenExceedingMaxSegments_thenBlockUntilCommitted() throws Exception {
+        SpillPayloadQueue queue = new SpillPayloadQueue(directory, SEGMENT_SIZE, 2, objectMapper);
+
+        int n = 0;
+        while (countSegments() < 2) {
+            queue.put(createPayload(n++));
+        }
+        // Fill up the second segment
+        while (queue.utilization() < 0.9) {
+            queue.put(createPayload(n++));
+        }
+
+        final int next = n;
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 5; i++) {
+                    queue.put(createPayload(next + i));
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        producer.start();
+        producer.join(200);
+        Assertions.assertTrue(producer.isAlive());
+
+        List<Payload> payloads = new ArrayList<>();
+        queue.drainTo(payloads, n);
+        queue.commit(payloads.size());
+
+        producer.join(5000);
+        Assertions.assertFalse(producer.isAlive());
+        Assertions.assertEquals(5, queue.size());
+        queue.close();
+    }
+
+    @Test
+    public void whenFsyncEnabled_thenReopenAndRedeliver() throws Exception {
+        SpillPayloadQueue queue = new SpillPayloadQueue(directory, SEGMENT_SIZE, 64, true, objectMapper);
+        for (int i = 0; i < 50; i++) {
+            queue.put(createPayload(i));
+        }
+        Assertions.assertEquals(List.of(0), queue.take().getKeys());
+        queue.commit(1);
+        queue.close();
+
+        queue = new SpillPayloadQueue(directory, SEGMENT_SIZE, 64, true, objectMapper);
+        Assertions.assertEquals(49, queue.size());
+        Assertions.assertEquals(List.of(1), queue.take().getKeys());
+        queue.close();
+    }
+
+    @Test
+    public void whenSegmentSizeChanged_thenRejectOnOpen() throws Exception {
+        SpillPayloadQueue queue = new SpillPayloadQueue(directory, SEGMENT_SIZE, 64, objectMapper);
+        for (int i = 0; i < 10; i++) {
+            queue.put(createPayload(i));
+        }
+        queue.close();
+
+        IllegalStateException ex = Assertions.assertThrows(IllegalStateException.class,
+                () -> new SpillPayloadQueue(directory, SEGMENT_SIZE * 2, 64, objectMapper));
+        Assertions.assertTrue(ex.getMessage().contains("segment size"), ex.getMessage());
+
+        // Unchanged size still recovers
+        queue = new SpillPayloadQueue(directory, SEGMENT_SIZE, 64, objectMapper);
+        Assertions.assertEquals(10, queue.size());
+        queue.close();
+    }
+
+    @Test
+    public void whenClosed_thenRejectAppendsAndStopReading() throws Exception {
+        SpillPayloadQueue queue = new SpillPayloadQueue(directory, SEGMENT_SIZE, 64, objectMapper);
+        queue.put(createPayload(1));
+        queue.close();
+        queue.close();
+
+        Assertions.assertThrows(IllegalStateException.class, () -> queue.put(createPayload(2)));
+        Assertions.assertNull(queue.poll(Duration.ZERO));
+
+        SpillPayloadQueue reopened = new SpillPayloadQueue(directory, SEGMENT_SIZE, 64, objectMapper);
+        Assertions.assertEquals(List.of(1), reopened.poll(Duration.ZERO).getKeys());
+        reopened.close();
+    }
+}
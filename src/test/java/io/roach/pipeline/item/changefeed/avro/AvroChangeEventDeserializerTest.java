@@ -0,0 +1,145 @@
+package io.roach.pipeline.item.changefeed.avro;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.Conversions;
+import org.apache.avro.LogicalTypes;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.roach.pipeline.item.changefeed.KafkaChangeEvent;
+import io.roach.pipeline.item.changefeed.Payload;
+
+public class AvroChangeEventDeserializerTest {
+    private static final String SCHEMA = """
+            {"type": "record", "name": "products_envelope", "fields": [
+              {"name": "after", "type": ["null", {"type": "record", "name": "products", "fields": [
+                {"name": "id", "type": "long"},
+                {"name": "name", "type": ["null", "string"]},
+                {"name": "price", "type": {"type": "bytes", "logicalType": "decimal", "precision": 19, "scale": 2}}
+              ]}], "default": null},
+              {"name": "updated", "type": ["null", "string"], "default": null},
+              {"name": "resolved", "type": ["null", "string"], "default": null}
+            ]}
+            """;
+
+    private static final String KEY_SCHEMA = """
+            {"type": "record", "name": "products_key", "fields": [
+              {"name": "region", "type": "string"},
+              {"name": "id", "type": "long"}
+            ]}
+            """;
+
+    @TempDir
+    Path directory;
+
+    private byte[] encode(int schemaId, Schema schema, GenericRecord record) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0);
+        out.write(ByteBuffer.allocate(4).putInt(schemaId).array());
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new GenericDatumWriter<GenericRecord>(schema).write(record, encoder);
+        encoder.flush();
+        return out.toByteArray();
+    }
+
+    @Test
+    public void whenDeserializingRowChange_thenMapColumns() throws IOException {
+        Schema schema = new Schema.Parser().parse(SCHEMA);
+        Files.writeString(directory.resolve("7.avsc"), SCHEMA);
+
+        Schema rowSchema = schema.getField("after").schema().getTypes().get(1);
+        GenericRecord row = new GenericData.Record(rowSchema);
+        row.put("id", 42L);
+        row.put("name", "widget");
+        row.put("price", new Conversions.DecimalConversion().toBytes(new BigDecimal("9.95"),
+                rowSchema.getField("price").schema(), LogicalTypes.decimal(19, 2)));
+
+        GenericRecord envelope = new GenericData.Record(schema);
+        envelope.put("after", row);
+        envelope.put("updated", "1546856630992375686.0000000000");
+
+        AvroChangeEventDeserializer deserializer = new AvroChangeEventDeserializer();
+        deserializer.configure(Map.of(AvroChangeEventDeserializer.SCHEMA_DIRECTORY_CONFIG, directory.toString()),
+                false);
+
+        KafkaChangeEvent event = deserializer.deserialize("products", encode(7, schema, envelope));
+
+        Assertions.assertFalse(event.getResolvedTimestamp().isPresent());
+        Assertions.assertEquals("1546856630992375686.0000000000", event.getUpdated());
+
+        Payload payload = event.toPayload();
+        Assertions.assertEquals(Payload.Operation.insert, payload.getOperation());
+        Assertions.assertEquals(42L, payload.getAfter().get("id"));
+        Assertions.assertEquals("widget", payload.getAfter().get("name"));
+        Assertions.assertEquals(new BigDecimal("9.95"), payload.getAfter().get("price"));
+        Assertions.assertEquals(3, payload.getAfter().size());
+    }
+
+    @Test
+    public void whenDeserializingResolved_thenReturnTimestamp() throws IOException {
+        Schema schema = new Schema.Parser().parse(SCHEMA);
+        Files.writeString(directory.resolve("1.avsc"), SCHEMA);
+
+        GenericRecord envelope = new GenericData.Record(schema);
+        envelope.put("resolved", "1546856630992375686.0000000000");
+
+        AvroChangeEventDeserializer deserializer = new AvroChangeEventDeserializer(new FileSchemaStore(directory));
+        KafkaChangeEvent event = deserializer.deserialize("products", encode(1, schema, envelope));
+
+        Assertions.assertTrue(event.getResolvedTimestamp().isPresent());
+    }
+
+    @Test
+    public void whenDeserializingKey_thenAddToChangeEvent() throws IOException {
+        Schema schema = new Schema.Parser().parse(SCHEMA);
+        Schema keySchema = new Schema.Parser().parse(KEY_SCHEMA);
+
+        GenericRecord key = new GenericData.Record(keySchema);
+        key.put("region", "eu");
+        key.put("id", 42L);
+
+        GenericRecord envelope = new GenericData.Record(schema);
+        envelope.put("updated", "1546856630992375686.0000000000");
+
+        List<Object> keys = new AvroKeyDeserializer(id -> keySchema).deserialize("products", encode(3, keySchema, key));
+        Assertions.assertEquals(List.of("eu", 42L), keys);
+
+        // Delete without a row image
+        KafkaChangeEvent event = new AvroChangeEventDeserializer(id -> schema)
+                .deserialize("products", encode(2, schema, envelope));
+
+        TopicPartition partition = new TopicPartition("products", 0);
+        new ChangeEventKeyInterceptor().onConsume(new ConsumerRecords<>(
+                Map.of(partition, List.of(new ConsumerRecord<>("products", 0, 0L, keys, event)))));
+
+        Payload payload = event.toPayload();
+        Assertions.assertEquals(Payload.Operation.delete, payload.getOperation());
+        Assertions.assertEquals(List.of("eu", 42L), payload.getKeys());
+    }
+
+    @Test
+    public void whenMissingMagicByte_thenFail() {
+        AvroChangeEventDeserializer deserializer = new AvroChangeEventDeserializer(new FileSchemaStore(directory));
+        Assertions.assertThrows(SerializationException.class,
+                () -> deserializer.deserialize("products", new byte[] {1, 0, 0, 0, 1, 2}));
+    }
+}
@@ -0,0 +1,109 @@
+package io.roach.pipeline.item.changefeed.avro;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.avro.Schema;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Fetches schemas from a minimal stand-in for the schema registry serving
+ * {@code GET /schemas/ids/<id>}.
+ */
+public class RegistrySchemaStoreTest {
+    private static final String SCHEMA = """
+            {"type": "record", "name": "products_key", "fields": [{"name": "id", "type": "long"}]}
+            """;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private HttpServer server;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/schemas/ids/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+
+        String path = exchange.getRequestURI().getPath();
+        int status = 404;
+        byte[] body = "{\"error_code\": 40403, \"message\": \"Schema not found\"}".getBytes(StandardCharsets.UTF_8);
+        if (path.equals("/schemas/ids/5")) {
+            status = 200;
+            body = new ObjectMapper().writeValueAsBytes(Map.of("schema", SCHEMA));
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/vnd.schemaregistry.v1+json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private String registryUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/";
+    }
+
+    @Test
+    public void whenSchemaRegistered_thenFetchOnceAndCache() {
+        RegistrySchemaStore schemaStore = new RegistrySchemaStore(registryUrl());
+
+        Schema schema = schemaStore.getSchema(5);
+        Assertions.assertEquals(new Schema.Parser().parse(SCHEMA), schema);
+        Assertions.assertSame(schema, schemaStore.getSchema(5));
+        Assertions.assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void whenSchemaNotRegistered_thenFail() {
+        RegistrySchemaStore schemaStore = new RegistrySchemaStore(registryUrl());
+        Assertions.assertThrows(SerializationException.class, () -> schemaStore.getSchema(6));
+    }
+
+    @Test
+    public void whenSchemaNotRegistered_thenUseFallback() throws IOException {
+        Files.writeString(directory.resolve("6.avsc"), SCHEMA);
+
+        RegistrySchemaStore schemaStore = new RegistrySchemaStore(registryUrl(), new FileSchemaStore(directory));
+        Assertions.assertEquals(new Schema.Parser().parse(SCHEMA), schemaStore.getSchema(6));
+    }
+
+    @Test
+    public void whenConfiguringDeserializer_thenUseRegistry() {
+        AvroKeyDeserializer deserializer = new AvroKeyDeserializer();
+        deserializer.configure(Map.of(AbstractAvroDeserializer.SCHEMA_REGISTRY_URL_CONFIG, registryUrl()), true);
+
+        // Magic byte, schema ID 5 and the zig-zag encoded long 21
+        Assertions.assertEquals(List.of(21L), deserializer.deserialize("products",
+                new byte[] {0, 0, 0, 0, 5, 42}));
+        Assertions.assertEquals(1, requests.get());
+    }
+}
@@ -0,0 +1,74 @@
+package io.roach.pipeline.item.flatfile;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ByteTokenizerTest {
+    private static ByteBuffer buffer(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> fields(ByteBuffer buffer, ByteTokenizer tokenizer) {
+        List<String> fields = new ArrayList<>();
+        for (int i = 0; i < tokenizer.getFieldCount(); i++) {
+            fields.add(ByteTokenizer.decodeField(buffer, tokenizer.getFieldStart(i), tokenizer.getFieldEnd(i),
+                    StandardCharsets.UTF_8, tokenizer.getQuoteCharacter()));
+        }
+        return fields;
+    }
+
+    @Test
+    public void whenScanningRecords_thenSplitOnDelimiterAndNewline() {
+        ByteBuffer buffer = buffer("a,b,c\nd,,f\n");
+        ByteTokenizer tokenizer = new ByteTokenizer(',', '"');
+
+        Assertions.assertTrue(tokenizer.scan(buffer, 0, buffer.limit(), false));
+        Assertions.assertEquals(List.of("a", "b", "c"), fields(buffer, tokenizer));
+        Assertions.assertEquals(6, tokenizer.getNext());
+
+        Assertions.assertTrue(tokenizer.scan(buffer, tokenizer.getNext(), buffer.limit(), false));
+        Assertions.assertEquals(List.of("d", "", "f"), fields(buffer, tokenizer));
+        Assertions.assertEquals(buffer.limit(), tokenizer.getNext());
+    }
+
+    @Test
+    public void whenRecordEndsWithCrLf_thenExcludeCarriageReturn() {
+        ByteBuffer buffer = buffer("a,b\r\nc,d\r\n");
+        ByteTokenizer tokenizer = new ByteTokenizer(',', '"');
+
+        Assertions.assertTrue(tokenizer.scan(buffer, 0, buffer.limit(), false));
+        Assertions.assertEquals(List.of("a", "b"), fields(buffer, tokenizer));
+        Assertions.assertEquals("a,b", ByteTokenizer.decode(buffer, tokenizer.getRecordStart(),
+                tokenizer.getRecordEnd(), StandardCharsets.UTF_8));
+        Assertions.assertEquals(5, tokenizer.getNext());
+    }
+
+    @Test
+    public void whenFieldsAreQuoted_thenKeepDelimitersAndNewlinesAndUnescapeQuotes() {
+        ByteBuffer buffer = buffer("\"a,b\",\"say \"\"hi\"\"\",\"line\nbreak\"\nnext\n");
+        ByteTokenizer tokenizer = new ByteTokenizer(',', '"');
+
+        Assertions.assertTrue(tokenizer.scan(buffer, 0, buffer.limit(), false));
+        Assertions.assertEquals(List.of("a,b", "say \"hi\"", "line\nbreak"), fields(buffer, tokenizer));
+
+        Assertions.assertTrue(tokenizer.scan(buffer, tokenizer.getNext(), buffer.limit(), false));
+        Assertions.assertEquals(List.of("next"), fields(buffer, tokenizer));
+    }
+
+    @Test
+    public void whenRecordIsNotTerminated_thenOnlyAcceptAtEndOfInput() {
+        ByteBuffer buffer = buffer("a,b");
+        ByteTokenizer tokenizer = new ByteTokenizer(',', '"');
+
+        Assertions.assertFalse(tokenizer.scan(buffer, 0, buffer.limit(), false));
+        Assertions.assertTrue(tokenizer.scan(buffer, 0, buffer.limit(), true));
+        Assertions.assertEquals(List.of("a", "b"), fields(buffer, tokenizer));
+
+        Assertions.assertFalse(tokenizer.scan(buffer, buffer.limit(), buffer.limit(), true));
+    }
+}
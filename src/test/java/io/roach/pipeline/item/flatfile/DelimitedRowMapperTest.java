@@ -0,0 +1,63 @@
+package io.roach.pipeline.item.flatfile;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.file.transform.IncorrectTokenCountException;
+
+import io.roach.pipeline.item.RowSchema;
+
+public class DelimitedRowMapperTest {
+    private static Map<String, Object> map(String record, DelimitedRowMapper mapper) {
+        ByteBuffer buffer = ByteBuffer.wrap(record.getBytes(StandardCharsets.UTF_8));
+        ByteTokenizer tokenizer = new ByteTokenizer(',', '"');
+        Assertions.assertTrue(tokenizer.scan(buffer, 0, buffer.limit(), true));
+        return mapper.mapRecord(buffer, tokenizer, 1);
+    }
+
+    private static DelimitedRowMapper mapper(boolean strict) {
+        return new DelimitedRowMapper(RowSchema.of(List.of("id", "name", "note")),
+                new int[] {0, 1, 2}, 3, StandardCharsets.UTF_8, strict);
+    }
+
+    @Test
+    public void whenMappingQuotedFields_thenDecodeValues() {
+        Map<String, Object> row = map("1,\"Doe, \"\"John\"\"\",\"two\nlines\"\r\n", mapper(true));
+
+        Assertions.assertEquals("1", row.get("id"));
+        Assertions.assertEquals("Doe, \"John\"", row.get("name"));
+        Assertions.assertEquals("two\nlines", row.get("note"));
+        Assertions.assertEquals(3, row.size());
+    }
+
+    @Test
+    public void whenSkippingIgnoredFields_thenMapIncludedTokens() {
+        DelimitedRowMapper mapper = new DelimitedRowMapper(RowSchema.of(List.of("id", "note")),
+                new int[] {0, 2}, 3, StandardCharsets.UTF_8, true);
+
+        Map<String, Object> row = map("1,ignored,x", mapper);
+        Assertions.assertEquals(Map.of("id", "1", "note", "x"), Map.copyOf(row));
+    }
+
+    @Test
+    public void whenFieldsAreMissingOrExtra_thenLenientUnlessStrict() {
+        Map<String, Object> row = map("1,a", mapper(false));
+        Assertions.assertEquals("a", row.get("name"));
+        Assertions.assertEquals("", row.get("note"));
+
+        row = map("1,a,b,c", mapper(false));
+        Assertions.assertEquals("b", row.get("note"));
+
+        Assertions.assertThrows(IncorrectTokenCountException.class, () -> map("1,a", mapper(true)));
+        Assertions.assertThrows(IncorrectTokenCountException.class, () -> map("1,a,b,c", mapper(true)));
+    }
+
+    @Test
+    public void whenRecordIsEmpty_thenMapToEmptyMap() {
+        Assertions.assertTrue(map("\r\n", mapper(true)).isEmpty());
+    }
+}
@@ -0,0 +1,150 @@
+package io.roach.pipeline.item.flatfile;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.core.io.FileSystemResource;
+
+import io.roach.pipeline.item.flatfile.schema.Field;
+import io.roach.pipeline.item.flatfile.schema.FlatFileSchema;
+import io.roach.pipeline.item.flatfile.schema.Tokenizer;
+
+public class FileRangePartitionerTest {
+    @TempDir
+    Path tempDir;
+
+    private FlatFileSchema schema() {
+        FlatFileSchema schema = new FlatFileSchema()
+                .setEncoding("UTF-8")
+                .setTokenizer(new Tokenizer()
+                        .setType(Tokenizer.Type.delimited)
+                        .setDelimiter(","));
+        schema.addField(new Field().setName("id"));
+        schema.addField(new Field().setName("note"));
+        return schema;
+    }
+
+    private Path writeFile(int rows) throws Exception {
+        StringBuilder sb = new StringBuilder("id,note\r\n");
+        for (int i = 0; i < rows; i++) {
+            if (i % 7 == 0) {
+                sb.append(i).append(",\"line one\nline \"\"two\"\"\r\nline three\"\r\n");
+            } else {
+                sb.append(i).append(",note-").append(i).append("\r\n");
+            }
+        }
+        Path path = tempDir.resolve("data.csv");
+        Files.writeString(path, sb.toString(), StandardCharsets.UTF_8);
+        return path;
+    }
+
+    private List<Map<String, Object>> readAll(ItemReader<Map<String, Object>> reader,
+                                              ExecutionContext executionContext) throws Exception {
+        List<Map<String, Object>> items = new ArrayList<>();
+        ((ItemStream) reader).open(executionContext);
+        try {
+            Map<String, Object> item;
+            while ((item = reader.read()) != null) {
+                items.add(item);
+            }
+        } finally {
+            ((ItemStream) reader).close();
+        }
+        return items;
+    }
+
+    private ItemReader<Map<String, Object>> rangeReader(Path path, ExecutionContext context) {
+        return FlatFileReaderBuilder.instance()
+                .setFlatFileSchema(schema())
+                .setInputResource(new FileSystemResource(path))
+                .setByteRange(context.getLong(FileRangePartitioner.START_OFFSET),
+                        context.getLong(FileRangePartitioner.END_OFFSET))
+                .build();
+    }
+
+    @Test
+    public void whenPartitioningFileWithQuotedNewlines_thenReadEachRecordOnce() throws Exception {
+        Path path = writeFile(1000);
+
+        Map<String, ExecutionContext> partitions = FlatFileReaderBuilder.instance()
+                .setFlatFileSchema(schema())
+                .setInputResource(new FileSystemResource(path))
+                .setLinesToSkip(1)
+                .buildPartitioner()
+                .partition(8);
+        Assertions.assertEquals(8, partitions.size());
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (ExecutionContext context : partitions.values()) {
+            items.addAll(readAll(rangeReader(path, context), context));
+        }
+
+        Assertions.assertEquals(1000, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Map<String, Object> item = items.get(i);
+            Assertions.assertEquals(String.valueOf(i), item.get("id"));
+            if (i % 7 == 0) {
+                Assertions.assertEquals("line one\nline \"two\"\r\nline three", item.get("note"));
+            } else {
+                Assertions.assertEquals("note-" + i, item.get("note"));
+            }
+        }
+    }
+
+    @Test
+    public void whenRestartingRange_thenResumeAtSavedOffset() throws Exception {
+        Path path = writeFile(100);
+
+        ExecutionContext context = FlatFileReaderBuilder.instance()
+                .setFlatFileSchema(schema())
+                .setInputResource(new FileSystemResource(path))
+                .setLinesToSkip(1)
+                .buildPartitioner()
+                .partition(1)
+                .get("partition0");
+
+        ItemReader<Map<String, Object>> reader = rangeReader(path, context);
+        ((ItemStream) reader).open(context);
+        for (int i = 0; i < 40; i++) {
+            Assertions.assertEquals(String.valueOf(i), reader.read().get("id"));
+        }
+        ((ItemStream) reader).update(context);
+        reader.read();
+        ((ItemStream) reader).close();
+
+        List<Map<String, Object>> items = readAll(rangeReader(path, context), context);
+        Assertions.assertEquals(60, items.size());
+        Assertions.assertEquals("40", items.get(0).get("id"));
+        Assertions.assertEquals("99", items.get(59).get("id"));
+    }
+
+    @Test
+    public void whenReadingRangeWithExpressions_thenMapDecodedLines() throws Exception {
+        Path path = writeFile(20);
+
+        FlatFileSchema schema = schema();
+        schema.addField(new Field().setName("label").setExpression("'#' + #fieldSet.readString('id')"));
+
+        ExecutionContext context = new ExecutionContext();
+        List<Map<String, Object>> items = readAll(FlatFileReaderBuilder.instance()
+                .setFlatFileSchema(schema)
+                .setInputResource(new FileSystemResource(path))
+                .setByteRange(0, Files.size(path))
+                .build(), context);
+
+        Assertions.assertEquals(21, items.size());
+        Assertions.assertEquals("#id", items.get(0).get("label"));
+        Assertions.assertEquals("#7", items.get(8).get("label"));
+        Assertions.assertEquals("line one\nline \"two\"\r\nline three", items.get(8).get("note"));
+    }
+}
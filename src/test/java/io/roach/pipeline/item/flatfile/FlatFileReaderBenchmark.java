@@ -0,0 +1,121 @@
+package io.roach.pipeline.item.flatfile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.core.io.FileSystemResource;
+
+import io.roach.pipeline.item.Row;
+import io.roach.pipeline.item.flatfile.schema.Field;
+import io.roach.pipeline.item.flatfile.schema.FlatFileSchema;
+import io.roach.pipeline.item.flatfile.schema.Tokenizer;
+
+/**
+ * Compares reading a sample CSV file with the delimited line tokenizer (a string, token
+ * array and field set per line) with the memory-mapped {@link ByteTokenizer} (field bounds
+ * decoded when accessed), accessing all values of each row as a writer would. Run the main
+ * method from the project directory with the test classpath (not part of the surefire test
+ * run), which includes the GC profiler to report the allocation rate per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlatFileReaderBenchmark {
+    @Param({"docs/samples/products-data.csv"})
+    private String file;
+
+    private Path path;
+
+    private long startOffset;
+
+    private long size;
+
+    private FlatFileSchema schema;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FlatFileReaderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        path = Paths.get(file).toAbsolutePath();
+        size = Files.size(path);
+        schema = new FlatFileSchema()
+                .setEncoding("UTF-8")
+                .setTokenizer(new Tokenizer()
+                        .setType(Tokenizer.Type.delimited)
+                        .setDelimiter(","));
+        for (String name : Files.readAllLines(path).get(0).split(",")) {
+            schema.addField(new Field().setName(name));
+        }
+        startOffset = FlatFileReaderBuilder.instance()
+                .setFlatFileSchema(schema)
+                .setInputResource(new FileSystemResource(path))
+                .setLinesToSkip(1)
+                .buildPartitioner()
+                .partition(1)
+                .get("partition0")
+                .getLong(FileRangePartitioner.START_OFFSET);
+    }
+
+    private void readAll(ItemReader<Map<String, Object>> reader, Blackhole blackhole) throws Exception {
+        ((ItemStream) reader).open(new ExecutionContext());
+        try {
+            Map<String, Object> item;
+            while ((item = reader.read()) != null) {
+                Row row = (Row) item;
+                for (int i = 0; i < row.size(); i++) {
+                    blackhole.consume(row.get(i));
+                }
+            }
+        } finally {
+            ((ItemStream) reader).close();
+        }
+    }
+
+    @Benchmark
+    public void lineTokenizer(Blackhole blackhole) throws Exception {
+        readAll(FlatFileReaderBuilder.instance()
+                .setFlatFileSchema(schema)
+                .setInputResource(new FileSystemResource(path))
+                .setLinesToSkip(1)
+                .build(), blackhole);
+    }
+
+    @Benchmark
+    public void byteTokenizer(Blackhole blackhole) throws Exception {
+        readAll(FlatFileReaderBuilder.instance()
+                .setFlatFileSchema(schema)
+                .setInputResource(new FileSystemResource(path))
+                .setByteRange(startOffset, size)
+                .build(), blackhole);
+    }
+}
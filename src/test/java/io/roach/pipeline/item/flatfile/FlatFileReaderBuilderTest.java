@@ -0,0 +1,63 @@
+package io.roach.pipeline.item.flatfile;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.core.io.FileSystemResource;
+
+import io.roach.pipeline.item.flatfile.schema.Field;
+import io.roach.pipeline.item.flatfile.schema.FlatFileSchema;
+import io.roach.pipeline.item.flatfile.schema.Tokenizer;
+
+public class FlatFileReaderBuilderTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void whenReadingManyRowsWithExpressions_thenEvaluatePerRow() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append(i).append(',').append(i % 10).append(",name-").append(i).append('\n');
+        }
+        Path path = tempDir.resolve("data.csv");
+        Files.writeString(path, sb.toString(), StandardCharsets.UTF_8);
+
+        FlatFileSchema schema = new FlatFileSchema()
+                .setTokenizer(new Tokenizer()
+                        .setType(Tokenizer.Type.delimited)
+                        .setDelimiter(","));
+        schema.addField(new Field().setName("price"));
+        schema.addField(new Field().setName("qty"));
+        schema.addField(new Field().setName("name"));
+        schema.addField(new Field().setName("total")
+                .setExpression("#fieldSet.readLong('price') * #fieldSet.readLong('qty')"));
+        schema.addField(new Field().setName("label")
+                .setExpression("#names[2] + ':' + #values[2]"));
+
+        ItemReader<Map<String, Object>> reader = FlatFileReaderBuilder.instance()
+                .setFlatFileSchema(schema)
+                .setInputResource(new FileSystemResource(path))
+                .build();
+
+        ((ItemStream) reader).open(new ExecutionContext());
+        try {
+            // Well past the point where expressions are compiled
+            for (int i = 0; i < 1000; i++) {
+                Map<String, Object> item = reader.read();
+                Assertions.assertEquals(String.valueOf((long) i * (i % 10)), item.get("total"));
+                Assertions.assertEquals("name:name-" + i, item.get("label"));
+            }
+            Assertions.assertNull(reader.read());
+        } finally {
+            ((ItemStream) reader).close();
+        }
+    }
+}
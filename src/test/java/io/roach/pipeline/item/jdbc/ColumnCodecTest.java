@@ -0,0 +1,101 @@
+package io.roach.pipeline.item.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.Field;
+import org.postgresql.core.Oid;
+import org.postgresql.jdbc.PgResultSetMetaData;
+import org.postgresql.jdbc.TypeInfoCache;
+import org.springframework.batch.item.Chunk;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import io.roach.pipeline.item.Row;
+
+public class ColumnCodecTest {
+    @Test
+    public void whenResolvingByType_thenUseSpecializedCodec() {
+        Assertions.assertEquals(ColumnCodec.BIGINT, ColumnCodec.of(Types.BIGINT));
+        Assertions.assertEquals(ColumnCodec.DECIMAL, ColumnCodec.of(Types.DECIMAL));
+        Assertions.assertEquals(ColumnCodec.VARCHAR, ColumnCodec.of(Types.NVARCHAR));
+        Assertions.assertEquals(ColumnCodec.OTHER, ColumnCodec.of(Types.OTHER));
+        Assertions.assertEquals(ColumnCodec.OBJECT, ColumnCodec.of(Types.STRUCT));
+
+        Map<String, ColumnCodec> codecs = Map.of("ID", ColumnCodec.BIGINT);
+        Assertions.assertEquals(ColumnCodec.BIGINT, ColumnCodec.lookup(codecs, "id"));
+        Assertions.assertEquals(ColumnCodec.OBJECT, ColumnCodec.lookup(codecs, "name"));
+    }
+
+    @Test
+    public void whenPgJdbcReportsTimestampWithTimeZone_thenResolveByTypeName() throws Exception {
+        BaseConnection connection = Mockito.mock(BaseConnection.class);
+        Mockito.when(connection.getTypeInfo()).thenReturn(new TypeInfoCache(connection, -1));
+
+        // Metadata as PgJDBC creates it from the row description of a query
+        ResultSetMetaData metaData = new PgResultSetMetaData(connection, new Field[] {
+                new Field("created", Oid.TIMESTAMPTZ),
+                new Field("opens", Oid.TIMETZ),
+                new Field("updated", Oid.TIMESTAMP)
+        });
+
+        Assertions.assertEquals(Types.TIMESTAMP, metaData.getColumnType(1));
+        Assertions.assertEquals(Types.TIME, metaData.getColumnType(2));
+
+        Assertions.assertEquals(ColumnCodec.TIMESTAMP_WITH_TIMEZONE,
+                ColumnCodec.of(metaData.getColumnType(1), metaData.getColumnTypeName(1)));
+        Assertions.assertEquals(ColumnCodec.TIME_WITH_TIMEZONE,
+                ColumnCodec.of(metaData.getColumnType(2), metaData.getColumnTypeName(2)));
+        Assertions.assertEquals(ColumnCodec.TIMESTAMP,
+                ColumnCodec.of(metaData.getColumnType(3), metaData.getColumnTypeName(3)));
+
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        OffsetDateTime created = OffsetDateTime.of(2023, 1, 2, 3, 4, 5, 0, ZoneOffset.ofHours(2));
+        Mockito.when(rs.getObject(1, OffsetDateTime.class)).thenReturn(created);
+        Assertions.assertEquals(created, ColumnCodec.TIMESTAMP_WITH_TIMEZONE.read(rs, 1));
+    }
+
+    @Test
+    public void whenCopyingRows_thenPreserveTypes() throws Exception {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:codec;DB_CLOSE_DELAY=-1", "sa", "");
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS source (id BIGINT PRIMARY KEY, "
+                + "amount NUMERIC(10,2), created DATE, note VARCHAR(16))");
+        jdbcTemplate.update("INSERT INTO source VALUES (1, 10.50, DATE '2023-01-02', NULL)");
+
+        List<Row> rows = jdbcTemplate.query("SELECT * FROM source", new SchemaRowMapper());
+        Assertions.assertEquals(1, rows.size());
+
+        Row row = rows.get(0);
+        Assertions.assertEquals(1L, row.get(0));
+        Assertions.assertEquals(new BigDecimal("10.50"), row.get(1));
+        Assertions.assertEquals(LocalDate.of(2023, 1, 2), row.get(2));
+        Assertions.assertNull(row.get(3));
+
+        MultiRowItemWriter writer = MultiRowItemWriter.builder()
+                .setDataSource(dataSource)
+                .setCreateQuery("CREATE TABLE IF NOT EXISTS target (id BIGINT PRIMARY KEY, "
+                        + "amount NUMERIC(10,2), created DATE, note VARCHAR(16))")
+                .setInsertQuery("INSERT INTO target (id, amount, created, note) VALUES (:ID, :AMOUNT, :CREATED, :NOTE)")
+                .setColumnCodecs(() -> Map.of("ID", ColumnCodec.BIGINT, "AMOUNT", ColumnCodec.DECIMAL,
+                        "CREATED", ColumnCodec.DATE, "NOTE", ColumnCodec.VARCHAR))
+                .build();
+        writer.write(new Chunk<>(List.of(row)));
+
+        Assertions.assertEquals(jdbcTemplate.queryForMap("SELECT * FROM source"),
+                jdbcTemplate.queryForMap("SELECT * FROM target"));
+    }
+}
@@ -0,0 +1,83 @@
+package io.roach.pipeline.item.jdbc;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.Chunk;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+public class ContentionAwareItemWriterTest {
+    private static ConcurrencyFailureException contentionError() {
+        return new ConcurrencyFailureException("restart transaction",
+                new SQLException("TransactionRetryWithProtoRefreshError", "40001"));
+    }
+
+    private static ContentionAwareItemWriter.Builder builder() {
+        return ContentionAwareItemWriter.builder()
+                .setInitialBackoff(Duration.ZERO)
+                .setMaxBackoff(Duration.ZERO)
+                .setGrowAfter(2);
+    }
+
+    @Test
+    public void whenLargeWritesContend_thenSplitAndGrowBack() throws Exception {
+        List<Integer> written = new ArrayList<>();
+
+        ContentionAwareItemWriter<Integer> writer = builder().build(chunk -> {
+            if (chunk.size() > 4) {
+                throw contentionError();
+            }
+            written.addAll(chunk.getItems());
+        });
+
+        List<Integer> items = IntStream.range(0, 32).boxed().collect(Collectors.toList());
+        writer.write(new Chunk<>(items));
+
+        Assertions.assertEquals(items, written);
+        Assertions.assertTrue(writer.getLimit() <= 16, "limit " + writer.getLimit());
+
+        written.clear();
+        writer.write(new Chunk<>(items));
+        Assertions.assertEquals(items, written);
+    }
+
+    @Test
+    public void whenSingleItemKeepsContending_thenFailAfterMaxAttempts() {
+        List<Integer> attempts = new ArrayList<>();
+
+        ContentionAwareItemWriter<Integer> writer = builder().setMaxAttempts(3).build(chunk -> {
+            if (chunk.getItems().contains(7)) {
+                attempts.add(chunk.size());
+                throw contentionError();
+            }
+        });
+
+        Assertions.assertThrows(ConcurrencyFailureException.class,
+                () -> writer.write(new Chunk<>(IntStream.range(0, 16).boxed().collect(Collectors.toList()))));
+        Assertions.assertEquals(List.of(16, 8, 4, 2, 1, 1, 1), attempts);
+    }
+
+    @Test
+    public void whenOtherError_thenRethrowWithoutRetry() {
+        List<Integer> attempts = new ArrayList<>();
+
+        ContentionAwareItemWriter<Integer> writer = builder().build(chunk -> {
+            attempts.add(chunk.size());
+            throw new DataIntegrityViolationException("duplicate key");
+        });
+
+        Assertions.assertThrows(DataIntegrityViolationException.class,
+                () -> writer.write(new Chunk<>(List.of(1, 2, 3))));
+        Assertions.assertEquals(List.of(3), attempts);
+        Assertions.assertFalse(ContentionAwareItemWriter.isContentionError(new SQLException("x", "23505")));
+        Assertions.assertTrue(ContentionAwareItemWriter.isContentionError(new RuntimeException(
+                new SQLException("x", "40003"))));
+    }
+}
@@ -0,0 +1,24 @@
+package io.roach.pipeline.item.jdbc;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CopyItemWriterTest {
+    @Test
+    public void whenEncodingRow_thenEscapeTextFormat() {
+        Map<String, Object> item = new HashMap<>();
+        item.put("id", 1);
+        item.put("name", "a\tb\\c\nd");
+        item.put("data", new byte[] {0x0a, (byte) 0xff});
+        item.put("note", null);
+
+        StringBuilder buffer = new StringBuilder();
+        CopyItemWriter.appendRow(buffer, List.of("id", "name", "data", "note"), item);
+
+        Assertions.assertEquals("1\ta\\tb\\\\c\\nd\t\\\\x0aff\t\\N\n", buffer.toString());
+    }
+}
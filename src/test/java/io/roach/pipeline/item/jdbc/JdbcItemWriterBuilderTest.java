@@ -0,0 +1,62 @@
+package io.roach.pipeline.item.jdbc;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+public class JdbcItemWriterBuilderTest {
+    private final SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+            "jdbc:h2:mem:writers;DB_CLOSE_DELAY=-1", "sa", "");
+
+    private JdbcItemWriterBuilder builder(String writeMode) {
+        return new JdbcItemWriterBuilder()
+                .setDataSource(dataSource)
+                .setWriteMode(writeMode)
+                .setInsertQuery("INSERT INTO customer (id,name) VALUES (:id,:name)");
+    }
+
+    @Test
+    public void whenBuildingForWriteMode_thenReturnMatchingWriter() {
+        Assertions.assertInstanceOf(JdbcBatchItemWriter.class, builder("batch").build());
+        Assertions.assertInstanceOf(JdbcBatchItemWriter.class, builder(null).build());
+        Assertions.assertInstanceOf(MultiRowItemWriter.class, builder("values").build());
+    }
+
+    @Test
+    public void whenCopyWithoutTable_thenFail() {
+        Assertions.assertThrows(IllegalStateException.class, () -> builder("copy").build());
+    }
+
+    @Test
+    public void whenCopyToNonPostgresTarget_thenFail() {
+        Assertions.assertThrows(IllegalStateException.class, () -> builder("copy").setTable("customer").build());
+    }
+
+    @Test
+    public void whenMergeIntoTable_thenFail() {
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, () -> builder("copy")
+                .setTable("customer")
+                .setMergeQuery("UPSERT INTO customer SELECT * FROM customer")
+                .build());
+        Assertions.assertTrue(e.getMessage().startsWith("copyTable is required"), e.getMessage());
+
+        e = Assertions.assertThrows(IllegalStateException.class, () -> builder("copy")
+                .setTable("customer")
+                .setCopyTable("CUSTOMER")
+                .setMergeQuery("UPSERT INTO customer SELECT * FROM customer")
+                .build());
+        Assertions.assertTrue(e.getMessage().startsWith("copyTable is required"), e.getMessage());
+    }
+
+    @Test
+    public void whenMergeWithPartitions_thenFail() {
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, () -> builder("copy")
+                .setTable("customer")
+                .setCopyTable("customer_staging")
+                .setMergeQuery("UPSERT INTO customer SELECT * FROM customer_staging")
+                .setPartitions(4)
+                .build());
+        Assertions.assertTrue(e.getMessage().startsWith("mergeQuery is not supported"), e.getMessage());
+    }
+}
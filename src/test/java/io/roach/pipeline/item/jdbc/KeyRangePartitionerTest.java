@@ -0,0 +1,122 @@
+package io.roach.pipeline.item.jdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+public class KeyRangePartitionerTest {
+    @Test
+    public void whenCreatingPartitions_thenCoverFullKeySpace() {
+        Map<String, ExecutionContext> partitions = KeyRangePartitioner.toPartitions(List.of(10, 20, 20, 30));
+        Assertions.assertEquals(4, partitions.size());
+
+        ExecutionContext first = partitions.get("partition0");
+        Assertions.assertFalse(first.containsKey(KeyRangePartitioner.MIN_VALUE));
+        Assertions.assertEquals(10, first.get(KeyRangePartitioner.MAX_VALUE));
+
+        ExecutionContext last = partitions.get("partition3");
+        Assertions.assertEquals(30, last.get(KeyRangePartitioner.MIN_VALUE));
+        Assertions.assertFalse(last.containsKey(KeyRangePartitioner.MAX_VALUE));
+
+        Assertions.assertEquals("WHERE (status = 'a') AND id >= :minValue AND id < :maxValue",
+                KeyRangePartitioner.rangeWhereClause("where status = 'a'", "id", partitions.get("partition1")));
+        Assertions.assertEquals("WHERE id < :maxValue",
+                KeyRangePartitioner.rangeWhereClause("", "id", first));
+    }
+
+    private SimpleDriverDataSource createTable(int rowCount) {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:partitions;DB_CLOSE_DELAY=-1", "sa", "");
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS customer (id INT PRIMARY KEY, name VARCHAR(32))");
+        jdbcTemplate.execute("DELETE FROM customer");
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(new Object[] {i * 3, "name-" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO customer (id, name) VALUES (?, ?)", rows);
+        return dataSource;
+    }
+
+    private void assertPartitionSizes(SimpleDriverDataSource dataSource, Map<String, ExecutionContext> partitions,
+                                      int min, int max, int expectedTotal) {
+        NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(dataSource);
+        int total = 0;
+        for (ExecutionContext context : partitions.values()) {
+            Integer count = namedTemplate.queryForObject("SELECT count(*) FROM customer "
+                            + KeyRangePartitioner.rangeWhereClause("WHERE 1=1", "id", context),
+                    KeyRangePartitioner.rangeParameterValues(context), Integer.class);
+            Assertions.assertTrue(count >= min && count <= max, "Uneven partition: " + count);
+            total += count;
+        }
+        Assertions.assertEquals(expectedTotal, total);
+    }
+
+    @Test
+    public void whenPartitioningTable_thenSplitIntoEvenKeyRanges() {
+        SimpleDriverDataSource dataSource = createTable(1000);
+
+        KeyRangePartitioner partitioner = new KeyRangePartitioner(dataSource, "id",
+                "FROM customer", "WHERE 1=1");
+        Map<String, ExecutionContext> partitions = partitioner.partition(4);
+        Assertions.assertEquals(4, partitions.size());
+
+        assertPartitionSizes(dataSource, partitions, 240, 260, 1000);
+    }
+
+    @Test
+    public void whenSamplingFewerKeysThanRows_thenSplitIntoRoughlyEvenKeyRanges() {
+        SimpleDriverDataSource dataSource = createTable(10_000);
+
+        KeyRangePartitioner partitioner = new KeyRangePartitioner(dataSource, "id",
+                "FROM customer", null).setSampleSize(500);
+        Map<String, ExecutionContext> partitions = partitioner.partition(4);
+        Assertions.assertEquals(4, partitions.size());
+
+        // Quantiles of a 500 key sample are within a few percent of the true ones
+        assertPartitionSizes(dataSource, partitions, 1_750, 3_250, 10_000);
+    }
+
+    @Test
+    public void whenTableIsEmpty_thenSinglePartition() {
+        SimpleDriverDataSource dataSource = createTable(0);
+
+        Map<String, ExecutionContext> partitions = new KeyRangePartitioner(dataSource, "id",
+                "FROM customer", null).partition(4);
+        Assertions.assertEquals(1, partitions.size());
+    }
+
+    @Test
+    public void whenTableIsLarge_thenInterpolateIntegerKeys() {
+        SimpleDriverDataSource dataSource = createTable(1000);
+
+        // No range boundaries in H2
+        KeyRangePartitioner partitioner = new KeyRangePartitioner(dataSource, "id",
+                "FROM customer", null).setSmallTableRows(100);
+        Map<String, ExecutionContext> partitions = partitioner.partition(4);
+        Assertions.assertEquals(4, partitions.size());
+
+        assertPartitionSizes(dataSource, partitions, 249, 251, 1000);
+    }
+
+    @Test
+    public void whenParsingRangeStartKeys_thenExtractLeadingKeyValue() {
+        Assertions.assertEquals("1000", KeyRangePartitioner.leadingKeyValue("/Table/106/1/1000"));
+        Assertions.assertEquals("1000", KeyRangePartitioner.leadingKeyValue("\u2026/1/1000/'abc'"));
+        Assertions.assertEquals("a/b", KeyRangePartitioner.leadingKeyValue("/Table/106/1/\"a/b\"/5"));
+        Assertions.assertEquals("-42", KeyRangePartitioner.leadingKeyValue("/-42"));
+
+        Assertions.assertNull(KeyRangePartitioner.leadingKeyValue(null));
+        Assertions.assertNull(KeyRangePartitioner.leadingKeyValue("/Table/106"));
+        Assertions.assertNull(KeyRangePartitioner.leadingKeyValue("\u2026/<TableMin>"));
+        Assertions.assertNull(KeyRangePartitioner.leadingKeyValue("/Table/106/2/1000"));
+    }
+}
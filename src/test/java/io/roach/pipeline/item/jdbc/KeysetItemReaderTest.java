@@ -0,0 +1,142 @@
+package io.roach.pipeline.item.jdbc;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.database.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+public class KeysetItemReaderTest {
+    private static final SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+            "jdbc:h2:mem:keyset;DB_CLOSE_DELAY=-1", "sa", "");
+
+    @BeforeAll
+    public static void setup() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS orders (region VARCHAR(8), id INT, total INT, "
+                + "PRIMARY KEY (region, id))");
+        jdbcTemplate.execute("DELETE FROM orders");
+        List<Object[]> rows = new ArrayList<>();
+        for (String region : List.of("eu", "us", "ap")) {
+            for (int i = 0; i < 100; i++) {
+                rows.add(new Object[] {region, i, i * 10});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO orders (region, id, total) VALUES (?, ?, ?)", rows);
+    }
+
+    private KeysetItemReader<String> createReader(Map<String, Order> sortKeys, boolean prefetch) {
+        return KeysetItemReader.<String>builder()
+                .setDataSource(dataSource)
+                .setName("test")
+                .setSelectClause("SELECT *")
+                .setFromClause("FROM orders")
+                .setWhereClause("WHERE total >= :minTotal")
+                .setParameterValues(Map.of("minTotal", 100))
+                .setSortKeys(sortKeys)
+                .setPageSize(16)
+                .setFetchSize(8)
+                .setPrefetch(prefetch)
+                .setRowMapper((rs, rowNum) -> rs.getString("region") + "-" + rs.getInt("id"))
+                .build();
+    }
+
+    private Map<String, Order> sortKeys(Order first, Order second) {
+        Map<String, Order> sortKeys = new LinkedHashMap<>();
+        sortKeys.put("region", first);
+        sortKeys.put("id", second);
+        return sortKeys;
+    }
+
+    @Test
+    public void whenCreatingSeekPredicate_thenUseTupleComparison() {
+        Assertions.assertEquals("(region,id) > (:_key0,:_key1)",
+                KeysetItemReader.seekPredicate(sortKeys(Order.ASCENDING, Order.ASCENDING)));
+        Assertions.assertEquals("((region < :_key0) OR (region = :_key0 AND id > :_key1))",
+                KeysetItemReader.seekPredicate(sortKeys(Order.DESCENDING, Order.ASCENDING)));
+    }
+
+    @Test
+    public void whenReadingWithPrefetch_thenReadAllInOrder() throws Exception {
+        for (Map<String, Order> sortKeys : List.of(
+                sortKeys(Order.ASCENDING, Order.ASCENDING),
+                sortKeys(Order.DESCENDING, Order.ASCENDING))) {
+            KeysetItemReader<String> reader = createReader(sortKeys, true);
+            reader.open(new ExecutionContext());
+
+            List<String> items = new ArrayList<>();
+            String item;
+            while ((item = reader.read()) != null) {
+                items.add(item);
+            }
+            reader.close();
+
+            Assertions.assertEquals(270, items.size());
+            if (sortKeys.get("region") == Order.ASCENDING) {
+                Assertions.assertEquals("ap-10", items.get(0));
+                Assertions.assertEquals("us-99", items.get(items.size() - 1));
+            } else {
+                Assertions.assertEquals("us-10", items.get(0));
+                Assertions.assertEquals("ap-99", items.get(items.size() - 1));
+            }
+        }
+    }
+
+    @Test
+    public void whenRestarting_thenSeekToLastReadKey() throws Exception {
+        ExecutionContext executionContext = new ExecutionContext();
+
+        KeysetItemReader<String> reader = createReader(sortKeys(Order.ASCENDING, Order.ASCENDING), false);
+        reader.open(executionContext);
+        for (int i = 0; i < 50; i++) {
+            reader.read();
+        }
+        reader.update(executionContext);
+        reader.close();
+
+        reader = createReader(sortKeys(Order.ASCENDING, Order.ASCENDING), false);
+        reader.open(executionContext);
+        Assertions.assertEquals("ap-60", reader.read());
+        reader.close();
+    }
+
+    @Test
+    public void whenReadingPage_thenUseReadOnlyTransactionAndRestoreConnection() throws Exception {
+        Connection connection = Mockito.spy(dataSource.getConnection());
+
+        KeysetItemReader<String> reader = KeysetItemReader.<String>builder()
+                .setDataSource(new SingleConnectionDataSource(connection, true))
+                .setName("test")
+                .setSelectClause("SELECT *")
+                .setFromClause("FROM orders")
+                .setSortKeys(sortKeys(Order.ASCENDING, Order.ASCENDING))
+                .setPageSize(16)
+                .setPrefetch(false)
+                .setRowMapper((rs, rowNum) -> rs.getString("region"))
+                .build();
+        reader.open(new ExecutionContext());
+        Assertions.assertNotNull(reader.read());
+        reader.close();
+
+        InOrder inOrder = Mockito.inOrder(connection);
+        inOrder.verify(connection).setReadOnly(true);
+        inOrder.verify(connection).setAutoCommit(false);
+        inOrder.verify(connection).prepareStatement(Mockito.anyString());
+        inOrder.verify(connection).commit();
+        inOrder.verify(connection).setAutoCommit(true);
+        inOrder.verify(connection).setReadOnly(false);
+
+        connection.close();
+    }
+}
@@ -0,0 +1,142 @@
+package io.roach.pipeline.item.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.batch.item.Chunk;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+public class MultiRowItemWriterTest {
+    @Test
+    public void whenSplittingRows_thenUsePowerOfTwoBuckets() {
+        Assertions.assertEquals(List.of(64, 32, 4), MultiRowItemWriter.buckets(100, 128));
+        Assertions.assertEquals(List.of(32, 32, 32, 4), MultiRowItemWriter.buckets(100, 32));
+        Assertions.assertEquals(List.of(1), MultiRowItemWriter.buckets(1, 32));
+        Assertions.assertEquals(List.of(), MultiRowItemWriter.buckets(0, 32));
+    }
+
+    @Test
+    public void whenAdaptingToLatency_thenHalveAndDoubleLimit() {
+        MultiRowItemWriter writer = new MultiRowItemWriter(new JdbcTemplate(),
+                "UPSERT INTO customer (id,name) VALUES (:id,:name)", 100, Duration.ofMillis(100));
+        Assertions.assertEquals(64, writer.getLimit());
+        Assertions.assertEquals("UPSERT INTO customer (id,name) VALUES (?,?),(?,?)", writer.toSql(2));
+
+        writer.adapt(64, Duration.ofMillis(200).toNanos());
+        Assertions.assertEquals(32, writer.getLimit());
+
+        // Partial statements are ignored
+        writer.adapt(8, Duration.ofMillis(200).toNanos());
+        Assertions.assertEquals(32, writer.getLimit());
+
+        writer.adapt(32, Duration.ofMillis(10).toNanos());
+        Assertions.assertEquals(64, writer.getLimit());
+
+        writer.adapt(64, Duration.ofMillis(10).toNanos());
+        Assertions.assertEquals(64, writer.getLimit());
+    }
+
+    @Test
+    public void whenWritingChunk_thenInsertAllRows() throws Exception {
+        SimpleDriverDataSource dataSource = new SimpleDriverDataSource(new org.h2.Driver(),
+                "jdbc:h2:mem:multirow;DB_CLOSE_DELAY=-1", "sa", "");
+
+        MultiRowItemWriter writer = MultiRowItemWriter.builder()
+                .setDataSource(dataSource)
+                .setCreateQuery("CREATE TABLE IF NOT EXISTS customer (id INT PRIMARY KEY, name VARCHAR(32))")
+                .setInsertQuery("INSERT INTO customer (id, name) VALUES (:id, UPPER(:name))")
+                .setMaxRows(16)
+                .build();
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(Map.of("id", i, "name", "name-" + i));
+        }
+        writer.write(new Chunk<>(items));
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Assertions.assertEquals(100, jdbcTemplate.queryForObject("SELECT count(*) FROM customer", Integer.class));
+        Assertions.assertEquals("NAME-99",
+                jdbcTemplate.queryForObject("SELECT name FROM customer WHERE id = 99", String.class));
+    }
+
+    @Test
+    public void whenDuplicateKeysInStatement_thenWriteOneRowAtATime() throws Exception {
+        List<String> statements = new ArrayList<>();
+        List<List<Object>> rows = new ArrayList<>();
+
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.getAutoCommit()).thenReturn(true);
+        Mockito.when(connection.prepareStatement(Mockito.anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            statements.add(sql);
+
+            List<Object> values = new ArrayList<>();
+            PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+            Mockito.doAnswer(set -> values.add(set.getArgument(1)))
+                    .when(ps).setObject(Mockito.anyInt(), Mockito.any());
+            Mockito.doAnswer(set -> values.add(set.getArgument(1)))
+                    .when(ps).setString(Mockito.anyInt(), Mockito.any());
+            Mockito.when(ps.executeUpdate()).thenAnswer(execute -> {
+                if (sql.contains("),(")) {
+                    throw new SQLException("UPSERT or INSERT...ON CONFLICT command cannot affect row a second time",
+                            MultiRowItemWriter.CARDINALITY_VIOLATION);
+                }
+                rows.add(values);
+                return 1;
+            });
+            return ps;
+        });
+
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        Mockito.when(dataSource.getConnection()).thenReturn(connection);
+
+        MultiRowItemWriter writer = new MultiRowItemWriter(new JdbcTemplate(dataSource),
+                "UPSERT INTO customer (id,name) VALUES (:id,:name)", 4, Duration.ofMillis(100));
+
+        writer.write(new Chunk<>(List.of(Map.of("id", 1, "name", "a"), Map.of("id", 2, "name", "b"),
+                Map.of("id", 1, "name", "c"), Map.of("id", 3, "name", "d"))));
+
+        Assertions.assertEquals(List.of(
+                "UPSERT INTO customer (id,name) VALUES (?,?),(?,?),(?,?),(?,?)",
+                "UPSERT INTO customer (id,name) VALUES (?,?)",
+                "UPSERT INTO customer (id,name) VALUES (?,?)",
+                "UPSERT INTO customer (id,name) VALUES (?,?)",
+                "UPSERT INTO customer (id,name) VALUES (?,?)"), statements);
+        // In item order so that the last row with a key wins
+        Assertions.assertEquals(List.of(List.of(1, "a"), List.of(2, "b"), List.of(1, "c"), List.of(3, "d")), rows);
+        // Fallback statements don't affect the rows per statement
+        Assertions.assertEquals(4, writer.getLimit());
+    }
+
+    @Test
+    public void whenOtherErrorInStatement_thenRethrow() throws Exception {
+        Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.getAutoCommit()).thenReturn(true);
+        PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+        Mockito.when(connection.prepareStatement(Mockito.anyString())).thenReturn(ps);
+        Mockito.when(ps.executeUpdate()).thenThrow(new SQLException("duplicate key value", "23505"));
+
+        DataSource dataSource = Mockito.mock(DataSource.class);
+        Mockito.when(dataSource.getConnection()).thenReturn(connection);
+
+        MultiRowItemWriter writer = new MultiRowItemWriter(new JdbcTemplate(dataSource),
+                "INSERT INTO customer (id,name) VALUES (:id,:name)", 4, Duration.ofMillis(100));
+
+        Assertions.assertThrows(DataAccessException.class, () -> writer.write(new Chunk<>(List.of(
+                Map.of("id", 1, "name", "a"), Map.of("id", 1, "name", "b")))));
+        Mockito.verify(connection, Mockito.times(1)).prepareStatement(Mockito.anyString());
+    }
+}
@@ -16,6 +16,12 @@ public class LogicalTimestampTest {
         Assertions.assertEquals(0, ts.getLogicalCounter());
     }
 
+    @Test
+    public void whenFormattingHLC_thenRoundTrip() {
+        Assertions.assertEquals("1546856630992375686.0000000001",
+                LogicalTimestamp.parse("1546856630992375686.0000000001").toHLC());
+    }
+
     @Test
     public void whenParsingHLC_thenSucceedAgain() {
         LogicalTimestamp ts = LogicalTimestamp.parse("1546856630992375686.0000000001");
@@ -0,0 +1,84 @@
+package io.roach.pipeline.util;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the change feed dispatch queue (many webhook producers, one batch reader)
+ * between {@link RingBufferQueue} and the previously used {@link LinkedBlockingDeque}.
+ * Run the main method from the test classpath (not part of the surefire test run).
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RingBufferQueueBenchmark {
+    private static final Object ELEMENT = new Object();
+
+    @Param({"256", "4096"})
+    private int capacity;
+
+    private RingBufferQueue<Object> ringBufferQueue;
+
+    private BlockingDeque<Object> blockingDeque;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RingBufferQueueBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Setup
+    public void setup() {
+        ringBufferQueue = new RingBufferQueue<>(capacity);
+        blockingDeque = new LinkedBlockingDeque<>(capacity);
+    }
+
+    @Benchmark
+    @Group("ringBuffer")
+    @GroupThreads(4)
+    public boolean ringBufferOffer() {
+        return ringBufferQueue.offer(ELEMENT);
+    }
+
+    @Benchmark
+    @Group("ringBuffer")
+    @GroupThreads(1)
+    public Object ringBufferPoll() {
+        return ringBufferQueue.poll();
+    }
+
+    @Benchmark
+    @Group("linkedBlockingDeque")
+    @GroupThreads(4)
+    public boolean blockingDequeOffer() {
+        return blockingDeque.offerLast(ELEMENT);
+    }
+
+    @Benchmark
+    @Group("linkedBlockingDeque")
+    @GroupThreads(1)
+    public Object blockingDequePoll() {
+        return blockingDeque.pollFirst();
+    }
+}
@@ -0,0 +1,103 @@
+package io.roach.pipeline.util;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RingBufferQueueTest {
+    @Test
+    public void whenCreatingQueue_thenKeepExactCapacity() {
+        Assertions.assertEquals(1, new RingBufferQueue<>(1).capacity());
+        Assertions.assertEquals(256, new RingBufferQueue<>(256).capacity());
+        Assertions.assertEquals(257, new RingBufferQueue<>(257).capacity());
+    }
+
+    @Test
+    public void whenCapacityIsNotPowerOfTwo_thenRejectBeyondCapacity() {
+        RingBufferQueue<Integer> queue = new RingBufferQueue<>(3);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 3; i++) {
+                Assertions.assertTrue(queue.offer(i));
+            }
+            Assertions.assertFalse(queue.offer(3));
+            Assertions.assertEquals(3, queue.size());
+            Assertions.assertEquals(0, queue.remainingCapacity());
+
+            List<Integer> drained = new ArrayList<>();
+            Assertions.assertEquals(3, queue.drainTo(drained, 10));
+            Assertions.assertEquals(List.of(0, 1, 2), drained);
+        }
+    }
+
+    @Test
+    public void whenOfferingBeyondCapacity_thenReject() {
+        RingBufferQueue<Integer> queue = new RingBufferQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertTrue(queue.offer(i));
+        }
+        Assertions.assertFalse(queue.offer(4));
+        Assertions.assertEquals(4, queue.size());
+
+        Assertions.assertEquals(0, queue.poll());
+        Assertions.assertTrue(queue.offer(4));
+
+        List<Integer> drained = new ArrayList<>();
+        Assertions.assertEquals(4, queue.drainTo(drained, 10));
+        Assertions.assertEquals(List.of(1, 2, 3, 4), drained);
+        Assertions.assertNull(queue.poll());
+        Assertions.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void whenPollingEmptyQueueWithTimeout_thenReturnNull() throws InterruptedException {
+        RingBufferQueue<Integer> queue = new RingBufferQueue<>(4);
+        Assertions.assertNull(queue.poll(Duration.ofMillis(20)));
+
+        RingBufferQueue<Integer> full = new RingBufferQueue<>(1);
+        Assertions.assertTrue(full.offer(1, Duration.ZERO));
+        Assertions.assertFalse(full.offer(2, Duration.ofMillis(20)));
+    }
+
+    @Test
+    public void whenManyProducersAndOneConsumer_thenReceiveAllInProducerOrder() throws Exception {
+        final int producers = 4;
+        final int perProducer = 50_000;
+
+        RingBufferQueue<long[]> queue = new RingBufferQueue<>(64);
+        CountDownLatch done = new CountDownLatch(producers);
+        Set<Throwable> errors = ConcurrentHashMap.newKeySet();
+
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            Thread t = new Thread(() -> {
+                try {
+                    for (long i = 0; i < perProducer; i++) {
+                        queue.put(new long[] {producer, i});
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+            t.start();
+        }
+
+        long[] next = new long[producers];
+        for (int i = 0; i < producers * perProducer; i++) {
+            long[] e = queue.take();
+            Assertions.assertEquals(next[(int) e[0]]++, e[1]);
+        }
+
+        Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assertions.assertTrue(errors.isEmpty());
+        Assertions.assertTrue(queue.isEmpty());
+    }
+}
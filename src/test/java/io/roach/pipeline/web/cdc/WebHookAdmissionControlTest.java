@@ -0,0 +1,178 @@
+package io.roach.pipeline.web.cdc;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.roach.pipeline.item.changefeed.ChangeFeedDispatcher;
+import io.roach.pipeline.item.changefeed.Payload;
+import io.roach.pipeline.item.changefeed.Subscriber;
+
+public class WebHookAdmissionControlTest {
+    private static final int QUEUE_CAPACITY = 4;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ScheduledExecutorService scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
+
+    private ChangeFeedDispatcher dispatcher;
+
+    private WebHookAdmissionControl admissionControl;
+
+    private Subscriber subscriber;
+
+    @BeforeEach
+    public void setUp() {
+        dispatcher = new ChangeFeedDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", QUEUE_CAPACITY);
+
+        admissionControl = new WebHookAdmissionControl(dispatcher, scheduledExecutor, meterRegistry);
+        ReflectionTestUtils.setField(admissionControl, "enabled", true);
+        ReflectionTestUtils.setField(admissionControl, "highWatermark", 1.0);
+        ReflectionTestUtils.setField(admissionControl, "maxWait", Duration.ofMillis(200));
+        ReflectionTestUtils.setField(admissionControl, "pollInterval", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(admissionControl, "retryAfter", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(admissionControl, "rejectionStatus", 429);
+
+        subscriber = new Subscriber("test");
+        dispatcher.registerSubscriber(subscriber);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dispatcher.unregisterSubscriber(subscriber);
+        scheduledExecutor.shutdownNow();
+    }
+
+    private Payload createPayload(int key) throws Exception {
+        return objectMapper.readValue("{\"key\": [" + key + "], \"after\": {\"id\": " + key + "}}",
+                Payload.class);
+    }
+
+    private String createEvent(int payloads) {
+        StringBuilder sb = new StringBuilder("{\"payload\": [");
+        for (int key = 0; key < payloads; key++) {
+            sb.append(key > 0 ? "," : "").append("{\"key\": [").append(key).append("], \"after\": {\"id\": ")
+                    .append(key).append("}}");
+        }
+        return sb.append("], \"length\": ").append(payloads).append("}").toString();
+    }
+
+    private Timer waitTimer() {
+        return meterRegistry.timer("cdc.admission.wait", "subscriber", subscriber.getId());
+    }
+
+    private double rejections() {
+        return meterRegistry.counter("cdc.admission.rejected", "subscriber", subscriber.getId()).count();
+    }
+
+    private ChangeFeedWebHookController createController() {
+        return new ChangeFeedWebHookController(meterRegistry, objectMapper, objectMapper, dispatcher,
+                admissionControl, new SimpleAsyncTaskExecutor());
+    }
+
+    @Test
+    public void whenQueueHasCapacity_thenAdmitWithoutWait() throws Exception {
+        Assertions.assertTrue(admissionControl.admit(subscriber).get(1, TimeUnit.SECONDS));
+
+        Assertions.assertEquals(1, waitTimer().count());
+        Assertions.assertEquals(0, waitTimer().totalTime(TimeUnit.NANOSECONDS));
+        Assertions.assertEquals(0, rejections());
+    }
+
+    @Test
+    public void whenQueueIsSaturated_thenRecordWaitAndReject() throws Exception {
+        for (int key = 0; key < QUEUE_CAPACITY; key++) {
+            dispatcher.publish(subscriber, createPayload(key));
+        }
+
+        Assertions.assertFalse(admissionControl.admit(subscriber).get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, waitTimer().count());
+        Assertions.assertTrue(waitTimer().totalTime(TimeUnit.MILLISECONDS) >= 200,
+                "Wait time: " + waitTimer().totalTime(TimeUnit.MILLISECONDS));
+
+        ResponseEntity<String> response = admissionControl.reject(subscriber);
+        Assertions.assertEquals(429, response.getStatusCode().value());
+        Assertions.assertEquals("5", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        Assertions.assertEquals(1, rejections());
+    }
+
+    @Test
+    public void whenQueueDrainsWhileWaiting_thenAdmit() throws Exception {
+        for (int key = 0; key < QUEUE_CAPACITY; key++) {
+            dispatcher.publish(subscriber, createPayload(key));
+        }
+
+        scheduledExecutor.schedule(() -> dispatcher.receive(subscriber), 50, TimeUnit.MILLISECONDS);
+
+        Assertions.assertTrue(admissionControl.admit(subscriber).get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(1, waitTimer().count());
+        Assertions.assertTrue(waitTimer().totalTime(TimeUnit.NANOSECONDS) > 0);
+        Assertions.assertEquals(0, rejections());
+    }
+
+    @Test
+    public void whenRequestIsNotAdmitted_thenRespondWithRetryAfter() throws Exception {
+        for (int key = 0; key < QUEUE_CAPACITY; key++) {
+            dispatcher.publish(subscriber, createPayload(key));
+        }
+
+        ResponseEntity<String> response = createController().onChangeEvent(subscriber.getId(),
+                        new ByteArrayInputStream(createEvent(1).getBytes(StandardCharsets.UTF_8)))
+                .get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(429, response.getStatusCode().value());
+        Assertions.assertEquals("5", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        Assertions.assertEquals(QUEUE_CAPACITY, dispatcher.getQueueSize(subscriber));
+        Assertions.assertEquals(1, rejections());
+    }
+
+    @Test
+    public void whenQueueFillsWhilePublishing_thenRespondWithRetryAfter() throws Exception {
+        long startTime = System.nanoTime();
+        ResponseEntity<String> response = createController().onChangeEvent(subscriber.getId(),
+                        new ByteArrayInputStream(createEvent(QUEUE_CAPACITY * 2).getBytes(StandardCharsets.UTF_8)))
+                .get(5, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        Assertions.assertEquals(429, response.getStatusCode().value());
+        Assertions.assertEquals("5", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        Assertions.assertTrue(elapsedMillis < 5_000, "Publishing not bounded by max wait: " + elapsedMillis);
+        Assertions.assertEquals(QUEUE_CAPACITY, dispatcher.getQueueSize(subscriber));
+        Assertions.assertEquals(1, rejections());
+
+        // The rejected payload doesn't hold back the applied watermark
+        subscriber.markApplied(1, 2, 3, 4);
+        Assertions.assertEquals(QUEUE_CAPACITY + 1, subscriber.getAppliedSequence());
+    }
+
+    @Test
+    public void whenQueueHasCapacityForAllPayloads_thenAccept() throws Exception {
+        ResponseEntity<String> response = createController().onChangeEvent(subscriber.getId(),
+                        new ByteArrayInputStream(createEvent(QUEUE_CAPACITY).getBytes(StandardCharsets.UTF_8)))
+                .get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(200, response.getStatusCode().value());
+        Assertions.assertEquals(QUEUE_CAPACITY, dispatcher.getQueueSize(subscriber));
+        Assertions.assertEquals(0, rejections());
+    }
+}